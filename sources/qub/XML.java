@@ -15,21 +15,199 @@ public interface XML
      */
     char[] attributeValueQuoteCharacters = new char[] { '\'', '\"' };
 
+    /**
+     * The minimum size in bytes that a file must have before XML.parse(File) will memory-map the
+     * file instead of streaming its contents.
+     */
+    long memoryMapMinimumByteCount = 1024 * 1024;
+
+    /**
+     * Parse an XMLDocument from the provided file. Files on the local disk that are at least
+     * {@link #memoryMapMinimumByteCount} bytes long are memory-mapped and parsed directly from
+     * their bytes. The file's encoding is found from its byte order mark or its declaration, and
+     * is UTF-8 if it has neither.
+     * @param file The file to parse.
+     * @return The parsed XMLDocument.
+     */
     static Result<XMLDocument> parse(File file)
     {
         PreCondition.assertNotNull(file, "file");
 
+        return XML.parse(file, XML.memoryMapMinimumByteCount);
+    }
+
+    /**
+     * Parse an XMLDocument from the provided file. Files on the local disk that are at least
+     * memoryMapMinimumByteCount bytes long are memory-mapped, which lets the operating system's
+     * page cache provide the bytes instead of copying them into heap buffers. Mapped UTF-8,
+     * ISO-8859-1, US-ASCII, and UTF-16 files are parsed directly from their bytes. Smaller files
+     * and files that aren't on the local disk are streamed, and their bytes are decoded and parsed
+     * as they are read instead of being copied into memory first. The file's encoding is found
+     * from its byte order mark or its declaration, and is UTF-8 if it has neither.
+     * @param file The file to parse.
+     * @param memoryMapMinimumByteCount The minimum size in bytes that the file must have before it
+     *                                  will be memory-mapped.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parse(File file, long memoryMapMinimumByteCount)
+    {
+        PreCondition.assertNotNull(file, "file");
+        PreCondition.assertGreaterThanOrEqualTo(memoryMapMinimumByteCount, 0, "memoryMapMinimumByteCount");
+
         return Result.create(() ->
         {
-            XMLDocument result;
-            try (final CharacterReadStream readStream = CharacterReadStream.create(BufferedByteReadStream.create(file.getContentsReadStream().await())))
+            final java.nio.ByteBuffer mappedBytes = file.getFileSystem() instanceof JavaFileSystem
+                ? XML.mapContents(java.nio.file.Paths.get(file.getPath().toString()), memoryMapMinimumByteCount)
+                : null;
+            final XMLDocument result;
+            if (mappedBytes != null)
+            {
+                result = XMLEncoding.createParser(mappedBytes).parseDocument();
+            }
+            else
             {
-                result = XML.parse(CharacterReadStream.iterate(readStream)).await();
+                try (final ByteReadStream readStream = file.getContentsReadStream().await())
+                {
+                    result = new XMLCharacterBufferParser().parseDocument(readStream);
+                }
             }
             return result;
         });
     }
 
+    /**
+     * Parse each of the provided files on a bounded number of threads, so that reading one file
+     * overlaps with parsing the others. At most twice as many files as there are processors are
+     * parsed at the same time.
+     * @param files The files to parse.
+     * @return The result of parsing each file, in the same order as the provided files.
+     */
+    static Result<List<Result<XMLDocument>>> parseAll(Iterable<File> files)
+    {
+        PreCondition.assertNotNull(files, "files");
+
+        return XML.parseAll(files, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * Parse each of the provided files on at most the provided number of threads, so that reading
+     * one file overlaps with parsing the others. A file that can't be parsed doesn't stop the
+     * other files from being parsed.
+     * @param files The files to parse.
+     * @param maximumConcurrency The maximum number of files to parse at the same time.
+     * @return The result of parsing each file, in the same order as the provided files.
+     */
+    static Result<List<Result<XMLDocument>>> parseAll(Iterable<File> files, int maximumConcurrency)
+    {
+        PreCondition.assertNotNull(files, "files");
+        PreCondition.assertGreaterThanOrEqualTo(maximumConcurrency, 1, "maximumConcurrency");
+
+        return Result.create(() ->
+        {
+            final List<Result<XMLDocument>> result = List.create();
+            XMLBatchParser.parseAll(files, maximumConcurrency, (Integer fileIndex, File file, Result<XMLDocument> fileResult) ->
+            {
+                while (result.getCount() <= fileIndex)
+                {
+                    result.add(null);
+                }
+                result.set(fileIndex, fileResult);
+            });
+            return result;
+        });
+    }
+
+    /**
+     * Parse each of the provided files on at most the provided number of threads and call the
+     * provided callback with each file's result as soon as the file is parsed. The callback is
+     * called on the calling thread in the order that the files finish, and this doesn't return
+     * until every file has been reported. Only maximumConcurrency documents are held at a time,
+     * so any number of files can be processed without keeping all of their documents.
+     * @param files The files to parse.
+     * @param maximumConcurrency The maximum number of files to parse at the same time.
+     * @param onParsed The callback to call with each file and the result of parsing it.
+     * @return The result of parsing the files.
+     */
+    static Result<Void> parseAll(Iterable<File> files, int maximumConcurrency, Action2<File,Result<XMLDocument>> onParsed)
+    {
+        PreCondition.assertNotNull(files, "files");
+        PreCondition.assertGreaterThanOrEqualTo(maximumConcurrency, 1, "maximumConcurrency");
+        PreCondition.assertNotNull(onParsed, "onParsed");
+
+        return Result.create(() ->
+        {
+            XMLBatchParser.parseAll(files, maximumConcurrency, (Integer fileIndex, File file, Result<XMLDocument> fileResult) ->
+            {
+                onParsed.run(file, fileResult);
+            });
+        });
+    }
+
+    /**
+     * Memory-map the contents of the file at the provided path if the file is at least
+     * memoryMapMinimumByteCount bytes long. Files that can't be indexed by an int are not mapped.
+     * @param path The path to the file to map.
+     * @param memoryMapMinimumByteCount The minimum size in bytes that the file must have before it
+     *                                  will be memory-mapped.
+     * @return The read-only mapped contents of the file, or null if the file was not mapped.
+     */
+    static java.nio.ByteBuffer mapContents(java.nio.file.Path path, long memoryMapMinimumByteCount)
+    {
+        PreCondition.assertNotNull(path, "path");
+        PreCondition.assertGreaterThanOrEqualTo(memoryMapMinimumByteCount, 0, "memoryMapMinimumByteCount");
+
+        java.nio.ByteBuffer result = null;
+        try (final java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(path, java.nio.file.StandardOpenOption.READ))
+        {
+            final long byteCount = channel.size();
+            if (memoryMapMinimumByteCount <= byteCount && byteCount <= Integer.MAX_VALUE)
+            {
+                result = channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, 0, byteCount);
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            // Files that can't be mapped are streamed instead, which will report the error.
+        }
+        return result;
+    }
+
+    /**
+     * Parse the provided file and call the provided handler as each part of the document is
+     * recognized. Files on the local disk are memory-mapped, so the document is never copied into
+     * heap buffers and files of any size can be processed in a constant amount of memory, unless
+     * they are in an encoding other than UTF-8, ISO-8859-1, US-ASCII, or UTF-16, in which case they
+     * are decoded to characters first. Other files are streamed through an XMLIncrementalParser.
+     * The file's encoding is found from its byte order mark or its declaration, and is UTF-8 if it
+     * has neither.
+     * @param file The file to parse.
+     * @param handler The handler to call.
+     * @return The result of parsing the file.
+     */
+    static Result<Void> parse(File file, XMLHandler handler)
+    {
+        PreCondition.assertNotNull(file, "file");
+        PreCondition.assertNotNull(handler, "handler");
+
+        return Result.create(() ->
+        {
+            final java.nio.ByteBuffer mappedBytes = file.getFileSystem() instanceof JavaFileSystem
+                ? XML.mapContents(java.nio.file.Paths.get(file.getPath().toString()), 0)
+                : null;
+            if (mappedBytes != null)
+            {
+                XMLEncoding.createParser(mappedBytes).parse(handler);
+            }
+            else
+            {
+                try (final ByteReadStream readStream = file.getContentsReadStream().await())
+                {
+                    XMLIncrementalParser.create(handler).feedAndFinish(readStream);
+                }
+            }
+        });
+    }
+
     /**
      * Parse an XMLDocument from the provided text.
      * @param text The text to parse.
@@ -39,7 +217,48 @@ public interface XML
     {
         PreCondition.assertNotNull(text, "text");
 
-        return XML.parse(Strings.iterable(text));
+        return XML.parse((CharSequence)text);
+    }
+
+    /**
+     * Parse an XMLDocument from the provided UTF-8 encoded bytes.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parse(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return Result.create(() -> XMLByteParser.create(bytes).parseDocument());
+    }
+
+    /**
+     * Parse an XMLDocument from the UTF-8 encoded bytes between the provided buffer's position and
+     * limit. The markup is recognized directly from the bytes, and bytes are only decoded to
+     * characters for names, text, and attribute values. The buffer's position is not changed.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parse(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return Result.create(() -> XMLByteParser.create(bytes).parseDocument());
+    }
+
+    /**
+     * Parse an XMLDocument from the bytes that the provided XMLStructuralIndex was created for.
+     * The parser uses the index to jump from one markup character to the next instead of checking
+     * each byte of text and attribute values, so the same index can be used to parse the bytes
+     * again without scanning them again.
+     * @param structuralIndex The structural index of the UTF-8 encoded bytes to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parse(XMLStructuralIndex structuralIndex)
+    {
+        PreCondition.assertNotNull(structuralIndex, "structuralIndex");
+
+        return Result.create(() -> XMLByteParser.create(structuralIndex).parseDocument());
     }
 
     /**
@@ -47,464 +266,418 @@ public interface XML
      * @param characters The characters to parse.
      * @return The parsed XMLDocument.
      */
-    static Result<XMLDocument> parse(Iterable<Character> characters)
+    static Result<XMLDocument> parse(char[] characters)
     {
         PreCondition.assertNotNull(characters, "characters");
 
-        return XML.parse(characters.iterate());
+        return Result.create(() -> XMLCharacterParser.create(characters).parseDocument());
     }
 
     /**
-     * Parse an XMLDocument from the provided characters.
+     * Parse an XMLDocument from the provided characters. The characters are read by index without
+     * being boxed, which makes this much faster than parsing the same characters through an
+     * Iterator.
      * @param characters The characters to parse.
      * @return The parsed XMLDocument.
      */
-    static Result<XMLDocument> parse(Iterator<Character> characters)
+    static Result<XMLDocument> parse(CharSequence characters)
     {
         PreCondition.assertNotNull(characters, "characters");
 
-        return Result.create(() ->
-        {
-            characters.start();
+        return Result.create(() -> XMLCharacterParser.create(characters).parseDocument());
+    }
 
-            boolean isFirstSegment = true;
-            final XMLDocument result = XMLDocument.create();
-            while (characters.hasCurrent())
-            {
-                switch (characters.getCurrent())
-                {
-                    case '<':
-                        characters.next();
-
-                        if (!characters.hasCurrent())
-                        {
-                            throw XML.missing("tag name");
-                        }
-
-                        switch (characters.getCurrent())
-                        {
-                            case '?':
-                                characters.next();
-
-                                XML.expect(characters, XML::isNameStartCharacter, "declaration name (\"xml\")");
-
-                                final String declarationName = XML.parseName(characters).await();
-                                if (!declarationName.equals("xml"))
-                                {
-                                    throw XML.expected("declaration name (\"xml\")");
-                                }
-
-                                XML.parseWhitespace(characters).await();
-
-                                final XMLAttribute declarationVersion = XML.parseAttribute(characters, "version", "declaration version").await();
-
-                                if (!characters.hasCurrent())
-                                {
-                                    throw XML.missing("declaration right question mark ('?')");
-                                }
-
-                                XMLAttribute declarationEncoding = null;
-                                XMLAttribute declarationStandalone = null;
-                                while (characters.hasCurrent() && XML.isWhitespaceCharacter(characters.getCurrent()))
-                                {
-                                    XML.parseWhitespace(characters).await();
-
-                                    if (!characters.hasCurrent() ||
-                                        !XML.isNameStartCharacter(characters.getCurrent()) ||
-                                        declarationStandalone != null)
-                                    {
-                                        break;
-                                    }
-
-                                    if (declarationEncoding == null)
-                                    {
-                                        if (characters.getCurrent() == 'e')
-                                        {
-                                            declarationEncoding = XML.parseAttribute(characters, "encoding", "declaration encoding").await();
-                                            if (Strings.isNullOrEmpty(declarationEncoding.getValue()))
-                                            {
-                                                throw XML.expected("declaration encoding attribute value to be not empty");
-                                            }
-                                        }
-                                        else if (characters.getCurrent() == 's')
-                                        {
-                                            declarationStandalone = XML.parseAttribute(characters, "standalone", "declaration standalone").await();
-                                            if (!Iterable.create("no", "yes").contains(declarationStandalone.getValue()))
-                                            {
-                                                throw XML.expected("declaration standalone attribute value to be \"no\" or \"yes\"");
-                                            }
-                                        }
-                                        else
-                                        {
-                                            throw XML.expected("declaration encoding attribute, standalone attribute, or right question mark ('?')");
-                                        }
-                                    }
-                                    else
-                                    {
-                                        if (characters.getCurrent() == 's')
-                                        {
-                                            declarationStandalone = XML.parseAttribute(characters, "standalone", "declaration standalone").await();
-                                            if (!Iterable.create("no", "yes").contains(declarationStandalone.getValue()))
-                                            {
-                                                throw XML.expected("declaration standalone attribute value to be \"no\" or \"yes\"");
-                                            }
-                                        }
-                                        else
-                                        {
-                                            throw XML.expected("declaration standalone attribute or right question mark ('?')");
-                                        }
-                                    }
-                                }
-
-                                XML.expectAndTake(characters, '?', "declaration right question mark ('?')");
-                                XML.expectAndTake(characters, '>', "declaration right angle bracket ('>')");
-
-                                if (result.getDeclaration() != null)
-                                {
-                                    throw new ParseException("An XML document can only have one declaration.");
-                                }
-                                if (!isFirstSegment)
-                                {
-                                    throw XML.expected("the XML declaration to be the first character in the document");
-                                }
-
-                                final XMLDeclaration declaration = XMLDeclaration.create()
-                                    .setVersion(declarationVersion.getValue());
-                                if (declarationEncoding != null)
-                                {
-                                    declaration.setEncoding(declarationEncoding.getValue());
-                                }
-                                if (declarationStandalone != null)
-                                {
-                                    declaration.setStandalone(declarationStandalone.getValue());
-                                }
-                                result.setDeclaration(declaration);
-                                break;
-
-                            case '/':
-                                throw new ParseException("An XML document cannot have an end tag without a start tag.");
-
-                            case '!':
-                                characters.next();
-
-                                XML.expect(characters, new char[] { '-', '[' }, "comment first left dash ('-') or CDATA first left square bracket ('[')");
-
-                                if (characters.getCurrent() == '-')
-                                {
-                                    XML.parseCommentAtFirstLeftDash(characters).await();
-                                }
-                                else // if (characters.getCurrent() == '[')
-                                {
-                                    XML.parseCDataAtFirstLeftSquareBracket(characters).await();
-                                    throw new ParseException("An XML document cannot have a CDATA tag at its root.");
-                                }
-                                break;
-
-                            default:
-                                if (XML.isNameStartCharacter(characters.getCurrent()))
-                                {
-                                    final XMLElement element = XML.parseElementAtName(characters).await();
-                                    if (result.getRoot() != null)
-                                    {
-                                        throw new ParseException("An XML document can only have one root element.");
-                                    }
-                                    result.setRoot(element);
-                                }
-                                else
-                                {
-                                    throw new ParseException("Unexpected tag name start character: " + Characters.escapeAndQuote(characters.getCurrent()));
-                                }
-                                break;
-                        }
-                        break;
-
-                    default:
-                        final XMLText text = XML.parseText(characters).await();
-                        if (!text.isWhitespace())
-                        {
-                            throw XML.expected("only whitespace and elements at the root of the document");
-                        }
-                        break;
-                }
-                isFirstSegment = false;
-            }
+    /**
+     * Parse the provided text and create only the elements that match one of the provided element
+     * paths. Each path is made up of steps that start with "/" to match a child or "//" to match
+     * any descendant, followed by an element name or "*". For example, "/feed/entry/id" matches
+     * the id children of the entry children of a feed root element, and "//price" matches every
+     * price element in the document. A matching element is created with its whole subtree, and
+     * elements that can't contain a match are skipped without creating their names or
+     * attributes. The whole text is still checked for well-formedness.
+     * @param text The text to parse.
+     * @param paths The element paths to match.
+     * @return The matching elements in document order.
+     */
+    static Result<List<XMLElement>> parseElements(String text, Iterable<String> paths)
+    {
+        PreCondition.assertNotNull(text, "text");
+        PreCondition.assertNotNull(paths, "paths");
 
-            return result;
-        });
+        return Result.create(() -> XMLElementFilter.create(paths).parse(XMLCharacterParser.create(text)));
     }
 
-    static Result<XMLElement> parseElementAtName(Iterator<Character> characters)
+    /**
+     * Parse the provided UTF-8 encoded bytes and create only the elements that match one of the
+     * provided element paths. See {@link #parseElements(String, Iterable)} for the path syntax.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @param paths The element paths to match.
+     * @return The matching elements in document order.
+     */
+    static Result<List<XMLElement>> parseElements(byte[] bytes, Iterable<String> paths)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(paths, "paths");
+
+        return XML.parseElements(java.nio.ByteBuffer.wrap(bytes), paths);
+    }
+
+    /**
+     * Parse the UTF-8 encoded bytes between the provided buffer's position and limit and create
+     * only the elements that match one of the provided element paths. See
+     * {@link #parseElements(String, Iterable)} for the path syntax. The buffer's position is not
+     * changed.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @param paths The element paths to match.
+     * @return The matching elements in document order.
+     */
+    static Result<List<XMLElement>> parseElements(java.nio.ByteBuffer bytes, Iterable<String> paths)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(paths, "paths");
+
+        return Result.create(() -> XMLElementFilter.create(paths).parse(XMLByteParser.create(bytes)));
+    }
+
+    /**
+     * Parse an XMLDocument from the provided text without building its elements up front. The
+     * whole text is checked for well-formedness, but only the positions of the elements are
+     * recorded. Each element's attributes and children are parsed the first time that they are
+     * needed, so documents that are only partly read never create most of their nodes. Text and
+     * attribute values refer to their characters in the provided text, and are only copied out of
+     * it when they are read.
+     * @param text The text to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parseLazily(String text)
+    {
+        PreCondition.assertNotNull(text, "text");
+
+        return Result.create(() -> XMLElementLoader.parseDocument(XMLCharacterParser.create(text)));
+    }
+
+    /**
+     * Parse an XMLDocument from the provided characters without building its elements up front.
+     * Each element's attributes and children are parsed the first time that they are needed, so
+     * the characters must not be changed while the document is being used. Text and attribute
+     * values refer to their characters in the provided array, and are only copied out of it when
+     * they are read.
+     * @param characters The characters to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parseLazily(char[] characters)
     {
         PreCondition.assertNotNull(characters, "characters");
 
-        return Result.create(() ->
-        {
-            final String name = XML.parseName(characters, "start tag or empty element").await();
-            final List<XMLAttribute> attributes = List.create();
+        return Result.create(() -> XMLElementLoader.parseDocument(XMLCharacterParser.create(characters)));
+    }
 
-            while (characters.hasCurrent() && XML.isWhitespaceCharacter(characters.getCurrent()))
-            {
-                XML.parseWhitespace(characters).await();
+    /**
+     * Parse an XMLDocument from the provided UTF-8 encoded bytes without building its elements up
+     * front. Each element's attributes and children are parsed the first time that they are
+     * needed, so the bytes must not be changed while the document is being used.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parseLazily(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
 
-                if (characters.hasCurrent() && XML.isNameStartCharacter(characters.getCurrent()))
-                {
-                    attributes.add(XML.parseAttribute(characters, "start tag").await());
-                }
-            }
+        return XML.parseLazily(java.nio.ByteBuffer.wrap(bytes));
+    }
 
-            XMLElement result;
-            boolean isEmptyElement = characters.hasCurrent() && characters.getCurrent() == '/';
-            if (isEmptyElement)
-            {
-                characters.next();
-            }
-            result = XMLElement.create(name, !isEmptyElement)
-                .setAttributes(attributes);
+    /**
+     * Parse an XMLDocument from the UTF-8 encoded bytes between the provided buffer's position and
+     * limit without building its elements up front. Each element's attributes and children are
+     * parsed the first time that they are needed, so the bytes must not be changed while the
+     * document is being used. This works well with memory-mapped files, since only the parts of
+     * the file that are read are decoded. Text and attribute values refer to their bytes in the
+     * provided buffer, and are only decoded when they are read. The positions of the markup
+     * characters are found in a first pass over the bytes, and elements that are loaded later use
+     * those positions to skip over their text and attribute values.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parseLazily(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
 
-            XML.expectAndTake(characters, '>', (isEmptyElement ? "empty element" : "start tag") + " right angle bracket ('>')");
+        return Result.create(() -> XMLElementLoader.parseDocument(XMLByteParser.create(XMLStructuralIndex.create(bytes))));
+    }
 
-            if (result.isSplit())
-            {
-                boolean foundEndTag = false;
-                while (characters.hasCurrent() && !foundEndTag)
-                {
-                    switch (characters.getCurrent())
-                    {
-                        case '<':
-                            characters.next();
-
-                            if (!characters.hasCurrent())
-                            {
-                                throw XML.missing("tag name");
-                            }
-
-                            switch (characters.getCurrent())
-                            {
-                                case '?':
-                                    throw XML.expected("the XML declaration to be the first character in the document");
-
-                                case '/':
-                                    characters.next();
-
-                                    XML.expect(characters, XML::isNameStartCharacter, "end tag name");
-
-                                    final String endTagName = XML.parseName(characters, "end tag").await();
-
-                                    XML.parseOptionalWhitespace(characters);
-
-                                    XML.expectAndTake(characters, '>', "end tag right angle bracket ('>')");
-
-                                    if (endTagName.equals(name))
-                                    {
-                                        foundEndTag = true;
-                                    }
-                                    else
-                                    {
-                                        throw XML.expected("an end tag with the name same as the current element");
-                                    }
-                                    break;
-
-                                case '!':
-                                    characters.next();
-
-                                    XML.expect(characters, new char[] { '-', '[' }, "comment first left dash ('-') or CDATA first left square bracket ('[')");
-
-                                    if (characters.getCurrent() == '-')
-                                    {
-                                        XML.parseCommentAtFirstLeftDash(characters).await();
-                                    }
-                                    else // if (characters.getCurrent() == '[')
-                                    {
-                                        final XMLCData cdata = XML.parseCDataAtFirstLeftSquareBracket(characters).await();
-                                        result.addChild(cdata);
-                                    }
-                                    break;
-
-                                default:
-                                    if (XML.isNameStartCharacter(characters.getCurrent()))
-                                    {
-                                        final XMLElement element = XML.parseElementAtName(characters).await();
-                                        result.addChild(element);
-                                    }
-                                    else
-                                    {
-                                        throw new ParseException("Unexpected tag name start character: " + Characters.escapeAndQuote(characters.getCurrent()));
-                                    }
-                                    break;
-                            }
-                            break;
-
-                        default:
-                            final XMLText text = XML.parseText(characters).await();
-                            if (!text.isWhitespace())
-                            {
-                                result.addChild(text);
-                            }
-                            break;
-                    }
-                }
+    /**
+     * Parse an XMLCompactDocument from the provided text. The document's nodes are stored in
+     * parallel arrays instead of as XMLElement and XMLText objects, and its text and attribute
+     * values refer to their characters in the provided text.
+     * @param text The text to parse.
+     * @return The parsed XMLCompactDocument.
+     */
+    static Result<XMLCompactDocument> parseCompact(String text)
+    {
+        PreCondition.assertNotNull(text, "text");
 
-                if (!foundEndTag)
-                {
-                    throw XML.missing("end tag");
-                }
-            }
+        return Result.create(() -> XMLCompactDocument.parse(XMLCharacterParser.create(text)));
+    }
 
-            PostCondition.assertNotNull(result, "result");
+    /**
+     * Parse an XMLCompactDocument from the provided UTF-8 encoded bytes. The bytes must not be
+     * changed while the document is being used.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The parsed XMLCompactDocument.
+     */
+    static Result<XMLCompactDocument> parseCompact(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
 
-            return result;
-        });
+        return XML.parseCompact(java.nio.ByteBuffer.wrap(bytes));
     }
 
-    static Result<XMLComment> parseCommentAtFirstLeftDash(Iterator<Character> characters)
+    /**
+     * Parse an XMLCompactDocument from the UTF-8 encoded bytes between the provided buffer's
+     * position and limit. The document's text and attribute values refer to their bytes in the
+     * provided buffer and are only decoded when they are read, so the bytes must not be changed
+     * while the document is being used. The buffer's position is not changed.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The parsed XMLCompactDocument.
+     */
+    static Result<XMLCompactDocument> parseCompact(java.nio.ByteBuffer bytes)
     {
-        PreCondition.assertNotNull(characters, "characters");
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return Result.create(() -> XMLCompactDocument.parse(XMLByteParser.create(bytes)));
+    }
+
+    /**
+     * Parse an XMLDocument from the provided file on multiple threads. Files on the local disk are
+     * memory-mapped and the content of their root element is parsed in chunks on the common
+     * ForkJoinPool. Other files, and files that aren't UTF-8 encoded, are parsed the same way as
+     * XML.parse(File).
+     * @param file The file to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parseParallel(File file)
+    {
+        PreCondition.assertNotNull(file, "file");
 
         return Result.create(() ->
         {
-            XML.expectAndTake(characters, '-', "comment first left dash ('-')");
-            XML.expectAndTake(characters, '-', "comment second left dash ('-')");
+            final java.nio.ByteBuffer mappedBytes = file.getFileSystem() instanceof JavaFileSystem
+                ? XML.mapContents(java.nio.file.Paths.get(file.getPath().toString()), 0)
+                : null;
+            return mappedBytes != null && XMLEncoding.getCharset(mappedBytes, true).equals(java.nio.charset.StandardCharsets.UTF_8)
+                ? XML.parseParallel(mappedBytes).await()
+                : XML.parse(file).await();
+        });
+    }
 
-            final CharacterList commentText = CharacterList.create();
-            int rightDashCount = 0;
-            while (characters.hasCurrent())
-            {
-                if (characters.getCurrent() == '-')
-                {
-                    characters.next();
-                    if (rightDashCount < 2)
-                    {
-                        ++rightDashCount;
-                    }
-                    else
-                    {
-                        commentText.add('-');
-                    }
-                }
-                else if (characters.getCurrent() == '>' && rightDashCount == 2)
-                {
-                    break;
-                }
-                else
-                {
-                    while (rightDashCount > 0)
-                    {
-                        commentText.add('-');
-                        --rightDashCount;
-                    }
+    /**
+     * Parse an XMLDocument from the provided UTF-8 encoded bytes on multiple threads. The content
+     * of the root element is split between the root element's children and the chunks are parsed
+     * on the common ForkJoinPool.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parseParallel(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
 
-                    commentText.add(characters.takeCurrent());
-                }
-            }
+        return XML.parseParallel(java.nio.ByteBuffer.wrap(bytes));
+    }
 
-            if (rightDashCount == 0)
-            {
-                throw XML.missing("comment first right dash ('-')");
-            }
-            else if (rightDashCount == 1)
-            {
-                throw XML.missing("comment second right dash ('-')");
-            }
+    /**
+     * Parse an XMLDocument from the UTF-8 encoded bytes between the provided buffer's position and
+     * limit on multiple threads. The content of the root element is split between the root
+     * element's children and the chunks are parsed on the common ForkJoinPool.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parseParallel(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
 
-            XML.expectAndTake(characters, '>', "comment right angle bracket ('>')");
+        return XML.parseParallel(bytes, java.util.concurrent.ForkJoinPool.commonPool());
+    }
 
-            return XMLComment.create(commentText.toString(true));
-        });
+    /**
+     * Parse an XMLDocument from the UTF-8 encoded bytes between the provided buffer's position and
+     * limit on multiple threads. A quick scan over the root element's content finds the ends of
+     * the root element's children, skipping over comments, CDATA sections, and attribute values,
+     * and the content between those points is parsed in chunks on the provided pool. The parsed
+     * document and any ParseException are the same as XML.parse(java.nio.ByteBuffer) would
+     * produce. Documents that are too small to split are parsed on the calling thread.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @param pool The pool to parse the chunks on.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parseParallel(java.nio.ByteBuffer bytes, java.util.concurrent.ForkJoinPool pool)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(pool, "pool");
+
+        return Result.create(() -> XMLParallelParser.parseDocument(bytes, pool));
     }
 
-    static Result<XMLCData> parseCDataAtFirstLeftSquareBracket(Iterator<Character> characters)
+    /**
+     * Parse the provided text and call the provided handler as each part of the document is
+     * recognized.
+     * @param text The text to parse.
+     * @param handler The handler to call.
+     * @return The result of parsing the text.
+     */
+    static Result<Void> parse(String text, XMLHandler handler)
+    {
+        PreCondition.assertNotNull(text, "text");
+        PreCondition.assertNotNull(handler, "handler");
+
+        return XML.parse((CharSequence)text, handler);
+    }
+
+    /**
+     * Parse the provided UTF-8 encoded bytes and call the provided handler as each part of the
+     * document is recognized.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @param handler The handler to call.
+     * @return The result of parsing the bytes.
+     */
+    static Result<Void> parse(byte[] bytes, XMLHandler handler)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(handler, "handler");
+
+        return Result.create(() -> XMLByteParser.create(bytes).parse(handler));
+    }
+
+    /**
+     * Parse the UTF-8 encoded bytes between the provided buffer's position and limit and call the
+     * provided handler as each part of the document is recognized. The buffer's position is not
+     * changed.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @param handler The handler to call.
+     * @return The result of parsing the bytes.
+     */
+    static Result<Void> parse(java.nio.ByteBuffer bytes, XMLHandler handler)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(handler, "handler");
+
+        return Result.create(() -> XMLByteParser.create(bytes).parse(handler));
+    }
+
+    /**
+     * Parse the provided characters and call the provided handler as each part of the document is
+     * recognized.
+     * @param characters The characters to parse.
+     * @param handler The handler to call.
+     * @return The result of parsing the characters.
+     */
+    static Result<Void> parse(char[] characters, XMLHandler handler)
     {
         PreCondition.assertNotNull(characters, "characters");
+        PreCondition.assertNotNull(handler, "handler");
 
-        return Result.create(() ->
-        {
-            XML.expectAndTake(characters, '[', "CDATA tag first left square bracket ('[')");
+        return Result.create(() -> XMLCharacterParser.create(characters).parse(handler));
+    }
 
-            final String name = XML.parseName(characters, "CDATA tag").await();
-            if (!name.equals("CDATA"))
-            {
-                throw XML.expected("CDATA tag name (\"CDATA\")");
-            }
+    /**
+     * Parse the provided characters and call the provided handler as each part of the document is
+     * recognized.
+     * @param characters The characters to parse.
+     * @param handler The handler to call.
+     * @return The result of parsing the characters.
+     */
+    static Result<Void> parse(CharSequence characters, XMLHandler handler)
+    {
+        PreCondition.assertNotNull(characters, "characters");
+        PreCondition.assertNotNull(handler, "handler");
 
-            XML.expectAndTake(characters, '[', "CDATA tag second left square bracket ('[')");
+        return Result.create(() -> XMLCharacterParser.create(characters).parse(handler));
+    }
 
-            final CharacterList cdataText = CharacterList.create();
-            int rightSquareBracketCount = 0;
-            while (characters.hasCurrent())
-            {
-                if (characters.getCurrent() == ']')
-                {
-                    characters.next();
-                    if (rightSquareBracketCount < 2)
-                    {
-                        ++rightSquareBracketCount;
-                    }
-                    else
-                    {
-                        cdataText.add(']');
-                    }
-                }
-                else if (characters.getCurrent() == '>' && rightSquareBracketCount == 2)
-                {
-                    break;
-                }
-                else
-                {
-                    while (rightSquareBracketCount > 0)
-                    {
-                        cdataText.add(']');
-                        --rightSquareBracketCount;
-                    }
+    /**
+     * Parse an XMLDocument from the provided characters.
+     * @param characters The characters to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parse(Iterable<Character> characters)
+    {
+        PreCondition.assertNotNull(characters, "characters");
 
-                    cdataText.add(characters.takeCurrent());
-                }
-            }
+        return XML.parse(characters.iterate());
+    }
 
-            if (rightSquareBracketCount == 0)
-            {
-                throw XML.missing("CDATA tag first right square bracket (']')");
-            }
-            else if (rightSquareBracketCount == 1)
-            {
-                throw XML.missing("CDATA tag second right square bracket (']')");
-            }
+    /**
+     * Parse an XMLDocument from the provided characters.
+     * @param characters The characters to parse.
+     * @return The parsed XMLDocument.
+     */
+    static Result<XMLDocument> parse(Iterator<Character> characters)
+    {
+        PreCondition.assertNotNull(characters, "characters");
 
-            XML.expectAndTake(characters, '>', "CDATA tag right angle bracket ('>')");
+        return Result.create(() -> XMLIteratorParser.create(characters).parseDocument());
+    }
 
-            return XMLCData.create(cdataText.toString(true));
-        });
+    static Result<XMLElement> parseElementAtName(Iterator<Character> characters)
+    {
+        PreCondition.assertNotNull(characters, "characters");
+
+        return Result.create(() -> XMLIteratorParser.create(characters).parseElementAtName());
     }
 
-    static Result<XMLAttribute> parseAttribute(Iterator<Character> characters, String attributeDescription)
+    /**
+     * Parse the start tag or empty element tag whose name starts at the current character. The
+     * returned element has the tag's name and attributes, and it is split if the tag was a start
+     * tag.
+     * @param characters The characters to parse.
+     * @return The element that the tag starts.
+     */
+    static Result<XMLElement> parseStartTagAtName(Iterator<Character> characters)
     {
         PreCondition.assertNotNull(characters, "characters");
 
-        return XML.parseAttribute(characters, null, attributeDescription);
+        return Result.create(() -> XMLIteratorParser.create(characters).parseStartTagAtName());
     }
 
-    static Result<XMLAttribute> parseAttribute(Iterator<Character> characters, String expectedAttributeName, String attributeDescription)
+    static Result<XMLComment> parseCommentAtFirstLeftDash(Iterator<Character> characters)
     {
         PreCondition.assertNotNull(characters, "characters");
 
         return Result.create(() ->
         {
-            final String description = XML.join(attributeDescription, "attribute");
+            final XMLIteratorParser parser = XMLIteratorParser.create(characters);
+            parser.parseCommentAtFirstLeftDash(true);
+            return XMLComment.create(parser.getBufferString());
+        });
+    }
 
-            final String name = XML.parseName(characters, description).await();
-            if (!Strings.isNullOrEmpty(expectedAttributeName) && !expectedAttributeName.equals(name))
-            {
-                throw XML.expected(description);
-            }
+    static Result<XMLCData> parseCDataAtFirstLeftSquareBracket(Iterator<Character> characters)
+    {
+        PreCondition.assertNotNull(characters, "characters");
 
-            XML.parseOptionalWhitespace(characters).await();
+        return Result.create(() ->
+        {
+            final XMLIteratorParser parser = XMLIteratorParser.create(characters);
+            parser.parseCDataAtFirstLeftSquareBracket();
+            return XMLCData.create(parser.getBufferString());
+        });
+    }
 
-            XML.expectAndTake(characters, '=', description + " equals sign ('=')");
+    static Result<XMLAttribute> parseAttribute(Iterator<Character> characters, String attributeDescription)
+    {
+        PreCondition.assertNotNull(characters, "characters");
 
-            XML.parseOptionalWhitespace(characters).await();
+        return XML.parseAttribute(characters, null, attributeDescription);
+    }
 
-            final String value = XML.parseQuotedString(characters, description + " value").await();
+    static Result<XMLAttribute> parseAttribute(Iterator<Character> characters, String expectedAttributeName, String attributeDescription)
+    {
+        PreCondition.assertNotNull(characters, "characters");
 
-            return XMLAttribute.createWithQuotedValue(name, value);
+        return Result.create(() ->
+        {
+            final XMLIteratorParser parser = XMLIteratorParser.create(characters);
+            parser.parseAttribute(expectedAttributeName, attributeDescription);
+            return XMLAttribute.create(parser.getLastAttributeName(), parser.getLastAttributeValue(), parser.getLastQuoteCharacter());
         });
     }
 
@@ -520,11 +693,10 @@ public interface XML
 
         return Result.create(() ->
         {
-            characters.start();
-
-            XML.expect(characters, XML::isWhitespaceCharacter, "whitespace");
-
-            return XML.parseOptionalWhitespace(characters).await();
+            final XMLIteratorParser parser = XMLIteratorParser.create(characters);
+            parser.expectWhitespace();
+            parser.parseOptionalWhitespace();
+            return parser.getBufferString();
         });
     }
 
@@ -541,19 +713,9 @@ public interface XML
 
         return Result.create(() ->
         {
-            characters.start();
-
-            final CharacterList whitespace = CharacterList.create();
-            while (characters.hasCurrent() && XML.isWhitespaceCharacter(characters.getCurrent()))
-            {
-                whitespace.add(characters.takeCurrent());
-            }
-
-            final String result = whitespace.toString(true);
-
-            PostCondition.assertNotNull(result, "result");
-
-            return result;
+            final XMLIteratorParser parser = XMLIteratorParser.create(characters);
+            parser.parseOptionalWhitespace();
+            return parser.getBufferString();
         });
     }
 
@@ -563,33 +725,10 @@ public interface XML
 
         return Result.create(() ->
         {
-            characters.start();
-
-            final String description = XML.join(quotedStringDescription, "quoted string");
-
-            final char quoteCharacter = XML.expectAndTake(characters, XML.attributeValueQuoteCharacters, description + " start quote character (' or \")");
-
-            final CharacterList list = CharacterList.create(quoteCharacter);
-            while (characters.hasCurrent() && characters.getCurrent() != quoteCharacter)
-            {
-                list.add(characters.takeCurrent());
-            }
-
-            if (!characters.hasCurrent())
-            {
-                throw XML.missing(description + " end quote character (" + quoteCharacter + ")");
-            }
-            else
-            {
-                list.add(characters.takeCurrent());
-            }
-
-            final String result = list.toString(true);
-
-            PostCondition.assertNotNullAndNotEmpty(result, "result");
-            PostCondition.assertTrue(Strings.isQuoted(result), "Strings.isQuoted(result)");
-
-            return result;
+            final XMLIteratorParser parser = XMLIteratorParser.create(characters);
+            parser.parseQuotedString(quotedStringDescription, null);
+            final char quoteCharacter = parser.getLastQuoteCharacter();
+            return quoteCharacter + parser.getBufferString() + quoteCharacter;
         });
     }
 
@@ -616,21 +755,9 @@ public interface XML
 
         return Result.create(() ->
         {
-            characters.start();
-
-            XML.expect(characters, XML::isNameStartCharacter, XML.join(nameDescription, "name start character"));
-
-            final CharacterList name = CharacterList.create(characters.takeCurrent());
-            while (characters.hasCurrent() && XML.isNameCharacter(characters.getCurrent()))
-            {
-                name.add(characters.takeCurrent());
-            }
-
-            final String result = name.toString(true);
-
-            PostCondition.assertNotNullAndNotEmpty(result, "result");
-
-            return result;
+            final XMLIteratorParser parser = XMLIteratorParser.create(characters);
+            parser.parseName(nameDescription, null);
+            return parser.getBufferString();
         });
     }
 
@@ -641,20 +768,9 @@ public interface XML
 
         return Result.create(() ->
         {
-            final CharacterList text = CharacterList.create();
-
-            boolean isWhitespace = true;
-            while (characters.hasCurrent() && characters.getCurrent() != '<')
-            {
-                if (isWhitespace && !XML.isWhitespaceCharacter(characters.getCurrent()))
-                {
-                    isWhitespace = false;
-                }
-
-                text.add(characters.takeCurrent());
-            }
-
-            return XMLText.create(text.toString(true), isWhitespace);
+            final XMLIteratorParser parser = XMLIteratorParser.create(characters);
+            final boolean isWhitespace = parser.parseText();
+            return XMLText.create(parser.getBufferString(), isWhitespace);
         });
     }
 
@@ -667,21 +783,7 @@ public interface XML
      */
     static boolean isNameStartCharacter(char character)
     {
-        return character == ':' ||
-            ('A' <= character && character <= 'Z') ||
-            character == '_' ||
-            ('a' <= character && character <= 'z') ||
-            (0x00C0 <= character && character <= 0x00D6) ||
-            (0x00D8 <= character && character <= 0x00F6) ||
-            (0x00F8 <= character && character <= 0x02FF) ||
-            (0x0370 <= character && character <= 0x037D) ||
-            (0x037F <= character && character <= 0x1FFF) ||
-            (0x200C <= character && character <= 0x200D) ||
-            (0x2070 <= character && character <= 0x218F) ||
-            (0x2C00 <= character && character <= 0x2FEF) ||
-            (0x3001 <= character && character <= 0xD7FF) ||
-            (0xF900 <= character && character <= 0xFDCF) ||
-            (0xFDF0 <= character && character <= 0xFFFD);
+        return XMLNameCharacters.isNameStartCharacter(character);
     }
 
     /**
@@ -693,13 +795,61 @@ public interface XML
      */
     static boolean isNameCharacter(char character)
     {
-        return XML.isNameStartCharacter(character) ||
-            character == '-' ||
-            character == '.' ||
-            ('0' <= character && character <= '9') ||
-            character == 0x00B7 ||
-            (0x0300 <= character && character <= 0x036F) ||
-            (0x203F <= character && character <= 0x2040);
+        return XMLNameCharacters.isNameCharacter(character);
+    }
+
+    /**
+     * Get whether or not the provided code point is a
+     * <a href="https://www.w3.org/TR/xml/#NT-NameStartChar">name start character</a>. Unlike
+     * isNameStartCharacter(char), this includes the supplementary code points that are allowed in
+     * names.
+     * @param codePoint The code point to check.
+     * @return Whether or not the provided code point is a
+     * <a href="https://www.w3.org/TR/xml/#NT-NameStartChar">name start character</a>.
+     */
+    static boolean isNameStartCodePoint(int codePoint)
+    {
+        return XMLNameCharacters.isNameStartCodePoint(codePoint);
+    }
+
+    /**
+     * Get whether or not the provided code point is a
+     * <a href="https://www.w3.org/TR/xml/#NT-NameChar">name character</a>. Unlike
+     * isNameCharacter(char), this includes the supplementary code points that are allowed in
+     * names.
+     * @param codePoint The code point to check.
+     * @return Whether or not the provided code point is a
+     * <a href="https://www.w3.org/TR/xml/#NT-NameChar">name character</a>.
+     */
+    static boolean isNameCodePoint(int codePoint)
+    {
+        return XMLNameCharacters.isNameCodePoint(codePoint);
+    }
+
+    /**
+     * Get whether or not the provided character is a name start character or the high surrogate of
+     * a supplementary name start character.
+     * @param character The character to check.
+     * @return Whether or not the provided character can start a name.
+     */
+    static boolean isNameStartCharacterOrHighSurrogate(char character)
+    {
+        return Character.isHighSurrogate(character)
+            ? XML.isNameStartCodePoint(Character.toCodePoint(character, Character.MIN_LOW_SURROGATE))
+            : XML.isNameStartCharacter(character);
+    }
+
+    /**
+     * Get whether or not the provided character is a name character or the high surrogate of a
+     * supplementary name character.
+     * @param character The character to check.
+     * @return Whether or not the provided character can continue a name.
+     */
+    static boolean isNameCharacterOrHighSurrogate(char character)
+    {
+        return Character.isHighSurrogate(character)
+            ? XML.isNameCodePoint(Character.toCodePoint(character, Character.MIN_LOW_SURROGATE))
+            : XML.isNameCharacter(character);
     }
 
     /**
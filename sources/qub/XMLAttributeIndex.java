@@ -0,0 +1,325 @@
+package qub;
+
+/**
+ * An index of the elements of an {@link XMLDocument} by the value of one of their attributes.
+ * The elements are found by walking the document the first time that the index is used. Lookups
+ * of a single value use a hash table, and lookups of a range of values use a table that is sorted
+ * by the values as text or as numbers. Each table is only built the first time that it is
+ * needed.
+ *
+ * Changing the indexed attribute of an element in the document, or adding or removing elements,
+ * marks the index as out of date, and it will walk the document again the next time that it is
+ * used. The elements find the index through their document's {@link XMLAttributeIndexRegistry}.
+ * <p>
+ * The index can be used by multiple threads at the same time, as long as none of them change the
+ * document. All of a document's indexes share the lock of the document's registry, so walking the
+ * document for one index can't race with another index or with an invalidation.
+ */
+public final class XMLAttributeIndex
+{
+    private final XMLAttributeIndexRegistry registry;
+    private final String attributeName;
+    private boolean isUpToDate;
+    /**
+     * The elements in the document that have the indexed attribute, in document order.
+     */
+    private final List<XMLElement> elements;
+    /**
+     * The values of the indexed attribute of each of the elements.
+     */
+    private final List<String> values;
+    private MutableMap<String,List<XMLElement>> valueElements;
+    private java.util.TreeMap<String,List<XMLElement>> sortedValueElements;
+    private java.util.TreeMap<Double,List<XMLElement>> numericValueElements;
+
+    private XMLAttributeIndex(XMLAttributeIndexRegistry registry, String attributeName)
+    {
+        this.registry = registry;
+        this.attributeName = attributeName;
+        this.elements = List.create();
+        this.values = List.create();
+    }
+
+    /**
+     * Create a new XMLAttributeIndex of the elements of the provided registry's document by the
+     * value of the attribute with the provided name.
+     * @param registry The registry of the document to index.
+     * @param attributeName The name of the attribute to index the elements by.
+     * @return The new XMLAttributeIndex.
+     */
+    static XMLAttributeIndex create(XMLAttributeIndexRegistry registry, String attributeName)
+    {
+        PreCondition.assertNotNull(registry, "registry");
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+
+        return new XMLAttributeIndex(registry, attributeName);
+    }
+
+    /**
+     * Get the name of the attribute that this index indexes elements by.
+     * @return The name of the attribute that this index indexes elements by.
+     */
+    public String getAttributeName()
+    {
+        return this.attributeName;
+    }
+
+    /**
+     * Get the elements whose indexed attribute has the provided value, in document order.
+     * @param attributeValue The value of the indexed attribute.
+     * @return The elements whose indexed attribute has the provided value.
+     */
+    public Iterable<XMLElement> getElements(String attributeValue)
+    {
+        PreCondition.assertNotNull(attributeValue, "attributeValue");
+
+        synchronized (this.registry)
+        {
+            final MutableMap<String,List<XMLElement>> valueElements = this.getValueElements();
+            final List<XMLElement> elements = valueElements.containsKey(attributeValue)
+                ? valueElements.get(attributeValue).await()
+                : null;
+            // The index's own list is never handed out, so callers can't change it. The list is
+            // replaced instead of changed when the index walks its document again.
+            return elements == null
+                ? Iterable.create()
+                : () -> elements.iterate();
+        }
+    }
+
+    /**
+     * Get the first element in document order whose indexed attribute has the provided value. If
+     * no element has the provided value, then return a NotFoundException.
+     * @param attributeValue The value of the indexed attribute.
+     * @return The first element whose indexed attribute has the provided value or a
+     * NotFoundException if no element has the provided value.
+     */
+    public Result<XMLElement> getFirstElement(String attributeValue)
+    {
+        PreCondition.assertNotNull(attributeValue, "attributeValue");
+
+        synchronized (this.registry)
+        {
+            final MutableMap<String,List<XMLElement>> valueElements = this.getValueElements();
+            return valueElements.containsKey(attributeValue)
+                ? Result.success(valueElements.get(attributeValue).await().get(0))
+                : Result.error(new NotFoundException("No element found with a " + Strings.escapeAndQuote(this.attributeName) + " attribute with the value " + Strings.escapeAndQuote(attributeValue) + "."));
+        }
+    }
+
+    /**
+     * Get the elements whose indexed attribute's value is between the provided values, including
+     * the provided values. Values are compared as text. The elements are ordered by their values,
+     * and elements with the same value are in document order.
+     * @param minimumValue The smallest value to include.
+     * @param maximumValue The largest value to include.
+     * @return The elements whose indexed attribute's value is between the provided values.
+     */
+    public Iterable<XMLElement> getElementsInRange(String minimumValue, String maximumValue)
+    {
+        PreCondition.assertNotNull(minimumValue, "minimumValue");
+        PreCondition.assertNotNull(maximumValue, "maximumValue");
+        PreCondition.assertTrue(minimumValue.compareTo(maximumValue) <= 0, "minimumValue.compareTo(maximumValue) <= 0");
+
+        synchronized (this.registry)
+        {
+            if (this.sortedValueElements == null || !this.isUpToDate)
+            {
+                this.update();
+                this.sortedValueElements = new java.util.TreeMap<>();
+                for (int i = 0; i < this.elements.getCount(); ++i)
+                {
+                    XMLAttributeIndex.add(this.sortedValueElements, this.values.get(i), this.elements.get(i));
+                }
+            }
+            return XMLAttributeIndex.concatenate(this.sortedValueElements.subMap(minimumValue, true, maximumValue, true));
+        }
+    }
+
+    /**
+     * Get the elements whose indexed attribute's value is a number between the provided values,
+     * including the provided values. Elements whose value isn't a number are never included. The
+     * elements are ordered by their values, and elements with the same value are in document
+     * order.
+     * @param minimumValue The smallest value to include.
+     * @param maximumValue The largest value to include.
+     * @return The elements whose indexed attribute's value is a number between the provided
+     * values.
+     */
+    public Iterable<XMLElement> getElementsInRange(double minimumValue, double maximumValue)
+    {
+        PreCondition.assertTrue(minimumValue <= maximumValue, "minimumValue <= maximumValue");
+
+        synchronized (this.registry)
+        {
+            if (this.numericValueElements == null || !this.isUpToDate)
+            {
+                this.update();
+                this.numericValueElements = new java.util.TreeMap<>();
+                for (int i = 0; i < this.elements.getCount(); ++i)
+                {
+                    final Double value = XMLAttributeIndex.parseNumber(this.values.get(i));
+                    if (value != null)
+                    {
+                        XMLAttributeIndex.add(this.numericValueElements, value, this.elements.get(i));
+                    }
+                }
+            }
+            // Adding zero turns negative zero into zero, since the sorted table orders negative
+            // zero before zero.
+            return XMLAttributeIndex.concatenate(this.numericValueElements.subMap(minimumValue + 0.0, true, maximumValue + 0.0, true));
+        }
+    }
+
+    /**
+     * Mark this index as out of date so that it will walk its document again the next time that
+     * it is used. The caller must hold the lock of this index's registry.
+     */
+    void invalidate()
+    {
+        this.isUpToDate = false;
+    }
+
+    private MutableMap<String,List<XMLElement>> getValueElements()
+    {
+        if (this.valueElements == null || !this.isUpToDate)
+        {
+            this.update();
+            this.valueElements = Map.create();
+            for (int i = 0; i < this.elements.getCount(); ++i)
+            {
+                final String value = this.values.get(i);
+                final XMLElement element = this.elements.get(i);
+                if (this.valueElements.containsKey(value))
+                {
+                    this.valueElements.get(value).await().add(element);
+                }
+                else
+                {
+                    this.valueElements.set(value, List.create(element));
+                }
+            }
+        }
+        return this.valueElements;
+    }
+
+    /**
+     * Walk the document to find the elements that have the indexed attribute if this index is out
+     * of date. Every element that is walked is pointed at the document's registry, so that changes
+     * to it will invalidate this index.
+     */
+    private void update()
+    {
+        if (!this.isUpToDate)
+        {
+            this.elements.clear();
+            this.values.clear();
+            this.valueElements = null;
+            this.sortedValueElements = null;
+            this.numericValueElements = null;
+
+            // The elements that haven't been visited yet are kept in a stack instead of in
+            // recursive calls, so the depth of an element is only limited by the available memory.
+            final List<XMLElement> elementsToVisit = List.create();
+            final XMLElement root = this.registry.getDocument().getRoot();
+            if (root != null)
+            {
+                elementsToVisit.add(root);
+            }
+            while (elementsToVisit.any())
+            {
+                final XMLElement element = elementsToVisit.removeLast();
+                element.setAttributeIndexRegistry(this.registry);
+                if (element.containsAttribute(this.attributeName))
+                {
+                    this.elements.add(element);
+                    this.values.add(element.getAttributeValue(this.attributeName).await());
+                }
+
+                final Indexable<XMLElementChild> children = element.getChildren();
+                for (int i = children.getCount() - 1; i >= 0; --i)
+                {
+                    final XMLElementChild child = children.get(i);
+                    if (child instanceof XMLElement)
+                    {
+                        elementsToVisit.add((XMLElement)child);
+                    }
+                }
+            }
+
+            this.isUpToDate = true;
+        }
+    }
+
+    private static <T> void add(java.util.TreeMap<T,List<XMLElement>> valueElements, T value, XMLElement element)
+    {
+        List<XMLElement> elements = valueElements.get(value);
+        if (elements == null)
+        {
+            elements = List.create();
+            valueElements.put(value, elements);
+        }
+        elements.add(element);
+    }
+
+    private static <T> Iterable<XMLElement> concatenate(java.util.NavigableMap<T,List<XMLElement>> valueElements)
+    {
+        final List<XMLElement> result = List.create();
+        for (final List<XMLElement> elements : valueElements.values())
+        {
+            result.addAll(elements);
+        }
+        return result;
+    }
+
+    /**
+     * Get the number that the provided attribute value contains, or null if it isn't a number.
+     * Only plain decimal numbers with an optional sign, fraction, and exponent, such as "-1.5e3",
+     * are numbers. Forms that Java's own number syntax also accepts, such as "5f", "0x1p3", and
+     * "Infinity", are not.
+     */
+    private static Double parseNumber(String value)
+    {
+        final String text = value.trim();
+        final int length = text.length();
+
+        int index = 0;
+        if (index < length && (text.charAt(index) == '+' || text.charAt(index) == '-'))
+        {
+            ++index;
+        }
+        final int integerStartIndex = index;
+        index = XMLAttributeIndex.skipDigits(text, index);
+        int digitCount = index - integerStartIndex;
+        if (index < length && text.charAt(index) == '.')
+        {
+            final int fractionStartIndex = index + 1;
+            index = XMLAttributeIndex.skipDigits(text, fractionStartIndex);
+            digitCount += index - fractionStartIndex;
+        }
+        boolean isNumber = (digitCount > 0);
+        if (isNumber && index < length && (text.charAt(index) == 'e' || text.charAt(index) == 'E'))
+        {
+            ++index;
+            if (index < length && (text.charAt(index) == '+' || text.charAt(index) == '-'))
+            {
+                ++index;
+            }
+            final int exponentStartIndex = index;
+            index = XMLAttributeIndex.skipDigits(text, exponentStartIndex);
+            isNumber = (index > exponentStartIndex);
+        }
+        isNumber = isNumber && (index == length);
+
+        return isNumber ? Double.parseDouble(text) + 0.0 : null;
+    }
+
+    private static int skipDigits(String text, int index)
+    {
+        while (index < text.length() && '0' <= text.charAt(index) && text.charAt(index) <= '9')
+        {
+            ++index;
+        }
+        return index;
+    }
+}
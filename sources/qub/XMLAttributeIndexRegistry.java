@@ -0,0 +1,104 @@
+package qub;
+
+/**
+ * The attribute indexes of one {@link XMLDocument}. Every element that an index walks refers to
+ * its document's registry through a single field, so a change to an element can invalidate the
+ * indexes that may contain it without each element keeping its own list of indexes.
+ * <p>
+ * An element keeps referring to the registry after it is removed from the document, so changes to
+ * a removed element may still invalidate the document's indexes. That only makes the indexes walk
+ * the document again, and never makes them return stale results.
+ * <p>
+ * The registry is also the lock that the document's indexes use, so registering elements while an
+ * index walks the document and invalidating indexes when an element changes are never interleaved.
+ */
+final class XMLAttributeIndexRegistry
+{
+    private final XMLDocument document;
+    private final MutableMap<String,XMLAttributeIndex> attributeIndexes;
+
+    private XMLAttributeIndexRegistry(XMLDocument document)
+    {
+        this.document = document;
+        this.attributeIndexes = Map.create();
+    }
+
+    /**
+     * Create a new XMLAttributeIndexRegistry for the provided document.
+     * @param document The document whose attribute indexes will be registered.
+     * @return The new XMLAttributeIndexRegistry.
+     */
+    static XMLAttributeIndexRegistry create(XMLDocument document)
+    {
+        PreCondition.assertNotNull(document, "document");
+
+        return new XMLAttributeIndexRegistry(document);
+    }
+
+    /**
+     * Get the document whose attribute indexes are registered in this registry.
+     * @return The document whose attribute indexes are registered in this registry.
+     */
+    XMLDocument getDocument()
+    {
+        return this.document;
+    }
+
+    /**
+     * Get the index of the document's elements by the value of the attribute with the provided
+     * name, and create it if it hasn't been created yet.
+     * @param attributeName The name of the attribute to index the elements by.
+     * @return The index of the document's elements by the value of the attribute.
+     */
+    synchronized XMLAttributeIndex getAttributeIndex(String attributeName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+
+        XMLAttributeIndex result = this.findAttributeIndex(attributeName);
+        if (result == null)
+        {
+            result = XMLAttributeIndex.create(this, attributeName);
+            this.attributeIndexes.set(attributeName, result);
+        }
+        return result;
+    }
+
+    /**
+     * Get the index of the document's elements by the value of the attribute with the provided
+     * name if it has already been created.
+     * @param attributeName The name of the attribute that the elements are indexed by.
+     * @return The index, or null if it hasn't been created.
+     */
+    synchronized XMLAttributeIndex findAttributeIndex(String attributeName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+
+        return this.attributeIndexes.containsKey(attributeName)
+            ? this.attributeIndexes.get(attributeName).await()
+            : null;
+    }
+
+    /**
+     * Invalidate the indexes that are affected by a change to one of the document's elements.
+     * @param attributeName The name of the attribute that changed, or null if every index is
+     * affected because an element's children or all of its attributes changed.
+     */
+    synchronized void invalidate(String attributeName)
+    {
+        if (attributeName == null)
+        {
+            for (final MapEntry<String,XMLAttributeIndex> attributeIndex : this.attributeIndexes)
+            {
+                attributeIndex.getValue().invalidate();
+            }
+        }
+        else
+        {
+            final XMLAttributeIndex attributeIndex = this.findAttributeIndex(attributeName);
+            if (attributeIndex != null)
+            {
+                attributeIndex.invalidate();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package qub;
+
+/**
+ * A read-only view of the attributes of the element that an XMLParser most recently started.
+ * The view reads the attributes directly from the parser's source, so no XMLAttribute objects are
+ * created, and names and values only become Strings when they are asked for. The same view is
+ * reused for every element of a document, so it must not be kept after an
+ * {@link XMLHandler#startElement(String, XMLAttributes)} callback returns.
+ */
+public class XMLAttributes
+{
+    private final XMLParser parser;
+
+    XMLAttributes(XMLParser parser)
+    {
+        PreCondition.assertNotNull(parser, "parser");
+
+        this.parser = parser;
+    }
+
+    /**
+     * Get the number of attributes in this view.
+     * @return The number of attributes in this view.
+     */
+    public int getCount()
+    {
+        return this.parser.getAttributeCount();
+    }
+
+    /**
+     * Get whether or not this view has any attributes.
+     * @return Whether or not this view has any attributes.
+     */
+    public boolean any()
+    {
+        return this.getCount() > 0;
+    }
+
+    /**
+     * Get the name of the attribute at the provided index.
+     * @param index The index of the attribute.
+     * @return The name of the attribute at the provided index.
+     */
+    public String getName(int index)
+    {
+        this.assertIndex(index);
+
+        return this.parser.getAttributeName(index);
+    }
+
+    /**
+     * Get whether or not the name of the attribute at the provided index is equal to the provided
+     * name. This doesn't create a String for the attribute's name.
+     * @param index The index of the attribute.
+     * @param name The name to compare.
+     * @return Whether or not the name of the attribute at the provided index is equal to the
+     * provided name.
+     */
+    public boolean nameEquals(int index, String name)
+    {
+        this.assertIndex(index);
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+
+        return this.parser.attributeNameEquals(index, name);
+    }
+
+    /**
+     * Get the unquoted value of the attribute at the provided index.
+     * @param index The index of the attribute.
+     * @return The unquoted value of the attribute at the provided index.
+     */
+    public String getValue(int index)
+    {
+        this.assertIndex(index);
+
+        return this.parser.getAttributeValue(index);
+    }
+
+    /**
+     * Get whether or not this view contains an attribute with the provided name.
+     * @param attributeName The name of the attribute.
+     * @return Whether or not this view contains an attribute with the provided name.
+     */
+    public boolean contains(String attributeName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+
+        return this.indexOf(attributeName) >= 0;
+    }
+
+    /**
+     * Get the unquoted value of the attribute with the provided name. If the name is repeated,
+     * then the last value is returned, the same as XMLElement.setAttribute().
+     * @param attributeName The name of the attribute.
+     * @return The unquoted value of the attribute, or a NotFoundException if this view doesn't
+     * contain an attribute with the provided name.
+     */
+    public Result<String> getValue(String attributeName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+
+        final int index = this.indexOf(attributeName);
+        return index >= 0
+            ? Result.success(this.parser.getAttributeValue(index))
+            : Result.error(new NotFoundException("Couldn't find an attribute named " + Strings.escapeAndQuote(attributeName) + " in the element."));
+    }
+
+    private int indexOf(String attributeName)
+    {
+        int result = this.parser.getAttributeCount() - 1;
+        while (result >= 0 && !this.parser.attributeNameEquals(result, attributeName))
+        {
+            --result;
+        }
+        return result;
+    }
+
+    private void assertIndex(int index)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(index, 0, "index");
+        PreCondition.assertLessThan(index, this.getCount(), "index");
+    }
+}
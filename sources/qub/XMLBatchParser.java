@@ -0,0 +1,103 @@
+package qub;
+
+/**
+ * Parses many XML files at the same time on a bounded number of threads, so that reading one
+ * file's contents overlaps with parsing the others.
+ */
+final class XMLBatchParser
+{
+    /**
+     * Parse each of the provided files with XML.parse(File) on at most the provided number of
+     * threads. The provided callback is called on the calling thread with the index of each file,
+     * the file, and the result of parsing the file, in the order that the files finish. No more
+     * than maximumConcurrency files are being parsed or waiting to be reported at a time, so the
+     * files are read no faster than the callback can handle them.
+     * @param files The files to parse.
+     * @param maximumConcurrency The maximum number of files to parse at the same time.
+     * @param onParsed The callback to call with each file's index, the file, and the result of
+     *                 parsing the file.
+     */
+    static void parseAll(Iterable<File> files, int maximumConcurrency, Action3<Integer,File,Result<XMLDocument>> onParsed)
+    {
+        PreCondition.assertNotNull(files, "files");
+        PreCondition.assertGreaterThanOrEqualTo(maximumConcurrency, 1, "maximumConcurrency");
+        PreCondition.assertNotNull(onParsed, "onParsed");
+
+        final java.util.concurrent.atomic.AtomicInteger threadCount = new java.util.concurrent.atomic.AtomicInteger();
+        final java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(maximumConcurrency, (Runnable runnable) ->
+        {
+            final Thread thread = new Thread(runnable, "XML.parseAll() " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try
+        {
+            final java.util.concurrent.CompletionService<ParsedFile> completionService = new java.util.concurrent.ExecutorCompletionService<>(executor);
+            int fileCount = 0;
+            int pendingCount = 0;
+            for (final File file : files)
+            {
+                if (pendingCount == maximumConcurrency)
+                {
+                    XMLBatchParser.reportNext(completionService, onParsed);
+                    --pendingCount;
+                }
+
+                final int fileIndex = fileCount++;
+                completionService.submit(() -> new ParsedFile(fileIndex, file, XML.parse(file)));
+                ++pendingCount;
+            }
+
+            while (pendingCount > 0)
+            {
+                XMLBatchParser.reportNext(completionService, onParsed);
+                --pendingCount;
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait for the next file to finish parsing and pass it to the provided callback.
+     */
+    private static void reportNext(java.util.concurrent.CompletionService<ParsedFile> completionService, Action3<Integer,File,Result<XMLDocument>> onParsed)
+    {
+        final ParsedFile parsedFile;
+        try
+        {
+            parsedFile = completionService.take().get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (java.util.concurrent.ExecutionException e)
+        {
+            // XML.parse(File) reports its errors in its Result, so this only happens if a thread
+            // fails in a way that can't be reported as a parse error.
+            throw new RuntimeException(e.getCause());
+        }
+        onParsed.run(parsedFile.index, parsedFile.file, parsedFile.result);
+    }
+
+    /**
+     * The result of parsing one of the files that were passed to parseAll().
+     */
+    private static final class ParsedFile
+    {
+        private final int index;
+        private final File file;
+        private final Result<XMLDocument> result;
+
+        ParsedFile(int index, File file, Result<XMLDocument> result)
+        {
+            this.index = index;
+            this.file = file;
+            this.result = result;
+        }
+    }
+}
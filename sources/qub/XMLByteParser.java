@@ -0,0 +1,229 @@
+package qub;
+
+/**
+ * An XMLParser that reads UTF-8 encoded bytes from a java.nio.ByteBuffer. Markup is recognized
+ * directly from the bytes, and bytes are only decoded to characters when a name, text, or
+ * attribute value is created.
+ */
+public class XMLByteParser extends XMLParser
+{
+    /**
+     * The code point that is returned for malformed UTF-8 sequences. It is not a name character,
+     * so malformed sequences are never accepted as part of a name.
+     */
+    private static final int invalidCodePoint = 0xFFFF;
+
+    private final java.nio.ByteBuffer bytes;
+    private java.nio.ByteBuffer decodeView;
+    private byte[] decodeBuffer;
+
+    private final XMLStructuralIndex structuralIndex;
+    /**
+     * The index in the structural index where the previous markup character search started.
+     */
+    private int structuralIndexCursor;
+
+    private XMLByteParser(java.nio.ByteBuffer bytes, XMLStructuralIndex structuralIndex)
+    {
+        super(bytes.position() + XMLByteParser.getByteOrderMarkLength(bytes), bytes.limit());
+
+        this.bytes = bytes;
+        this.structuralIndex = structuralIndex;
+    }
+
+    /**
+     * Create a new XMLByteParser that will parse the provided UTF-8 encoded bytes.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The new XMLByteParser.
+     */
+    public static XMLByteParser create(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return XMLByteParser.create(java.nio.ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Create a new XMLByteParser that will parse the UTF-8 encoded bytes between the provided
+     * buffer's position and limit. A UTF-8 byte order mark at the buffer's position is skipped.
+     * The buffer's position will not be changed by parsing.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The new XMLByteParser.
+     */
+    public static XMLByteParser create(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return new XMLByteParser(bytes, null);
+    }
+
+    /**
+     * Create a new XMLByteParser that will parse the bytes that the provided XMLStructuralIndex
+     * was created for. The parser will use the index to jump between markup characters.
+     * @param structuralIndex The structural index of the UTF-8 encoded bytes to parse.
+     * @return The new XMLByteParser.
+     */
+    public static XMLByteParser create(XMLStructuralIndex structuralIndex)
+    {
+        PreCondition.assertNotNull(structuralIndex, "structuralIndex");
+
+        return new XMLByteParser(structuralIndex.getBytes(), structuralIndex);
+    }
+
+    @Override
+    protected int get(int index)
+    {
+        return this.bytes.get(index) & 0xFF;
+    }
+
+    @Override
+    protected int indexOf(int character, int startIndex, int endIndex)
+    {
+        final int result;
+        if (this.structuralIndex == null)
+        {
+            result = super.indexOf(character, startIndex, endIndex);
+        }
+        else
+        {
+            this.structuralIndexCursor = this.structuralIndex.find(startIndex, this.structuralIndexCursor);
+            result = this.structuralIndex.indexOf(character, this.structuralIndexCursor, endIndex);
+        }
+        return result;
+    }
+
+    @Override
+    protected int getCodePoint(int index)
+    {
+        final int firstByte = this.get(index);
+        final int length = XMLByteParser.getEncodedLength(firstByte);
+
+        int result;
+        if (length == 1 || this.bytes.limit() - index < length)
+        {
+            result = XMLByteParser.invalidCodePoint;
+        }
+        else
+        {
+            result = firstByte & (0xFF >> (length + 1));
+            for (int i = 1; i < length; ++i)
+            {
+                final int continuationByte = this.get(index + i);
+                if ((continuationByte & 0xC0) != 0x80)
+                {
+                    result = XMLByteParser.invalidCodePoint;
+                    break;
+                }
+                result = (result << 6) | (continuationByte & 0x3F);
+            }
+
+            // Overlong encodings, surrogates, and values past the last code point are malformed,
+            // and decoding them would give a different string than the one that was checked.
+            final int minimumCodePoint = (length == 2 ? 0x80 : (length == 3 ? 0x800 : 0x10000));
+            if (result < minimumCodePoint || (0xD800 <= result && result <= 0xDFFF) || 0x10FFFF < result)
+            {
+                result = XMLByteParser.invalidCodePoint;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected int getCodePointLength(int index)
+    {
+        final int result = XMLByteParser.getEncodedLength(this.get(index));
+        return Math.min(result, this.bytes.limit() - index);
+    }
+
+    @Override
+    protected String getString(int startIndex, int endIndex)
+    {
+        final int length = endIndex - startIndex;
+
+        final String result;
+        if (this.bytes.hasArray())
+        {
+            result = new String(this.bytes.array(), this.bytes.arrayOffset() + startIndex, length, java.nio.charset.StandardCharsets.UTF_8);
+        }
+        else
+        {
+            if (this.decodeBuffer == null || this.decodeBuffer.length < length)
+            {
+                this.decodeBuffer = new byte[Math.max(length, 64)];
+                this.decodeView = this.bytes.duplicate();
+            }
+            this.decodeView.position(startIndex);
+            this.decodeView.get(this.decodeBuffer, 0, length);
+            result = new String(this.decodeBuffer, 0, length, java.nio.charset.StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    @Override
+    protected CharSequence getSlice(int startIndex, int endIndex)
+    {
+        return XMLSlice.create(this.bytes, startIndex, endIndex, java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean equals(int startIndex, int endIndex, String value)
+    {
+        boolean isAscii = true;
+        for (int i = 0; isAscii && i < value.length(); ++i)
+        {
+            isAscii = (value.charAt(i) < 0x80);
+        }
+
+        final boolean result;
+        if (isAscii)
+        {
+            result = super.equals(startIndex, endIndex, value);
+        }
+        else
+        {
+            result = this.getString(startIndex, endIndex).equals(value);
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of bytes in the UTF-8 sequence that starts with the provided byte. Bytes that
+     * can't start a multiple byte sequence are treated as a sequence of one byte.
+     */
+    /**
+     * Get the length of the UTF-8 byte order mark at the provided buffer's position, or 0 if the
+     * bytes don't start with one.
+     */
+    private static int getByteOrderMarkLength(java.nio.ByteBuffer bytes)
+    {
+        final int position = bytes.position();
+        return bytes.limit() - position >= 3 &&
+            (bytes.get(position) & 0xFF) == 0xEF &&
+            (bytes.get(position + 1) & 0xFF) == 0xBB &&
+            (bytes.get(position + 2) & 0xFF) == 0xBF
+            ? 3
+            : 0;
+    }
+
+    private static int getEncodedLength(int firstByte)
+    {
+        final int result;
+        if ((firstByte & 0xE0) == 0xC0)
+        {
+            result = 2;
+        }
+        else if ((firstByte & 0xF0) == 0xE0)
+        {
+            result = 3;
+        }
+        else if ((firstByte & 0xF8) == 0xF0)
+        {
+            result = 4;
+        }
+        else
+        {
+            result = 1;
+        }
+        return result;
+    }
+}
@@ -2,9 +2,12 @@ package qub;
 
 public class XMLCData implements XMLElementChild
 {
-    private final String text;
+    /**
+     * The text, which is either a String or an XMLSlice that hasn't been turned into a String yet.
+     */
+    private CharSequence text;
 
-    private XMLCData(String text)
+    private XMLCData(CharSequence text)
     {
         PreCondition.assertNotNull(text, "text");
 
@@ -18,9 +21,24 @@ public class XMLCData implements XMLElementChild
         return new XMLCData(text);
     }
 
+    /**
+     * Create a new XMLCData whose text may be a view of the source that it was parsed from. The
+     * text isn't copied out of the source until getText() is called.
+     * @param text The text.
+     * @return The new XMLCData.
+     */
+    static XMLCData create(CharSequence text)
+    {
+        PreCondition.assertNotNull(text, "text");
+
+        return new XMLCData(text);
+    }
+
     public String getText()
     {
-        return this.text;
+        final String result = this.text.toString();
+        this.text = result;
+        return result;
     }
 
     @Override
@@ -45,7 +63,7 @@ public class XMLCData implements XMLElementChild
             int result = 0;
 
             result += stream.write("<![CDATA[").await();
-            result += stream.write(this.text).await();
+            result += stream.write(this.getText()).await();
             result += stream.write("]]>").await();
 
             return result;
@@ -61,6 +79,6 @@ public class XMLCData implements XMLElementChild
     public boolean equals(XMLCData rhs)
     {
         return rhs != null &&
-            this.text.equals(rhs.text);
+            this.getText().equals(rhs.getText());
     }
 }
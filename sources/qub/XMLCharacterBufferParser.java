@@ -0,0 +1,375 @@
+package qub;
+
+/**
+ * An XMLParser that reads characters from a growable buffer that characters are added to while
+ * the document is being parsed. Characters that the parser no longer needs are discarded when the
+ * buffer runs out of room, so the buffer only needs to be as large as the longest event plus the
+ * names of the elements that are still open.
+ */
+class XMLCharacterBufferParser extends XMLParser
+{
+    private char[] buffer;
+    private int endIndex;
+    private java.nio.charset.CharsetDecoder decoder;
+    private java.nio.ByteBuffer undecodedBytes;
+    private boolean isEnded;
+    /**
+     * The buffer that readFrom() reads bytes into, or null if readFrom() hasn't been called yet.
+     */
+    private byte[] readBuffer;
+
+    XMLCharacterBufferParser()
+    {
+        super(0, 0);
+
+        this.buffer = new char[1024];
+        this.setIndexes(0, 0, false);
+    }
+
+    @Override
+    protected int get(int index)
+    {
+        return this.buffer[index];
+    }
+
+    @Override
+    protected String getString(int startIndex, int endIndex)
+    {
+        return new String(this.buffer, startIndex, endIndex - startIndex);
+    }
+
+    /**
+     * Add the provided characters to the end of this parser's buffer.
+     * @param characters The characters to add.
+     * @param startIndex The index of the first character to add.
+     * @param length The number of characters to add.
+     */
+    void add(char[] characters, int startIndex, int length)
+    {
+        System.arraycopy(characters, startIndex, this.reserve(length).array(), this.endIndex, length);
+        this.endIndex += length;
+        this.setIndexes(this.getCurrentIndex(), this.endIndex, false);
+    }
+
+    /**
+     * Add the provided characters to the end of this parser's buffer.
+     * @param characters The characters to add.
+     */
+    void add(CharSequence characters)
+    {
+        final int length = characters.length();
+        this.reserve(length);
+        if (characters instanceof String)
+        {
+            ((String)characters).getChars(0, length, this.buffer, this.endIndex);
+        }
+        else
+        {
+            for (int i = 0; i < length; ++i)
+            {
+                this.buffer[this.endIndex + i] = characters.charAt(i);
+            }
+        }
+        this.endIndex += length;
+        this.setIndexes(this.getCurrentIndex(), this.endIndex, false);
+    }
+
+    /**
+     * Decode the bytes between the provided buffer's position and limit to the end of this
+     * parser's buffer. The encoding is found from the document's byte order mark or declaration
+     * the first time that enough bytes have been added, and is UTF-8 if the document has neither.
+     * Until then the bytes are kept without being decoded. The bytes can also end in the middle
+     * of a multiple byte character, in which case the bytes of that character are kept until the
+     * rest of the character is added. The buffer's position is not changed.
+     * @param bytes The encoded bytes to add.
+     */
+    void add(java.nio.ByteBuffer bytes)
+    {
+        if (this.undecodedBytes == null)
+        {
+            this.undecodedBytes = java.nio.ByteBuffer.allocate(16);
+        }
+
+        java.nio.ByteBuffer input = bytes.duplicate();
+        if (this.undecodedBytes.position() > 0)
+        {
+            // Only the few bytes of a character that was split between chunks, or the first bytes
+            // of a document whose encoding isn't known yet, are ever left undecoded, so they are
+            // joined with the new chunk before it is decoded.
+            if (this.undecodedBytes.remaining() < input.remaining())
+            {
+                final java.nio.ByteBuffer joinedBytes = java.nio.ByteBuffer.allocate(this.undecodedBytes.position() + input.remaining());
+                this.undecodedBytes.flip();
+                joinedBytes.put(this.undecodedBytes);
+                this.undecodedBytes = joinedBytes;
+            }
+            this.undecodedBytes.put(input);
+            this.undecodedBytes.flip();
+            input = this.undecodedBytes;
+        }
+
+        if (this.decoder == null)
+        {
+            this.createDecoder(input, false);
+        }
+        if (this.decoder != null)
+        {
+            this.add(input, this.decoder, false);
+        }
+
+        if (input == this.undecodedBytes)
+        {
+            this.undecodedBytes.compact();
+        }
+        else
+        {
+            if (this.undecodedBytes.capacity() < input.remaining())
+            {
+                this.undecodedBytes = java.nio.ByteBuffer.allocate(input.remaining());
+            }
+            this.undecodedBytes.clear();
+            this.undecodedBytes.put(input);
+        }
+    }
+
+    /**
+     * Create the decoder for the encoding of the document that starts with the provided bytes, if
+     * there are enough bytes to tell what the encoding is. The byte order mark is skipped.
+     */
+    private void createDecoder(java.nio.ByteBuffer bytes, boolean isEndOfInput)
+    {
+        final java.nio.charset.Charset charset = XMLEncoding.getCharset(bytes, isEndOfInput);
+        if (charset != null)
+        {
+            bytes.position(bytes.position() + XMLEncoding.getByteOrderMarkLength(bytes));
+            this.decoder = XMLEncoding.createDecoder(charset);
+        }
+    }
+
+    /**
+     * Get whether or not the bytes that were most recently added ended in the middle of a
+     * multiple byte character, or didn't have enough bytes to tell what the document's encoding
+     * is.
+     * @return Whether or not there are bytes that haven't been decoded yet.
+     */
+    boolean hasUndecodedBytes()
+    {
+        return this.undecodedBytes != null && this.undecodedBytes.position() > 0;
+    }
+
+    /**
+     * Decode the provided bytes to the end of this parser's buffer. Bytes at the end of the
+     * provided bytes that don't make up a whole character are left in the provided bytes.
+     * @param bytes The bytes to decode.
+     * @param decoder The decoder that will decode the bytes.
+     * @param isEndOfInput Whether or not these are the last bytes of the input.
+     */
+    private void add(java.nio.ByteBuffer bytes, java.nio.charset.CharsetDecoder decoder, boolean isEndOfInput)
+    {
+        // A decoder never creates more characters than there are bytes plus the characters that
+        // it flushes at the end of the input.
+        final java.nio.CharBuffer characters = this.reserve(bytes.remaining() + 2);
+        decoder.decode(bytes, characters, isEndOfInput);
+        if (isEndOfInput)
+        {
+            decoder.flush(characters);
+        }
+        this.endIndex = characters.position();
+        this.setIndexes(this.getCurrentIndex(), this.endIndex, false);
+    }
+
+    /**
+     * Mark that no more characters will be added to this parser's buffer. The bytes of a character
+     * that was never completed are decoded as replacement characters.
+     */
+    void end()
+    {
+        if (this.hasUndecodedBytes())
+        {
+            this.undecodedBytes.flip();
+            if (this.decoder == null)
+            {
+                this.createDecoder(this.undecodedBytes, true);
+            }
+            this.add(this.undecodedBytes, this.decoder, true);
+            this.undecodedBytes.clear();
+        }
+        this.isEnded = true;
+        this.setIndexes(this.getCurrentIndex(), this.endIndex, true);
+    }
+
+    /**
+     * Read the next bytes from the provided stream and add them to this parser's buffer, or end
+     * this parser if the stream doesn't have any more bytes.
+     * @param readStream The stream to read the encoded bytes from.
+     * @return Whether or not this parser may have more events to read, which is false if this
+     * parser had already been ended.
+     */
+    boolean readFrom(ByteReadStream readStream)
+    {
+        PreCondition.assertNotNull(readStream, "readStream");
+
+        boolean result = false;
+        if (!this.isEnded)
+        {
+            if (this.readBuffer == null)
+            {
+                this.readBuffer = new byte[8192];
+            }
+
+            final Integer bytesRead = readStream.readBytes(this.readBuffer, 0, this.readBuffer.length).await();
+            if (bytesRead == null)
+            {
+                this.end();
+            }
+            else
+            {
+                this.add(java.nio.ByteBuffer.wrap(this.readBuffer, 0, bytesRead));
+            }
+            result = true;
+        }
+        return result;
+    }
+
+    /**
+     * Get whether or not end() has been called.
+     * @return Whether or not end() has been called.
+     */
+    boolean isEnded()
+    {
+        return this.isEnded;
+    }
+
+    /**
+     * Parse an XMLDocument from the encoded bytes that are read from the provided stream. Bytes
+     * are read as they are needed and each event is added to the document as soon as it has been
+     * read, so the stream's bytes are never copied into a single array. Comments and text that
+     * only contains whitespace are skipped the same way that parseDocument() skips them. The
+     * stream is not disposed by this parser.
+     * @param readStream The stream to read the encoded bytes from.
+     * @return The parsed XMLDocument.
+     * @throws ParseException if the bytes are not a well-formed XML document.
+     */
+    XMLDocument parseDocument(ByteReadStream readStream)
+    {
+        PreCondition.assertNotNull(readStream, "readStream");
+
+        this.setSkipCommentsAndWhitespace(true);
+
+        final XMLDocument result = XMLDocument.create();
+        XMLElement[] openElements = new XMLElement[8];
+        int openElementCount = 0;
+        boolean isEndOfDocument = false;
+        while (!isEndOfDocument)
+        {
+            final XMLEventType eventType = this.readNextAvailable();
+            if (eventType == null)
+            {
+                isEndOfDocument = !this.readFrom(readStream);
+            }
+            else
+            {
+                switch (eventType)
+                {
+                    case Declaration:
+                        result.setDeclaration(this.getDeclaration());
+                        break;
+
+                    case StartElement:
+                        final XMLElement element = this.createElement(!this.isEmptyElement());
+                        if (openElementCount == 0)
+                        {
+                            result.setRoot(element);
+                        }
+                        else
+                        {
+                            openElements[openElementCount - 1].addChild(element);
+                        }
+                        if (openElementCount == openElements.length)
+                        {
+                            openElements = java.util.Arrays.copyOf(openElements, openElementCount * 2);
+                        }
+                        openElements[openElementCount++] = element;
+                        break;
+
+                    case EndElement:
+                        openElements[--openElementCount] = null;
+                        break;
+
+                    case Text:
+                        if (openElementCount > 0 && !this.isWhitespace())
+                        {
+                            openElements[openElementCount - 1].addChild(XMLText.create(this.getText(), false));
+                        }
+                        break;
+
+                    case CData:
+                        if (openElementCount > 0)
+                        {
+                            openElements[openElementCount - 1].addChild(XMLCData.create(this.getText()));
+                        }
+                        break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Make sure that there is room for the provided number of characters after the end of this
+     * parser's buffer, and get a CharBuffer that writes to that room.
+     */
+    private java.nio.CharBuffer reserve(int characterCount)
+    {
+        if (this.buffer.length - this.endIndex < characterCount)
+        {
+            this.compact();
+
+            final int requiredLength = this.endIndex + characterCount;
+            if (this.buffer.length < requiredLength)
+            {
+                this.buffer = java.util.Arrays.copyOf(this.buffer, Math.max(requiredLength, this.buffer.length * 2));
+            }
+        }
+        return java.nio.CharBuffer.wrap(this.buffer, this.endIndex, this.buffer.length - this.endIndex);
+    }
+
+    /**
+     * Discard the characters that have already been parsed. The names of the elements that are
+     * still open are needed to match their end tags, so they are moved to the start of the buffer
+     * along with the characters that haven't been parsed yet.
+     */
+    private void compact()
+    {
+        final int currentIndex = this.getCurrentIndex();
+        final int openElementCount = this.getOpenElementCount();
+        final int[] openElementNameIndexes = this.getOpenElementNameIndexes();
+
+        int retainedCount = this.endIndex - currentIndex;
+        for (int i = 0; i < openElementCount; ++i)
+        {
+            retainedCount += openElementNameIndexes[i * 2 + 1] - openElementNameIndexes[i * 2];
+        }
+
+        if (retainedCount < currentIndex)
+        {
+            // The open element names are in document order before the current index, so each range
+            // is only ever copied towards the start of the buffer and the copy can be done in place.
+            int compactedIndex = 0;
+            for (int i = 0; i < openElementCount; ++i)
+            {
+                final int nameStartIndex = openElementNameIndexes[i * 2];
+                final int nameLength = openElementNameIndexes[i * 2 + 1] - nameStartIndex;
+                System.arraycopy(this.buffer, nameStartIndex, this.buffer, compactedIndex, nameLength);
+                openElementNameIndexes[i * 2] = compactedIndex;
+                compactedIndex += nameLength;
+                openElementNameIndexes[i * 2 + 1] = compactedIndex;
+            }
+
+            System.arraycopy(this.buffer, currentIndex, this.buffer, compactedIndex, this.endIndex - currentIndex);
+            this.endIndex = compactedIndex + this.endIndex - currentIndex;
+            this.setIndexes(compactedIndex, this.endIndex, false);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package qub;
+
+/**
+ * An XMLParser that reads its code units from a CharSequence, such as a String or a
+ * java.nio.CharBuffer that wraps a char[].
+ */
+public class XMLCharacterParser extends XMLParser
+{
+    private final CharSequence characters;
+
+    private XMLCharacterParser(CharSequence characters)
+    {
+        super(0, characters.length());
+
+        this.characters = characters;
+    }
+
+    /**
+     * Create a new XMLCharacterParser that will parse the provided characters.
+     * @param characters The characters to parse.
+     * @return The new XMLCharacterParser.
+     */
+    public static XMLCharacterParser create(char[] characters)
+    {
+        PreCondition.assertNotNull(characters, "characters");
+
+        return XMLCharacterParser.create(java.nio.CharBuffer.wrap(characters));
+    }
+
+    /**
+     * Create a new XMLCharacterParser that will parse the provided characters.
+     * @param characters The characters to parse.
+     * @return The new XMLCharacterParser.
+     */
+    public static XMLCharacterParser create(CharSequence characters)
+    {
+        PreCondition.assertNotNull(characters, "characters");
+
+        return new XMLCharacterParser(characters);
+    }
+
+    @Override
+    protected int get(int index)
+    {
+        return this.characters.charAt(index);
+    }
+
+    @Override
+    protected String getString(int startIndex, int endIndex)
+    {
+        return this.characters.subSequence(startIndex, endIndex).toString();
+    }
+
+    @Override
+    protected CharSequence getSlice(int startIndex, int endIndex)
+    {
+        return XMLSlice.create(this.characters, startIndex, endIndex);
+    }
+}
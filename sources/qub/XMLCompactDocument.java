@@ -0,0 +1,612 @@
+package qub;
+
+/**
+ * An XML document that stores its nodes in parallel arrays of primitives instead of as a graph of
+ * XMLElement and XMLText objects. Each node is identified by its index in document order, and the
+ * root element is node 0. The kind, name, parent, first child, and next sibling of every node are
+ * stored in one array each, so a document with millions of nodes is a handful of arrays instead of
+ * millions of objects. Each distinct name is stored once, and text, CDATA, and attribute values
+ * are stored as the indexes of their code units in the source that the document was parsed from,
+ * so the source must not be changed while the document is being used.
+ * <p>
+ * Like XML.parse(), comments and text that only contains whitespace are not stored.
+ * {@link #getRoot()} returns an {@link XMLCompactElement}, which navigates the document with the
+ * same getters as XMLElement without creating a node object for each element.
+ */
+public final class XMLCompactDocument
+{
+    private static final byte elementKind = 0;
+    private static final byte splitElementKind = 1;
+    private static final byte textKind = 2;
+    private static final byte cdataKind = 3;
+
+    private final XMLParser source;
+    private XMLDeclaration declaration;
+
+    private int nodeCount;
+    private byte[] kinds;
+    /**
+     * The name id of each element, or -1 for text and CDATA nodes.
+     */
+    private int[] nameIds;
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    /**
+     * For elements, the index of the element's first attribute. For text and CDATA nodes, the
+     * index of the first code unit of the node's text in the source.
+     */
+    private int[] valueStartIndexes;
+    /**
+     * For elements, the index after the element's last attribute. For text and CDATA nodes, the
+     * index after the last code unit of the node's text in the source.
+     */
+    private int[] valueEndIndexes;
+
+    private int attributeCount;
+    private int[] attributeNameIds;
+    private int[] attributeValueStartIndexes;
+    private int[] attributeValueEndIndexes;
+
+    private String[] names;
+    private int[] nameHashes;
+    private int nameCount;
+    /**
+     * An open addressing hash table of name ids plus one, where 0 marks an empty slot. It is used
+     * while the document is parsed to find the id of a name without creating a String for it.
+     */
+    private int[] nameTable;
+
+    private XMLCompactDocument(XMLParser source)
+    {
+        this.source = source;
+
+        this.kinds = new byte[64];
+        this.nameIds = new int[64];
+        this.parents = new int[64];
+        this.firstChildren = new int[64];
+        this.nextSiblings = new int[64];
+        this.valueStartIndexes = new int[64];
+        this.valueEndIndexes = new int[64];
+
+        this.attributeNameIds = new int[64];
+        this.attributeValueStartIndexes = new int[64];
+        this.attributeValueEndIndexes = new int[64];
+
+        this.names = new String[16];
+        this.nameHashes = new int[16];
+        this.nameTable = new int[64];
+    }
+
+    /**
+     * Parse an XMLCompactDocument from the remaining code units of the provided parser. The
+     * parser's source must not be changed while the document is being used.
+     * @param parser The parser to parse the document with.
+     * @return The parsed XMLCompactDocument.
+     * @throws ParseException if the code units are not a well-formed XML document.
+     */
+    static XMLCompactDocument parse(XMLParser parser)
+    {
+        PreCondition.assertNotNull(parser, "parser");
+
+        parser.setSkipCommentsAndWhitespace(true);
+
+        final XMLCompactDocument result = new XMLCompactDocument(parser);
+
+        // The last child that was added to each open element, or -1 if it has no children yet.
+        int[] openElements = new int[16];
+        int[] lastChildren = new int[16];
+        int openElementCount = 0;
+        XMLEventType eventType = parser.readNext();
+        while (eventType != null)
+        {
+            switch (eventType)
+            {
+                case Declaration:
+                    result.declaration = parser.getDeclaration();
+                    break;
+
+                case StartElement:
+                    final int element = result.addNode(
+                        parser.isEmptyElement() ? XMLCompactDocument.elementKind : XMLCompactDocument.splitElementKind,
+                        openElements, lastChildren, openElementCount);
+                    result.nameIds[element] = result.getNameId(parser.getNameStartIndex(), parser.getNameEndIndex());
+                    result.valueStartIndexes[element] = result.attributeCount;
+                    final int elementAttributeCount = parser.getAttributeCount();
+                    for (int i = 0; i < elementAttributeCount; ++i)
+                    {
+                        result.addAttribute(
+                            result.getNameId(parser.getAttributeNameStartIndex(i), parser.getAttributeNameEndIndex(i)),
+                            parser.getAttributeValueStartIndex(i),
+                            parser.getAttributeValueEndIndex(i));
+                    }
+                    result.valueEndIndexes[element] = result.attributeCount;
+
+                    if (openElementCount == openElements.length)
+                    {
+                        openElements = java.util.Arrays.copyOf(openElements, openElementCount * 2);
+                        lastChildren = java.util.Arrays.copyOf(lastChildren, openElementCount * 2);
+                    }
+                    openElements[openElementCount] = element;
+                    lastChildren[openElementCount] = -1;
+                    ++openElementCount;
+                    break;
+
+                case EndElement:
+                    --openElementCount;
+                    break;
+
+                case Text:
+                    if (!parser.isWhitespace())
+                    {
+                        result.addTextNode(XMLCompactDocument.textKind, parser, openElements, lastChildren, openElementCount);
+                    }
+                    break;
+
+                case CData:
+                    result.addTextNode(XMLCompactDocument.cdataKind, parser, openElements, lastChildren, openElementCount);
+                    break;
+            }
+            eventType = parser.readNext();
+        }
+
+        return result;
+    }
+
+    /**
+     * Add a node of the provided kind as the last child of the innermost open element, or as the
+     * root if there are no open elements.
+     * @return The index of the new node.
+     */
+    private int addNode(byte kind, int[] openElements, int[] lastChildren, int openElementCount)
+    {
+        if (this.nodeCount == this.kinds.length)
+        {
+            final int capacity = this.nodeCount * 2;
+            this.kinds = java.util.Arrays.copyOf(this.kinds, capacity);
+            this.nameIds = java.util.Arrays.copyOf(this.nameIds, capacity);
+            this.parents = java.util.Arrays.copyOf(this.parents, capacity);
+            this.firstChildren = java.util.Arrays.copyOf(this.firstChildren, capacity);
+            this.nextSiblings = java.util.Arrays.copyOf(this.nextSiblings, capacity);
+            this.valueStartIndexes = java.util.Arrays.copyOf(this.valueStartIndexes, capacity);
+            this.valueEndIndexes = java.util.Arrays.copyOf(this.valueEndIndexes, capacity);
+        }
+
+        final int result = this.nodeCount++;
+        this.kinds[result] = kind;
+        this.nameIds[result] = -1;
+        this.firstChildren[result] = -1;
+        this.nextSiblings[result] = -1;
+        if (openElementCount == 0)
+        {
+            this.parents[result] = -1;
+        }
+        else
+        {
+            final int parent = openElements[openElementCount - 1];
+            this.parents[result] = parent;
+
+            final int previousSibling = lastChildren[openElementCount - 1];
+            if (previousSibling == -1)
+            {
+                this.firstChildren[parent] = result;
+            }
+            else
+            {
+                this.nextSiblings[previousSibling] = result;
+            }
+            lastChildren[openElementCount - 1] = result;
+        }
+        return result;
+    }
+
+    private void addTextNode(byte kind, XMLParser parser, int[] openElements, int[] lastChildren, int openElementCount)
+    {
+        final int node = this.addNode(kind, openElements, lastChildren, openElementCount);
+        this.valueStartIndexes[node] = parser.getTextStartIndex();
+        this.valueEndIndexes[node] = parser.getTextEndIndex();
+    }
+
+    private void addAttribute(int nameId, int valueStartIndex, int valueEndIndex)
+    {
+        if (this.attributeCount == this.attributeNameIds.length)
+        {
+            final int capacity = this.attributeCount * 2;
+            this.attributeNameIds = java.util.Arrays.copyOf(this.attributeNameIds, capacity);
+            this.attributeValueStartIndexes = java.util.Arrays.copyOf(this.attributeValueStartIndexes, capacity);
+            this.attributeValueEndIndexes = java.util.Arrays.copyOf(this.attributeValueEndIndexes, capacity);
+        }
+        this.attributeNameIds[this.attributeCount] = nameId;
+        this.attributeValueStartIndexes[this.attributeCount] = valueStartIndex;
+        this.attributeValueEndIndexes[this.attributeCount] = valueEndIndex;
+        ++this.attributeCount;
+    }
+
+    /**
+     * Get the id of the name between the provided indexes of the source, adding the name if this
+     * document doesn't have it yet. A String is only created the first time that a name is seen.
+     */
+    private int getNameId(int startIndex, int endIndex)
+    {
+        int hash = 0;
+        for (int i = startIndex; i < endIndex; ++i)
+        {
+            hash = 31 * hash + this.source.get(i);
+        }
+
+        final int mask = this.nameTable.length - 1;
+        int slot = XMLCompactDocument.mix(hash) & mask;
+        int result = -1;
+        while (result == -1)
+        {
+            final int entry = this.nameTable[slot];
+            if (entry == 0)
+            {
+                result = this.addName(this.source.getString(startIndex, endIndex), hash, slot);
+            }
+            else if (this.nameHashes[entry - 1] == hash && this.source.equals(startIndex, endIndex, this.names[entry - 1]))
+            {
+                result = entry - 1;
+            }
+            else
+            {
+                slot = (slot + 1) & mask;
+            }
+        }
+        return result;
+    }
+
+    private int addName(String name, int hash, int slot)
+    {
+        if (this.nameCount == this.names.length)
+        {
+            this.names = java.util.Arrays.copyOf(this.names, this.nameCount * 2);
+            this.nameHashes = java.util.Arrays.copyOf(this.nameHashes, this.nameCount * 2);
+        }
+
+        final int result = this.nameCount++;
+        this.names[result] = name;
+        this.nameHashes[result] = hash;
+
+        if (this.nameCount * 2 > this.nameTable.length)
+        {
+            this.nameTable = new int[this.nameTable.length * 2];
+            final int mask = this.nameTable.length - 1;
+            for (int nameId = 0; nameId < this.nameCount; ++nameId)
+            {
+                int nameSlot = XMLCompactDocument.mix(this.nameHashes[nameId]) & mask;
+                while (this.nameTable[nameSlot] != 0)
+                {
+                    nameSlot = (nameSlot + 1) & mask;
+                }
+                this.nameTable[nameSlot] = nameId + 1;
+            }
+        }
+        else
+        {
+            this.nameTable[slot] = result + 1;
+        }
+        return result;
+    }
+
+    private static int mix(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Get the declaration of this document.
+     * @return The declaration of this document, or null if it doesn't have one.
+     */
+    public XMLDeclaration getDeclaration()
+    {
+        return this.declaration;
+    }
+
+    /**
+     * Get the root element of this document.
+     * @return The root element of this document, or null if it doesn't have one.
+     */
+    public XMLCompactElement getRoot()
+    {
+        return this.nodeCount == 0 ? null : new XMLCompactElement(this, 0);
+    }
+
+    /**
+     * Get the number of nodes in this document.
+     * @return The number of nodes in this document.
+     */
+    public int getNodeCount()
+    {
+        return this.nodeCount;
+    }
+
+    /**
+     * Get whether or not the provided node is an element.
+     * @param node The index of the node.
+     * @return Whether or not the provided node is an element.
+     */
+    public boolean isElement(int node)
+    {
+        this.assertNode(node);
+
+        return this.kinds[node] <= XMLCompactDocument.splitElementKind;
+    }
+
+    /**
+     * Get whether or not the provided node is text.
+     * @param node The index of the node.
+     * @return Whether or not the provided node is text.
+     */
+    public boolean isText(int node)
+    {
+        this.assertNode(node);
+
+        return this.kinds[node] == XMLCompactDocument.textKind;
+    }
+
+    /**
+     * Get whether or not the provided node is a CDATA section.
+     * @param node The index of the node.
+     * @return Whether or not the provided node is a CDATA section.
+     */
+    public boolean isCData(int node)
+    {
+        this.assertNode(node);
+
+        return this.kinds[node] == XMLCompactDocument.cdataKind;
+    }
+
+    /**
+     * Get whether or not the provided element is split into a start tag and an end tag.
+     * @param element The index of the element.
+     * @return Whether or not the provided element is split into a start tag and an end tag.
+     */
+    public boolean isSplit(int element)
+    {
+        this.assertElement(element);
+
+        return this.kinds[element] == XMLCompactDocument.splitElementKind;
+    }
+
+    /**
+     * Get the name of the provided element.
+     * @param element The index of the element.
+     * @return The name of the provided element.
+     */
+    public String getName(int element)
+    {
+        this.assertElement(element);
+
+        return this.names[this.nameIds[element]];
+    }
+
+    /**
+     * Get the element that contains the provided node.
+     * @param node The index of the node.
+     * @return The index of the element that contains the provided node, or -1 if the node is the
+     * root element.
+     */
+    public int getParent(int node)
+    {
+        this.assertNode(node);
+
+        return this.parents[node];
+    }
+
+    /**
+     * Get the first child of the provided node.
+     * @param node The index of the node.
+     * @return The index of the first child of the provided node, or -1 if it doesn't have any
+     * children.
+     */
+    public int getFirstChild(int node)
+    {
+        this.assertNode(node);
+
+        return this.firstChildren[node];
+    }
+
+    /**
+     * Get the node that follows the provided node in its parent's children.
+     * @param node The index of the node.
+     * @return The index of the next sibling of the provided node, or -1 if it is the last child of
+     * its parent.
+     */
+    public int getNextSibling(int node)
+    {
+        this.assertNode(node);
+
+        return this.nextSiblings[node];
+    }
+
+    /**
+     * Get the text of the provided text or CDATA node.
+     * @param node The index of the text or CDATA node.
+     * @return The text of the provided node.
+     */
+    public String getText(int node)
+    {
+        this.assertNode(node);
+        PreCondition.assertFalse(this.isElement(node), "this.isElement(node)");
+
+        return this.getSourceString(this.valueStartIndexes[node], this.valueEndIndexes[node]);
+    }
+
+    /**
+     * Get the number of attributes of the provided element.
+     * @param element The index of the element.
+     * @return The number of attributes of the provided element.
+     */
+    public int getAttributeCount(int element)
+    {
+        this.assertElement(element);
+
+        return this.valueEndIndexes[element] - this.valueStartIndexes[element];
+    }
+
+    /**
+     * Get the name of the attribute at the provided index of the provided element.
+     * @param element The index of the element.
+     * @param attributeIndex The index of the attribute in the element's start tag.
+     * @return The name of the attribute.
+     */
+    public String getAttributeName(int element, int attributeIndex)
+    {
+        return this.names[this.attributeNameIds[this.getAttribute(element, attributeIndex)]];
+    }
+
+    /**
+     * Get the unquoted value of the attribute at the provided index of the provided element.
+     * @param element The index of the element.
+     * @param attributeIndex The index of the attribute in the element's start tag.
+     * @return The unquoted value of the attribute.
+     */
+    public String getAttributeValue(int element, int attributeIndex)
+    {
+        final int attribute = this.getAttribute(element, attributeIndex);
+        return this.getSourceString(this.attributeValueStartIndexes[attribute], this.attributeValueEndIndexes[attribute]);
+    }
+
+    /**
+     * Get the index of the attribute with the provided name in the provided element's start tag.
+     * @param element The index of the element.
+     * @param attributeName The name of the attribute.
+     * @return The index of the attribute, or -1 if the element doesn't have an attribute with the
+     * provided name.
+     */
+    public int indexOfAttribute(int element, String attributeName)
+    {
+        this.assertElement(element);
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+
+        final int startAttribute = this.valueStartIndexes[element];
+        final int endAttribute = this.valueEndIndexes[element];
+        int result = -1;
+        for (int attribute = startAttribute; result == -1 && attribute < endAttribute; ++attribute)
+        {
+            if (this.names[this.attributeNameIds[attribute]].equals(attributeName))
+            {
+                result = attribute - startAttribute;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the index after the last node in the provided node's subtree. Nodes are stored in
+     * document order, so the nodes between the provided node and the returned index are the
+     * provided node's descendants.
+     * @param node The index of the node.
+     * @return The index after the last descendant of the provided node.
+     */
+    int getSubtreeEndIndex(int node)
+    {
+        int result = -1;
+        int ancestor = node;
+        while (result == -1)
+        {
+            if (ancestor == -1)
+            {
+                result = this.nodeCount;
+            }
+            else if (this.nextSiblings[ancestor] != -1)
+            {
+                result = this.nextSiblings[ancestor];
+            }
+            else
+            {
+                ancestor = this.parents[ancestor];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create an XMLDocument with the same declaration and nodes as this document.
+     * @return The new XMLDocument.
+     */
+    public XMLDocument toXMLDocument()
+    {
+        final XMLDocument result = XMLDocument.create()
+            .setDeclaration(this.declaration);
+        if (this.nodeCount > 0)
+        {
+            result.setRoot(this.toXMLElement(0));
+        }
+        return result;
+    }
+
+    /**
+     * Create an XMLElement with the same attributes and children as the provided element.
+     * @param element The index of the element.
+     * @return The new XMLElement.
+     */
+    XMLElement toXMLElement(int element)
+    {
+        this.assertElement(element);
+
+        final int endIndex = this.getSubtreeEndIndex(element);
+        final XMLElement[] elements = new XMLElement[endIndex - element];
+        for (int node = element; node < endIndex; ++node)
+        {
+            final XMLElementChild child;
+            if (this.isElement(node))
+            {
+                final XMLElement childElement = XMLElement.create(this.getName(node), this.isSplit(node));
+                final int childAttributeCount = this.getAttributeCount(node);
+                for (int i = 0; i < childAttributeCount; ++i)
+                {
+                    childElement.setAttribute(this.getAttributeName(node, i), this.getAttributeValue(node, i));
+                }
+                elements[node - element] = childElement;
+                child = childElement;
+            }
+            else if (this.isText(node))
+            {
+                child = XMLText.create(this.getText(node), false);
+            }
+            else
+            {
+                child = XMLCData.create(this.getText(node));
+            }
+
+            if (node != element)
+            {
+                elements[this.parents[node] - element].addChild(child);
+            }
+        }
+        return elements[0];
+    }
+
+    /**
+     * Get the String of the code units between the provided indexes of the source. Slices only read
+     * the source with absolute indexes, so documents can be read from multiple threads.
+     */
+    private String getSourceString(int startIndex, int endIndex)
+    {
+        return this.source.getSlice(startIndex, endIndex).toString();
+    }
+
+    private int getAttribute(int element, int attributeIndex)
+    {
+        this.assertElement(element);
+        PreCondition.assertGreaterThanOrEqualTo(attributeIndex, 0, "attributeIndex");
+        PreCondition.assertLessThan(attributeIndex, this.getAttributeCount(element), "attributeIndex");
+
+        return this.valueStartIndexes[element] + attributeIndex;
+    }
+
+    private void assertNode(int node)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(node, 0, "node");
+        PreCondition.assertLessThan(node, this.nodeCount, "node");
+    }
+
+    private void assertElement(int element)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(element, 0, "element");
+        PreCondition.assertLessThan(element, this.nodeCount, "element");
+        PreCondition.assertTrue(this.kinds[element] <= XMLCompactDocument.splitElementKind, "this.isElement(element)");
+    }
+}
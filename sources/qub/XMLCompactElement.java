@@ -0,0 +1,210 @@
+package qub;
+
+/**
+ * An element of an {@link XMLCompactDocument}. An XMLCompactElement is only a reference to its
+ * document and the index of its node, so it is created when it is navigated to and can be
+ * discarded as soon as it isn't needed. Its getters mirror the getters of XMLElement.
+ */
+public final class XMLCompactElement
+{
+    private final XMLCompactDocument document;
+    private final int node;
+
+    XMLCompactElement(XMLCompactDocument document, int node)
+    {
+        PreCondition.assertNotNull(document, "document");
+        PreCondition.assertTrue(document.isElement(node), "document.isElement(node)");
+
+        this.document = document;
+        this.node = node;
+    }
+
+    /**
+     * Get the document that contains this element.
+     * @return The document that contains this element.
+     */
+    public XMLCompactDocument getDocument()
+    {
+        return this.document;
+    }
+
+    /**
+     * Get the index of this element's node in its document.
+     * @return The index of this element's node in its document.
+     */
+    public int getNode()
+    {
+        return this.node;
+    }
+
+    public String getName()
+    {
+        return this.document.getName(this.node);
+    }
+
+    public boolean isSplit()
+    {
+        return this.document.isSplit(this.node);
+    }
+
+    public Iterable<XMLAttribute> getAttributes()
+    {
+        final int attributeCount = this.document.getAttributeCount(this.node);
+        final List<XMLAttribute> result = List.create();
+        for (int i = 0; i < attributeCount; ++i)
+        {
+            result.add(XMLAttribute.create(this.document.getAttributeName(this.node, i), this.document.getAttributeValue(this.node, i)));
+        }
+        return result;
+    }
+
+    /**
+     * Get whether or not this element contains an attribute with the provided name.
+     * @param attributeName The name of the attribute to look for.
+     * @return Whether or not this element contains an attribute with the provided name.
+     */
+    public boolean containsAttribute(String attributeName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+
+        return this.document.indexOfAttribute(this.node, attributeName) != -1;
+    }
+
+    public Result<String> getAttributeValue(String attributeName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+
+        final int attributeIndex = this.document.indexOfAttribute(this.node, attributeName);
+        return attributeIndex == -1
+            ? Result.error(new NotFoundException("Couldn't find an attribute named " + Strings.escapeAndQuote(attributeName) + " in the element."))
+            : Result.success(this.document.getAttributeValue(this.node, attributeIndex));
+    }
+
+    /**
+     * Get the element that contains this element.
+     * @return The element that contains this element, or null if this is the root element.
+     */
+    public XMLCompactElement getParent()
+    {
+        final int parent = this.document.getParent(this.node);
+        return parent == -1 ? null : new XMLCompactElement(this.document, parent);
+    }
+
+    /**
+     * Get the children of this element that are elements.
+     * @return The children of this element that are elements.
+     */
+    public Iterable<XMLCompactElement> getElementChildren()
+    {
+        final List<XMLCompactElement> result = List.create();
+        for (int child = this.document.getFirstChild(this.node); child != -1; child = this.document.getNextSibling(child))
+        {
+            if (this.document.isElement(child))
+            {
+                result.add(new XMLCompactElement(this.document, child));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the children of this element that are elements and have the provided name.
+     * @param name The name of the element children to return.
+     * @return The children of this element that are elements and have the provided name.
+     */
+    public Iterable<XMLCompactElement> getElementChildren(String name)
+    {
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+
+        final List<XMLCompactElement> result = List.create();
+        for (int child = this.document.getFirstChild(this.node); child != -1; child = this.document.getNextSibling(child))
+        {
+            if (this.document.isElement(child) && this.document.getName(child).equals(name))
+            {
+                result.add(new XMLCompactElement(this.document, child));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the first element child with the provided name. If no element child is found with the
+     * provided name, then return a NotFoundException.
+     * @param name The name of the element child to return.
+     * @return The first element child with the provided name or a NotFoundException if no element
+     * child with the provided name is found.
+     */
+    public Result<XMLCompactElement> getFirstElementChild(String name)
+    {
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+
+        int child = this.document.getFirstChild(this.node);
+        while (child != -1 && !(this.document.isElement(child) && this.document.getName(child).equals(name)))
+        {
+            child = this.document.getNextSibling(child);
+        }
+        return child == -1
+            ? Result.error(new NotFoundException("No XML element children found with the name " + Strings.escapeAndQuote(name) + "."))
+            : Result.success(new XMLCompactElement(this.document, child));
+    }
+
+    /**
+     * Get the text contained by this element.
+     * @return The text contained by this element.
+     */
+    public String getText()
+    {
+        // Nodes are stored in document order, so this element's descendants are the nodes between
+        // it and the end of its subtree.
+        final StringBuilder result = new StringBuilder();
+        final int endIndex = this.document.getSubtreeEndIndex(this.node);
+        for (int descendant = this.node + 1; descendant < endIndex; ++descendant)
+        {
+            if (this.document.isText(descendant))
+            {
+                result.append(this.document.getText(descendant));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Create an XMLElement with the same attributes and children as this element.
+     * @return The new XMLElement.
+     */
+    public XMLElement toXMLElement()
+    {
+        return this.document.toXMLElement(this.node);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.toXMLElement().toString();
+    }
+
+    @Override
+    public boolean equals(Object rhs)
+    {
+        return rhs instanceof XMLCompactElement && this.equals((XMLCompactElement)rhs);
+    }
+
+    /**
+     * Get whether or not the provided element refers to the same node of the same document as this
+     * element.
+     * @param rhs The element to compare to this element.
+     * @return Whether or not the provided element refers to the same node as this element.
+     */
+    public boolean equals(XMLCompactElement rhs)
+    {
+        return rhs != null &&
+            this.document == rhs.document &&
+            this.node == rhs.node;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return System.identityHashCode(this.document) * 31 + this.node;
+    }
+}
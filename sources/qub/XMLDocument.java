@@ -7,6 +7,7 @@ public class XMLDocument
 {
     private XMLDeclaration declaration;
     private XMLElement root;
+    private XMLAttributeIndexRegistry attributeIndexRegistry;
 
     private XMLDocument()
     {
@@ -32,9 +33,13 @@ public class XMLDocument
         return this.declaration;
     }
 
-    public XMLDocument setRoot(XMLElement root)
+    public synchronized XMLDocument setRoot(XMLElement root)
     {
         this.root = root;
+        if (this.attributeIndexRegistry != null)
+        {
+            this.attributeIndexRegistry.invalidate(null);
+        }
         return this;
     }
 
@@ -43,6 +48,43 @@ public class XMLDocument
         return this.root;
     }
 
+    /**
+     * Get the index of this document's elements by the value of the attribute with the provided
+     * name. The index is created the first time that it is asked for, and the same index is
+     * returned after that.
+     * @param attributeName The name of the attribute to index the elements by.
+     * @return The index of this document's elements by the value of the attribute.
+     */
+    public synchronized XMLAttributeIndex getAttributeIndex(String attributeName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+
+        if (this.attributeIndexRegistry == null)
+        {
+            this.attributeIndexRegistry = XMLAttributeIndexRegistry.create(this);
+        }
+        final XMLAttributeIndex result = this.attributeIndexRegistry.getAttributeIndex(attributeName);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the index of this document's elements by the value of the attribute with the provided
+     * name if it has already been created.
+     * @param attributeName The name of the attribute that the elements are indexed by.
+     * @return The index, or null if it hasn't been created.
+     */
+    synchronized XMLAttributeIndex findAttributeIndex(String attributeName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+
+        return this.attributeIndexRegistry == null
+            ? null
+            : this.attributeIndexRegistry.findAttributeIndex(attributeName);
+    }
+
     @Override
     public String toString()
     {
@@ -2,17 +2,61 @@ package qub;
 
 public class XMLElement implements XMLElementChild
 {
+    /**
+     * The number of attributes that the attribute array has room for when it is first created.
+     */
+    private static final int initialAttributeCapacity = 4;
+    /**
+     * The most attributes that an element can have before a hash table is used to find its
+     * attributes by name.
+     */
+    private static final int maximumUnindexedAttributeCount = 8;
+    /**
+     * The most children that an element can have before its element children are indexed by name
+     * the first time that they are looked up by name.
+     */
+    private static final int maximumUnindexedChildCount = 8;
+
     private boolean split;
     private final String name;
-    private final MutableMap<String,String> attributes;
+    /**
+     * The attributes of this element in the order that they were set, stored as alternating names
+     * and values, or null if this element has never had any attributes. Values that were parsed
+     * lazily are XMLSlices until they are read.
+     */
+    private CharSequence[] attributes;
+    private int attributeCount;
+    /**
+     * An open addressing hash table of the indexes of this element's attributes plus one, or null
+     * if this element has few enough attributes that they are found by looking at each of them.
+     */
+    private int[] attributeTable;
     private final List<XMLElementChild> children;
+    /**
+     * The element children of this element grouped by their names, in the same order as they are
+     * in the children list, or null if they haven't been looked up by name since this element had
+     * enough children to index them.
+     */
+    private volatile MutableMap<String,List<XMLElement>> childIndex;
+    /**
+     * The registry of the attribute indexes that must be invalidated when this element's
+     * attributes or children change, or null if no attribute index has walked this element. It is
+     * set while the registry's lock is held, and is volatile so that a thread that changes this
+     * element afterwards sees it.
+     */
+    private volatile XMLAttributeIndexRegistry attributeIndexRegistry;
+    /**
+     * The loader that will parse this element's attributes and children the first time that they
+     * are needed, or null if this element has already been loaded or wasn't parsed lazily.
+     */
+    private volatile XMLElementLoader loader;
+    private int loaderElementIndex;
 
     private XMLElement(String name, boolean split)
     {
         PreCondition.assertNotNullAndNotEmpty(name, "name");
 
         this.name = name;
-        this.attributes = Map.create();
         this.split = split;
         this.children = List.create();
     }
@@ -27,6 +71,25 @@ public class XMLElement implements XMLElementChild
         return new XMLElement(name, split);
     }
 
+    /**
+     * Create a new XMLElement whose attributes and children will be parsed by the provided loader
+     * the first time that they are needed.
+     * @param name The name of the element.
+     * @param split Whether or not the element is split into a start tag and an end tag.
+     * @param loader The loader that will parse the element's attributes and children.
+     * @param loaderElementIndex The index of the element in the loader's document order.
+     * @return The new XMLElement.
+     */
+    static XMLElement create(String name, boolean split, XMLElementLoader loader, int loaderElementIndex)
+    {
+        PreCondition.assertNotNull(loader, "loader");
+
+        final XMLElement result = XMLElement.create(name, split);
+        result.loader = loader;
+        result.loaderElementIndex = loaderElementIndex;
+        return result;
+    }
+
     public String getName()
     {
         return this.name;
@@ -57,7 +120,9 @@ public class XMLElement implements XMLElementChild
         PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
         PreCondition.assertNotNull(attributeValue, "attributeValue");
 
-        this.attributes.set(attributeName, attributeValue);
+        this.load();
+        this.putAttribute(attributeName, attributeValue);
+        this.invalidateAttributeIndexes(attributeName);
         return this;
     }
 
@@ -81,7 +146,74 @@ public class XMLElement implements XMLElementChild
 
     public Iterable<XMLAttribute> getAttributes()
     {
-        return this.attributes.map(XMLAttribute::create);
+        this.load();
+
+        final List<XMLAttribute> result = List.create();
+        for (int i = 0; i < this.attributeCount; ++i)
+        {
+            result.add(XMLAttribute.create(this.getAttributeNameAt(i), this.getAttributeValueAt(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of attributes that this element has.
+     * @return The number of attributes that this element has.
+     */
+    public int getAttributeCount()
+    {
+        this.load();
+        return this.attributeCount;
+    }
+
+    /**
+     * Get the name of the attribute at the provided index. Attributes are indexed in the order
+     * that they were set.
+     * @param attributeIndex The index of the attribute.
+     * @return The name of the attribute at the provided index.
+     */
+    public String getAttributeNameAt(int attributeIndex)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(attributeIndex, 0, "attributeIndex");
+        PreCondition.assertLessThan(attributeIndex, this.getAttributeCount(), "attributeIndex");
+
+        return (String)this.attributes[attributeIndex * 2];
+    }
+
+    /**
+     * Get the value of the attribute at the provided index. Attributes are indexed in the order
+     * that they were set.
+     * @param attributeIndex The index of the attribute.
+     * @return The value of the attribute at the provided index.
+     */
+    public String getAttributeValueAt(int attributeIndex)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(attributeIndex, 0, "attributeIndex");
+        PreCondition.assertLessThan(attributeIndex, this.getAttributeCount(), "attributeIndex");
+
+        final CharSequence attributeValue = this.attributes[attributeIndex * 2 + 1];
+        final String result = attributeValue.toString();
+        if (attributeValue != result)
+        {
+            this.attributes[attributeIndex * 2 + 1] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Run the provided action on the name and value of each of this element's attributes, in the
+     * order that they were set. Unlike getAttributes(), this doesn't create any objects.
+     * @param action The action to run on each attribute's name and value.
+     */
+    public void forEachAttribute(Action2<String,String> action)
+    {
+        PreCondition.assertNotNull(action, "action");
+
+        final int attributeCount = this.getAttributeCount();
+        for (int i = 0; i < attributeCount; ++i)
+        {
+            action.run(this.getAttributeNameAt(i), this.getAttributeValueAt(i));
+        }
     }
 
     /**
@@ -93,18 +225,19 @@ public class XMLElement implements XMLElementChild
     {
         PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
 
-        return this.getAttributeValue(attributeName)
-            .then(() -> true)
-            .catchError(() -> false)
-            .await();
+        this.load();
+        return this.indexOfAttribute(attributeName) != -1;
     }
 
     public Result<String> getAttributeValue(String attributeName)
     {
         PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
 
-        return this.attributes.get(attributeName)
-            .convertError(NotFoundException.class, () -> new NotFoundException("Couldn't find an attribute named " + Strings.escapeAndQuote(attributeName) + " in the element."));
+        this.load();
+        final int attributeIndex = this.indexOfAttribute(attributeName);
+        return attributeIndex == -1
+            ? Result.error(new NotFoundException("Couldn't find an attribute named " + Strings.escapeAndQuote(attributeName) + " in the element."))
+            : Result.success(this.getAttributeValueAt(attributeIndex));
     }
 
     /**
@@ -113,7 +246,11 @@ public class XMLElement implements XMLElementChild
      */
     public XMLElement clearAttributes()
     {
-        this.attributes.clear();
+        this.load();
+        this.attributes = null;
+        this.attributeCount = 0;
+        this.attributeTable = null;
+        this.invalidateAttributeIndexes(null);
         return this;
     }
 
@@ -126,13 +263,20 @@ public class XMLElement implements XMLElementChild
     {
         PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
 
-        return Result.create(() ->
+        this.load();
+        final int attributeIndex = this.indexOfAttribute(attributeName);
+        final Result<XMLAttribute> result;
+        if (attributeIndex == -1)
         {
-            final String removedAttributeValue = this.attributes.remove(attributeName)
-                .convertError(NotFoundException.class, () -> new NotFoundException("No attribute with the name " + Strings.escapeAndQuote(attributeName) + " was found in this XMLElement."))
-                .await();
-            return XMLAttribute.create(attributeName, removedAttributeValue);
-        });
+            result = Result.error(new NotFoundException("No attribute with the name " + Strings.escapeAndQuote(attributeName) + " was found in this XMLElement."));
+        }
+        else
+        {
+            result = Result.success(XMLAttribute.create(attributeName, this.getAttributeValueAt(attributeIndex)));
+            this.removeAttributeAt(attributeIndex);
+            this.invalidateAttributeIndexes(attributeName);
+        }
+        return result;
     }
 
     /**
@@ -141,7 +285,7 @@ public class XMLElement implements XMLElementChild
      */
     public Indexable<XMLElementChild> getChildren()
     {
-        return this.children;
+        return this.getChildList();
     }
 
     /**
@@ -154,7 +298,9 @@ public class XMLElement implements XMLElementChild
     }
 
     /**
-     * Get the children of this XMLElement that are XMLElements and have the provided name.
+     * Get the children of this XMLElement that are XMLElements and have the provided name. The
+     * returned Iterable is a view of this element's children, so it will include children that
+     * are added after it is returned.
      * @param name The name of the XMLElement children to return.
      * @return The children of this XMLElement that are XMLElements and have the provided name.
      */
@@ -162,7 +308,31 @@ public class XMLElement implements XMLElementChild
     {
         PreCondition.assertNotNullAndNotEmpty(name, "name");
 
-        return this.getElementChildren((XMLElement child) -> child.getName().equals(name));
+        return () -> this.iterateElementChildren(name);
+    }
+
+    /**
+     * Iterate over the children of this XMLElement that are XMLElements and have the provided
+     * name, as they are right now.
+     */
+    private Iterator<XMLElement> iterateElementChildren(String name)
+    {
+        final MutableMap<String,List<XMLElement>> childIndex = this.isChildIndexed() ? this.childIndex : null;
+
+        final Iterator<XMLElement> result;
+        if (childIndex == null)
+        {
+            result = this.getElementChildren((XMLElement child) -> child.getName().equals(name)).iterate();
+        }
+        else if (childIndex.containsKey(name))
+        {
+            result = childIndex.get(name).await().iterate();
+        }
+        else
+        {
+            result = Iterator.create();
+        }
+        return result;
     }
 
     /**
@@ -191,8 +361,19 @@ public class XMLElement implements XMLElementChild
     {
         PreCondition.assertNotNullAndNotEmpty(name, "name");
 
-        return this.getFirstElementChild((XMLElement element) -> element.getName().equals(name))
-            .convertError(NotFoundException.class, () -> new NotFoundException("No XML element children found with the name " + Strings.escapeAndQuote(name) + "."));
+        final Result<XMLElement> result;
+        if (this.isChildIndexed())
+        {
+            result = this.childIndex.containsKey(name)
+                ? Result.success(this.childIndex.get(name).await().get(0))
+                : Result.error(new NotFoundException("No XML element children found with the name " + Strings.escapeAndQuote(name) + "."));
+        }
+        else
+        {
+            result = this.getFirstElementChild((XMLElement element) -> element.getName().equals(name))
+                .convertError(NotFoundException.class, () -> new NotFoundException("No XML element children found with the name " + Strings.escapeAndQuote(name) + "."));
+        }
+        return result;
     }
 
     /**
@@ -294,7 +475,15 @@ public class XMLElement implements XMLElementChild
     {
         PreCondition.assertNotNull(child, "child");
 
-        this.children.add(child);
+        this.getChildList().add(child);
+        if (child instanceof XMLElement)
+        {
+            if (this.childIndex != null)
+            {
+                XMLElement.addToChildIndex(this.childIndex, (XMLElement)child);
+            }
+            this.invalidateAttributeIndexes(null);
+        }
         this.split = true;
         return this;
     }
@@ -327,7 +516,9 @@ public class XMLElement implements XMLElementChild
      */
     public XMLElement clearChildren()
     {
-        this.children.clear();
+        this.getChildList().clear();
+        this.childIndex = null;
+        this.invalidateAttributeIndexes(null);
         return this;
     }
 
@@ -342,10 +533,23 @@ public class XMLElement implements XMLElementChild
 
         return Result.create(() ->
         {
-            if (!this.children.remove(child))
+            if (!this.getChildList().remove(child))
             {
                 throw new NotFoundException("Could not remove the child " + child + " because it didn't exist.");
             }
+
+            // The children list removed the first child that is equal to the provided child. Equal
+            // elements have the same name and the index keeps the children's order, so the first
+            // equal element in the index is the same element.
+            if (child instanceof XMLElement)
+            {
+                final XMLElement element = (XMLElement)child;
+                if (this.childIndex != null)
+                {
+                    this.removeFromChildIndex(element.getName(), (XMLElement indexedElement) -> indexedElement.equals(element));
+                }
+                this.invalidateAttributeIndexes(null);
+            }
         });
     }
 
@@ -377,10 +581,16 @@ public class XMLElement implements XMLElementChild
             XMLElement removedElement;
             while (true)
             {
-                removedElement = (XMLElement)this.children.removeFirst((XMLElementChild child) -> child instanceof XMLElement && condition.run((XMLElement)child));
+                removedElement = (XMLElement)this.getChildList().removeFirst((XMLElementChild child) -> child instanceof XMLElement && condition.run((XMLElement)child));
                 if (removedElement != null)
                 {
                     result.add(removedElement);
+                    if (this.childIndex != null)
+                    {
+                        final XMLElement removedChild = removedElement;
+                        this.removeFromChildIndex(removedChild.getName(), (XMLElement indexedElement) -> indexedElement == removedChild);
+                    }
+                    this.invalidateAttributeIndexes(null);
                 }
                 else
                 {
@@ -417,9 +627,16 @@ public class XMLElement implements XMLElementChild
     {
         PreCondition.assertNotNull(output, "output");
 
+        // The children that haven't been visited yet are kept in a stack instead of in recursive
+        // calls, so the depth of an element is only limited by the available memory. The children
+        // of each element are pushed in reverse so that they are popped in document order.
+        final List<XMLElementChild> unvisitedChildren = List.create();
+        XMLElement.addChildrenInReverse(this, unvisitedChildren);
+
         int result = 0;
-        for (final XMLElementChild child : this.children)
+        while (unvisitedChildren.any())
         {
+            final XMLElementChild child = unvisitedChildren.removeLast();
             if (child instanceof XMLText)
             {
                 final String childText = ((XMLText)child).getText();
@@ -428,7 +645,7 @@ public class XMLElement implements XMLElementChild
             }
             else if (child instanceof XMLElement)
             {
-                result += ((XMLElement)child).getText(output);
+                XMLElement.addChildrenInReverse((XMLElement)child, unvisitedChildren);
             }
         }
 
@@ -437,6 +654,15 @@ public class XMLElement implements XMLElementChild
         return result;
     }
 
+    private static void addChildrenInReverse(XMLElement element, List<XMLElementChild> output)
+    {
+        final List<XMLElementChild> children = element.getChildList();
+        for (int i = children.getCount() - 1; i >= 0; --i)
+        {
+            output.add(children.get(i));
+        }
+    }
+
     /**
      * Add an XMLText child with the provided text to this XMLElement.
      * @param text The text to add.
@@ -491,74 +717,143 @@ public class XMLElement implements XMLElementChild
 
         return Result.create(() ->
         {
-            int result = 0;
-
-            result += stream.write('<').await();
-            result += stream.write(this.name).await();
-
-            for (final MapEntry<String,String> attribute : this.attributes)
+            // The elements that haven't been ended yet are kept in a stack instead of in recursive
+            // calls, so the depth of an element is only limited by the available memory.
+            XMLElement[] openElements = new XMLElement[16];
+            int[] nextChildIndexes = new int[16];
+            boolean[] previousChildWasText = new boolean[16];
+            int openElementCount = 0;
+            int increasedIndentCount = 0;
+
+            int result = this.writeStartTag(stream);
+            if (this.split)
             {
-                result += stream.write(' ').await();
-                result += stream.write(attribute.getKey()).await();
-                result += stream.write("=\"").await();
-                result += stream.write(attribute.getValue()).await();
-                result += stream.write('\"').await();
+                openElements[openElementCount++] = this;
             }
 
-            if (!this.split)
-            {
-                result += stream.write("/>").await();
-            }
-            else
+            try
             {
-                result += stream.write('>').await();
-
-                if (this.children.any())
+                final String newLine = format.getNewLine();
+                while (openElementCount > 0)
                 {
-                    stream.setSingleIndent(format.getSingleIndent());
-                    final String newLine = format.getNewLine();
+                    final int openElementIndex = openElementCount - 1;
+                    final XMLElement element = openElements[openElementIndex];
+                    final List<XMLElementChild> children = element.getChildList();
+                    final int childIndex = nextChildIndexes[openElementIndex];
+                    if (childIndex == 0 && children.any())
+                    {
+                        stream.setSingleIndent(format.getSingleIndent());
+                    }
 
-                    boolean previousChildWasText = false;
-                    for (final XMLElementChild child : this.children)
+                    if (childIndex < children.getCount())
                     {
+                        nextChildIndexes[openElementIndex] = childIndex + 1;
+
+                        final XMLElementChild child = children.get(childIndex);
                         if (child instanceof XMLText)
                         {
                             result += child.toString(stream, format).await();
-                            previousChildWasText = true;
+                            previousChildWasText[openElementIndex] = true;
                         }
                         else
                         {
                             stream.increaseIndent();
-                            try
+                            ++increasedIndentCount;
+
+                            if (!previousChildWasText[openElementIndex])
                             {
-                                if (!previousChildWasText)
+                                result += stream.write(newLine).await();
+                            }
+                            previousChildWasText[openElementIndex] = false;
+
+                            if (child instanceof XMLElement && ((XMLElement)child).split)
+                            {
+                                // The indent stays increased until the child element's end tag
+                                // has been written.
+                                final XMLElement childElement = (XMLElement)child;
+                                result += childElement.writeStartTag(stream);
+
+                                if (openElementCount == openElements.length)
                                 {
-                                    result += stream.write(newLine).await();
+                                    openElements = java.util.Arrays.copyOf(openElements, openElementCount * 2);
+                                    nextChildIndexes = java.util.Arrays.copyOf(nextChildIndexes, openElementCount * 2);
+                                    previousChildWasText = java.util.Arrays.copyOf(previousChildWasText, openElementCount * 2);
                                 }
-                                result += child.toString(stream, format).await();
+                                openElements[openElementCount] = childElement;
+                                nextChildIndexes[openElementCount] = 0;
+                                previousChildWasText[openElementCount] = false;
+                                ++openElementCount;
                             }
-                            finally
+                            else
                             {
+                                result += child.toString(stream, format).await();
+
                                 stream.decreaseIndent();
+                                --increasedIndentCount;
                             }
-                            previousChildWasText = false;
                         }
                     }
-                    if (!previousChildWasText)
+                    else
                     {
-                        result += stream.write(newLine).await();
+                        if (children.any() && !previousChildWasText[openElementIndex])
+                        {
+                            result += stream.write(newLine).await();
+                        }
+
+                        result += stream.write("</").await();
+                        result += stream.write(element.name).await();
+                        result += stream.write('>').await();
+
+                        --openElementCount;
+                        openElements[openElementCount] = null;
+                        if (openElementCount > 0)
+                        {
+                            stream.decreaseIndent();
+                            --increasedIndentCount;
+                        }
                     }
                 }
-
-                result += stream.write("</").await();
-                result += stream.write(this.name).await();
-                result += stream.write('>').await();
+            }
+            finally
+            {
+                while (increasedIndentCount > 0)
+                {
+                    stream.decreaseIndent();
+                    --increasedIndentCount;
+                }
             }
 
             return result;
         });
     }
 
+    /**
+     * Write this XMLElement's start tag, or its empty element tag if it isn't split.
+     * @param stream The stream to write to.
+     * @return The number of characters that were written.
+     */
+    private int writeStartTag(IndentedCharacterWriteStream stream)
+    {
+        int result = 0;
+
+        result += stream.write('<').await();
+        result += stream.write(this.name).await();
+
+        final int attributeCount = this.getAttributeCount();
+        for (int i = 0; i < attributeCount; ++i)
+        {
+            result += stream.write(' ').await();
+            result += stream.write(this.getAttributeNameAt(i)).await();
+            result += stream.write("=\"").await();
+            result += stream.write(this.getAttributeValueAt(i)).await();
+            result += stream.write('\"').await();
+        }
+
+        result += stream.write(this.split ? ">" : "/>").await();
+
+        return result;
+    }
+
     @Override
     public boolean equals(Object rhs)
     {
@@ -567,10 +862,315 @@ public class XMLElement implements XMLElementChild
 
     public boolean equals(XMLElement rhs)
     {
-        return rhs != null &&
-            this.split == rhs.split &&
-            this.name.equals(rhs.name) &&
-            this.attributes.equals(rhs.attributes) &&
-            this.children.equals(rhs.children);
+        boolean result = (rhs != null);
+        if (result)
+        {
+            // The child elements that haven't been compared yet are kept in stacks instead of in
+            // recursive calls, so the depth of an element is only limited by the available memory.
+            final List<XMLElement> lhsElements = List.create(this);
+            final List<XMLElement> rhsElements = List.create(rhs);
+            while (result && lhsElements.any())
+            {
+                final XMLElement lhsElement = lhsElements.removeLast();
+                final XMLElement rhsElement = rhsElements.removeLast();
+                final List<XMLElementChild> lhsChildren = lhsElement.getChildList();
+                final List<XMLElementChild> rhsChildren = rhsElement.getChildList();
+                result = lhsElement.split == rhsElement.split &&
+                    lhsElement.name.equals(rhsElement.name) &&
+                    XMLElement.attributesEqual(lhsElement, rhsElement) &&
+                    lhsChildren.getCount() == rhsChildren.getCount();
+
+                for (int i = 0; result && i < lhsChildren.getCount(); ++i)
+                {
+                    final XMLElementChild lhsChild = lhsChildren.get(i);
+                    final XMLElementChild rhsChild = rhsChildren.get(i);
+                    if (lhsChild instanceof XMLElement)
+                    {
+                        result = (rhsChild instanceof XMLElement);
+                        if (result)
+                        {
+                            lhsElements.add((XMLElement)lhsChild);
+                            rhsElements.add((XMLElement)rhsChild);
+                        }
+                    }
+                    else
+                    {
+                        result = lhsChild.equals(rhsChild);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parse this element's attributes and children if this element was parsed lazily and they
+     * haven't been parsed yet.
+     */
+    private void load()
+    {
+        final XMLElementLoader loader = this.loader;
+        if (loader != null)
+        {
+            // Elements from the same document share a loader and its parser, so only one element
+            // of a document can be loaded at a time.
+            synchronized (loader)
+            {
+                if (this.loader != null)
+                {
+                    loader.load(this, this.loaderElementIndex);
+                    this.loader = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get whether or not the provided elements have the same attribute names and values, in any
+     * order.
+     */
+    private static boolean attributesEqual(XMLElement lhs, XMLElement rhs)
+    {
+        final int attributeCount = lhs.getAttributeCount();
+        boolean result = (attributeCount == rhs.getAttributeCount());
+        for (int i = 0; result && i < attributeCount; ++i)
+        {
+            final int rhsIndex = rhs.indexOfAttribute(lhs.getAttributeNameAt(i));
+            result = rhsIndex != -1 && lhs.getAttributeValueAt(i).equals(rhs.getAttributeValueAt(rhsIndex));
+        }
+        return result;
+    }
+
+    /**
+     * Get the index of the attribute with the provided name, or -1 if this element doesn't have an
+     * attribute with the provided name. This doesn't load this element first.
+     */
+    private int indexOfAttribute(String attributeName)
+    {
+        int result = -1;
+        if (this.attributeTable == null)
+        {
+            for (int i = 0; result == -1 && i < this.attributeCount; ++i)
+            {
+                if (attributeName.equals(this.attributes[i * 2]))
+                {
+                    result = i;
+                }
+            }
+        }
+        else
+        {
+            final int mask = this.attributeTable.length - 1;
+            int slot = XMLElement.hash(attributeName) & mask;
+            int entry = this.attributeTable[slot];
+            while (result == -1 && entry != 0)
+            {
+                if (attributeName.equals(this.attributes[(entry - 1) * 2]))
+                {
+                    result = entry - 1;
+                }
+                else
+                {
+                    slot = (slot + 1) & mask;
+                    entry = this.attributeTable[slot];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Set the value of the attribute with the provided name, or add the attribute to the end of
+     * this element's attributes if it doesn't have one with the provided name. This doesn't load
+     * this element first.
+     */
+    private void putAttribute(String attributeName, CharSequence attributeValue)
+    {
+        final int attributeIndex = this.indexOfAttribute(attributeName);
+        if (attributeIndex != -1)
+        {
+            this.attributes[attributeIndex * 2 + 1] = attributeValue;
+        }
+        else
+        {
+            if (this.attributes == null)
+            {
+                this.attributes = new CharSequence[XMLElement.initialAttributeCapacity * 2];
+            }
+            else if (this.attributes.length == this.attributeCount * 2)
+            {
+                this.attributes = java.util.Arrays.copyOf(this.attributes, this.attributes.length * 2);
+            }
+            this.attributes[this.attributeCount * 2] = attributeName;
+            this.attributes[this.attributeCount * 2 + 1] = attributeValue;
+            ++this.attributeCount;
+
+            if (this.attributeTable != null && this.attributeCount * 2 <= this.attributeTable.length)
+            {
+                this.addToAttributeTable(this.attributeCount - 1);
+            }
+            else if (this.attributeCount > XMLElement.maximumUnindexedAttributeCount)
+            {
+                this.rebuildAttributeTable();
+            }
+        }
+    }
+
+    /**
+     * Remove the attribute at the provided index and move the attributes after it down by one.
+     */
+    private void removeAttributeAt(int attributeIndex)
+    {
+        System.arraycopy(this.attributes, (attributeIndex + 1) * 2, this.attributes, attributeIndex * 2, (this.attributeCount - attributeIndex - 1) * 2);
+        --this.attributeCount;
+        this.attributes[this.attributeCount * 2] = null;
+        this.attributes[this.attributeCount * 2 + 1] = null;
+
+        // The indexes of the attributes after the removed attribute have changed, so the table is
+        // built again.
+        if (this.attributeCount > XMLElement.maximumUnindexedAttributeCount)
+        {
+            this.rebuildAttributeTable();
+        }
+        else
+        {
+            this.attributeTable = null;
+        }
+    }
+
+    /**
+     * Build the hash table of this element's attributes with room for twice as many attributes as
+     * it has, so that it is never more than half full.
+     */
+    private void rebuildAttributeTable()
+    {
+        int tableLength = 16;
+        while (tableLength < this.attributeCount * 4)
+        {
+            tableLength *= 2;
+        }
+        this.attributeTable = new int[tableLength];
+        for (int i = 0; i < this.attributeCount; ++i)
+        {
+            this.addToAttributeTable(i);
+        }
+    }
+
+    private void addToAttributeTable(int attributeIndex)
+    {
+        final int mask = this.attributeTable.length - 1;
+        int slot = XMLElement.hash((String)this.attributes[attributeIndex * 2]) & mask;
+        while (this.attributeTable[slot] != 0)
+        {
+            slot = (slot + 1) & mask;
+        }
+        this.attributeTable[slot] = attributeIndex + 1;
+    }
+
+    private static int hash(String attributeName)
+    {
+        final int hashCode = attributeName.hashCode();
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    /**
+     * Get whether or not this element's element children are indexed by name, and index them if
+     * this element has enough children that they should be.
+     */
+    private boolean isChildIndexed()
+    {
+        final List<XMLElementChild> children = this.getChildList();
+        if (this.childIndex == null && children.getCount() > XMLElement.maximumUnindexedChildCount)
+        {
+            // The index is only stored after it is built, so that threads that are reading this
+            // element at the same time never see an index that is only partly built.
+            final MutableMap<String,List<XMLElement>> childIndex = Map.create();
+            for (final XMLElementChild child : children)
+            {
+                if (child instanceof XMLElement)
+                {
+                    XMLElement.addToChildIndex(childIndex, (XMLElement)child);
+                }
+            }
+            this.childIndex = childIndex;
+        }
+        return this.childIndex != null;
+    }
+
+    private static void addToChildIndex(MutableMap<String,List<XMLElement>> childIndex, XMLElement element)
+    {
+        final String name = element.getName();
+        if (childIndex.containsKey(name))
+        {
+            childIndex.get(name).await().add(element);
+        }
+        else
+        {
+            childIndex.set(name, List.create(element));
+        }
+    }
+
+    /**
+     * Remove the first element with the provided name that matches the provided condition from
+     * this element's child index.
+     */
+    private void removeFromChildIndex(String name, Function1<XMLElement,Boolean> condition)
+    {
+        if (this.childIndex.containsKey(name))
+        {
+            final List<XMLElement> elements = this.childIndex.get(name).await();
+            elements.removeFirst(condition);
+            if (!elements.any())
+            {
+                this.childIndex.remove(name).await();
+            }
+        }
+    }
+
+    /**
+     * Set the registry of the attribute indexes that must be invalidated when this element's
+     * attributes or children change.
+     */
+    void setAttributeIndexRegistry(XMLAttributeIndexRegistry attributeIndexRegistry)
+    {
+        this.attributeIndexRegistry = attributeIndexRegistry;
+    }
+
+    /**
+     * Invalidate the attribute indexes of this element's document that are affected by the
+     * change.
+     * @param attributeName The name of the attribute that changed, or null if this element's
+     * children or all of its attributes changed.
+     */
+    private void invalidateAttributeIndexes(String attributeName)
+    {
+        if (this.attributeIndexRegistry != null)
+        {
+            this.attributeIndexRegistry.invalidate(attributeName);
+        }
+    }
+
+    private List<XMLElementChild> getChildList()
+    {
+        this.load();
+        return this.children;
+    }
+
+    /**
+     * Set an attribute that was parsed by this element's loader. Unlike setAttribute(), this
+     * doesn't load this element first.
+     */
+    void setLoadedAttribute(String attributeName, CharSequence attributeValue)
+    {
+        this.putAttribute(attributeName, attributeValue);
+    }
+
+    /**
+     * Add a child that was parsed by this element's loader. Unlike addChild(), this doesn't load
+     * this element first.
+     */
+    void addLoadedChild(XMLElementChild child)
+    {
+        this.children.add(child);
     }
 }
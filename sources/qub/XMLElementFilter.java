@@ -0,0 +1,345 @@
+package qub;
+
+/**
+ * A set of element paths, such as "/feed/entry/id" or "//price", that picks out the elements of a
+ * document while it is being parsed. Only the elements that match one of the paths are created.
+ * The rest of the document is still checked for well-formedness, but elements that can't contain
+ * a match are skipped without looking at their names or attributes.
+ * <p>
+ * Each path is made up of steps that start with either "/", which matches a child of the
+ * previous step's element, or "//", which matches any descendant of the previous step's element.
+ * Each step is followed by an element name or by "*", which matches any element name.
+ * <p>
+ * The paths are matched against the parser's events one at a time, and only the steps that the
+ * children of each open element can match are kept, so the memory that matching needs is bounded
+ * by the depth of the document and the size of the largest match instead of by the size of the
+ * document.
+ */
+final class XMLElementFilter
+{
+    /**
+     * The name that each step matches, or null if the step matches any name. The steps of every
+     * path are stored one after the other.
+     */
+    private final String[] stepNames;
+    /**
+     * Whether or not each step can match any descendant instead of only a child.
+     */
+    private final boolean[] stepIsDescendant;
+    /**
+     * Whether or not each step is the last step of its path.
+     */
+    private final boolean[] stepIsLast;
+    /**
+     * The index of the path that each step belongs to.
+     */
+    private final int[] stepPaths;
+    /**
+     * The number of longs that are needed to store one bit for each step.
+     */
+    private final int wordCount;
+    /**
+     * The bits of the first step of each path, which are the steps that the root element is
+     * matched against.
+     */
+    private final long[] firstSteps;
+
+    private XMLElementFilter(String[] stepNames, boolean[] stepIsDescendant, boolean[] stepIsLast, int[] stepPaths, int stepCount)
+    {
+        this.stepNames = stepNames;
+        this.stepIsDescendant = stepIsDescendant;
+        this.stepIsLast = stepIsLast;
+        this.stepPaths = stepPaths;
+        this.wordCount = Math.max(1, (stepCount + 63) / 64);
+        this.firstSteps = new long[this.wordCount];
+
+        boolean isFirstStep = true;
+        for (int step = 0; step < stepCount; ++step)
+        {
+            if (isFirstStep)
+            {
+                this.firstSteps[step / 64] |= 1L << step;
+            }
+            isFirstStep = stepIsLast[step];
+        }
+    }
+
+    /**
+     * Create a new XMLElementFilter from the provided element paths.
+     * @param paths The element paths that elements must match.
+     * @return The new XMLElementFilter.
+     * @throws ParseException if one of the paths is not a valid element path.
+     */
+    static XMLElementFilter create(Iterable<String> paths)
+    {
+        PreCondition.assertNotNull(paths, "paths");
+
+        String[] stepNames = new String[8];
+        boolean[] stepIsDescendant = new boolean[8];
+        boolean[] stepIsLast = new boolean[8];
+        int[] stepPaths = new int[8];
+        int stepCount = 0;
+        int pathCount = 0;
+        for (final String path : paths)
+        {
+            if (path == null)
+            {
+                throw XML.missing("element path");
+            }
+            if (path.isEmpty() || path.charAt(0) != '/')
+            {
+                throw XML.expected("element path " + Strings.escapeAndQuote(path) + " to start with '/'");
+            }
+
+            int index = 0;
+            while (index < path.length())
+            {
+                boolean isDescendant = false;
+                ++index;
+                if (index < path.length() && path.charAt(index) == '/')
+                {
+                    isDescendant = true;
+                    ++index;
+                }
+
+                final int nameStartIndex = index;
+                while (index < path.length() && path.charAt(index) != '/')
+                {
+                    ++index;
+                }
+                final String name = path.substring(nameStartIndex, index);
+                if (!name.equals("*") && !XMLElementFilter.isName(name))
+                {
+                    throw XML.expected("element name or '*' at index " + nameStartIndex + " of element path " + Strings.escapeAndQuote(path));
+                }
+
+                if (stepCount == stepNames.length)
+                {
+                    stepNames = java.util.Arrays.copyOf(stepNames, stepCount * 2);
+                    stepIsDescendant = java.util.Arrays.copyOf(stepIsDescendant, stepCount * 2);
+                    stepIsLast = java.util.Arrays.copyOf(stepIsLast, stepCount * 2);
+                    stepPaths = java.util.Arrays.copyOf(stepPaths, stepCount * 2);
+                }
+                stepNames[stepCount] = name.equals("*") ? null : name;
+                stepIsDescendant[stepCount] = isDescendant;
+                stepIsLast[stepCount] = (index == path.length());
+                stepPaths[stepCount] = pathCount;
+                ++stepCount;
+            }
+            ++pathCount;
+        }
+
+        return new XMLElementFilter(stepNames, stepIsDescendant, stepIsLast, stepPaths, stepCount);
+    }
+
+    private static boolean isName(String value)
+    {
+        boolean result = !value.isEmpty();
+        for (int i = 0; result && i < value.length(); i += Character.charCount(value.codePointAt(i)))
+        {
+            final int codePoint = value.codePointAt(i);
+            result = (i == 0 ? XML.isNameStartCodePoint(codePoint) : XML.isNameCodePoint(codePoint));
+        }
+        return result;
+    }
+
+    /**
+     * Parse the remaining code units of the provided parser and create the elements that match
+     * this filter's paths. When an element matches, its whole subtree is created and the elements
+     * inside of it are not matched separately.
+     * @param parser The parser to parse the document with.
+     * @return The matching elements in document order.
+     * @throws ParseException if the code units are not a well-formed XML document.
+     */
+    List<XMLElement> parse(XMLParser parser)
+    {
+        PreCondition.assertNotNull(parser, "parser");
+
+        final List<XMLElement> result = List.create();
+        this.parse(parser, null, (Integer path, XMLElement element) -> result.add(element));
+        return result;
+    }
+
+    /**
+     * Parse the remaining code units of the provided parser and call the provided action with
+     * each element that matches this filter's paths as soon as the element's end tag has been
+     * parsed. When an element matches, its whole subtree is created and the elements inside of it
+     * are not matched separately. If an element matches more than one path, then the action is
+     * only called once with the index of the first of those paths. The matching elements aren't
+     * referenced by this filter after the action returns.
+     * @param parser The parser to parse the document with.
+     * @param readStream The stream to add bytes to the parser from when it runs out of code
+     *                   units, or null if the parser already has the whole document. The parser
+     *                   must be an XMLCharacterBufferParser if the stream isn't null.
+     * @param onMatch The action to call with the index of the matching path and the matching
+     *                element.
+     * @throws ParseException if the code units are not a well-formed XML document.
+     */
+    void parse(XMLParser parser, ByteReadStream readStream, Action2<Integer,XMLElement> onMatch)
+    {
+        PreCondition.assertNotNull(parser, "parser");
+        PreCondition.assertTrue(readStream == null || parser instanceof XMLCharacterBufferParser, "readStream == null || parser instanceof XMLCharacterBufferParser");
+        PreCondition.assertNotNull(onMatch, "onMatch");
+
+        parser.setSkipCommentsAndWhitespace(true);
+
+        // The steps that the children of each open element are matched against, stored as
+        // wordCount longs for each open element.
+        long[] openElementSteps = new long[this.wordCount * 16];
+        System.arraycopy(this.firstSteps, 0, openElementSteps, 0, this.wordCount);
+        int openElementCount = 0;
+
+        // The depth of the element whose events are being skipped because nothing inside of it
+        // can match, or -1 if no element is being skipped.
+        int skippedElementDepth = -1;
+
+        // The elements of the match that is being created that haven't been ended yet. The first
+        // element is the matching element.
+        XMLElement[] matchElements = new XMLElement[8];
+        int matchElementCount = 0;
+        int matchPath = -1;
+
+        boolean isEndOfDocument = false;
+        while (!isEndOfDocument)
+        {
+            final XMLEventType eventType = (readStream == null ? parser.readNext() : parser.readNextAvailable());
+            if (eventType == null)
+            {
+                isEndOfDocument = (readStream == null || !((XMLCharacterBufferParser)parser).readFrom(readStream));
+            }
+            else if (matchElementCount > 0)
+            {
+                switch (eventType)
+                {
+                    case StartElement:
+                        final XMLElement element = parser.createElement(!parser.isEmptyElement());
+                        matchElements[matchElementCount - 1].addChild(element);
+                        if (matchElementCount == matchElements.length)
+                        {
+                            matchElements = java.util.Arrays.copyOf(matchElements, matchElementCount * 2);
+                        }
+                        matchElements[matchElementCount++] = element;
+                        break;
+
+                    case EndElement:
+                        --matchElementCount;
+                        if (matchElementCount == 0)
+                        {
+                            final XMLElement match = matchElements[0];
+                            matchElements[0] = null;
+                            onMatch.run(matchPath, match);
+                        }
+                        else
+                        {
+                            matchElements[matchElementCount] = null;
+                        }
+                        break;
+
+                    case Text:
+                        if (!parser.isWhitespace())
+                        {
+                            matchElements[matchElementCount - 1].addChild(XMLText.create(parser.getText(), false));
+                        }
+                        break;
+
+                    case CData:
+                        matchElements[matchElementCount - 1].addChild(XMLCData.create(parser.getText()));
+                        break;
+                }
+            }
+            else if (skippedElementDepth != -1)
+            {
+                // Nothing inside of the skipped element can match, so its events aren't looked at
+                // until its end element event.
+                if (eventType == XMLEventType.EndElement && parser.getDepth() == skippedElementDepth)
+                {
+                    skippedElementDepth = -1;
+                }
+            }
+            else if (eventType == XMLEventType.StartElement)
+            {
+                final int parentOffset = openElementCount * this.wordCount;
+                final int childOffset = parentOffset + this.wordCount;
+                if (childOffset + this.wordCount > openElementSteps.length)
+                {
+                    openElementSteps = java.util.Arrays.copyOf(openElementSteps, openElementSteps.length * 2);
+                }
+
+                matchPath = this.matchChild(parser, openElementSteps, parentOffset, childOffset);
+                if (matchPath != -1)
+                {
+                    matchElements[0] = parser.createElement(!parser.isEmptyElement());
+                    matchElementCount = 1;
+                }
+                else if (XMLElementFilter.isEmpty(openElementSteps, childOffset, this.wordCount))
+                {
+                    skippedElementDepth = parser.getDepth();
+                }
+                else
+                {
+                    ++openElementCount;
+                }
+            }
+            else if (eventType == XMLEventType.EndElement)
+            {
+                --openElementCount;
+            }
+        }
+    }
+
+    /**
+     * Match the element of the parser's most recently read start element event against the steps
+     * of its parent, and store the steps that the element's children will be matched against.
+     * @return The index of the first path whose last step the element matched, or -1 if the
+     * element didn't match the last step of any path.
+     */
+    private int matchChild(XMLParser parser, long[] openElementSteps, int parentOffset, int childOffset)
+    {
+        int result = -1;
+        for (int word = 0; word < this.wordCount; ++word)
+        {
+            openElementSteps[childOffset + word] = 0;
+        }
+        for (int word = 0; word < this.wordCount; ++word)
+        {
+            long parentSteps = openElementSteps[parentOffset + word];
+            while (parentSteps != 0)
+            {
+                final int step = word * 64 + Long.numberOfTrailingZeros(parentSteps);
+                parentSteps &= parentSteps - 1;
+
+                if (this.stepIsDescendant[step])
+                {
+                    openElementSteps[childOffset + word] |= 1L << step;
+                }
+
+                final String stepName = this.stepNames[step];
+                if (stepName == null || parser.nameEquals(stepName))
+                {
+                    if (this.stepIsLast[step])
+                    {
+                        if (result == -1)
+                        {
+                            result = this.stepPaths[step];
+                        }
+                    }
+                    else
+                    {
+                        openElementSteps[childOffset + (step + 1) / 64] |= 1L << (step + 1);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean isEmpty(long[] values, int offset, int count)
+    {
+        boolean result = true;
+        for (int i = 0; result && i < count; ++i)
+        {
+            result = (values[offset + i] == 0);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,160 @@
+package qub;
+
+/**
+ * Loads the attributes and children of XMLElements from the code units that they were parsed
+ * from. A lazily parsed document is checked for well-formedness in a single pass that only records
+ * where each element starts and ends, and each element's attributes and children are parsed the
+ * first time that they are needed.
+ */
+final class XMLElementLoader
+{
+    private final XMLParser parser;
+
+    /**
+     * The index of the left angle bracket of each element's start tag, in document order.
+     */
+    private int[] tagStartIndexes;
+    /**
+     * The index after the right angle bracket of each element's end tag, in document order.
+     */
+    private int[] elementEndIndexes;
+    /**
+     * The number of elements in each element's subtree, including the element itself. The next
+     * sibling of an element is found by skipping this many elements.
+     */
+    private int[] subtreeSizes;
+    private int elementCount;
+
+    private XMLElementLoader(XMLParser parser)
+    {
+        this.parser = parser;
+        this.tagStartIndexes = new int[64];
+        this.elementEndIndexes = new int[64];
+        this.subtreeSizes = new int[64];
+    }
+
+    /**
+     * Parse an XMLDocument from the remaining code units of the provided parser. The document's
+     * root element only has its name until its attributes or children are needed. The code units
+     * must not change while the document is being used.
+     * @param parser The parser to parse the document with.
+     * @return The parsed XMLDocument.
+     * @throws ParseException if the code units are not a well-formed XML document.
+     */
+    static XMLDocument parseDocument(XMLParser parser)
+    {
+        PreCondition.assertNotNull(parser, "parser");
+
+        final XMLElementLoader loader = new XMLElementLoader(parser);
+        final XMLDocument result = XMLDocument.create();
+
+        String rootName = null;
+        boolean rootIsSplit = false;
+        int[] openElementIndexes = new int[16];
+        int openElementCount = 0;
+        XMLEventType eventType = parser.readNext();
+        while (eventType != null)
+        {
+            switch (eventType)
+            {
+                case Declaration:
+                    result.setDeclaration(parser.getDeclaration());
+                    break;
+
+                case StartElement:
+                    if (openElementCount == 0)
+                    {
+                        rootName = parser.getName();
+                        rootIsSplit = !parser.isEmptyElement();
+                    }
+                    if (openElementCount == openElementIndexes.length)
+                    {
+                        openElementIndexes = java.util.Arrays.copyOf(openElementIndexes, openElementCount * 2);
+                    }
+                    openElementIndexes[openElementCount++] = loader.addElement(parser.getNameStartIndex() - 1);
+                    break;
+
+                case EndElement:
+                    final int elementIndex = openElementIndexes[--openElementCount];
+                    loader.elementEndIndexes[elementIndex] = parser.getCurrentIndex();
+                    loader.subtreeSizes[elementIndex] = loader.elementCount - elementIndex;
+                    break;
+            }
+            eventType = parser.readNext();
+        }
+
+        if (rootName != null)
+        {
+            result.setRoot(XMLElement.create(rootName, rootIsSplit, loader, 0));
+        }
+
+        return result;
+    }
+
+    private int addElement(int tagStartIndex)
+    {
+        if (this.elementCount == this.tagStartIndexes.length)
+        {
+            final int capacity = this.elementCount * 2;
+            this.tagStartIndexes = java.util.Arrays.copyOf(this.tagStartIndexes, capacity);
+            this.elementEndIndexes = java.util.Arrays.copyOf(this.elementEndIndexes, capacity);
+            this.subtreeSizes = java.util.Arrays.copyOf(this.subtreeSizes, capacity);
+        }
+        this.tagStartIndexes[this.elementCount] = tagStartIndex;
+        return this.elementCount++;
+    }
+
+    /**
+     * Parse the attributes and children of the provided element. Child elements are created with
+     * only their names, and they will be loaded by this loader when they are needed. Attribute
+     * values and text are views of the parser's source, and are only copied out of the source
+     * when they are read. Comments and text that only contains whitespace are skipped the same
+     * way that XML.parse() skips them.
+     * @param element The element to load.
+     * @param elementIndex The index of the element in document order.
+     */
+    void load(XMLElement element, int elementIndex)
+    {
+        PreCondition.assertNotNull(element, "element");
+        PreCondition.assertGreaterThanOrEqualTo(elementIndex, 0, "elementIndex");
+        PreCondition.assertLessThan(elementIndex, this.elementCount, "elementIndex");
+
+        this.parser.restartAtElement(this.tagStartIndexes[elementIndex], this.elementEndIndexes[elementIndex]);
+        this.parser.readNext();
+
+        final int attributeCount = this.parser.getAttributeCount();
+        for (int i = 0; i < attributeCount; ++i)
+        {
+            element.setLoadedAttribute(this.parser.getAttributeName(i), this.parser.getAttributeValueSlice(i));
+        }
+
+        if (!this.parser.isEmptyElement())
+        {
+            int childIndex = elementIndex + 1;
+            XMLEventType eventType = this.parser.readNext();
+            while (eventType != XMLEventType.EndElement || this.parser.getDepth() != 0)
+            {
+                switch (eventType)
+                {
+                    case StartElement:
+                        element.addLoadedChild(XMLElement.create(this.parser.getName(), !this.parser.isEmptyElement(), this, childIndex));
+                        this.parser.skipElement(this.elementEndIndexes[childIndex]);
+                        childIndex += this.subtreeSizes[childIndex];
+                        break;
+
+                    case Text:
+                        if (!this.parser.isWhitespace())
+                        {
+                            element.addLoadedChild(XMLText.create(this.parser.getTextSlice(), false));
+                        }
+                        break;
+
+                    case CData:
+                        element.addLoadedChild(XMLCData.create(this.parser.getTextSlice()));
+                        break;
+                }
+                eventType = this.parser.readNext();
+            }
+        }
+    }
+}
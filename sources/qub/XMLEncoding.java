@@ -0,0 +1,264 @@
+package qub;
+
+/**
+ * Functions for finding the character encoding of an XML document from its first bytes. A byte
+ * order mark is used if there is one. Otherwise UTF-16 documents are recognized by how their
+ * first characters are encoded, and other documents use the encoding from their declaration, or
+ * UTF-8 if they don't have one.
+ */
+final class XMLEncoding
+{
+    /**
+     * The most bytes that will be looked at to find the end of a document's declaration.
+     */
+    private static final int maximumDeclarationByteCount = 1024;
+
+    /**
+     * Get the character encoding of the XML document that starts with the bytes between the
+     * provided buffer's position and limit. The buffer's position is not changed.
+     * @param bytes The first bytes of the document.
+     * @param isEndOfInput Whether or not the provided bytes are the whole document.
+     * @return The character encoding of the document, or null if more bytes are needed to find
+     * it.
+     */
+    static java.nio.charset.Charset getCharset(java.nio.ByteBuffer bytes, boolean isEndOfInput)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        final int byteCount = bytes.remaining();
+        final int b0 = XMLEncoding.get(bytes, 0);
+        final int b1 = XMLEncoding.get(bytes, 1);
+        final int b2 = XMLEncoding.get(bytes, 2);
+        final int b3 = XMLEncoding.get(bytes, 3);
+
+        java.nio.charset.Charset result;
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF)
+        {
+            result = java.nio.charset.StandardCharsets.UTF_8;
+        }
+        else if ((b0 == 0xFE && b1 == 0xFF) || (b0 == 0x00 && b1 == '<' && b2 == 0x00 && b3 == '?'))
+        {
+            result = java.nio.charset.StandardCharsets.UTF_16BE;
+        }
+        else if ((b0 == 0xFF && b1 == 0xFE) || (b0 == '<' && b1 == 0x00 && b2 == '?' && b3 == 0x00))
+        {
+            result = java.nio.charset.StandardCharsets.UTF_16LE;
+        }
+        else if (byteCount < 4 && !isEndOfInput)
+        {
+            result = null;
+        }
+        else if (b0 == '<' && b1 == '?' && b2 == 'x' && b3 == 'm' && XMLEncoding.get(bytes, 4) == 'l')
+        {
+            final int declarationEndIndex = XMLEncoding.indexOfDeclarationEnd(bytes);
+            if (declarationEndIndex == -1 && !isEndOfInput && byteCount < XMLEncoding.maximumDeclarationByteCount)
+            {
+                result = null;
+            }
+            else
+            {
+                final String encoding = XMLEncoding.getDeclarationEncoding(bytes, declarationEndIndex == -1 ? byteCount : declarationEndIndex);
+                result = encoding == null ? java.nio.charset.StandardCharsets.UTF_8 : XMLEncoding.getCharset(encoding);
+            }
+        }
+        else
+        {
+            result = java.nio.charset.StandardCharsets.UTF_8;
+        }
+        return result;
+    }
+
+    /**
+     * Get the character encoding with the provided name from a declaration of a document that
+     * doesn't start with a byte order mark or with UTF-16 encoded characters. Encodings that
+     * aren't supported, and UTF-16 and UTF-32 encodings that the bytes can't be in, are read as
+     * UTF-8.
+     * @param encoding The name of the encoding.
+     * @return The character encoding with the provided name.
+     */
+    static java.nio.charset.Charset getCharset(String encoding)
+    {
+        PreCondition.assertNotNull(encoding, "encoding");
+
+        java.nio.charset.Charset result;
+        try
+        {
+            result = java.nio.charset.Charset.forName(encoding);
+            if (result.name().startsWith("UTF-16") || result.name().startsWith("UTF-32"))
+            {
+                result = java.nio.charset.StandardCharsets.UTF_8;
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            result = java.nio.charset.StandardCharsets.UTF_8;
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of bytes in the byte order mark at the start of the provided bytes.
+     * @param bytes The first bytes of a document.
+     * @return The number of bytes in the byte order mark, or 0 if there isn't one.
+     */
+    static int getByteOrderMarkLength(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        final int b0 = XMLEncoding.get(bytes, 0);
+        final int b1 = XMLEncoding.get(bytes, 1);
+
+        final int result;
+        if (b0 == 0xEF && b1 == 0xBB && XMLEncoding.get(bytes, 2) == 0xBF)
+        {
+            result = 3;
+        }
+        else if ((b0 == 0xFE && b1 == 0xFF) || (b0 == 0xFF && b1 == 0xFE))
+        {
+            result = 2;
+        }
+        else
+        {
+            result = 0;
+        }
+        return result;
+    }
+
+    /**
+     * Create a CharsetDecoder for the provided encoding that replaces malformed input instead of
+     * failing.
+     * @param charset The character encoding to decode.
+     * @return The new CharsetDecoder.
+     */
+    static java.nio.charset.CharsetDecoder createDecoder(java.nio.charset.Charset charset)
+    {
+        PreCondition.assertNotNull(charset, "charset");
+
+        return charset.newDecoder()
+            .onMalformedInput(java.nio.charset.CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(java.nio.charset.CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Create an XMLParser for the whole XML document between the provided buffer's position and
+     * limit, in whichever character encoding the document is in. UTF-8, ISO-8859-1, US-ASCII,
+     * UTF-16LE, and UTF-16BE documents are parsed directly from their bytes. Documents in other
+     * encodings are decoded to characters first.
+     * @param bytes The bytes of the document.
+     * @return The new XMLParser.
+     */
+    static XMLParser createParser(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        final java.nio.charset.Charset charset = XMLEncoding.getCharset(bytes, true);
+        final java.nio.ByteBuffer content = bytes.duplicate();
+        content.position(content.position() + XMLEncoding.getByteOrderMarkLength(bytes));
+
+        final XMLParser result;
+        if (charset.equals(java.nio.charset.StandardCharsets.UTF_8))
+        {
+            // XMLByteParser skips the UTF-8 byte order mark itself.
+            result = XMLByteParser.create(bytes);
+        }
+        else if (charset.equals(java.nio.charset.StandardCharsets.ISO_8859_1) || charset.equals(java.nio.charset.StandardCharsets.US_ASCII))
+        {
+            result = XMLSingleByteParser.create(content, charset);
+        }
+        else if (charset.equals(java.nio.charset.StandardCharsets.UTF_16LE) || charset.equals(java.nio.charset.StandardCharsets.UTF_16BE))
+        {
+            result = XMLUTF16ByteParser.create(content, charset);
+        }
+        else
+        {
+            result = XMLCharacterParser.create(charset.decode(content));
+        }
+        return result;
+    }
+
+    /**
+     * Get the byte at the provided offset from the buffer's position, or -1 if the offset is past
+     * the buffer's limit.
+     */
+    private static int get(java.nio.ByteBuffer bytes, int offset)
+    {
+        final int index = bytes.position() + offset;
+        return index < bytes.limit() ? bytes.get(index) & 0xFF : -1;
+    }
+
+    /**
+     * Get the offset from the buffer's position of the "?>" that ends the declaration, or -1 if
+     * the bytes end first.
+     */
+    private static int indexOfDeclarationEnd(java.nio.ByteBuffer bytes)
+    {
+        final int byteCount = Math.min(bytes.remaining(), XMLEncoding.maximumDeclarationByteCount);
+
+        int result = -1;
+        for (int offset = 1; result == -1 && offset < byteCount; ++offset)
+        {
+            if (XMLEncoding.get(bytes, offset) == '>' && XMLEncoding.get(bytes, offset - 1) == '?')
+            {
+                result = offset - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the value of the encoding attribute of the declaration that ends before the provided
+     * offset, or null if the declaration doesn't have an encoding attribute.
+     */
+    private static String getDeclarationEncoding(java.nio.ByteBuffer bytes, int declarationEndOffset)
+    {
+        String result = null;
+        for (int offset = 5; result == null && offset + 8 <= declarationEndOffset; ++offset)
+        {
+            if (XMLEncoding.startsWith(bytes, offset, "encoding") && XML.isWhitespaceCharacter((char)XMLEncoding.get(bytes, offset - 1)))
+            {
+                int index = XMLEncoding.skipWhitespace(bytes, offset + 8, declarationEndOffset);
+                if (XMLEncoding.get(bytes, index) == '=')
+                {
+                    index = XMLEncoding.skipWhitespace(bytes, index + 1, declarationEndOffset);
+                    final int quote = XMLEncoding.get(bytes, index);
+                    if (quote == '"' || quote == '\'')
+                    {
+                        final int valueStartOffset = index + 1;
+                        int valueEndOffset = valueStartOffset;
+                        while (valueEndOffset < declarationEndOffset && XMLEncoding.get(bytes, valueEndOffset) != quote)
+                        {
+                            ++valueEndOffset;
+                        }
+
+                        final char[] characters = new char[valueEndOffset - valueStartOffset];
+                        for (int i = 0; i < characters.length; ++i)
+                        {
+                            characters[i] = (char)XMLEncoding.get(bytes, valueStartOffset + i);
+                        }
+                        result = new String(characters);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean startsWith(java.nio.ByteBuffer bytes, int offset, String value)
+    {
+        boolean result = true;
+        for (int i = 0; result && i < value.length(); ++i)
+        {
+            result = (XMLEncoding.get(bytes, offset + i) == value.charAt(i));
+        }
+        return result;
+    }
+
+    private static int skipWhitespace(java.nio.ByteBuffer bytes, int offset, int endOffset)
+    {
+        while (offset < endOffset && XML.isWhitespaceCharacter((char)XMLEncoding.get(bytes, offset)))
+        {
+            ++offset;
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,42 @@
+package qub;
+
+/**
+ * The types of events that can be read from an XML document by an XMLReader.
+ */
+public enum XMLEventType
+{
+    /**
+     * The XML declaration at the top of the document.
+     */
+    Declaration,
+
+    /**
+     * The start tag or empty element tag of an element.
+     */
+    StartElement,
+
+    /**
+     * An attribute of the most recently started element.
+     */
+    Attribute,
+
+    /**
+     * A run of text within an element.
+     */
+    Text,
+
+    /**
+     * A CDATA tag within an element.
+     */
+    CData,
+
+    /**
+     * A comment.
+     */
+    Comment,
+
+    /**
+     * The end tag of an element, or the end of an empty element tag.
+     */
+    EndElement
+}
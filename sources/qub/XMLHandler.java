@@ -0,0 +1,74 @@
+package qub;
+
+/**
+ * A set of callbacks that an XMLParser calls as it recognizes the parts of an XML document. The
+ * parser doesn't keep anything from the document after a callback returns, so a document of any
+ * size can be processed in a constant amount of memory. Each callback does nothing by default, so
+ * a handler only needs to override the callbacks that it cares about.
+ */
+public interface XMLHandler
+{
+    /**
+     * Called when the XML declaration at the top of the document has been parsed.
+     * @param declaration The declaration.
+     */
+    default void declaration(XMLDeclaration declaration)
+    {
+    }
+
+    /**
+     * Called when the start tag or empty element tag of an element has been parsed.
+     * @param name The name of the element.
+     * @param attributes The attributes of the element. The same XMLAttributes object is reused for
+     *                   every element, so it is only valid until this callback returns.
+     */
+    default void startElement(String name, XMLAttributes attributes)
+    {
+    }
+
+    /**
+     * Called when a run of text within an element has been parsed. Unlike XML.parse(), text that
+     * only contains whitespace is also reported.
+     * @param text The text.
+     */
+    default void text(String text)
+    {
+    }
+
+    /**
+     * Called when a CDATA tag within an element has been parsed.
+     * @param text The text between the CDATA tag's start and end.
+     */
+    default void cdata(String text)
+    {
+    }
+
+    /**
+     * Called when a comment has been parsed.
+     * @param text The text between the comment's start and end.
+     */
+    default void comment(String text)
+    {
+    }
+
+    /**
+     * Get whether or not the parser should skip comments and text that only contains whitespace
+     * instead of reporting them to this handler. Skipped comments and whitespace are still checked
+     * for well-formedness, but no Strings are created for them.
+     * @return Whether or not the parser should skip comments and text that only contains
+     * whitespace.
+     */
+    default boolean skipCommentsAndWhitespace()
+    {
+        return false;
+    }
+
+    /**
+     * Called when the end tag of an element has been parsed, or right after startElement() for an
+     * empty element tag.
+     * @param name The name of the element.
+     */
+    default void endElement(String name)
+    {
+    }
+}
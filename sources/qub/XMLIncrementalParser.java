@@ -0,0 +1,180 @@
+package qub;
+
+/**
+ * A parser that is given an XML document in chunks as the chunks become available, instead of
+ * reading the document from a source that it has to wait on. Each call to feed() parses the
+ * events that the data so far completes and calls the XMLHandler for them, and then returns
+ * without waiting for the rest of the document. A chunk can end anywhere, even in the middle of
+ * a name, an attribute value, or a CDATA tag. The incomplete event is parsed again once the
+ * chunk that completes it has been fed.
+ */
+public class XMLIncrementalParser
+{
+    private final XMLHandler handler;
+    private final XMLCharacterBufferParser parser;
+    private final XMLAttributes attributes;
+    private boolean isFinished;
+
+    private XMLIncrementalParser(XMLHandler handler)
+    {
+        PreCondition.assertNotNull(handler, "handler");
+
+        this.handler = handler;
+        this.parser = new XMLCharacterBufferParser();
+        this.parser.setSkipCommentsAndWhitespace(handler.skipCommentsAndWhitespace());
+        this.attributes = new XMLAttributes(this.parser);
+    }
+
+    /**
+     * Create a new XMLIncrementalParser that will call the provided handler as each part of the
+     * document is recognized.
+     * @param handler The handler to call.
+     * @return The new XMLIncrementalParser.
+     */
+    public static XMLIncrementalParser create(XMLHandler handler)
+    {
+        return new XMLIncrementalParser(handler);
+    }
+
+    /**
+     * Get whether or not finish() has been called or a chunk that wasn't well-formed XML has been
+     * fed to this parser.
+     * @return Whether or not this parser has finished.
+     */
+    public boolean isFinished()
+    {
+        return this.isFinished;
+    }
+
+    /**
+     * Parse the provided characters as the next chunk of the document.
+     * @param characters The characters to parse.
+     * @throws ParseException if the document is not well-formed.
+     */
+    public void feed(char[] characters)
+    {
+        PreCondition.assertNotNull(characters, "characters");
+
+        this.feed(characters, 0, characters.length);
+    }
+
+    /**
+     * Parse the provided characters as the next chunk of the document.
+     * @param characters The characters to parse.
+     * @param startIndex The index of the first character to parse.
+     * @param length The number of characters to parse.
+     * @throws ParseException if the document is not well-formed.
+     */
+    public void feed(char[] characters, int startIndex, int length)
+    {
+        PreCondition.assertNotNull(characters, "characters");
+        PreCondition.assertGreaterThanOrEqualTo(startIndex, 0, "startIndex");
+        PreCondition.assertGreaterThanOrEqualTo(length, 0, "length");
+        PreCondition.assertLessThanOrEqualTo(startIndex + length, characters.length, "startIndex + length");
+        this.assertCanFeedCharacters();
+
+        this.parser.add(characters, startIndex, length);
+        this.parseAvailable();
+    }
+
+    /**
+     * Parse the provided characters as the next chunk of the document.
+     * @param characters The characters to parse.
+     * @throws ParseException if the document is not well-formed.
+     */
+    public void feed(CharSequence characters)
+    {
+        PreCondition.assertNotNull(characters, "characters");
+        this.assertCanFeedCharacters();
+
+        this.parser.add(characters);
+        this.parseAvailable();
+    }
+
+    /**
+     * Parse the provided encoded bytes as the next chunk of the document. The chunk can end in the
+     * middle of a multiple byte character. The document's encoding is found from its byte order
+     * mark or its declaration, and is UTF-8 if it has neither.
+     * @param bytes The encoded bytes to parse.
+     * @throws ParseException if the document is not well-formed.
+     */
+    public void feed(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        this.feed(java.nio.ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Parse the encoded bytes between the provided buffer's position and limit as the next chunk
+     * of the document. The chunk can end in the middle of a multiple byte character. The
+     * document's encoding is found from its byte order mark or its declaration, and is UTF-8 if it
+     * has neither. The buffer's position is not changed.
+     * @param bytes The encoded bytes to parse.
+     * @throws ParseException if the document is not well-formed.
+     */
+    public void feed(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertFalse(this.isFinished(), "this.isFinished()");
+
+        this.parser.add(bytes);
+        this.parseAvailable();
+    }
+
+    /**
+     * Mark the end of the document and parse the rest of the chunks that have been fed to this
+     * parser.
+     * @throws ParseException if the document is not well-formed.
+     */
+    public void finish()
+    {
+        PreCondition.assertFalse(this.isFinished(), "this.isFinished()");
+
+        this.parser.end();
+        this.parseAvailable();
+        this.isFinished = true;
+    }
+
+    /**
+     * Parse the rest of the document from the encoded bytes that are read from the provided
+     * stream, and then finish this parser. The stream is not disposed by this parser.
+     * @param readStream The stream to read the encoded bytes from.
+     * @throws ParseException if the document is not well-formed.
+     */
+    void feedAndFinish(ByteReadStream readStream)
+    {
+        PreCondition.assertNotNull(readStream, "readStream");
+        PreCondition.assertFalse(this.isFinished(), "this.isFinished()");
+
+        while (this.parser.readFrom(readStream))
+        {
+            this.parseAvailable();
+        }
+        this.isFinished = true;
+    }
+
+    private void assertCanFeedCharacters()
+    {
+        PreCondition.assertFalse(this.isFinished(), "this.isFinished()");
+        PreCondition.assertTrue(!this.parser.hasUndecodedBytes(), "!this.parser.hasUndecodedBytes()");
+    }
+
+    private void parseAvailable()
+    {
+        try
+        {
+            XMLEventType eventType = this.parser.readNextAvailable();
+            while (eventType != null)
+            {
+                this.parser.callHandler(eventType, this.handler, this.attributes);
+                eventType = this.parser.readNextAvailable();
+            }
+        }
+        catch (ParseException e)
+        {
+            this.isFinished = true;
+            throw e;
+        }
+    }
+}
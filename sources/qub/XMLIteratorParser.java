@@ -0,0 +1,781 @@
+package qub;
+
+/**
+ * The parser that XML.parse(Iterator&lt;Character&gt;) and the other Iterator based parse
+ * functions in XML are built on. Unlike those functions, the methods of this class return plain
+ * values and throw a ParseException when the characters are not well-formed, and the descriptions
+ * that are used in error messages are only joined together once an error has actually happened.
+ * Names, text, and attribute values are collected in a buffer that is reused for the whole
+ * document, so Strings are only created for the values that end up in the parsed document.
+ */
+final class XMLIteratorParser
+{
+    private final Iterator<Character> characters;
+
+    private char[] buffer;
+    private int bufferCount;
+
+    private String[] attributeNames;
+    private String[] attributeValues;
+    private int attributeCount;
+    private char attributeValueQuoteCharacter;
+
+    private XMLIteratorParser(Iterator<Character> characters)
+    {
+        this.characters = characters;
+        this.buffer = new char[64];
+        this.attributeNames = new String[4];
+        this.attributeValues = new String[4];
+    }
+
+    /**
+     * Create a new XMLIteratorParser that will parse the provided characters. The characters will
+     * be started if they haven't been started yet.
+     * @param characters The characters to parse.
+     * @return The new XMLIteratorParser.
+     */
+    static XMLIteratorParser create(Iterator<Character> characters)
+    {
+        PreCondition.assertNotNull(characters, "characters");
+
+        characters.start();
+
+        return new XMLIteratorParser(characters);
+    }
+
+    /**
+     * Parse an XMLDocument from the rest of the characters.
+     * @return The parsed XMLDocument.
+     * @throws ParseException if the characters are not a well-formed XML document.
+     */
+    XMLDocument parseDocument()
+    {
+        boolean isFirstSegment = true;
+        final XMLDocument result = XMLDocument.create();
+        while (this.characters.hasCurrent())
+        {
+            if (this.characters.getCurrent() == '<')
+            {
+                this.characters.next();
+
+                if (!this.characters.hasCurrent())
+                {
+                    throw XML.missing("tag name");
+                }
+
+                switch (this.characters.getCurrent())
+                {
+                    case '?':
+                        this.characters.next();
+                        final XMLDeclaration declaration = this.parseDeclarationAtName();
+                        if (result.getDeclaration() != null)
+                        {
+                            throw new ParseException("An XML document can only have one declaration.");
+                        }
+                        if (!isFirstSegment)
+                        {
+                            throw XML.expected("the XML declaration to be the first character in the document");
+                        }
+                        result.setDeclaration(declaration);
+                        break;
+
+                    case '/':
+                        throw new ParseException("An XML document cannot have an end tag without a start tag.");
+
+                    case '!':
+                        this.characters.next();
+                        if (this.parseCommentOrCDataAtFirstCharacter())
+                        {
+                            throw new ParseException("An XML document cannot have a CDATA tag at its root.");
+                        }
+                        break;
+
+                    default:
+                        this.expectNameStartCharacter();
+                        final XMLElement element = this.parseElementAtName();
+                        if (result.getRoot() != null)
+                        {
+                            throw new ParseException("An XML document can only have one root element.");
+                        }
+                        result.setRoot(element);
+                        break;
+                }
+            }
+            else if (!this.parseText())
+            {
+                throw XML.expected("only whitespace and elements at the root of the document");
+            }
+            isFirstSegment = false;
+        }
+
+        return result;
+    }
+
+    /**
+     * Parse the declaration whose name starts at the current character (the character after
+     * "&lt;?").
+     * @return The parsed declaration.
+     */
+    private XMLDeclaration parseDeclarationAtName()
+    {
+        if (!this.characters.hasCurrent())
+        {
+            throw XML.missing("declaration name (\"xml\")");
+        }
+        if (!XML.isNameStartCharacter(this.characters.getCurrent()))
+        {
+            throw XML.expected("declaration name (\"xml\")");
+        }
+
+        this.parseName(null, null);
+        if (!this.bufferEquals("xml"))
+        {
+            throw XML.expected("declaration name (\"xml\")");
+        }
+
+        this.parseWhitespace();
+
+        this.attributeCount = 0;
+        this.parseAttribute("version", "declaration version");
+        final String version = this.getLastAttributeValue();
+
+        if (!this.characters.hasCurrent())
+        {
+            throw XML.missing("declaration right question mark ('?')");
+        }
+
+        String encoding = null;
+        String standalone = null;
+        while (this.characters.hasCurrent() && XML.isWhitespaceCharacter(this.characters.getCurrent()))
+        {
+            this.parseWhitespace();
+
+            if (!this.characters.hasCurrent() ||
+                !XML.isNameStartCharacter(this.characters.getCurrent()) ||
+                standalone != null)
+            {
+                break;
+            }
+
+            final char current = this.characters.getCurrent();
+            if (encoding == null && current == 'e')
+            {
+                this.parseAttribute("encoding", "declaration encoding");
+                encoding = this.getLastAttributeValue();
+                if (encoding.isEmpty())
+                {
+                    throw XML.expected("declaration encoding attribute value to be not empty");
+                }
+            }
+            else if (current == 's')
+            {
+                this.parseAttribute("standalone", "declaration standalone");
+                standalone = this.getLastAttributeValue();
+                if (!standalone.equals("no") && !standalone.equals("yes"))
+                {
+                    throw XML.expected("declaration standalone attribute value to be \"no\" or \"yes\"");
+                }
+            }
+            else if (encoding == null)
+            {
+                throw XML.expected("declaration encoding attribute, standalone attribute, or right question mark ('?')");
+            }
+            else
+            {
+                throw XML.expected("declaration standalone attribute or right question mark ('?')");
+            }
+        }
+
+        this.expectAndTake('?', "declaration right question mark ('?')");
+        this.expectAndTake('>', "declaration right angle bracket ('>')");
+
+        final XMLDeclaration result = XMLDeclaration.create()
+            .setVersion(version);
+        if (encoding != null)
+        {
+            result.setEncoding(encoding);
+        }
+        if (standalone != null)
+        {
+            result.setStandalone(standalone);
+        }
+        return result;
+    }
+
+    /**
+     * Parse the element whose name starts at the current character, including all of its
+     * children and its end tag.
+     * @return The parsed element.
+     */
+    XMLElement parseElementAtName()
+    {
+        final XMLElement result = this.parseStartTagAtName();
+
+        if (result.isSplit())
+        {
+            // The elements that haven't been ended yet are kept in a stack instead of in
+            // recursive calls, so the depth of a document is only limited by the available
+            // memory.
+            XMLElement[] openElements = new XMLElement[8];
+            openElements[0] = result;
+            int openElementCount = 1;
+            while (this.characters.hasCurrent() && openElementCount > 0)
+            {
+                final XMLElement element = openElements[openElementCount - 1];
+                if (this.characters.getCurrent() == '<')
+                {
+                    this.characters.next();
+
+                    if (!this.characters.hasCurrent())
+                    {
+                        throw XML.missing("tag name");
+                    }
+
+                    switch (this.characters.getCurrent())
+                    {
+                        case '?':
+                            throw XML.expected("the XML declaration to be the first character in the document");
+
+                        case '/':
+                            this.characters.next();
+
+                            if (!this.characters.hasCurrent())
+                            {
+                                throw XML.missing("end tag name");
+                            }
+                            if (!XML.isNameStartCharacterOrHighSurrogate(this.characters.getCurrent()))
+                            {
+                                throw XML.expected("end tag name");
+                            }
+
+                            this.parseName("end tag", null);
+
+                            this.skipOptionalWhitespace();
+
+                            this.expectAndTake('>', "end tag right angle bracket ('>')");
+
+                            if (!this.bufferEquals(element.getName()))
+                            {
+                                throw XML.expected("an end tag with the name same as the current element");
+                            }
+                            openElements[--openElementCount] = null;
+                            break;
+
+                        case '!':
+                            this.characters.next();
+                            if (this.parseCommentOrCDataAtFirstCharacter())
+                            {
+                                element.addChild(XMLCData.create(this.getBufferString()));
+                            }
+                            break;
+
+                        default:
+                            this.expectNameStartCharacter();
+                            final XMLElement childElement = this.parseStartTagAtName();
+                            element.addChild(childElement);
+                            if (childElement.isSplit())
+                            {
+                                if (openElementCount == openElements.length)
+                                {
+                                    openElements = java.util.Arrays.copyOf(openElements, openElementCount * 2);
+                                }
+                                openElements[openElementCount++] = childElement;
+                            }
+                            break;
+                    }
+                }
+                else if (!this.parseText())
+                {
+                    element.addChild(XMLText.create(this.getBufferString(), false));
+                }
+            }
+
+            if (openElementCount > 0)
+            {
+                throw XML.missing("end tag");
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Parse the start tag or empty element tag whose name starts at the current character. The
+     * returned element has the tag's name and attributes, and it is split if the tag was a start
+     * tag.
+     * @return The element that the tag starts.
+     */
+    XMLElement parseStartTagAtName()
+    {
+        this.parseName("start tag or empty element", null);
+        final String name = this.getBufferString();
+
+        this.attributeCount = 0;
+        while (this.characters.hasCurrent() && XML.isWhitespaceCharacter(this.characters.getCurrent()))
+        {
+            this.skipOptionalWhitespace();
+
+            if (this.characters.hasCurrent() && XML.isNameStartCharacterOrHighSurrogate(this.characters.getCurrent()))
+            {
+                this.parseAttribute(null, "start tag");
+            }
+        }
+
+        final boolean isEmptyElement = this.characters.hasCurrent() && this.characters.getCurrent() == '/';
+        if (isEmptyElement)
+        {
+            this.characters.next();
+        }
+        final XMLElement result = XMLElement.create(name, !isEmptyElement);
+        for (int i = 0; i < this.attributeCount; ++i)
+        {
+            result.setAttribute(this.attributeNames[i], this.attributeValues[i]);
+        }
+
+        this.expectAndTake('>', isEmptyElement ? "empty element" : "start tag", "right angle bracket ('>')");
+
+        return result;
+    }
+
+    /**
+     * Parse the comment or CDATA tag that starts at the current character (the character after
+     * "&lt;!"). The text of the comment or CDATA tag is left in the buffer.
+     * @return Whether or not the parsed tag was a CDATA tag.
+     */
+    private boolean parseCommentOrCDataAtFirstCharacter()
+    {
+        if (!this.characters.hasCurrent())
+        {
+            throw XML.missing("comment first left dash ('-') or CDATA first left square bracket ('[')");
+        }
+
+        final boolean result;
+        switch (this.characters.getCurrent())
+        {
+            case '-':
+                this.parseCommentAtFirstLeftDash(false);
+                result = false;
+                break;
+
+            case '[':
+                this.parseCDataAtFirstLeftSquareBracket();
+                result = true;
+                break;
+
+            default:
+                throw XML.expected("comment first left dash ('-') or CDATA first left square bracket ('[')");
+        }
+        return result;
+    }
+
+    /**
+     * Parse the comment that starts at the current character (the comment's first left dash).
+     * @param keepText Whether or not to leave the text of the comment in the buffer. Comments that
+     *                 are discarded are only checked for well-formedness.
+     */
+    void parseCommentAtFirstLeftDash(boolean keepText)
+    {
+        this.expectAndTake('-', "comment first left dash ('-')");
+        this.expectAndTake('-', "comment second left dash ('-')");
+
+        this.bufferCount = 0;
+        int rightDashCount = 0;
+        while (this.characters.hasCurrent())
+        {
+            final char current = this.characters.getCurrent();
+            if (current == '-')
+            {
+                this.characters.next();
+                if (rightDashCount < 2)
+                {
+                    ++rightDashCount;
+                }
+                else if (keepText)
+                {
+                    this.addToBuffer('-');
+                }
+            }
+            else if (current == '>' && rightDashCount == 2)
+            {
+                break;
+            }
+            else
+            {
+                if (keepText)
+                {
+                    while (rightDashCount > 0)
+                    {
+                        this.addToBuffer('-');
+                        --rightDashCount;
+                    }
+                    this.addToBuffer(current);
+                }
+                rightDashCount = 0;
+                this.characters.next();
+            }
+        }
+
+        if (rightDashCount == 0)
+        {
+            throw XML.missing("comment first right dash ('-')");
+        }
+        else if (rightDashCount == 1)
+        {
+            throw XML.missing("comment second right dash ('-')");
+        }
+
+        this.expectAndTake('>', "comment right angle bracket ('>')");
+    }
+
+    /**
+     * Parse the CDATA tag that starts at the current character (the tag's first left square
+     * bracket). The text of the CDATA tag is left in the buffer.
+     */
+    void parseCDataAtFirstLeftSquareBracket()
+    {
+        this.expectAndTake('[', "CDATA tag first left square bracket ('[')");
+
+        this.parseName("CDATA tag", null);
+        if (!this.bufferEquals("CDATA"))
+        {
+            throw XML.expected("CDATA tag name (\"CDATA\")");
+        }
+
+        this.expectAndTake('[', "CDATA tag second left square bracket ('[')");
+
+        this.bufferCount = 0;
+        int rightSquareBracketCount = 0;
+        while (this.characters.hasCurrent())
+        {
+            final char current = this.characters.getCurrent();
+            if (current == ']')
+            {
+                this.characters.next();
+                if (rightSquareBracketCount < 2)
+                {
+                    ++rightSquareBracketCount;
+                }
+                else
+                {
+                    this.addToBuffer(']');
+                }
+            }
+            else if (current == '>' && rightSquareBracketCount == 2)
+            {
+                break;
+            }
+            else
+            {
+                while (rightSquareBracketCount > 0)
+                {
+                    this.addToBuffer(']');
+                    --rightSquareBracketCount;
+                }
+
+                this.addToBuffer(current);
+                this.characters.next();
+            }
+        }
+
+        if (rightSquareBracketCount == 0)
+        {
+            throw XML.missing("CDATA tag first right square bracket (']')");
+        }
+        else if (rightSquareBracketCount == 1)
+        {
+            throw XML.missing("CDATA tag second right square bracket (']')");
+        }
+
+        this.expectAndTake('>', "CDATA tag right angle bracket ('>')");
+    }
+
+    /**
+     * Parse an attribute that starts at the current character. The attribute's name and unquoted
+     * value are added to this parser's attributes, and the value's quote character is stored in
+     * this parser's attribute value quote character. The attributes are cleared when the next
+     * start tag is parsed.
+     * @param expectedName The name that the attribute must have, or null if the attribute can have
+     *                     any name.
+     * @param description The description of the tag that contains the attribute that will be used
+     *                    in error messages.
+     */
+    void parseAttribute(String expectedName, String description)
+    {
+        this.parseName(description, "attribute");
+        if (!Strings.isNullOrEmpty(expectedName) && !this.bufferEquals(expectedName))
+        {
+            throw XML.expected(XML.join(description, "attribute"));
+        }
+        final String name = Strings.isNullOrEmpty(expectedName) ? this.getBufferString() : expectedName;
+
+        this.skipOptionalWhitespace();
+
+        this.expectAndTake('=', description, "attribute equals sign ('=')");
+
+        this.skipOptionalWhitespace();
+
+        this.parseQuotedString(description, "attribute value");
+        final String value = this.getBufferString();
+
+        if (this.attributeCount == this.attributeNames.length)
+        {
+            this.attributeNames = java.util.Arrays.copyOf(this.attributeNames, this.attributeCount * 2);
+            this.attributeValues = java.util.Arrays.copyOf(this.attributeValues, this.attributeCount * 2);
+        }
+        this.attributeNames[this.attributeCount] = name;
+        this.attributeValues[this.attributeCount] = value;
+        ++this.attributeCount;
+    }
+
+    /**
+     * Get the name of the attribute that was most recently parsed.
+     * @return The name of the attribute that was most recently parsed.
+     */
+    String getLastAttributeName()
+    {
+        return this.attributeNames[this.attributeCount - 1];
+    }
+
+    /**
+     * Get the unquoted value of the attribute that was most recently parsed.
+     * @return The unquoted value of the attribute that was most recently parsed.
+     */
+    String getLastAttributeValue()
+    {
+        return this.attributeValues[this.attributeCount - 1];
+    }
+
+    /**
+     * Get the quote character of the quoted string that was most recently parsed.
+     * @return The quote character of the quoted string that was most recently parsed.
+     */
+    char getLastQuoteCharacter()
+    {
+        return this.attributeValueQuoteCharacter;
+    }
+
+    /**
+     * Skip past the <a href="https://www.w3.org/TR/xml/#NT-S">whitespace</a> that starts at the
+     * current character.
+     */
+    private void parseWhitespace()
+    {
+        this.expectWhitespace();
+        this.skipOptionalWhitespace();
+    }
+
+    /**
+     * Throw a ParseException if the current character is not a
+     * <a href="https://www.w3.org/TR/xml/#NT-S">whitespace</a> character.
+     */
+    void expectWhitespace()
+    {
+        if (!this.characters.hasCurrent())
+        {
+            throw XML.missing("whitespace");
+        }
+        if (!XML.isWhitespaceCharacter(this.characters.getCurrent()))
+        {
+            throw XML.expected("whitespace");
+        }
+    }
+
+    /**
+     * Parse the <a href="https://www.w3.org/TR/xml/#NT-S">whitespace</a> that starts at the
+     * current character, if there is any. The whitespace is left in the buffer.
+     */
+    void parseOptionalWhitespace()
+    {
+        this.bufferCount = 0;
+        char current;
+        while (this.characters.hasCurrent() && XML.isWhitespaceCharacter(current = this.characters.getCurrent()))
+        {
+            this.addToBuffer(current);
+            this.characters.next();
+        }
+    }
+
+    /**
+     * Skip past the <a href="https://www.w3.org/TR/xml/#NT-S">whitespace</a> that starts at the
+     * current character, if there is any.
+     */
+    private void skipOptionalWhitespace()
+    {
+        while (this.characters.hasCurrent() && XML.isWhitespaceCharacter(this.characters.getCurrent()))
+        {
+            this.characters.next();
+        }
+    }
+
+    /**
+     * Parse a quoted string that starts at the current character. The unquoted value is left in
+     * the buffer, and the quote character is stored in this parser's attribute value quote
+     * character.
+     * @param description The first part of the quoted string's description.
+     * @param detail The second part of the quoted string's description.
+     */
+    void parseQuotedString(String description, String detail)
+    {
+        if (!this.characters.hasCurrent())
+        {
+            throw XML.missing(XML.join(description, detail, "quoted string start quote character (' or \")"));
+        }
+        final char quoteCharacter = this.characters.getCurrent();
+        if (quoteCharacter != '\'' && quoteCharacter != '\"')
+        {
+            throw XML.expected(XML.join(description, detail, "quoted string start quote character (' or \")"));
+        }
+        this.characters.next();
+
+        this.bufferCount = 0;
+        char current;
+        while (this.characters.hasCurrent() && (current = this.characters.getCurrent()) != quoteCharacter)
+        {
+            this.addToBuffer(current);
+            this.characters.next();
+        }
+
+        if (!this.characters.hasCurrent())
+        {
+            throw XML.missing(XML.join(description, detail, "quoted string end quote character (" + quoteCharacter + ")"));
+        }
+        this.characters.next();
+
+        this.attributeValueQuoteCharacter = quoteCharacter;
+    }
+
+    /**
+     * Parse an <a href="https://www.w3.org/TR/xml/#NT-Name">XML name</a> that starts at the
+     * current character. The name is left in the buffer.
+     * @param description The first part of the name's description.
+     * @param detail The second part of the name's description.
+     */
+    void parseName(String description, String detail)
+    {
+        if (!this.characters.hasCurrent())
+        {
+            throw XML.missing(XML.join(description, detail, "name start character"));
+        }
+        if (!XML.isNameStartCharacterOrHighSurrogate(this.characters.getCurrent()))
+        {
+            throw XML.expected(XML.join(description, detail, "name start character"));
+        }
+
+        this.bufferCount = 0;
+        this.takeNameCharacter(description, detail, "name start character");
+        while (this.characters.hasCurrent() && XML.isNameCharacterOrHighSurrogate(this.characters.getCurrent()))
+        {
+            this.takeNameCharacter(description, detail, "name character");
+        }
+    }
+
+    /**
+     * Take the current name character and add it to the buffer. If the current character is a
+     * high surrogate, then the low surrogate that follows it is taken as well.
+     */
+    private void takeNameCharacter(String description, String detail, String characterDescription)
+    {
+        final char character = this.characters.takeCurrent();
+        this.addToBuffer(character);
+        if (Character.isHighSurrogate(character))
+        {
+            if (!this.characters.hasCurrent())
+            {
+                throw XML.missing(XML.join(description, detail, characterDescription));
+            }
+            final char lowSurrogate = this.characters.getCurrent();
+            if (!Character.isLowSurrogate(lowSurrogate))
+            {
+                throw XML.expected(XML.join(description, detail, characterDescription));
+            }
+            this.addToBuffer(lowSurrogate);
+            this.characters.next();
+        }
+    }
+
+    /**
+     * Parse the text that starts at the current character and continues until the next tag or the
+     * end of the characters. The text is left in the buffer.
+     * @return Whether or not the text only contains whitespace.
+     */
+    boolean parseText()
+    {
+        this.bufferCount = 0;
+        boolean result = true;
+        char current;
+        while (this.characters.hasCurrent() && (current = this.characters.getCurrent()) != '<')
+        {
+            if (result && !XML.isWhitespaceCharacter(current))
+            {
+                result = false;
+            }
+            this.addToBuffer(current);
+            this.characters.next();
+        }
+        return result;
+    }
+
+    /**
+     * Throw a ParseException if the current character can't start a tag name.
+     */
+    private void expectNameStartCharacter()
+    {
+        if (!XML.isNameStartCharacterOrHighSurrogate(this.characters.getCurrent()))
+        {
+            throw new ParseException("Unexpected tag name start character: " + Characters.escapeAndQuote(this.characters.getCurrent()));
+        }
+    }
+
+    private void expectAndTake(char expectedCharacter, String description)
+    {
+        this.expectAndTake(expectedCharacter, description, null);
+    }
+
+    /**
+     * Take the current character if it is the expected character. Otherwise throw a
+     * ParseException whose message is built from the provided description and detail.
+     */
+    private void expectAndTake(char expectedCharacter, String description, String detail)
+    {
+        if (!this.characters.hasCurrent())
+        {
+            throw XML.missing(XML.join(description, detail));
+        }
+        if (this.characters.getCurrent() != expectedCharacter)
+        {
+            throw XML.expected(XML.join(description, detail));
+        }
+        this.characters.next();
+    }
+
+    private void addToBuffer(char character)
+    {
+        if (this.bufferCount == this.buffer.length)
+        {
+            this.buffer = java.util.Arrays.copyOf(this.buffer, this.bufferCount * 2);
+        }
+        this.buffer[this.bufferCount++] = character;
+    }
+
+    /**
+     * Get whether or not the characters in the buffer are equal to the provided value.
+     */
+    private boolean bufferEquals(String value)
+    {
+        boolean result = (this.bufferCount == value.length());
+        for (int i = 0; result && i < this.bufferCount; ++i)
+        {
+            result = (this.buffer[i] == value.charAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * Get a String that contains the characters in the buffer.
+     * @return A String that contains the characters in the buffer.
+     */
+    String getBufferString()
+    {
+        return new String(this.buffer, 0, this.bufferCount);
+    }
+}
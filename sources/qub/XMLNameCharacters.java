@@ -0,0 +1,137 @@
+package qub;
+
+/**
+ * Lookup tables for the characters that can be used in an
+ * <a href="https://www.w3.org/TR/xml/#NT-Name">XML name</a>. Characters in the Basic Multilingual
+ * Plane are looked up in bitsets so that checking a character costs a single array load, and the
+ * few supplementary ranges are checked against a range table.
+ */
+final class XMLNameCharacters
+{
+    /**
+     * The inclusive ranges of <a href="https://www.w3.org/TR/xml/#NT-NameStartChar">name start
+     * characters</a> in the Basic Multilingual Plane.
+     */
+    private static final int[] nameStartCharacterRanges = new int[]
+    {
+        ':', ':',
+        'A', 'Z',
+        '_', '_',
+        'a', 'z',
+        0x00C0, 0x00D6,
+        0x00D8, 0x00F6,
+        0x00F8, 0x02FF,
+        0x0370, 0x037D,
+        0x037F, 0x1FFF,
+        0x200C, 0x200D,
+        0x2070, 0x218F,
+        0x2C00, 0x2FEF,
+        0x3001, 0xD7FF,
+        0xF900, 0xFDCF,
+        0xFDF0, 0xFFFD,
+    };
+
+    /**
+     * The inclusive ranges of <a href="https://www.w3.org/TR/xml/#NT-NameChar">name characters</a>
+     * in the Basic Multilingual Plane that are not also name start characters.
+     */
+    private static final int[] additionalNameCharacterRanges = new int[]
+    {
+        '-', '.',
+        '0', '9',
+        0x00B7, 0x00B7,
+        0x0300, 0x036F,
+        0x203F, 0x2040,
+    };
+
+    /**
+     * The inclusive ranges of supplementary code points that are both name start characters and
+     * name characters.
+     */
+    private static final int[] supplementaryNameCharacterRanges = new int[]
+    {
+        0x10000, 0xEFFFF,
+    };
+
+    private static final long[] nameStartCharacterBits = XMLNameCharacters.createBits(XMLNameCharacters.nameStartCharacterRanges);
+    private static final long[] nameCharacterBits = XMLNameCharacters.createBits(XMLNameCharacters.nameStartCharacterRanges, XMLNameCharacters.additionalNameCharacterRanges);
+
+    private XMLNameCharacters()
+    {
+    }
+
+    /**
+     * Get whether or not the provided character is a name start character.
+     * @param character The character to check.
+     * @return Whether or not the provided character is a name start character.
+     */
+    static boolean isNameStartCharacter(char character)
+    {
+        return (XMLNameCharacters.nameStartCharacterBits[character >>> 6] & (1L << character)) != 0;
+    }
+
+    /**
+     * Get whether or not the provided character is a name character.
+     * @param character The character to check.
+     * @return Whether or not the provided character is a name character.
+     */
+    static boolean isNameCharacter(char character)
+    {
+        return (XMLNameCharacters.nameCharacterBits[character >>> 6] & (1L << character)) != 0;
+    }
+
+    /**
+     * Get whether or not the provided code point is a name start character.
+     * @param codePoint The code point to check.
+     * @return Whether or not the provided code point is a name start character.
+     */
+    static boolean isNameStartCodePoint(int codePoint)
+    {
+        return codePoint <= 0xFFFF
+            ? XMLNameCharacters.isNameStartCharacter((char)codePoint)
+            : XMLNameCharacters.isSupplementaryNameCodePoint(codePoint);
+    }
+
+    /**
+     * Get whether or not the provided code point is a name character.
+     * @param codePoint The code point to check.
+     * @return Whether or not the provided code point is a name character.
+     */
+    static boolean isNameCodePoint(int codePoint)
+    {
+        return codePoint <= 0xFFFF
+            ? XMLNameCharacters.isNameCharacter((char)codePoint)
+            : XMLNameCharacters.isSupplementaryNameCodePoint(codePoint);
+    }
+
+    private static boolean isSupplementaryNameCodePoint(int codePoint)
+    {
+        boolean result = false;
+        for (int i = 0; !result && i < XMLNameCharacters.supplementaryNameCharacterRanges.length; i += 2)
+        {
+            result = XMLNameCharacters.supplementaryNameCharacterRanges[i] <= codePoint &&
+                codePoint <= XMLNameCharacters.supplementaryNameCharacterRanges[i + 1];
+        }
+        return result;
+    }
+
+    /**
+     * Create a bitset over the Basic Multilingual Plane that contains the characters in the
+     * provided inclusive ranges.
+     */
+    private static long[] createBits(int[]... ranges)
+    {
+        final long[] result = new long[0x10000 / 64];
+        for (final int[] rangeList : ranges)
+        {
+            for (int i = 0; i < rangeList.length; i += 2)
+            {
+                for (int character = rangeList[i]; character <= rangeList[i + 1]; ++character)
+                {
+                    result[character >>> 6] |= (1L << character);
+                }
+            }
+        }
+        return result;
+    }
+}
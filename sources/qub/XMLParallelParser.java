@@ -0,0 +1,305 @@
+package qub;
+
+/**
+ * Parses a single large XML document on multiple threads. A quick scan over the root element's
+ * content finds the boundaries between the root element's children, the content between those
+ * boundaries is parsed in separate chunks on a ForkJoinPool, and the parsed chunks are added to
+ * the root element in document order.
+ */
+final class XMLParallelParser
+{
+    /**
+     * The smallest number of bytes that a chunk will be made up of by default. Smaller chunks cost
+     * more to schedule than they save.
+     */
+    private static final int defaultMinimumChunkLength = 64 * 1024;
+
+    private final java.nio.ByteBuffer bytes;
+    private final int endIndex;
+    private final int minimumChunkLength;
+
+    private XMLParallelParser(java.nio.ByteBuffer bytes, int minimumChunkLength)
+    {
+        this.bytes = bytes;
+        this.endIndex = bytes.limit();
+        this.minimumChunkLength = minimumChunkLength;
+    }
+
+    /**
+     * Parse an XMLDocument from the UTF-8 encoded bytes between the provided buffer's position and
+     * limit, using the provided pool to parse the root element's content. The parsed document is
+     * the same as the document that XMLByteParser.parseDocument() would parse, and malformed
+     * documents are parsed again on the calling thread so that the same ParseException is thrown.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @param pool The pool to parse the root element's content with.
+     * @return The parsed XMLDocument.
+     * @throws ParseException if the bytes are not a well-formed XML document.
+     */
+    static XMLDocument parseDocument(java.nio.ByteBuffer bytes, java.util.concurrent.ForkJoinPool pool)
+    {
+        return XMLParallelParser.parseDocument(bytes, pool, XMLParallelParser.defaultMinimumChunkLength);
+    }
+
+    /**
+     * Parse an XMLDocument from the UTF-8 encoded bytes between the provided buffer's position and
+     * limit, using chunks that are at least the provided number of bytes long.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @param pool The pool to parse the root element's content with.
+     * @param minimumChunkLength The smallest number of bytes that a chunk will be made up of.
+     * @return The parsed XMLDocument.
+     * @throws ParseException if the bytes are not a well-formed XML document.
+     */
+    static XMLDocument parseDocument(java.nio.ByteBuffer bytes, java.util.concurrent.ForkJoinPool pool, int minimumChunkLength)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(pool, "pool");
+        PreCondition.assertGreaterThanOrEqualTo(minimumChunkLength, 1, "minimumChunkLength");
+
+        XMLDocument result = null;
+        if (pool.getParallelism() > 1 && bytes.remaining() >= minimumChunkLength * 2)
+        {
+            try
+            {
+                result = new XMLParallelParser(bytes, minimumChunkLength).parseDocument(pool);
+            }
+            catch (ParseException ignored)
+            {
+                // Chunks are parsed without the context of the rest of the document, so the
+                // error is found again by a sequential parse to get the same message.
+            }
+        }
+
+        if (result == null)
+        {
+            result = XMLByteParser.create(bytes).parseDocument();
+        }
+        return result;
+    }
+
+    /**
+     * Parse the document, or return null if the document can't be split into chunks.
+     */
+    private XMLDocument parseDocument(java.util.concurrent.ForkJoinPool pool)
+    {
+        final XMLByteParser parser = XMLByteParser.create(this.bytes);
+        final XMLDocument result = XMLDocument.create();
+
+        XMLEventType eventType = parser.readNext();
+        while (eventType == XMLEventType.Declaration || eventType == XMLEventType.Comment || eventType == XMLEventType.Text)
+        {
+            if (eventType == XMLEventType.Declaration)
+            {
+                result.setDeclaration(parser.getDeclaration());
+            }
+            eventType = parser.readNext();
+        }
+
+        boolean isSplit = false;
+        if (eventType == XMLEventType.StartElement && !parser.isEmptyElement())
+        {
+            final XMLElement root = parser.createElement(true);
+            final int contentStartIndex = parser.getCurrentIndex();
+
+            final int chunkLength = Math.max(this.minimumChunkLength, (this.endIndex - contentStartIndex) / (pool.getParallelism() * 4));
+            final int[] chunkStartIndexes = this.findChunkStartIndexes(contentStartIndex, chunkLength);
+            if (chunkStartIndexes != null)
+            {
+                final int chunkCount = chunkStartIndexes.length - 1;
+                final XMLElement[] chunks = new XMLElement[chunkCount];
+                pool.invoke(new ParseChunksTask(this.bytes, chunkStartIndexes, chunks, 0, chunkCount));
+                for (final XMLElement chunk : chunks)
+                {
+                    root.addChildren(chunk.getChildren());
+                }
+                result.setRoot(root);
+
+                // The root element's end tag and anything that comes after it are checked by the
+                // parser that parsed the root element's start tag.
+                parser.setIndexes(chunkStartIndexes[chunkCount], this.endIndex, true);
+                eventType = parser.readNext();
+                while (eventType != null)
+                {
+                    eventType = parser.readNext();
+                }
+                isSplit = true;
+            }
+        }
+
+        return isSplit ? result : null;
+    }
+
+    /**
+     * Find the indexes where the chunks of the root element's content start. Chunks only start
+     * right after a child element of the root element ends, so a chunk never starts inside of a
+     * tag, a comment, a CDATA section, or an attribute value.
+     * @param contentStartIndex The index of the first byte of the root element's content.
+     * @param chunkLength The number of bytes that each chunk should be made up of.
+     * @return The indexes where the chunks start, followed by the index of the root element's end
+     * tag, or null if the content couldn't be split into more than one chunk.
+     */
+    private int[] findChunkStartIndexes(int contentStartIndex, int chunkLength)
+    {
+        int[] chunkStartIndexes = new int[16];
+        int chunkCount = 0;
+        chunkStartIndexes[chunkCount++] = contentStartIndex;
+
+        int nextChunkStartIndex = contentStartIndex + chunkLength;
+        int depth = 0;
+        int rootEndTagIndex = -1;
+        int index = this.indexOf('<', contentStartIndex);
+        while (rootEndTagIndex == -1 && index < this.endIndex)
+        {
+            boolean isChildEnd = false;
+            switch (this.get(index + 1))
+            {
+                case '!':
+                    if (this.get(index + 2) == '[')
+                    {
+                        index = this.indexOfTagEnd(']', index + 2);
+                    }
+                    else
+                    {
+                        index = this.indexOfTagEnd('-', index + 2);
+                    }
+                    break;
+
+                case '/':
+                    if (depth == 0)
+                    {
+                        rootEndTagIndex = index;
+                    }
+                    else
+                    {
+                        --depth;
+                        index = this.indexOf('>', index + 2) + 1;
+                        isChildEnd = (depth == 0);
+                    }
+                    break;
+
+                default:
+                    index = this.indexOfStartTagEnd(index + 1) + 1;
+                    if (this.get(index - 2) != '/')
+                    {
+                        ++depth;
+                    }
+                    else
+                    {
+                        isChildEnd = (depth == 0);
+                    }
+                    break;
+            }
+
+            if (isChildEnd && index >= nextChunkStartIndex && index < this.endIndex)
+            {
+                if (chunkCount == chunkStartIndexes.length)
+                {
+                    chunkStartIndexes = java.util.Arrays.copyOf(chunkStartIndexes, chunkCount * 2);
+                }
+                chunkStartIndexes[chunkCount++] = index;
+                nextChunkStartIndex = index + chunkLength;
+            }
+
+            if (rootEndTagIndex == -1)
+            {
+                index = this.indexOf('<', index);
+            }
+        }
+
+        int[] result = null;
+        if (rootEndTagIndex != -1 && chunkCount > 1)
+        {
+            result = java.util.Arrays.copyOf(chunkStartIndexes, chunkCount + 1);
+            result[chunkCount] = rootEndTagIndex;
+        }
+        return result;
+    }
+
+    private int get(int index)
+    {
+        return index < this.endIndex ? this.bytes.get(index) : -1;
+    }
+
+    /**
+     * Get the index of the first byte at or after the provided index that is equal to the
+     * provided character, or the end index if there isn't one.
+     */
+    private int indexOf(char character, int index)
+    {
+        while (index < this.endIndex && this.bytes.get(index) != character)
+        {
+            ++index;
+        }
+        return index;
+    }
+
+    /**
+     * Get the index after the right angle bracket that follows two of the provided closing
+     * characters, which is the end of a comment or a CDATA section.
+     */
+    private int indexOfTagEnd(char closingCharacter, int index)
+    {
+        index = this.indexOf('>', index);
+        while (index < this.endIndex && !(this.get(index - 1) == closingCharacter && this.get(index - 2) == closingCharacter))
+        {
+            index = this.indexOf('>', index + 1);
+        }
+        return index + 1;
+    }
+
+    /**
+     * Get the index of the right angle bracket that ends the start tag whose name starts at the
+     * provided index. Right angle brackets in attribute values are skipped.
+     */
+    private int indexOfStartTagEnd(int index)
+    {
+        int current = this.get(index);
+        while (index < this.endIndex && current != '>')
+        {
+            if (current == '"' || current == '\'')
+            {
+                index = this.indexOf((char)current, index + 1);
+            }
+            current = this.get(++index);
+        }
+        return index;
+    }
+
+    /**
+     * Parses a range of chunks by splitting the range in half until only one chunk is left.
+     */
+    private static final class ParseChunksTask extends java.util.concurrent.RecursiveAction
+    {
+        private final java.nio.ByteBuffer bytes;
+        private final int[] chunkStartIndexes;
+        private final XMLElement[] chunks;
+        private final int startChunk;
+        private final int endChunk;
+
+        ParseChunksTask(java.nio.ByteBuffer bytes, int[] chunkStartIndexes, XMLElement[] chunks, int startChunk, int endChunk)
+        {
+            this.bytes = bytes;
+            this.chunkStartIndexes = chunkStartIndexes;
+            this.chunks = chunks;
+            this.startChunk = startChunk;
+            this.endChunk = endChunk;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.endChunk - this.startChunk == 1)
+            {
+                final XMLElement chunk = XMLElement.create("chunk");
+                XMLByteParser.create(this.bytes).parseElementContent(chunk, this.chunkStartIndexes[this.startChunk], this.chunkStartIndexes[this.startChunk + 1]);
+                this.chunks[this.startChunk] = chunk;
+            }
+            else
+            {
+                final int middleChunk = (this.startChunk + this.endChunk) >>> 1;
+                java.util.concurrent.ForkJoinTask.invokeAll(
+                    new ParseChunksTask(this.bytes, this.chunkStartIndexes, this.chunks, this.startChunk, middleChunk),
+                    new ParseChunksTask(this.bytes, this.chunkStartIndexes, this.chunks, middleChunk, this.endChunk));
+            }
+        }
+    }
+}
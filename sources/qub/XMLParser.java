@@ -0,0 +1,1541 @@
+package qub;
+
+/**
+ * A parser that reads XML content by index from an underlying source of code units. Unlike the
+ * Iterator&lt;Character&gt; based functions in {@link XML}, this parser never boxes characters and
+ * only creates a String once a name, text, or attribute value has been completely scanned.
+ */
+public abstract class XMLParser
+{
+    /**
+     * The exception that is thrown when this parser reaches the end of the code units that are
+     * available so far before the end of the input has been reached. It is caught by
+     * readNextAvailable(), so it is created once and never seen by callers.
+     */
+    private static final ParseException moreInputNeeded = new ParseException("More input is needed.");
+
+    private int endIndex;
+    private boolean isEndOfInput;
+    private int currentIndex;
+
+    private int nameStartIndex;
+    private int nameEndIndex;
+    /**
+     * The start and end indexes of the name and the unquoted value of each attribute in the most
+     * recently parsed start tag.
+     */
+    private int[] attributeIndexes;
+    private int attributeCount;
+
+    private XMLEventType currentType;
+    private int depth;
+    /**
+     * The start and end indexes of the names of the elements that have been started but not
+     * ended yet.
+     */
+    private int[] openElementNameIndexes;
+    private boolean isFirstSegment;
+    private boolean hasRoot;
+    private boolean hasSecondRoot;
+    private boolean isEmptyElementEndPending;
+    private XMLDeclaration declaration;
+    private int textStartIndex;
+    private int textEndIndex;
+    private boolean textIsWhitespace;
+    private boolean skipCommentsAndWhitespace;
+
+    /**
+     * Create a new XMLParser that will read the code units between the provided indexes.
+     * @param startIndex The index of the first code unit to read.
+     * @param endIndex The index after the last code unit to read.
+     */
+    protected XMLParser(int startIndex, int endIndex)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(startIndex, 0, "startIndex");
+        PreCondition.assertGreaterThanOrEqualTo(endIndex, startIndex, "endIndex");
+
+        this.currentIndex = startIndex;
+        this.endIndex = endIndex;
+        this.isEndOfInput = true;
+        this.attributeIndexes = new int[16];
+        this.openElementNameIndexes = new int[32];
+        this.isFirstSegment = true;
+    }
+
+    /**
+     * Get the code unit at the provided index.
+     * @param index The index of the code unit to get.
+     * @return The code unit at the provided index.
+     */
+    protected abstract int get(int index);
+
+    /**
+     * Get the index of the first code unit between the provided indexes that is equal to the
+     * provided character. This is only called for the markup characters '&lt;', '&gt;', '"', and
+     * '\'', so sources that know where those characters are can override this to skip over the
+     * code units in between.
+     * @param character The character to look for.
+     * @param startIndex The index of the first code unit to check.
+     * @param endIndex The index after the last code unit to check.
+     * @return The index of the first matching code unit, or endIndex if there isn't one.
+     */
+    protected int indexOf(int character, int startIndex, int endIndex)
+    {
+        int result = startIndex;
+        while (result < endIndex && this.get(result) != character)
+        {
+            ++result;
+        }
+        return result;
+    }
+
+    /**
+     * Get the Unicode code point that starts at the provided index. This is only called for code
+     * units that are outside of the ASCII range. The default implementation treats the code units
+     * as UTF-16 characters and combines surrogate pairs, so sources whose code units are characters
+     * can rely on it.
+     * @param index The index of the first code unit of the code point.
+     * @return The code point that starts at the provided index.
+     */
+    protected int getCodePoint(int index)
+    {
+        final char character = (char)this.get(index);
+        return this.isSurrogatePair(index)
+            ? Character.toCodePoint(character, (char)this.get(index + 1))
+            : character;
+    }
+
+    /**
+     * Get the number of code units that make up the code point that starts at the provided index.
+     * This is only called for code units that are outside of the ASCII range. The default
+     * implementation treats the code units as UTF-16 characters.
+     * @param index The index of the first code unit of the code point.
+     * @return The number of code units that make up the code point that starts at the provided
+     * index.
+     */
+    protected int getCodePointLength(int index)
+    {
+        return this.isSurrogatePair(index) ? 2 : 1;
+    }
+
+    /**
+     * Get whether or not the UTF-16 code units at the provided index and the index after it are a
+     * surrogate pair.
+     */
+    private boolean isSurrogatePair(int index)
+    {
+        boolean result = false;
+        if (Character.isHighSurrogate((char)this.get(index)))
+        {
+            final int lowSurrogateIndex = index + 1;
+            if (lowSurrogateIndex == this.endIndex && !this.isEndOfInput)
+            {
+                throw XMLParser.moreInputNeeded;
+            }
+            result = lowSurrogateIndex < this.endIndex && Character.isLowSurrogate((char)this.get(lowSurrogateIndex));
+        }
+        return result;
+    }
+
+    /**
+     * Get the String that is made up of the code units between the provided indexes.
+     * @param startIndex The index of the first code unit in the String.
+     * @param endIndex The index after the last code unit in the String.
+     * @return The String that is made up of the code units between the provided indexes.
+     */
+    protected abstract String getString(int startIndex, int endIndex);
+
+    /**
+     * Get the code units between the provided indexes as a CharSequence that may be a view of this
+     * parser's source instead of a copy of it. The default implementation returns the String from
+     * getString(), so sources that reuse their storage don't need to override this. Sources that
+     * never change can return an XMLSlice instead.
+     * @param startIndex The index of the first code unit in the CharSequence.
+     * @param endIndex The index after the last code unit in the CharSequence.
+     * @return The code units between the provided indexes.
+     */
+    protected CharSequence getSlice(int startIndex, int endIndex)
+    {
+        return this.getString(startIndex, endIndex);
+    }
+
+    /**
+     * Parse an XMLDocument from the remaining code units of this parser.
+     * @return The parsed XMLDocument.
+     * @throws ParseException if the code units are not a well-formed XML document.
+     */
+    public XMLDocument parseDocument()
+    {
+        boolean isFirstSegment = true;
+        final XMLDocument result = XMLDocument.create();
+        while (this.hasCurrent())
+        {
+            if (this.getCurrent() == '<')
+            {
+                this.next();
+
+                if (!this.hasCurrent())
+                {
+                    throw XML.missing("tag name");
+                }
+
+                switch (this.getCurrent())
+                {
+                    case '?':
+                        this.next();
+
+                        final XMLDeclaration declaration = this.parseDeclarationAtName();
+                        if (result.getDeclaration() != null)
+                        {
+                            throw new ParseException("An XML document can only have one declaration.");
+                        }
+                        if (!isFirstSegment)
+                        {
+                            throw XML.expected("the XML declaration to be the first character in the document");
+                        }
+                        result.setDeclaration(declaration);
+                        break;
+
+                    case '/':
+                        throw new ParseException("An XML document cannot have an end tag without a start tag.");
+
+                    case '!':
+                        this.next();
+
+                        if (this.parseCommentOrCDataAtFirstCharacter())
+                        {
+                            throw new ParseException("An XML document cannot have a CDATA tag at its root.");
+                        }
+                        break;
+
+                    default:
+                        if (this.isCurrentNameStartCharacter())
+                        {
+                            final XMLElement element = this.parseElementAtName();
+                            if (result.getRoot() != null)
+                            {
+                                throw new ParseException("An XML document can only have one root element.");
+                            }
+                            result.setRoot(element);
+                        }
+                        else
+                        {
+                            throw this.unexpectedTagNameStartCharacter();
+                        }
+                        break;
+                }
+            }
+            else if (!this.skipText())
+            {
+                throw XML.expected("only whitespace and elements at the root of the document");
+            }
+            isFirstSegment = false;
+        }
+
+        return result;
+    }
+
+    /**
+     * Parse the remaining code units of this parser and call the provided handler as each part of
+     * the document is recognized. Nothing from the document is kept after a callback returns.
+     * @param handler The handler to call.
+     * @throws ParseException if the code units are not a well-formed XML document.
+     */
+    public void parse(XMLHandler handler)
+    {
+        PreCondition.assertNotNull(handler, "handler");
+
+        this.setSkipCommentsAndWhitespace(handler.skipCommentsAndWhitespace());
+
+        final XMLAttributes attributes = new XMLAttributes(this);
+        XMLEventType eventType = this.readNext();
+        while (eventType != null)
+        {
+            this.callHandler(eventType, handler, attributes);
+            eventType = this.readNext();
+        }
+    }
+
+    /**
+     * Call the callback of the provided handler that matches the provided event, which must be the
+     * most recently read event.
+     * @param eventType The type of the most recently read event.
+     * @param handler The handler to call.
+     * @param attributes The attribute view to pass to the handler's startElement() callback.
+     */
+    void callHandler(XMLEventType eventType, XMLHandler handler, XMLAttributes attributes)
+    {
+        switch (eventType)
+        {
+            case Declaration:
+                handler.declaration(this.declaration);
+                break;
+
+            case StartElement:
+                handler.startElement(this.getName(), attributes);
+                break;
+
+            case Text:
+                handler.text(this.getText());
+                break;
+
+            case CData:
+                handler.cdata(this.getText());
+                break;
+
+            case Comment:
+                handler.comment(this.getText());
+                break;
+
+            case EndElement:
+                handler.endElement(this.getName());
+                break;
+        }
+    }
+
+    /**
+     * Read the next event from the code units that are available so far. If the available code
+     * units end before the next event is complete and the end of the input hasn't been reached,
+     * then this parser is moved back to where the event started so that the event can be read
+     * again once more code units are available.
+     * @return The type of the event that was read, or null if more code units are needed or the
+     * end of the document was reached.
+     * @throws ParseException if the code units are not a well-formed XML document.
+     */
+    XMLEventType readNextAvailable()
+    {
+        final int startIndex = this.currentIndex;
+        final boolean isFirstSegment = this.isFirstSegment;
+
+        XMLEventType result;
+        try
+        {
+            result = this.readNext();
+        }
+        catch (ParseException e)
+        {
+            if (e != XMLParser.moreInputNeeded)
+            {
+                throw e;
+            }
+
+            // Every event only changes this parser's state once the whole event has been read, so
+            // the index and the segment flag are all that need to be restored.
+            this.currentIndex = startIndex;
+            this.isFirstSegment = isFirstSegment;
+            result = null;
+        }
+        return result;
+    }
+
+    /**
+     * Set whether or not readNext() should skip comments and text that only contains whitespace
+     * instead of returning them as events. Skipped comments and whitespace are still checked for
+     * well-formedness.
+     * @param skipCommentsAndWhitespace Whether or not to skip comments and text that only contains
+     *                                  whitespace.
+     */
+    void setSkipCommentsAndWhitespace(boolean skipCommentsAndWhitespace)
+    {
+        this.skipCommentsAndWhitespace = skipCommentsAndWhitespace;
+    }
+
+    /**
+     * Get the index of the next code unit that this parser will read.
+     * @return The index of the next code unit that this parser will read.
+     */
+    int getCurrentIndex()
+    {
+        return this.currentIndex;
+    }
+
+    /**
+     * Get the number of elements that have been started but not ended yet.
+     * @return The number of elements that have been started but not ended yet.
+     */
+    int getOpenElementCount()
+    {
+        return this.depth;
+    }
+
+    /**
+     * Get the start and end indexes of the names of the elements that have been started but not
+     * ended yet. The array belongs to this parser, so a source that moves its code units can
+     * update the indexes in place.
+     * @return The start and end indexes of the names of the open elements.
+     */
+    int[] getOpenElementNameIndexes()
+    {
+        return this.openElementNameIndexes;
+    }
+
+    /**
+     * Set the range of code units that this parser will read. This is used by sources that add
+     * code units or move them while a document is being parsed.
+     * @param currentIndex The index of the next code unit to read.
+     * @param endIndex The index after the last code unit that is available.
+     * @param isEndOfInput Whether or not there will be no more code units after endIndex.
+     */
+    void setIndexes(int currentIndex, int endIndex, boolean isEndOfInput)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(currentIndex, 0, "currentIndex");
+        PreCondition.assertGreaterThanOrEqualTo(endIndex, currentIndex, "endIndex");
+
+        this.currentIndex = currentIndex;
+        this.endIndex = endIndex;
+        this.isEndOfInput = isEndOfInput;
+    }
+
+    /**
+     * Move this parser to the start tag of an element that was found in an earlier pass over the
+     * same code units. The element is then read as if it was the root of a document, so the next
+     * event will be the element's start element event and the element's end element event will be
+     * the last event.
+     * @param tagStartIndex The index of the left angle bracket of the element's start tag.
+     * @param elementEndIndex The index after the right angle bracket of the element's end tag.
+     */
+    void restartAtElement(int tagStartIndex, int elementEndIndex)
+    {
+        this.setIndexes(tagStartIndex, elementEndIndex, true);
+        this.currentType = null;
+        this.depth = 0;
+        this.attributeCount = 0;
+        this.isFirstSegment = false;
+        this.hasRoot = false;
+        this.hasSecondRoot = false;
+        this.isEmptyElementEndPending = false;
+        this.declaration = null;
+    }
+
+    /**
+     * Skip past the content and the end tag of the element of the most recently read start
+     * element event without reading them. The element must have been checked in an earlier pass
+     * over the same code units. This parser will be positioned on the element's end element event.
+     * @param elementEndIndex The index after the right angle bracket of the element's end tag.
+     */
+    void skipElement(int elementEndIndex)
+    {
+        PreCondition.assertTrue(this.currentType == XMLEventType.StartElement, "this.getCurrentType() == XMLEventType.StartElement");
+        PreCondition.assertGreaterThanOrEqualTo(elementEndIndex, this.currentIndex, "elementEndIndex");
+
+        this.isEmptyElementEndPending = false;
+        this.currentIndex = elementEndIndex;
+        this.currentType = this.endElement();
+    }
+
+    /**
+     * Read the next event from the remaining code units of this parser. Unlike parseDocument(),
+     * this doesn't create any objects for the document's elements. The details of the event can
+     * be retrieved from this parser until the next event is read.
+     * @return The type of the event that was read, or null if the end of the document was reached.
+     * @throws ParseException if the code units are not a well-formed XML document.
+     */
+    XMLEventType readNext()
+    {
+        XMLEventType result = null;
+        if (this.isEmptyElementEndPending)
+        {
+            this.isEmptyElementEndPending = false;
+            result = this.endElement();
+        }
+
+        while (result == null && this.hasCurrent())
+        {
+            if (this.getCurrent() == '<')
+            {
+                this.next();
+
+                if (!this.hasCurrent())
+                {
+                    throw XML.missing("tag name");
+                }
+
+                switch (this.getCurrent())
+                {
+                    case '?':
+                        if (this.depth > 0)
+                        {
+                            throw XML.expected("the XML declaration to be the first character in the document");
+                        }
+                        this.next();
+
+                        final XMLDeclaration declaration = this.parseDeclarationAtName();
+                        if (this.declaration != null)
+                        {
+                            throw new ParseException("An XML document can only have one declaration.");
+                        }
+                        if (!this.isFirstSegment)
+                        {
+                            throw XML.expected("the XML declaration to be the first character in the document");
+                        }
+                        this.declaration = declaration;
+                        result = XMLEventType.Declaration;
+                        break;
+
+                    case '/':
+                        if (this.depth == 0)
+                        {
+                            throw new ParseException("An XML document cannot have an end tag without a start tag.");
+                        }
+                        this.next();
+
+                        if (!this.hasCurrent())
+                        {
+                            throw XML.missing("end tag name");
+                        }
+                        if (!this.isCurrentNameStartCharacter())
+                        {
+                            throw XML.expected("end tag name");
+                        }
+
+                        final int endTagNameStartIndex = this.currentIndex;
+                        this.skipName();
+                        final int endTagNameEndIndex = this.currentIndex;
+
+                        this.skipOptionalWhitespace();
+
+                        this.expectAndTake('>', "end tag right angle bracket ('>')");
+
+                        final int openElementIndex = (this.depth - 1) * 2;
+                        if (!this.equals(this.openElementNameIndexes[openElementIndex], this.openElementNameIndexes[openElementIndex + 1], endTagNameStartIndex, endTagNameEndIndex))
+                        {
+                            throw XML.expected("an end tag with the name same as the current element");
+                        }
+                        result = this.endElement();
+                        break;
+
+                    case '!':
+                        this.next();
+
+                        final int tagStartIndex = this.currentIndex;
+                        if (this.parseCommentOrCDataAtFirstCharacter())
+                        {
+                            if (this.depth == 0)
+                            {
+                                throw new ParseException("An XML document cannot have a CDATA tag at its root.");
+                            }
+                            // The CDATA text starts after "[CDATA[" and ends before "]]>".
+                            this.textStartIndex = tagStartIndex + 7;
+                            result = XMLEventType.CData;
+                        }
+                        else if (!this.skipCommentsAndWhitespace)
+                        {
+                            // The comment text starts after "--" and ends before "-->".
+                            this.textStartIndex = tagStartIndex + 2;
+                            result = XMLEventType.Comment;
+                        }
+                        this.textEndIndex = this.currentIndex - 3;
+                        break;
+
+                    default:
+                        if (!this.isCurrentNameStartCharacter())
+                        {
+                            throw this.unexpectedTagNameStartCharacter();
+                        }
+
+                        this.isEmptyElementEndPending = this.parseStartTagAtName();
+                        if (this.depth == 0)
+                        {
+                            // Like parseDocument(), a second root element is only reported once
+                            // the whole element has been parsed.
+                            this.hasSecondRoot = this.hasRoot;
+                            this.hasRoot = true;
+                        }
+                        this.startElement();
+                        result = XMLEventType.StartElement;
+                        break;
+                }
+            }
+            else
+            {
+                this.textStartIndex = this.currentIndex;
+                this.textIsWhitespace = this.skipText();
+                this.textEndIndex = this.currentIndex;
+                if (this.depth > 0)
+                {
+                    if (!this.textIsWhitespace || !this.skipCommentsAndWhitespace)
+                    {
+                        result = XMLEventType.Text;
+                    }
+                }
+                else if (!this.textIsWhitespace)
+                {
+                    throw XML.expected("only whitespace and elements at the root of the document");
+                }
+            }
+            this.isFirstSegment = false;
+        }
+
+        if (result == null && this.depth > 0)
+        {
+            throw XML.missing("end tag");
+        }
+
+        this.currentType = result;
+
+        return result;
+    }
+
+    private void startElement()
+    {
+        final int openElementIndex = this.depth * 2;
+        if (openElementIndex == this.openElementNameIndexes.length)
+        {
+            this.openElementNameIndexes = java.util.Arrays.copyOf(this.openElementNameIndexes, openElementIndex * 2);
+        }
+        this.openElementNameIndexes[openElementIndex] = this.nameStartIndex;
+        this.openElementNameIndexes[openElementIndex + 1] = this.nameEndIndex;
+        ++this.depth;
+    }
+
+    private XMLEventType endElement()
+    {
+        --this.depth;
+        this.nameStartIndex = this.openElementNameIndexes[this.depth * 2];
+        this.nameEndIndex = this.openElementNameIndexes[this.depth * 2 + 1];
+        this.attributeCount = 0;
+
+        if (this.depth == 0 && this.hasSecondRoot)
+        {
+            throw new ParseException("An XML document can only have one root element.");
+        }
+
+        return XMLEventType.EndElement;
+    }
+
+    /**
+     * Read the children and the end tag of the element of the most recently read start element
+     * event and create an XMLElement from them. Comments and text that only contains whitespace
+     * are skipped the same way that parseDocument() skips them. This parser will be positioned on
+     * the element's end element event.
+     * @return The XMLElement that was read.
+     * @throws ParseException if the element is not well-formed.
+     */
+    XMLElement readElement()
+    {
+        PreCondition.assertTrue(this.currentType == XMLEventType.StartElement, "this.getCurrentType() == XMLEventType.StartElement");
+
+        final int depth = this.getDepth();
+        final XMLElement result = this.createElement(!this.isEmptyElement());
+
+        XMLElement[] openElements = new XMLElement[8];
+        int openElementCount = 0;
+        XMLElement parent = result;
+        XMLEventType eventType = this.readNext();
+        while (eventType != XMLEventType.EndElement || this.getDepth() != depth)
+        {
+            switch (eventType)
+            {
+                case StartElement:
+                    final XMLElement element = this.createElement(!this.isEmptyElement());
+                    parent.addChild(element);
+                    if (openElementCount == openElements.length)
+                    {
+                        openElements = java.util.Arrays.copyOf(openElements, openElementCount * 2);
+                    }
+                    openElements[openElementCount++] = parent;
+                    parent = element;
+                    break;
+
+                case EndElement:
+                    parent = openElements[--openElementCount];
+                    break;
+
+                case Text:
+                    if (!this.isWhitespace())
+                    {
+                        parent.addChild(XMLText.create(this.getText(), false));
+                    }
+                    break;
+
+                case CData:
+                    parent.addChild(XMLCData.create(this.getText()));
+                    break;
+            }
+            eventType = this.readNext();
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the type of the event that was most recently read.
+     * @return The type of the event that was most recently read.
+     */
+    XMLEventType getCurrentType()
+    {
+        return this.currentType;
+    }
+
+    /**
+     * Get the number of elements that contain the most recently read event. The root element's
+     * start and end events have a depth of 0.
+     * @return The number of elements that contain the most recently read event.
+     */
+    int getDepth()
+    {
+        return this.currentType == XMLEventType.StartElement ? this.depth - 1 : this.depth;
+    }
+
+    /**
+     * Get whether or not the most recently read start element event came from an empty element
+     * tag.
+     * @return Whether or not the most recently read start element event came from an empty element
+     * tag.
+     */
+    boolean isEmptyElement()
+    {
+        return this.isEmptyElementEndPending;
+    }
+
+    /**
+     * Get the name of the element of the most recently read start or end element event.
+     * @return The name of the element of the most recently read start or end element event.
+     */
+    String getName()
+    {
+        return this.getString(this.nameStartIndex, this.nameEndIndex);
+    }
+
+    /**
+     * Get the index of the first code unit of the name in the start tag of the element of the most
+     * recently read start or end element event.
+     * @return The index of the first code unit of the name in the element's start tag.
+     */
+    int getNameStartIndex()
+    {
+        return this.nameStartIndex;
+    }
+
+    /**
+     * Get the index after the last code unit of the name in the start tag of the element of the
+     * most recently read start or end element event.
+     * @return The index after the last code unit of the name in the element's start tag.
+     */
+    int getNameEndIndex()
+    {
+        return this.nameEndIndex;
+    }
+
+    /**
+     * Get whether or not the name of the element of the most recently read start or end element
+     * event is equal to the provided name. This doesn't create a String for the element's name.
+     * @param name The name to compare.
+     * @return Whether or not the element's name is equal to the provided name.
+     */
+    boolean nameEquals(String name)
+    {
+        return this.equals(this.nameStartIndex, this.nameEndIndex, name);
+    }
+
+    /**
+     * Get the number of attributes of the most recently read start element event.
+     * @return The number of attributes of the most recently read start element event.
+     */
+    int getAttributeCount()
+    {
+        return this.attributeCount;
+    }
+
+    /**
+     * Get the name of the attribute at the provided index of the most recently read start element
+     * event.
+     * @param attributeIndex The index of the attribute.
+     * @return The name of the attribute.
+     */
+    String getAttributeName(int attributeIndex)
+    {
+        return this.getString(this.attributeIndexes[attributeIndex * 4], this.attributeIndexes[attributeIndex * 4 + 1]);
+    }
+
+    /**
+     * Get the index of the first code unit of the name of the attribute at the provided index of
+     * the most recently read start element event.
+     * @param attributeIndex The index of the attribute.
+     * @return The index of the first code unit of the attribute's name.
+     */
+    int getAttributeNameStartIndex(int attributeIndex)
+    {
+        return this.attributeIndexes[attributeIndex * 4];
+    }
+
+    /**
+     * Get the index after the last code unit of the name of the attribute at the provided index of
+     * the most recently read start element event.
+     * @param attributeIndex The index of the attribute.
+     * @return The index after the last code unit of the attribute's name.
+     */
+    int getAttributeNameEndIndex(int attributeIndex)
+    {
+        return this.attributeIndexes[attributeIndex * 4 + 1];
+    }
+
+    /**
+     * Get the index of the first code unit of the unquoted value of the attribute at the provided
+     * index of the most recently read start element event.
+     * @param attributeIndex The index of the attribute.
+     * @return The index of the first code unit of the attribute's unquoted value.
+     */
+    int getAttributeValueStartIndex(int attributeIndex)
+    {
+        return this.attributeIndexes[attributeIndex * 4 + 2];
+    }
+
+    /**
+     * Get the index after the last code unit of the unquoted value of the attribute at the
+     * provided index of the most recently read start element event.
+     * @param attributeIndex The index of the attribute.
+     * @return The index after the last code unit of the attribute's unquoted value.
+     */
+    int getAttributeValueEndIndex(int attributeIndex)
+    {
+        return this.attributeIndexes[attributeIndex * 4 + 3];
+    }
+
+    /**
+     * Get whether or not the name of the attribute at the provided index of the most recently read
+     * start element event is equal to the provided name. This doesn't create a String for the
+     * attribute's name.
+     * @param attributeIndex The index of the attribute.
+     * @param name The name to compare.
+     * @return Whether or not the attribute's name is equal to the provided name.
+     */
+    boolean attributeNameEquals(int attributeIndex, String name)
+    {
+        return this.equals(this.attributeIndexes[attributeIndex * 4], this.attributeIndexes[attributeIndex * 4 + 1], name);
+    }
+
+    /**
+     * Get the unquoted value of the attribute at the provided index of the most recently read
+     * start element event.
+     * @param attributeIndex The index of the attribute.
+     * @return The unquoted value of the attribute.
+     */
+    String getAttributeValue(int attributeIndex)
+    {
+        return this.getString(this.attributeIndexes[attributeIndex * 4 + 2], this.attributeIndexes[attributeIndex * 4 + 3]);
+    }
+
+    /**
+     * Get the unquoted value of the attribute at the provided index of the most recently read
+     * start element event as a view of this parser's source if the source supports it. The source
+     * must not change while the returned CharSequence is being used.
+     * @param attributeIndex The index of the attribute.
+     * @return The unquoted value of the attribute.
+     */
+    CharSequence getAttributeValueSlice(int attributeIndex)
+    {
+        return this.getSlice(this.attributeIndexes[attributeIndex * 4 + 2], this.attributeIndexes[attributeIndex * 4 + 3]);
+    }
+
+    /**
+     * Get the text of the most recently read text, CDATA, or comment event.
+     * @return The text of the most recently read text, CDATA, or comment event.
+     */
+    String getText()
+    {
+        return this.getString(this.textStartIndex, this.textEndIndex);
+    }
+
+    /**
+     * Get the text of the most recently read text, CDATA, or comment event as a view of this
+     * parser's source if the source supports it. The source must not change while the returned
+     * CharSequence is being used.
+     * @return The text of the most recently read text, CDATA, or comment event.
+     */
+    CharSequence getTextSlice()
+    {
+        return this.getSlice(this.textStartIndex, this.textEndIndex);
+    }
+
+    /**
+     * Get the index of the first code unit of the text of the most recently read text, CDATA, or
+     * comment event.
+     * @return The index of the first code unit of the text.
+     */
+    int getTextStartIndex()
+    {
+        return this.textStartIndex;
+    }
+
+    /**
+     * Get the index after the last code unit of the text of the most recently read text, CDATA, or
+     * comment event.
+     * @return The index after the last code unit of the text.
+     */
+    int getTextEndIndex()
+    {
+        return this.textEndIndex;
+    }
+
+    /**
+     * Get whether or not the most recently read text event only contained whitespace.
+     * @return Whether or not the most recently read text event only contained whitespace.
+     */
+    boolean isWhitespace()
+    {
+        return this.textIsWhitespace;
+    }
+
+    /**
+     * Get the declaration that was read by the most recently read declaration event.
+     * @return The declaration that was read by the most recently read declaration event.
+     */
+    XMLDeclaration getDeclaration()
+    {
+        return this.declaration;
+    }
+
+    private XMLDeclaration parseDeclarationAtName()
+    {
+        if (!this.hasCurrent())
+        {
+            throw XML.missing("declaration name (\"xml\")");
+        }
+        if (!this.isCurrentNameStartCharacter())
+        {
+            throw XML.expected("declaration name (\"xml\")");
+        }
+
+        final int declarationNameStartIndex = this.currentIndex;
+        this.skipName();
+        if (!this.equals(declarationNameStartIndex, this.currentIndex, "xml"))
+        {
+            throw XML.expected("declaration name (\"xml\")");
+        }
+
+        this.skipWhitespace();
+
+        final XMLDeclaration result = XMLDeclaration.create()
+            .setVersion(this.parseAttributeValue("version", "declaration version attribute"));
+
+        if (!this.hasCurrent())
+        {
+            throw XML.missing("declaration right question mark ('?')");
+        }
+
+        boolean hasEncoding = false;
+        boolean hasStandalone = false;
+        while (this.hasCurrent() && XML.isWhitespaceCharacter((char)this.getCurrent()))
+        {
+            this.skipWhitespace();
+
+            if (!this.hasCurrent() || !this.isCurrentNameStartCharacter() || hasStandalone)
+            {
+                break;
+            }
+
+            if (!hasEncoding && this.getCurrent() == 'e')
+            {
+                final String encoding = this.parseAttributeValue("encoding", "declaration encoding attribute");
+                if (encoding.isEmpty())
+                {
+                    throw XML.expected("declaration encoding attribute value to be not empty");
+                }
+                result.setEncoding(encoding);
+                hasEncoding = true;
+            }
+            else if (this.getCurrent() == 's')
+            {
+                final String standalone = this.parseAttributeValue("standalone", "declaration standalone attribute");
+                if (!standalone.equals("no") && !standalone.equals("yes"))
+                {
+                    throw XML.expected("declaration standalone attribute value to be \"no\" or \"yes\"");
+                }
+                result.setStandalone(standalone);
+                hasStandalone = true;
+            }
+            else if (!hasEncoding)
+            {
+                throw XML.expected("declaration encoding attribute, standalone attribute, or right question mark ('?')");
+            }
+            else
+            {
+                throw XML.expected("declaration standalone attribute or right question mark ('?')");
+            }
+        }
+
+        this.expectAndTake('?', "declaration right question mark ('?')");
+        this.expectAndTake('>', "declaration right angle bracket ('>')");
+
+        return result;
+    }
+
+    private XMLElement parseElementAtName()
+    {
+        final boolean isEmptyElement = this.parseStartTagAtName();
+        final XMLElement result = this.createElement(!isEmptyElement);
+
+        if (!isEmptyElement)
+        {
+            this.parseElementContent(result, false);
+        }
+
+        return result;
+    }
+
+    /**
+     * Parse the content of the element whose content starts at the provided index and add the
+     * parsed children to the provided element. The content must not contain the element's end
+     * tag, and every element that is started in the content must also be ended in the content.
+     * This is used to parse the content of a large element in separate pieces.
+     * @param element The element to add the parsed children to.
+     * @param startIndex The index of the first code unit of the content.
+     * @param endIndex The index after the last code unit of the content.
+     * @throws ParseException if the code units are not well-formed element content.
+     */
+    void parseElementContent(XMLElement element, int startIndex, int endIndex)
+    {
+        PreCondition.assertNotNull(element, "element");
+
+        this.restartAtElement(startIndex, endIndex);
+        this.parseElementContent(element, true);
+    }
+
+    /**
+     * Parse the children of the provided element, which has just had its start tag parsed.
+     * @param contentElement The element to add the parsed children to.
+     * @param isPartialContent Whether or not the code units end before the element's end tag.
+     */
+    private void parseElementContent(XMLElement contentElement, boolean isPartialContent)
+    {
+        // The elements that haven't been ended yet are kept in a stack instead of in recursive
+        // calls, so the depth of a document is only limited by the available memory.
+        XMLElement[] openElements = new XMLElement[16];
+        int[] openElementNameIndexes = new int[32];
+        openElements[0] = contentElement;
+        openElementNameIndexes[0] = this.nameStartIndex;
+        openElementNameIndexes[1] = this.nameEndIndex;
+        int openElementCount = 1;
+
+        while (openElementCount > 0 && this.hasCurrent())
+        {
+            final XMLElement element = openElements[openElementCount - 1];
+            if (this.getCurrent() == '<')
+            {
+                this.next();
+
+                if (!this.hasCurrent())
+                {
+                    throw XML.missing("tag name");
+                }
+
+                switch (this.getCurrent())
+                {
+                    case '?':
+                        throw XML.expected("the XML declaration to be the first character in the document");
+
+                    case '/':
+                        this.next();
+
+                        if (!this.hasCurrent())
+                        {
+                            throw XML.missing("end tag name");
+                        }
+                        if (!this.isCurrentNameStartCharacter())
+                        {
+                            throw XML.expected("end tag name");
+                        }
+
+                        final int endTagNameStartIndex = this.currentIndex;
+                        this.skipName();
+                        final int endTagNameEndIndex = this.currentIndex;
+
+                        this.skipOptionalWhitespace();
+
+                        this.expectAndTake('>', "end tag right angle bracket ('>')");
+
+                        if (isPartialContent && openElementCount == 1)
+                        {
+                            throw new ParseException("Element content cannot contain the end tag of its element.");
+                        }
+
+                        final int openElementIndex = (openElementCount - 1) * 2;
+                        if (!this.equals(openElementNameIndexes[openElementIndex], openElementNameIndexes[openElementIndex + 1], endTagNameStartIndex, endTagNameEndIndex))
+                        {
+                            throw XML.expected("an end tag with the name same as the current element");
+                        }
+                        --openElementCount;
+                        openElements[openElementCount] = null;
+                        break;
+
+                    case '!':
+                        this.next();
+
+                        final int cdataStartIndex = this.currentIndex;
+                        if (this.parseCommentOrCDataAtFirstCharacter())
+                        {
+                            // The CDATA text starts after "[CDATA[" and ends before "]]>".
+                            element.addChild(XMLCData.create(this.getString(cdataStartIndex + 7, this.currentIndex - 3)));
+                        }
+                        break;
+
+                    default:
+                        if (!this.isCurrentNameStartCharacter())
+                        {
+                            throw this.unexpectedTagNameStartCharacter();
+                        }
+
+                        final boolean isEmptyChildElement = this.parseStartTagAtName();
+                        final XMLElement childElement = this.createElement(!isEmptyChildElement);
+                        element.addChild(childElement);
+                        if (!isEmptyChildElement)
+                        {
+                            if (openElementCount == openElements.length)
+                            {
+                                openElements = java.util.Arrays.copyOf(openElements, openElementCount * 2);
+                                openElementNameIndexes = java.util.Arrays.copyOf(openElementNameIndexes, openElementCount * 4);
+                            }
+                            openElements[openElementCount] = childElement;
+                            openElementNameIndexes[openElementCount * 2] = this.nameStartIndex;
+                            openElementNameIndexes[openElementCount * 2 + 1] = this.nameEndIndex;
+                            ++openElementCount;
+                        }
+                        break;
+                }
+            }
+            else
+            {
+                final int textStartIndex = this.currentIndex;
+                if (!this.skipText())
+                {
+                    element.addChild(XMLText.create(this.getString(textStartIndex, this.currentIndex), false));
+                }
+            }
+        }
+
+        if (openElementCount > (isPartialContent ? 1 : 0))
+        {
+            throw XML.missing("end tag");
+        }
+    }
+
+    /**
+     * Parse the start tag or empty element tag whose name starts at the current code unit. The
+     * indexes of the tag's name and attributes are stored in this parser until the next start tag
+     * is parsed.
+     * @return Whether or not the parsed tag was an empty element tag.
+     */
+    private boolean parseStartTagAtName()
+    {
+        this.nameStartIndex = this.currentIndex;
+        this.skipName();
+        this.nameEndIndex = this.currentIndex;
+
+        this.attributeCount = 0;
+        while (this.hasCurrent() && XML.isWhitespaceCharacter((char)this.getCurrent()))
+        {
+            this.skipWhitespace();
+
+            if (this.hasCurrent() && this.isCurrentNameStartCharacter())
+            {
+                this.parseAttribute("start tag attribute");
+            }
+        }
+
+        final boolean result = this.hasCurrent() && this.getCurrent() == '/';
+        if (result)
+        {
+            this.next();
+        }
+
+        this.expectAndTake('>', result ? "empty element right angle bracket ('>')" : "start tag right angle bracket ('>')");
+
+        return result;
+    }
+
+    /**
+     * Create an XMLElement from the most recently parsed start tag.
+     * @param split Whether or not the created element is split into a start tag and an end tag.
+     * @return The created XMLElement.
+     */
+    XMLElement createElement(boolean split)
+    {
+        final XMLElement result = XMLElement.create(this.getString(this.nameStartIndex, this.nameEndIndex), split);
+        for (int i = 0; i < this.attributeCount; ++i)
+        {
+            result.setAttribute(this.getAttributeName(i), this.getAttributeValue(i));
+        }
+        return result;
+    }
+
+    /**
+     * Parse the comment or CDATA tag that starts at the current code unit (the code unit after
+     * "&lt;!").
+     * @return Whether or not the parsed tag was a CDATA tag.
+     */
+    private boolean parseCommentOrCDataAtFirstCharacter()
+    {
+        if (!this.hasCurrent())
+        {
+            throw XML.missing("comment first left dash ('-') or CDATA first left square bracket ('[')");
+        }
+
+        final boolean result;
+        switch (this.getCurrent())
+        {
+            case '-':
+                this.next();
+                this.expectAndTake('-', "comment second left dash ('-')");
+                this.skipCommentText();
+                result = false;
+                break;
+
+            case '[':
+                this.next();
+                this.skipCDataTextAtName();
+                result = true;
+                break;
+
+            default:
+                throw XML.expected("comment first left dash ('-') or CDATA first left square bracket ('[')");
+        }
+        return result;
+    }
+
+    private void skipCommentText()
+    {
+        final int rightDashCount = this.skipToEndOfTag('-');
+        if (rightDashCount == 0)
+        {
+            throw XML.missing("comment first right dash ('-')");
+        }
+        else if (rightDashCount == 1)
+        {
+            throw XML.missing("comment second right dash ('-')");
+        }
+
+        this.expectAndTake('>', "comment right angle bracket ('>')");
+    }
+
+    private void skipCDataTextAtName()
+    {
+        if (!this.hasCurrent())
+        {
+            throw XML.missing("CDATA tag name start character");
+        }
+        if (!this.isCurrentNameStartCharacter())
+        {
+            throw XML.expected("CDATA tag name start character");
+        }
+
+        final int nameStartIndex = this.currentIndex;
+        this.skipName();
+        if (!this.equals(nameStartIndex, this.currentIndex, "CDATA"))
+        {
+            throw XML.expected("CDATA tag name (\"CDATA\")");
+        }
+
+        this.expectAndTake('[', "CDATA tag second left square bracket ('[')");
+
+        final int rightSquareBracketCount = this.skipToEndOfTag(']');
+        if (rightSquareBracketCount == 0)
+        {
+            throw XML.missing("CDATA tag first right square bracket (']')");
+        }
+        else if (rightSquareBracketCount == 1)
+        {
+            throw XML.missing("CDATA tag second right square bracket (']')");
+        }
+
+        this.expectAndTake('>', "CDATA tag right angle bracket ('>')");
+    }
+
+    /**
+     * Parse an attribute that starts at the current code unit and add the indexes of its name and
+     * unquoted value to this parser's attribute indexes.
+     * @param description The description of the attribute that will be used in error messages.
+     */
+    private void parseAttribute(String description)
+    {
+        final int nameStartIndex = this.currentIndex;
+        this.skipName();
+        final int nameEndIndex = this.currentIndex;
+
+        this.skipAttributeEqualsAndValue(description);
+
+        final int attributeIndex = this.attributeCount * 4;
+        if (attributeIndex == this.attributeIndexes.length)
+        {
+            this.attributeIndexes = java.util.Arrays.copyOf(this.attributeIndexes, attributeIndex * 2);
+        }
+        this.attributeIndexes[attributeIndex] = nameStartIndex;
+        this.attributeIndexes[attributeIndex + 1] = nameEndIndex;
+        this.attributeIndexes[attributeIndex + 2] = this.textStartIndex;
+        this.attributeIndexes[attributeIndex + 3] = this.textEndIndex;
+        ++this.attributeCount;
+    }
+
+    /**
+     * Parse an attribute with the provided expected name that starts at the current code unit.
+     * @param expectedName The name that the attribute must have.
+     * @param description The description of the attribute that will be used in error messages.
+     * @return The unquoted value of the attribute.
+     */
+    private String parseAttributeValue(String expectedName, String description)
+    {
+        if (!this.hasCurrent())
+        {
+            throw XML.missing(description + " name start character");
+        }
+        if (!this.isCurrentNameStartCharacter())
+        {
+            throw XML.expected(description + " name start character");
+        }
+
+        final int nameStartIndex = this.currentIndex;
+        this.skipName();
+        if (!this.equals(nameStartIndex, this.currentIndex, expectedName))
+        {
+            throw XML.expected(description);
+        }
+
+        this.skipAttributeEqualsAndValue(description);
+
+        return this.getString(this.textStartIndex, this.textEndIndex);
+    }
+
+    /**
+     * Skip past the equals sign and the quoted value of an attribute. The indexes of the unquoted
+     * value are stored in this parser's text indexes.
+     * @param description The description of the attribute that will be used in error messages.
+     */
+    private void skipAttributeEqualsAndValue(String description)
+    {
+        this.skipOptionalWhitespace();
+
+        if (!this.hasCurrent())
+        {
+            throw XML.missing(description + " equals sign ('=')");
+        }
+        if (this.getCurrent() != '=')
+        {
+            throw XML.expected(description + " equals sign ('=')");
+        }
+        this.next();
+
+        this.skipOptionalWhitespace();
+
+        if (!this.hasCurrent())
+        {
+            throw XML.missing(description + " value quoted string start quote character (' or \")");
+        }
+        final int quoteCharacter = this.getCurrent();
+        if (quoteCharacter != '\"' && quoteCharacter != '\'')
+        {
+            throw XML.expected(description + " value quoted string start quote character (' or \")");
+        }
+        this.next();
+
+        final int valueStartIndex = this.currentIndex;
+        this.currentIndex = this.indexOf(quoteCharacter, this.currentIndex, this.endIndex);
+
+        if (!this.hasCurrent())
+        {
+            throw XML.missing(description + " value quoted string end quote character (" + (char)quoteCharacter + ")");
+        }
+
+        this.textStartIndex = valueStartIndex;
+        this.textEndIndex = this.currentIndex;
+        this.next();
+    }
+
+    /**
+     * Skip past the text that starts at the current code unit.
+     * @return Whether or not the skipped text was only whitespace.
+     */
+    private boolean skipText()
+    {
+        boolean isWhitespace = true;
+        while (this.hasCurrent())
+        {
+            final int current = this.getCurrent();
+            if (current == '<')
+            {
+                break;
+            }
+            else if (!XML.isWhitespaceCharacter((char)current))
+            {
+                // Once the text is known to not be whitespace, the rest of it doesn't need to be
+                // looked at.
+                isWhitespace = false;
+                this.currentIndex = this.indexOf('<', this.currentIndex, this.endIndex);
+                this.hasCurrent();
+                break;
+            }
+            this.next();
+        }
+        return isWhitespace;
+    }
+
+    /**
+     * Skip to the right angle bracket that ends the comment or CDATA tag whose text starts at the
+     * current code unit. The tag ends at the first right angle bracket that comes after two of the
+     * provided closing characters. If the tag doesn't end before the end of the code units, then
+     * this parser is moved to the end of the code units.
+     * @param closingCharacter The character that must appear twice before the right angle
+     *                         bracket.
+     * @return The number of closing characters (up to two) that came right before the right angle
+     * bracket or the end of the code units.
+     */
+    private int skipToEndOfTag(char closingCharacter)
+    {
+        final int textStartIndex = this.currentIndex;
+        int rightAngleBracketIndex = this.indexOf('>', textStartIndex, this.endIndex);
+        while (rightAngleBracketIndex < this.endIndex &&
+            !(rightAngleBracketIndex - textStartIndex >= 2 &&
+                this.get(rightAngleBracketIndex - 1) == closingCharacter &&
+                this.get(rightAngleBracketIndex - 2) == closingCharacter))
+        {
+            rightAngleBracketIndex = this.indexOf('>', rightAngleBracketIndex + 1, this.endIndex);
+        }
+        this.currentIndex = rightAngleBracketIndex;
+        this.hasCurrent();
+
+        int result = 0;
+        while (result < 2 &&
+            rightAngleBracketIndex - result > textStartIndex &&
+            this.get(rightAngleBracketIndex - result - 1) == closingCharacter)
+        {
+            ++result;
+        }
+        return result;
+    }
+
+    /**
+     * Skip past the name that starts at the current code unit. The first character of the name
+     * must have already been checked to be a name start character.
+     */
+    private void skipName()
+    {
+        this.skipNameCharacter();
+        while (this.hasCurrent())
+        {
+            final int current = this.getCurrent();
+            if (current < 0x80)
+            {
+                if (!XML.isNameCharacter((char)current))
+                {
+                    break;
+                }
+                this.next();
+            }
+            else if (XML.isNameCodePoint(this.getCodePoint(this.currentIndex)))
+            {
+                this.skipNameCharacter();
+            }
+            else
+            {
+                break;
+            }
+        }
+    }
+
+    private void skipNameCharacter()
+    {
+        this.currentIndex += (this.getCurrent() < 0x80 ? 1 : this.getCodePointLength(this.currentIndex));
+    }
+
+    private void skipWhitespace()
+    {
+        if (!this.hasCurrent())
+        {
+            throw XML.missing("whitespace");
+        }
+        if (!XML.isWhitespaceCharacter((char)this.getCurrent()))
+        {
+            throw XML.expected("whitespace");
+        }
+        this.skipOptionalWhitespace();
+    }
+
+    private void skipOptionalWhitespace()
+    {
+        while (this.hasCurrent() && XML.isWhitespaceCharacter((char)this.getCurrent()))
+        {
+            this.next();
+        }
+    }
+
+    private void expectAndTake(char expectedCharacter, String description)
+    {
+        if (!this.hasCurrent())
+        {
+            throw XML.missing(description);
+        }
+        if (this.getCurrent() != expectedCharacter)
+        {
+            throw XML.expected(description);
+        }
+        this.next();
+    }
+
+    private ParseException unexpectedTagNameStartCharacter()
+    {
+        final int current = this.getCurrent();
+        final int codePoint = (current < 0x80 ? current : this.getCodePoint(this.currentIndex));
+        final char character = (codePoint <= 0xFFFF ? (char)codePoint : Character.highSurrogate(codePoint));
+        return new ParseException("Unexpected tag name start character: " + Characters.escapeAndQuote(character));
+    }
+
+    private boolean isCurrentNameStartCharacter()
+    {
+        final int current = this.getCurrent();
+        return current < 0x80
+            ? XML.isNameStartCharacter((char)current)
+            : XML.isNameStartCodePoint(this.getCodePoint(this.currentIndex));
+    }
+
+    /**
+     * Get whether or not the code units between the provided indexes are equal to the provided
+     * value. The default implementation compares each code unit to each character of the value,
+     * which is correct for sources whose code units are characters and for ASCII values.
+     * @param startIndex The index of the first code unit to compare.
+     * @param endIndex The index after the last code unit to compare.
+     * @param value The value to compare the code units to.
+     * @return Whether or not the code units are equal to the provided value.
+     */
+    protected boolean equals(int startIndex, int endIndex, String value)
+    {
+        boolean result = (endIndex - startIndex == value.length());
+        for (int i = 0; result && i < value.length(); ++i)
+        {
+            result = (this.get(startIndex + i) == value.charAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * Get whether or not the code units between the two provided index ranges are equal.
+     */
+    private boolean equals(int lhsStartIndex, int lhsEndIndex, int rhsStartIndex, int rhsEndIndex)
+    {
+        final int length = lhsEndIndex - lhsStartIndex;
+        boolean result = (length == rhsEndIndex - rhsStartIndex);
+        for (int i = 0; result && i < length; ++i)
+        {
+            result = (this.get(lhsStartIndex + i) == this.get(rhsStartIndex + i));
+        }
+        return result;
+    }
+
+    private boolean hasCurrent()
+    {
+        final boolean result = this.currentIndex < this.endIndex;
+        if (!result && !this.isEndOfInput)
+        {
+            throw XMLParser.moreInputNeeded;
+        }
+        return result;
+    }
+
+    private int getCurrent()
+    {
+        return this.get(this.currentIndex);
+    }
+
+    private void next()
+    {
+        ++this.currentIndex;
+    }
+}
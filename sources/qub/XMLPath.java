@@ -0,0 +1,1174 @@
+package qub;
+
+/**
+ * A compiled path expression that selects elements or text from an XMLDocument or an XMLElement.
+ * The expressions are a subset of XPath. A path is made up of steps that are separated by "/",
+ * which selects children of the previous step's nodes, or by "//", which selects descendants of
+ * the previous step's nodes. A path that starts with "/" or "//" starts at the document instead
+ * of at the element that it is evaluated against. Each step is one of:
+ * <ul>
+ * <li>An element name, or "*" for any element name, followed by any number of predicates in
+ * square brackets. A predicate is either "@name" to select elements that have an attribute,
+ * "@name='value'" or "@name=\"value\"" to select elements whose attribute has a value, a
+ * position such as "2" to select the element at that position (starting at 1) among the
+ * elements that the step has selected so far from the same parent, or "last()" to select the
+ * last of those elements.</li>
+ * <li>"text()", which selects text and CDATA. It can only be the last step of a path.</li>
+ * </ul>
+ * For example, "/a/b[@k='v']//c[1]" selects the first c child of each element inside of the b
+ * children of the root element a that have a k attribute with the value v.
+ * <p>
+ * An XMLPath can't be changed after it is compiled, so the same XMLPath can be evaluated by
+ * multiple threads at the same time, as long as none of them change the document. The
+ * getElementsParallel() and getTextsParallel() methods split the evaluation of a path against one
+ * large document between the threads of a ForkJoinPool. Child steps look up elements by name
+ * through each element's child name index, and a first step such as "//c[@k='v']" uses the
+ * document's attribute index for k if the document already has one.
+ */
+public final class XMLPath
+{
+    /**
+     * The most compiled paths that compile() will keep.
+     */
+    private static final int maximumCachedPathCount = 256;
+    /**
+     * The most recently compiled paths by their expressions, from least to most recently used.
+     */
+    private static final java.util.LinkedHashMap<String,XMLPath> cachedPaths = new java.util.LinkedHashMap<String,XMLPath>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(java.util.Map.Entry<String,XMLPath> eldest)
+        {
+            return this.size() > XMLPath.maximumCachedPathCount;
+        }
+    };
+
+    /**
+     * The flag of a node that is waiting to be visited by a descendant step that says that the
+     * step selected the node.
+     */
+    private static final int isSelectedFlag = 1;
+    /**
+     * The flag of a node that is waiting to be visited by a descendant step that says that the
+     * step selected one of the node's ancestors.
+     */
+    private static final int hasSelectedAncestorFlag = 2;
+    /**
+     * The fewest elements that a child step selects children from on one thread during a
+     * parallel evaluation. Fewer elements cost more to schedule than they save.
+     */
+    private static final int minimumContextsPerTask = 256;
+    /**
+     * The most subtree tasks that can be nested inside of each other during a parallel
+     * evaluation. A task that is joined before it starts runs on the joining thread's stack, so
+     * this limits how deep the stack can get.
+     */
+    private static final int maximumForkDepth = 64;
+    /**
+     * The fewest children that a descendant step walks on one thread before the children are
+     * split between threads during a parallel evaluation.
+     */
+    private static final int minimumChildrenPerTask = 1024;
+
+    private final String expression;
+    private final boolean isAbsolute;
+    private final Step[] steps;
+
+    private XMLPath(String expression, boolean isAbsolute, Step[] steps)
+    {
+        this.expression = expression;
+        this.isAbsolute = isAbsolute;
+        this.steps = steps;
+    }
+
+    /**
+     * Compile the provided path expression. The most recently compiled paths are kept, so
+     * compiling the same expression again returns the same XMLPath without parsing the
+     * expression again.
+     * @param expression The path expression to compile.
+     * @return The compiled path, or a ParseException if the expression isn't a valid path.
+     */
+    public static Result<XMLPath> compile(String expression)
+    {
+        PreCondition.assertNotNull(expression, "expression");
+
+        return Result.create(() ->
+        {
+            XMLPath result;
+            synchronized (XMLPath.cachedPaths)
+            {
+                result = XMLPath.cachedPaths.get(expression);
+            }
+            if (result == null)
+            {
+                result = XMLPath.parse(expression);
+                synchronized (XMLPath.cachedPaths)
+                {
+                    XMLPath.cachedPaths.put(expression, result);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Get the expression that this path was compiled from.
+     * @return The expression that this path was compiled from.
+     */
+    public String getExpression()
+    {
+        return this.expression;
+    }
+
+    /**
+     * Get whether or not this path ends with a "text()" step and selects text instead of
+     * elements.
+     * @return Whether or not this path selects text.
+     */
+    public boolean selectsText()
+    {
+        return this.steps[this.steps.length - 1].isText;
+    }
+
+    /**
+     * Get the elements of the provided document that this path selects, in document order.
+     * @param document The document to evaluate this path against.
+     * @return The elements that this path selects.
+     */
+    public Iterable<XMLElement> getElements(XMLDocument document)
+    {
+        PreCondition.assertNotNull(document, "document");
+        PreCondition.assertFalse(this.selectsText(), "this.selectsText()");
+
+        return this.evaluate(document, document.getRoot(), null, null).instanceOf(XMLElement.class);
+    }
+
+    /**
+     * Get the elements that this path selects when it is evaluated against the provided element,
+     * in document order. A path that starts with "/" or "//" treats the provided element as the
+     * root element of its document.
+     * @param element The element to evaluate this path against.
+     * @return The elements that this path selects.
+     */
+    public Iterable<XMLElement> getElements(XMLElement element)
+    {
+        PreCondition.assertNotNull(element, "element");
+        PreCondition.assertFalse(this.selectsText(), "this.selectsText()");
+
+        return this.evaluate(null, element, this.isAbsolute ? null : element, null).instanceOf(XMLElement.class);
+    }
+
+    /**
+     * Get the first element in document order of the provided document that this path selects.
+     * If this path doesn't select any elements, then return a NotFoundException.
+     * @param document The document to evaluate this path against.
+     * @return The first element that this path selects or a NotFoundException if this path
+     * doesn't select any elements.
+     */
+    public Result<XMLElement> getFirstElement(XMLDocument document)
+    {
+        PreCondition.assertNotNull(document, "document");
+        PreCondition.assertFalse(this.selectsText(), "this.selectsText()");
+
+        return this.getFirstElement(this.evaluate(document, document.getRoot(), null, null));
+    }
+
+    /**
+     * Get the first element in document order that this path selects when it is evaluated
+     * against the provided element. If this path doesn't select any elements, then return a
+     * NotFoundException.
+     * @param element The element to evaluate this path against.
+     * @return The first element that this path selects or a NotFoundException if this path
+     * doesn't select any elements.
+     */
+    public Result<XMLElement> getFirstElement(XMLElement element)
+    {
+        PreCondition.assertNotNull(element, "element");
+        PreCondition.assertFalse(this.selectsText(), "this.selectsText()");
+
+        return this.getFirstElement(this.evaluate(null, element, this.isAbsolute ? null : element, null));
+    }
+
+    /**
+     * Get the text of the text and CDATA nodes of the provided document that this path selects,
+     * in document order.
+     * @param document The document to evaluate this path against.
+     * @return The text that this path selects.
+     */
+    public Iterable<String> getTexts(XMLDocument document)
+    {
+        PreCondition.assertNotNull(document, "document");
+        PreCondition.assertTrue(this.selectsText(), "this.selectsText()");
+
+        return XMLPath.getTexts(this.evaluate(document, document.getRoot(), null, null));
+    }
+
+    /**
+     * Get the text of the text and CDATA nodes that this path selects when it is evaluated
+     * against the provided element, in document order. A path that starts with "/" or "//"
+     * treats the provided element as the root element of its document.
+     * @param element The element to evaluate this path against.
+     * @return The text that this path selects.
+     */
+    public Iterable<String> getTexts(XMLElement element)
+    {
+        PreCondition.assertNotNull(element, "element");
+        PreCondition.assertTrue(this.selectsText(), "this.selectsText()");
+
+        return XMLPath.getTexts(this.evaluate(null, element, this.isAbsolute ? null : element, null));
+    }
+
+    /**
+     * Get the elements of the provided document that this path selects, in document order. The
+     * document is walked on multiple threads of the common ForkJoinPool.
+     * @param document The document to evaluate this path against.
+     * @return The elements that this path selects.
+     */
+    public Iterable<XMLElement> getElementsParallel(XMLDocument document)
+    {
+        PreCondition.assertNotNull(document, "document");
+        PreCondition.assertFalse(this.selectsText(), "this.selectsText()");
+
+        return this.getElementsParallel(document, java.util.concurrent.ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Get the elements of the provided document that this path selects, in document order. The
+     * walks of descendant steps are split between the subtrees of the document and run on the
+     * provided pool, and child steps from many elements are split between the elements. The
+     * document must not be changed while this path is being evaluated.
+     * @param document The document to evaluate this path against.
+     * @param pool The pool to evaluate this path on.
+     * @return The elements that this path selects.
+     */
+    public Iterable<XMLElement> getElementsParallel(XMLDocument document, java.util.concurrent.ForkJoinPool pool)
+    {
+        PreCondition.assertNotNull(document, "document");
+        PreCondition.assertNotNull(pool, "pool");
+        PreCondition.assertFalse(this.selectsText(), "this.selectsText()");
+
+        return this.evaluate(document, document.getRoot(), null, pool).instanceOf(XMLElement.class);
+    }
+
+    /**
+     * Get the elements that this path selects when it is evaluated against the provided element,
+     * in document order. A path that starts with "/" or "//" treats the provided element as the
+     * root element of its document. See {@link #getElementsParallel(XMLDocument,
+     * java.util.concurrent.ForkJoinPool)} for how the evaluation is split.
+     * @param element The element to evaluate this path against.
+     * @param pool The pool to evaluate this path on.
+     * @return The elements that this path selects.
+     */
+    public Iterable<XMLElement> getElementsParallel(XMLElement element, java.util.concurrent.ForkJoinPool pool)
+    {
+        PreCondition.assertNotNull(element, "element");
+        PreCondition.assertNotNull(pool, "pool");
+        PreCondition.assertFalse(this.selectsText(), "this.selectsText()");
+
+        return this.evaluate(null, element, this.isAbsolute ? null : element, pool).instanceOf(XMLElement.class);
+    }
+
+    /**
+     * Get the text of the text and CDATA nodes of the provided document that this path selects,
+     * in document order. See {@link #getElementsParallel(XMLDocument,
+     * java.util.concurrent.ForkJoinPool)} for how the evaluation is split.
+     * @param document The document to evaluate this path against.
+     * @param pool The pool to evaluate this path on.
+     * @return The text that this path selects.
+     */
+    public Iterable<String> getTextsParallel(XMLDocument document, java.util.concurrent.ForkJoinPool pool)
+    {
+        PreCondition.assertNotNull(document, "document");
+        PreCondition.assertNotNull(pool, "pool");
+        PreCondition.assertTrue(this.selectsText(), "this.selectsText()");
+
+        return XMLPath.getTexts(this.evaluate(document, document.getRoot(), null, pool));
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.expression;
+    }
+
+    @Override
+    public boolean equals(Object rhs)
+    {
+        return rhs instanceof XMLPath && this.expression.equals(((XMLPath)rhs).expression);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.expression.hashCode();
+    }
+
+    private Result<XMLElement> getFirstElement(List<XMLElementChild> selectedNodes)
+    {
+        return selectedNodes.any()
+            ? Result.success((XMLElement)selectedNodes.get(0))
+            : Result.error(new NotFoundException("No element found that matches the path " + Strings.escapeAndQuote(this.expression) + "."));
+    }
+
+    private static Iterable<String> getTexts(List<XMLElementChild> selectedNodes)
+    {
+        return selectedNodes.map((XMLElementChild node) -> node instanceof XMLText ? ((XMLText)node).getText() : ((XMLCData)node).getText());
+    }
+
+    /**
+     * Evaluate this path's steps one after the other. A null context is the document node, whose
+     * only child is the provided root element.
+     * @param document The document that the root element belongs to, or null if the path is
+     * being evaluated against an element.
+     * @param root The root element.
+     * @param context The element to evaluate a relative path against, or null to start at the
+     * document node.
+     * @param pool The pool to evaluate the steps on, or null to evaluate them on the calling
+     * thread.
+     * @return The nodes that the last step selected, in document order.
+     */
+    private List<XMLElementChild> evaluate(XMLDocument document, XMLElement root, XMLElement context, java.util.concurrent.ForkJoinPool pool)
+    {
+        List<XMLElement> contexts = List.create(context);
+        boolean contextsAreNested = false;
+        List<XMLElementChild> result = null;
+        for (int stepIndex = 0; stepIndex < this.steps.length; ++stepIndex)
+        {
+            final Step step = this.steps[stepIndex];
+            result = List.create();
+
+            boolean resultIsNested = false;
+            final XMLAttributeIndex attributeIndex = (stepIndex == 0 && document != null ? step.findAttributeIndex(document) : null);
+            if (attributeIndex != null)
+            {
+                // The attribute index contains every element of the document, which are the
+                // elements that a first "//" step can select from the document node.
+                step.select(attributeIndex.getElements(step.getIndexedAttributeValue()), result);
+                resultIsNested = (result.getCount() > 1);
+            }
+            else if (!step.isDescendant)
+            {
+                if (pool != null)
+                {
+                    result = pool.invoke(new SelectTask(step, root, contexts, 0, contexts.getCount())).nodes;
+                }
+                else
+                {
+                    for (final XMLElement parent : contexts)
+                    {
+                        step.select(parent, root, result);
+                    }
+                }
+                if (contextsAreNested)
+                {
+                    // The children of an element that contains another context element are on
+                    // both sides of the other context element's children.
+                    XMLPath.sortInDocumentOrder(result, root);
+                    resultIsNested = true;
+                }
+            }
+            else if (pool != null && !contextsAreNested)
+            {
+                final Selection selection = pool.invoke(new SelectTask(step, root, contexts, 0, contexts.getCount()));
+                result = selection.nodes;
+                resultIsNested = selection.isNested;
+            }
+            else
+            {
+                resultIsNested = XMLPath.selectDescendants(step, contexts, contextsAreNested, root, result);
+            }
+
+            contexts = List.create();
+            for (final XMLElementChild node : result)
+            {
+                if (node instanceof XMLElement)
+                {
+                    contexts.add((XMLElement)node);
+                }
+            }
+            contextsAreNested = resultIsNested;
+        }
+        return result;
+    }
+
+    /**
+     * Select the nodes that the provided descendant step selects from the descendants of the
+     * provided contexts, in document order.
+     * @return Whether or not any of the selected elements contains another selected element.
+     */
+    private static boolean selectDescendants(Step step, List<XMLElement> contexts, boolean contextsAreNested, XMLElement root, List<XMLElementChild> output)
+    {
+        boolean result = false;
+
+        // When one context contains another, the walk from the outer context already visits the
+        // inner context's descendants, so the inner context is skipped.
+        final java.util.Set<XMLElement> visitedElements = contextsAreNested
+            ? java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>())
+            : null;
+
+        // The nodes that haven't been visited yet are kept in a stack instead of in recursive
+        // calls, so the depth of an element is only limited by the available memory. Each node's
+        // flags say whether the step selected it and whether the step selected one of its
+        // ancestors.
+        final List<XMLElementChild> nodes = List.create();
+        final List<Integer> nodeFlags = List.create();
+        for (final XMLElement context : contexts)
+        {
+            if (visitedElements == null || !visitedElements.contains(context))
+            {
+                XMLPath.pushChildren(step, context, root, 0, nodes, nodeFlags);
+                while (nodes.any())
+                {
+                    final XMLElementChild node = nodes.removeLast();
+                    final int flags = nodeFlags.removeLast();
+                    if ((flags & XMLPath.isSelectedFlag) != 0)
+                    {
+                        output.add(node);
+                        if ((flags & XMLPath.hasSelectedAncestorFlag) != 0)
+                        {
+                            result = true;
+                        }
+                    }
+                    if (node instanceof XMLElement)
+                    {
+                        final XMLElement element = (XMLElement)node;
+                        if (visitedElements != null)
+                        {
+                            visitedElements.add(element);
+                        }
+                        XMLPath.pushChildren(step, element, root, (flags == 0 ? 0 : XMLPath.hasSelectedAncestorFlag), nodes, nodeFlags);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the children of the provided parent. A null parent is the document node, whose only
+     * child is the provided root element.
+     */
+    private static Indexable<XMLElementChild> getChildren(XMLElement parent, XMLElement root)
+    {
+        return parent != null ? parent.getChildren() : (root == null ? List.create() : List.create(root));
+    }
+
+    /**
+     * Get the children of the provided parent that the provided step selects if the step has
+     * position predicates, or null if whether the step selects a child only depends on the child.
+     */
+    private static java.util.Set<XMLElementChild> getSelectedChildren(Step step, XMLElement parent, XMLElement root)
+    {
+        java.util.Set<XMLElementChild> result = null;
+        if (step.hasPositionPredicate)
+        {
+            final List<XMLElementChild> selected = List.create();
+            step.select(parent, root, selected);
+            result = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+            for (final XMLElementChild child : selected)
+            {
+                result.add(child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Push the children of the provided parent onto the stack of nodes to visit, in reverse order
+     * so that they are visited in document order, along with whether the step selects each of
+     * them.
+     */
+    private static void pushChildren(Step step, XMLElement parent, XMLElement root, int ancestorFlags, List<XMLElementChild> nodes, List<Integer> nodeFlags)
+    {
+        final Indexable<XMLElementChild> children = XMLPath.getChildren(parent, root);
+        XMLPath.pushChildren(step, children, XMLPath.getSelectedChildren(step, parent, root), 0, children.getCount(), ancestorFlags, nodes, nodeFlags);
+    }
+
+    /**
+     * Push the provided range of children onto the stack of nodes to visit, in reverse order so
+     * that they are visited in document order, along with whether the step selects each of them.
+     * @param selectedChildren The children that the step selects, or null if the step selects
+     * the children that it matches.
+     */
+    private static void pushChildren(Step step, Indexable<XMLElementChild> children, java.util.Set<XMLElementChild> selectedChildren, int startIndex, int endIndex, int ancestorFlags, List<XMLElementChild> nodes, List<Integer> nodeFlags)
+    {
+        for (int i = endIndex - 1; i >= startIndex; --i)
+        {
+            final XMLElementChild child = children.get(i);
+            final boolean isSelected = (selectedChildren != null ? selectedChildren.contains(child) : step.matches(child));
+            if (isSelected || child instanceof XMLElement)
+            {
+                nodes.add(child);
+                nodeFlags.add(isSelected ? (ancestorFlags | XMLPath.isSelectedFlag) : ancestorFlags);
+            }
+        }
+    }
+
+    /**
+     * Sort the provided nodes into the order that they appear in the document with the provided
+     * root element.
+     */
+    private static void sortInDocumentOrder(List<XMLElementChild> nodes, XMLElement root)
+    {
+        final java.util.IdentityHashMap<XMLElementChild,Integer> nodeIndexes = new java.util.IdentityHashMap<>();
+        final List<XMLElementChild> nodesToVisit = List.create(root);
+        while (nodesToVisit.any())
+        {
+            final XMLElementChild node = nodesToVisit.removeLast();
+            nodeIndexes.put(node, nodeIndexes.size());
+            if (node instanceof XMLElement)
+            {
+                final Indexable<XMLElementChild> children = ((XMLElement)node).getChildren();
+                for (int i = children.getCount() - 1; i >= 0; --i)
+                {
+                    nodesToVisit.add(children.get(i));
+                }
+            }
+        }
+
+        final XMLElementChild[] sortedNodes = new XMLElementChild[nodes.getCount()];
+        for (int i = 0; i < sortedNodes.length; ++i)
+        {
+            sortedNodes[i] = nodes.get(i);
+        }
+        java.util.Arrays.sort(sortedNodes, (XMLElementChild lhs, XMLElementChild rhs) -> Integer.compare(nodeIndexes.get(lhs), nodeIndexes.get(rhs)));
+        for (int i = 0; i < sortedNodes.length; ++i)
+        {
+            nodes.set(i, sortedNodes[i]);
+        }
+    }
+
+    /**
+     * Parse the provided path expression.
+     * @throws ParseException if the expression isn't a valid path.
+     */
+    private static XMLPath parse(String expression)
+    {
+        final int length = expression.length();
+        final boolean isAbsolute = expression.startsWith("/");
+        int index = 0;
+        boolean isDescendant = false;
+        if (isAbsolute)
+        {
+            ++index;
+            if (index < length && expression.charAt(index) == '/')
+            {
+                isDescendant = true;
+                ++index;
+            }
+        }
+
+        final List<Step> steps = List.create();
+        boolean hasMoreSteps = true;
+        while (hasMoreSteps)
+        {
+            final Step step;
+            if (expression.startsWith("text()", index))
+            {
+                index += 6;
+                step = new Step(isDescendant, true, null, new Predicate[0]);
+            }
+            else
+            {
+                String name = null;
+                if (index < length && expression.charAt(index) == '*')
+                {
+                    ++index;
+                }
+                else
+                {
+                    final int nameEndIndex = XMLPath.readName(expression, index);
+                    if (nameEndIndex == index)
+                    {
+                        throw XMLPath.expected("element name, '*', or \"text()\"", index, expression);
+                    }
+                    name = expression.substring(index, nameEndIndex);
+                    index = nameEndIndex;
+                }
+
+                final List<Predicate> predicates = List.create();
+                while (index < length && expression.charAt(index) == '[')
+                {
+                    index = XMLPath.parsePredicate(expression, index + 1, predicates);
+                }
+                final Predicate[] predicateArray = new Predicate[predicates.getCount()];
+                for (int i = 0; i < predicateArray.length; ++i)
+                {
+                    predicateArray[i] = predicates.get(i);
+                }
+                step = new Step(isDescendant, false, name, predicateArray);
+            }
+            steps.add(step);
+
+            if (index == length)
+            {
+                hasMoreSteps = false;
+            }
+            else if (step.isText)
+            {
+                throw XMLPath.expected("\"text()\" to be the last step", index, expression);
+            }
+            else if (expression.charAt(index) != '/')
+            {
+                throw XMLPath.expected("'/', '[', or the end of the path", index, expression);
+            }
+            else
+            {
+                ++index;
+                isDescendant = (index < length && expression.charAt(index) == '/');
+                if (isDescendant)
+                {
+                    ++index;
+                }
+            }
+        }
+
+        final Step[] stepArray = new Step[steps.getCount()];
+        for (int i = 0; i < stepArray.length; ++i)
+        {
+            stepArray[i] = steps.get(i);
+        }
+        return new XMLPath(expression, isAbsolute, stepArray);
+    }
+
+    /**
+     * Parse the predicate that starts after the '[' before the provided index and add it to the
+     * provided predicates.
+     * @return The index after the predicate's ']'.
+     */
+    private static int parsePredicate(String expression, int index, List<Predicate> predicates)
+    {
+        final int length = expression.length();
+        if (index < length && expression.charAt(index) == '@')
+        {
+            ++index;
+            final int nameEndIndex = XMLPath.readName(expression, index);
+            if (nameEndIndex == index)
+            {
+                throw XMLPath.expected("attribute name", index, expression);
+            }
+            final String attributeName = expression.substring(index, nameEndIndex);
+            index = nameEndIndex;
+
+            String attributeValue = null;
+            if (index < length && expression.charAt(index) == '=')
+            {
+                ++index;
+                final char quote = (index < length ? expression.charAt(index) : '\0');
+                if (quote != '\'' && quote != '\"')
+                {
+                    throw XMLPath.expected("quoted attribute value", index, expression);
+                }
+                final int valueEndIndex = expression.indexOf(quote, index + 1);
+                if (valueEndIndex == -1)
+                {
+                    throw XMLPath.expected("closing quote of the attribute value that starts", index, expression);
+                }
+                attributeValue = expression.substring(index + 1, valueEndIndex);
+                index = valueEndIndex + 1;
+            }
+            predicates.add(new Predicate(attributeName, attributeValue, 0));
+        }
+        else if (expression.startsWith("last()", index))
+        {
+            index += 6;
+            predicates.add(new Predicate(null, null, -1));
+        }
+        else
+        {
+            int position = 0;
+            final int positionStartIndex = index;
+            while (index < length && index - positionStartIndex < 9 && '0' <= expression.charAt(index) && expression.charAt(index) <= '9')
+            {
+                position = position * 10 + (expression.charAt(index) - '0');
+                ++index;
+            }
+            if (position == 0)
+            {
+                throw XMLPath.expected("'@', a position of at least 1, or \"last()\"", positionStartIndex, expression);
+            }
+            predicates.add(new Predicate(null, null, position));
+        }
+
+        if (index >= length || expression.charAt(index) != ']')
+        {
+            throw XMLPath.expected("']'", index, expression);
+        }
+        return index + 1;
+    }
+
+    /**
+     * Get the index after the XML name that starts at the provided index, or the provided index
+     * if there isn't a name there.
+     */
+    private static int readName(String expression, int index)
+    {
+        int result = index;
+        boolean isName = true;
+        while (isName && result < expression.length())
+        {
+            final int codePoint = expression.codePointAt(result);
+            isName = (result == index ? XML.isNameStartCodePoint(codePoint) : XML.isNameCodePoint(codePoint));
+            if (isName)
+            {
+                result += Character.charCount(codePoint);
+            }
+        }
+        return result;
+    }
+
+    private static ParseException expected(String description, int index, String expression)
+    {
+        return XML.expected(description + " at index " + index + " of path " + Strings.escapeAndQuote(expression));
+    }
+
+    /**
+     * The nodes that a step selected during a parallel evaluation.
+     */
+    private static final class Selection
+    {
+        /**
+         * The selected nodes, in document order.
+         */
+        final List<XMLElementChild> nodes;
+        /**
+         * Whether or not any of the selected elements contains another selected element.
+         */
+        final boolean isNested;
+
+        Selection(List<XMLElementChild> nodes, boolean isNested)
+        {
+            this.nodes = nodes;
+            this.isNested = isNested;
+        }
+    }
+
+    /**
+     * Selects the nodes that a step selects from a range of context elements that don't contain
+     * each other, by splitting the range in half until the range is small enough to select from
+     * on one thread.
+     */
+    private static final class SelectTask extends java.util.concurrent.RecursiveTask<Selection>
+    {
+        private final Step step;
+        private final XMLElement root;
+        private final List<XMLElement> contexts;
+        private final int startIndex;
+        private final int endIndex;
+
+        SelectTask(Step step, XMLElement root, List<XMLElement> contexts, int startIndex, int endIndex)
+        {
+            this.step = step;
+            this.root = root;
+            this.contexts = contexts;
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+        }
+
+        @Override
+        protected Selection compute()
+        {
+            final int contextCount = this.endIndex - this.startIndex;
+
+            final Selection result;
+            if (contextCount > (this.step.isDescendant ? 1 : XMLPath.minimumContextsPerTask))
+            {
+                final int middleIndex = (this.startIndex + this.endIndex) >>> 1;
+                final SelectTask secondHalf = new SelectTask(this.step, this.root, this.contexts, middleIndex, this.endIndex);
+                secondHalf.fork();
+                final Selection firstSelection = new SelectTask(this.step, this.root, this.contexts, this.startIndex, middleIndex).compute();
+                final Selection secondSelection = secondHalf.join();
+                firstSelection.nodes.addAll(secondSelection.nodes);
+                result = new Selection(firstSelection.nodes, firstSelection.isNested || secondSelection.isNested);
+            }
+            else if (this.step.isDescendant && contextCount == 1)
+            {
+                result = SelectDescendantsTask.create(this.step, this.contexts.get(this.startIndex), this.root, 0, 0).compute();
+            }
+            else
+            {
+                final List<XMLElementChild> nodes = List.create();
+                for (int i = this.startIndex; i < this.endIndex; ++i)
+                {
+                    this.step.select(this.contexts.get(i), this.root, nodes);
+                }
+                result = new Selection(nodes, false);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Selects the nodes that a descendant step selects from a range of an element's children and
+     * their descendants. The nodes are walked in document order. While other threads of the pool
+     * are waiting for work, a large range is split in half, and the subtrees of the walked
+     * elements are forked into new tasks. The nodes that a forked task selects are put back in
+     * the place of its subtree when the walk is done.
+     */
+    private static final class SelectDescendantsTask extends java.util.concurrent.RecursiveTask<Selection>
+    {
+        private final Step step;
+        private final XMLElement root;
+        private final Indexable<XMLElementChild> children;
+        /**
+         * The children that the step selects, or null if the step selects the children that it
+         * matches.
+         */
+        private final java.util.Set<XMLElementChild> selectedChildren;
+        private final int startIndex;
+        private final int endIndex;
+        /**
+         * The flags that the children get from their parent and its ancestors.
+         */
+        private final int ancestorFlags;
+        private final int forkDepth;
+
+        private SelectDescendantsTask(Step step, XMLElement root, Indexable<XMLElementChild> children, java.util.Set<XMLElementChild> selectedChildren, int startIndex, int endIndex, int ancestorFlags, int forkDepth)
+        {
+            this.step = step;
+            this.root = root;
+            this.children = children;
+            this.selectedChildren = selectedChildren;
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+            this.ancestorFlags = ancestorFlags;
+            this.forkDepth = forkDepth;
+        }
+
+        /**
+         * Create a task that selects from all of the children of the provided parent. A null
+         * parent is the document node, whose only child is the provided root element.
+         */
+        static SelectDescendantsTask create(Step step, XMLElement parent, XMLElement root, int ancestorFlags, int forkDepth)
+        {
+            final Indexable<XMLElementChild> children = XMLPath.getChildren(parent, root);
+            return new SelectDescendantsTask(step, root, children, XMLPath.getSelectedChildren(step, parent, root), 0, children.getCount(), ancestorFlags, forkDepth);
+        }
+
+        private boolean canFork()
+        {
+            return this.forkDepth < XMLPath.maximumForkDepth &&
+                java.util.concurrent.ForkJoinTask.getSurplusQueuedTaskCount() < 2;
+        }
+
+        @Override
+        protected Selection compute()
+        {
+            final Selection result;
+            if (this.endIndex - this.startIndex > XMLPath.minimumChildrenPerTask && this.canFork())
+            {
+                final int middleIndex = (this.startIndex + this.endIndex) >>> 1;
+                final SelectDescendantsTask secondHalf = new SelectDescendantsTask(this.step, this.root, this.children, this.selectedChildren, middleIndex, this.endIndex, this.ancestorFlags, this.forkDepth + 1);
+                secondHalf.fork();
+                final Selection firstSelection = new SelectDescendantsTask(this.step, this.root, this.children, this.selectedChildren, this.startIndex, middleIndex, this.ancestorFlags, this.forkDepth + 1).compute();
+                final Selection secondSelection = secondHalf.join();
+                firstSelection.nodes.addAll(secondSelection.nodes);
+                result = new Selection(firstSelection.nodes, firstSelection.isNested || secondSelection.isNested);
+            }
+            else
+            {
+                result = this.walk();
+            }
+            return result;
+        }
+
+        private Selection walk()
+        {
+            final List<XMLElementChild> selectedNodes = List.create();
+            boolean isNested = false;
+
+            // The forked tasks and the index in selectedNodes that each task's nodes go at.
+            final List<SelectDescendantsTask> forkedTasks = List.create();
+            final List<Integer> forkedTaskIndexes = List.create();
+
+            final List<XMLElementChild> nodes = List.create();
+            final List<Integer> nodeFlags = List.create();
+            XMLPath.pushChildren(this.step, this.children, this.selectedChildren, this.startIndex, this.endIndex, this.ancestorFlags, nodes, nodeFlags);
+            while (nodes.any())
+            {
+                final XMLElementChild node = nodes.removeLast();
+                final int flags = nodeFlags.removeLast();
+                if ((flags & XMLPath.isSelectedFlag) != 0)
+                {
+                    selectedNodes.add(node);
+                    if ((flags & XMLPath.hasSelectedAncestorFlag) != 0)
+                    {
+                        isNested = true;
+                    }
+                }
+                if (node instanceof XMLElement)
+                {
+                    final XMLElement element = (XMLElement)node;
+                    final int childFlags = (flags == 0 ? 0 : XMLPath.hasSelectedAncestorFlag);
+                    if (element.getChildren().any() && this.canFork())
+                    {
+                        final SelectDescendantsTask forkedTask = SelectDescendantsTask.create(this.step, element, this.root, childFlags, this.forkDepth + 1);
+                        forkedTask.fork();
+                        forkedTasks.add(forkedTask);
+                        forkedTaskIndexes.add(selectedNodes.getCount());
+                    }
+                    else
+                    {
+                        XMLPath.pushChildren(this.step, element, this.root, childFlags, nodes, nodeFlags);
+                    }
+                }
+            }
+
+            final Selection result;
+            if (!forkedTasks.any())
+            {
+                result = new Selection(selectedNodes, isNested);
+            }
+            else
+            {
+                final List<XMLElementChild> mergedNodes = List.create();
+                int selectedNodeIndex = 0;
+                for (int i = 0; i < forkedTasks.getCount(); ++i)
+                {
+                    final int forkedTaskIndex = forkedTaskIndexes.get(i);
+                    for (; selectedNodeIndex < forkedTaskIndex; ++selectedNodeIndex)
+                    {
+                        mergedNodes.add(selectedNodes.get(selectedNodeIndex));
+                    }
+
+                    final Selection forkedSelection = forkedTasks.get(i).join();
+                    mergedNodes.addAll(forkedSelection.nodes);
+                    isNested |= forkedSelection.isNested;
+                }
+                for (; selectedNodeIndex < selectedNodes.getCount(); ++selectedNodeIndex)
+                {
+                    mergedNodes.add(selectedNodes.get(selectedNodeIndex));
+                }
+                result = new Selection(mergedNodes, isNested);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * One step of a path.
+     */
+    private static final class Step
+    {
+        /**
+         * Whether or not this step selects descendants instead of only children.
+         */
+        final boolean isDescendant;
+        /**
+         * Whether or not this step selects text and CDATA instead of elements.
+         */
+        final boolean isText;
+        /**
+         * The name of the elements that this step selects, or null if it selects any name.
+         */
+        final String name;
+        final Predicate[] predicates;
+        final boolean hasPositionPredicate;
+
+        Step(boolean isDescendant, boolean isText, String name, Predicate[] predicates)
+        {
+            this.isDescendant = isDescendant;
+            this.isText = isText;
+            this.name = name;
+            this.predicates = predicates;
+
+            boolean hasPositionPredicate = false;
+            for (final Predicate predicate : predicates)
+            {
+                hasPositionPredicate |= predicate.isPosition();
+            }
+            this.hasPositionPredicate = hasPositionPredicate;
+        }
+
+        /**
+         * Get whether or not this step selects the provided node, when this step doesn't have any
+         * position predicates.
+         */
+        boolean matches(XMLElementChild node)
+        {
+            boolean result;
+            if (this.isText)
+            {
+                result = (node instanceof XMLText || node instanceof XMLCData);
+            }
+            else
+            {
+                result = (node instanceof XMLElement) && (this.name == null || this.name.equals(((XMLElement)node).getName()));
+                for (int i = 0; result && i < this.predicates.length; ++i)
+                {
+                    result = this.predicates[i].matches((XMLElement)node);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Add the children of the provided parent that this step selects to the provided output. A
+         * null parent is the document node, whose only child is the provided root element.
+         */
+        void select(XMLElement parent, XMLElement root, List<XMLElementChild> output)
+        {
+            if (parent == null)
+            {
+                if (root != null)
+                {
+                    this.select(List.create(root), output);
+                }
+            }
+            else if (this.isText)
+            {
+                for (final XMLElementChild child : parent.getChildren())
+                {
+                    if (this.matches(child))
+                    {
+                        output.add(child);
+                    }
+                }
+            }
+            else
+            {
+                this.select(this.name == null ? parent.getElementChildren() : parent.getElementChildren(this.name), output);
+            }
+        }
+
+        /**
+         * Add the provided elements that this step selects to the provided output. The provided
+         * elements are treated as the children of one parent when positions are counted.
+         */
+        void select(Iterable<XMLElement> elements, List<XMLElementChild> output)
+        {
+            if (!this.hasPositionPredicate)
+            {
+                for (final XMLElement element : elements)
+                {
+                    if (this.matches(element))
+                    {
+                        output.add(element);
+                    }
+                }
+            }
+            else
+            {
+                List<XMLElement> selected = List.create();
+                for (final XMLElement element : elements)
+                {
+                    if (this.name == null || this.name.equals(element.getName()))
+                    {
+                        selected.add(element);
+                    }
+                }
+                for (final Predicate predicate : this.predicates)
+                {
+                    final List<XMLElement> remaining = List.create();
+                    if (predicate.position == -1)
+                    {
+                        if (selected.any())
+                        {
+                            remaining.add(selected.get(selected.getCount() - 1));
+                        }
+                    }
+                    else if (predicate.position > 0)
+                    {
+                        if (predicate.position <= selected.getCount())
+                        {
+                            remaining.add(selected.get(predicate.position - 1));
+                        }
+                    }
+                    else
+                    {
+                        for (final XMLElement element : selected)
+                        {
+                            if (predicate.matches(element))
+                            {
+                                remaining.add(element);
+                            }
+                        }
+                    }
+                    selected = remaining;
+                }
+                for (final XMLElement element : selected)
+                {
+                    output.add(element);
+                }
+            }
+        }
+
+        /**
+         * Get the provided document's attribute index that this step can select its elements
+         * from, or null if this step can't use an attribute index or the document doesn't have
+         * the index that it could use.
+         */
+        XMLAttributeIndex findAttributeIndex(XMLDocument document)
+        {
+            final Predicate predicate = this.getIndexedPredicate();
+            return predicate == null ? null : document.findAttributeIndex(predicate.attributeName);
+        }
+
+        String getIndexedAttributeValue()
+        {
+            return this.getIndexedPredicate().attributeValue;
+        }
+
+        /**
+         * Get the first attribute value predicate of this step if this is a descendant element
+         * step that doesn't count positions, or null otherwise.
+         */
+        private Predicate getIndexedPredicate()
+        {
+            Predicate result = null;
+            if (this.isDescendant && !this.isText && !this.hasPositionPredicate)
+            {
+                for (int i = 0; result == null && i < this.predicates.length; ++i)
+                {
+                    if (this.predicates[i].attributeValue != null)
+                    {
+                        result = this.predicates[i];
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * One predicate of a step.
+     */
+    private static final class Predicate
+    {
+        /**
+         * The name of the attribute that the element must have, or null if this is a position
+         * predicate.
+         */
+        final String attributeName;
+        /**
+         * The value that the attribute must have, or null if the attribute can have any value.
+         */
+        final String attributeValue;
+        /**
+         * The position that this predicate selects starting at 1, -1 for the last position, or 0
+         * if this is an attribute predicate.
+         */
+        final int position;
+
+        Predicate(String attributeName, String attributeValue, int position)
+        {
+            this.attributeName = attributeName;
+            this.attributeValue = attributeValue;
+            this.position = position;
+        }
+
+        boolean isPosition()
+        {
+            return this.position != 0;
+        }
+
+        /**
+         * Get whether or not the provided element matches this attribute predicate.
+         */
+        boolean matches(XMLElement element)
+        {
+            return element.containsAttribute(this.attributeName) &&
+                (this.attributeValue == null || this.attributeValue.equals(element.getAttributeValue(this.attributeName).await()));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package qub;
+
+/**
+ * A compiled set of element paths that is matched against a document while the document is being
+ * parsed, without building the document. Each path is made up of steps that start with "/" to
+ * match a child or "//" to match any descendant, followed by an element name or "*", such as
+ * "/log/transaction" or "//price". An element that matches one of the paths is created with its
+ * whole subtree and given to a callback as soon as its end tag has been parsed, and the elements
+ * inside of it are not matched separately. Elements that can't contain a match are skipped
+ * without creating their names or attributes, but the whole document is still checked for
+ * well-formedness.
+ * <p>
+ * The matcher only keeps the steps that the children of each open element can match, and no
+ * match is referenced once its callback returns, so documents of any size can be searched in
+ * memory that is bounded by the depth of the document and the size of the largest match. A
+ * matcher can be used by multiple threads at the same time.
+ */
+public final class XMLPathMatcher
+{
+    private final List<String> paths;
+    private final XMLElementFilter filter;
+
+    private XMLPathMatcher(List<String> paths, XMLElementFilter filter)
+    {
+        this.paths = paths;
+        this.filter = filter;
+    }
+
+    /**
+     * Compile the provided element paths into an XMLPathMatcher.
+     * @param paths The element paths to match.
+     * @return The compiled XMLPathMatcher, or a ParseException if one of the paths is not a valid
+     * element path.
+     */
+    public static Result<XMLPathMatcher> create(Iterable<String> paths)
+    {
+        PreCondition.assertNotNull(paths, "paths");
+
+        return Result.create(() ->
+        {
+            final List<String> pathList = List.create();
+            pathList.addAll(paths);
+            return new XMLPathMatcher(pathList, XMLElementFilter.create(pathList));
+        });
+    }
+
+    /**
+     * Get the element paths that this matcher matches.
+     * @return The element paths that this matcher matches.
+     */
+    public Iterable<String> getPaths()
+    {
+        return this.paths;
+    }
+
+    /**
+     * Match this matcher's paths against the provided text and call the provided action with each
+     * matching element in document order. If an element matches more than one path, then the
+     * action is only called once with the first of those paths.
+     * @param text The text to match against.
+     * @param onMatch The action to call with the path that matched and the matching element.
+     * @return The result of matching the text.
+     */
+    public Result<Void> match(String text, Action2<String,XMLElement> onMatch)
+    {
+        PreCondition.assertNotNull(text, "text");
+        PreCondition.assertNotNull(onMatch, "onMatch");
+
+        return this.match(XMLCharacterParser.create(text), null, onMatch);
+    }
+
+    /**
+     * Match this matcher's paths against the provided UTF-8 encoded bytes and call the provided
+     * action with each matching element in document order. See
+     * {@link #match(String, Action2)} for how the action is called.
+     * @param bytes The UTF-8 encoded bytes to match against.
+     * @param onMatch The action to call with the path that matched and the matching element.
+     * @return The result of matching the bytes.
+     */
+    public Result<Void> match(byte[] bytes, Action2<String,XMLElement> onMatch)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(onMatch, "onMatch");
+
+        return this.match(java.nio.ByteBuffer.wrap(bytes), onMatch);
+    }
+
+    /**
+     * Match this matcher's paths against the UTF-8 encoded bytes between the provided buffer's
+     * position and limit and call the provided action with each matching element in document
+     * order. See {@link #match(String, Action2)} for how the action is called. The buffer's
+     * position is not changed.
+     * @param bytes The UTF-8 encoded bytes to match against.
+     * @param onMatch The action to call with the path that matched and the matching element.
+     * @return The result of matching the bytes.
+     */
+    public Result<Void> match(java.nio.ByteBuffer bytes, Action2<String,XMLElement> onMatch)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(onMatch, "onMatch");
+
+        return this.match(XMLByteParser.create(bytes), null, onMatch);
+    }
+
+    /**
+     * Match this matcher's paths against the encoded bytes that are read from the provided stream
+     * and call the provided action with each matching element in document order. Bytes are read
+     * as they are needed, and characters that have been matched are discarded, so the stream
+     * never needs to be held in memory. The document's encoding is found from its byte order mark
+     * or its declaration, and is UTF-8 if it has neither. See {@link #match(String, Action2)} for
+     * how the action is called. The stream is not disposed by this matcher.
+     * @param readStream The stream to read the encoded bytes from.
+     * @param onMatch The action to call with the path that matched and the matching element.
+     * @return The result of matching the stream's bytes.
+     */
+    public Result<Void> match(ByteReadStream readStream, Action2<String,XMLElement> onMatch)
+    {
+        PreCondition.assertNotNull(readStream, "readStream");
+        PreCondition.assertNotNull(onMatch, "onMatch");
+
+        return this.match(new XMLCharacterBufferParser(), readStream, onMatch);
+    }
+
+    /**
+     * Match this matcher's paths against the provided file and call the provided action with each
+     * matching element in document order. Files on the local disk that can be memory-mapped are
+     * matched directly from their mapped bytes, and other files are streamed. The file's encoding
+     * is found from its byte order mark or its declaration, and is UTF-8 if it has neither. See
+     * {@link #match(String, Action2)} for how the action is called.
+     * @param file The file to match against.
+     * @param onMatch The action to call with the path that matched and the matching element.
+     * @return The result of matching the file.
+     */
+    public Result<Void> match(File file, Action2<String,XMLElement> onMatch)
+    {
+        PreCondition.assertNotNull(file, "file");
+        PreCondition.assertNotNull(onMatch, "onMatch");
+
+        return Result.create(() ->
+        {
+            final java.nio.ByteBuffer mappedBytes = file.getFileSystem() instanceof JavaFileSystem
+                ? XML.mapContents(java.nio.file.Paths.get(file.getPath().toString()), 0)
+                : null;
+            if (mappedBytes != null)
+            {
+                this.match(XMLEncoding.createParser(mappedBytes), null, onMatch).await();
+            }
+            else
+            {
+                try (final ByteReadStream readStream = file.getContentsReadStream().await())
+                {
+                    this.match(readStream, onMatch).await();
+                }
+            }
+        });
+    }
+
+    private Result<Void> match(XMLParser parser, ByteReadStream readStream, Action2<String,XMLElement> onMatch)
+    {
+        return Result.create(() ->
+        {
+            this.filter.parse(parser, readStream, (Integer path, XMLElement element) ->
+            {
+                onMatch.run(this.paths.get(path), element);
+            });
+        });
+    }
+}
@@ -0,0 +1,343 @@
+package qub;
+
+/**
+ * A pull parser that reads an XML document one event at a time without building XMLElement
+ * objects for the document. Callers can stop reading at any point, and only the names, values,
+ * and text that they ask for are turned into Strings.
+ */
+public class XMLReader
+{
+    private final XMLParser parser;
+    private boolean hasStarted;
+    private XMLEventType current;
+    private int attributeIndex;
+
+    private XMLReader(XMLParser parser)
+    {
+        PreCondition.assertNotNull(parser, "parser");
+
+        this.parser = parser;
+        this.attributeIndex = -1;
+    }
+
+    /**
+     * Create a new XMLReader that will read the provided text.
+     * @param text The text to read.
+     * @return The new XMLReader.
+     */
+    public static XMLReader create(String text)
+    {
+        PreCondition.assertNotNull(text, "text");
+
+        return XMLReader.create(XMLCharacterParser.create(text));
+    }
+
+    /**
+     * Create a new XMLReader that will read the provided characters.
+     * @param characters The characters to read.
+     * @return The new XMLReader.
+     */
+    public static XMLReader create(char[] characters)
+    {
+        PreCondition.assertNotNull(characters, "characters");
+
+        return XMLReader.create(XMLCharacterParser.create(characters));
+    }
+
+    /**
+     * Create a new XMLReader that will read the provided UTF-8 encoded bytes.
+     * @param bytes The UTF-8 encoded bytes to read.
+     * @return The new XMLReader.
+     */
+    public static XMLReader create(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return XMLReader.create(XMLByteParser.create(bytes));
+    }
+
+    /**
+     * Create a new XMLReader that will read the UTF-8 encoded bytes between the provided buffer's
+     * position and limit.
+     * @param bytes The UTF-8 encoded bytes to read.
+     * @return The new XMLReader.
+     */
+    public static XMLReader create(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return XMLReader.create(XMLByteParser.create(bytes));
+    }
+
+    /**
+     * Create a new XMLReader that will read events from the provided parser.
+     * @param parser The parser to read events from.
+     * @return The new XMLReader.
+     */
+    public static XMLReader create(XMLParser parser)
+    {
+        return new XMLReader(parser);
+    }
+
+    /**
+     * Get whether or not this XMLReader has started reading events.
+     * @return Whether or not this XMLReader has started reading events.
+     */
+    public boolean hasStarted()
+    {
+        return this.hasStarted;
+    }
+
+    /**
+     * Get whether or not this XMLReader is positioned on an event.
+     * @return Whether or not this XMLReader is positioned on an event.
+     */
+    public boolean hasCurrent()
+    {
+        return this.current != null;
+    }
+
+    /**
+     * Set whether or not this XMLReader should skip comments and text that only contains
+     * whitespace instead of reading them as events. Skipped comments and whitespace are still
+     * checked for well-formedness, but no Strings are created for them.
+     * @param skipCommentsAndWhitespace Whether or not to skip comments and text that only contains
+     *                                  whitespace.
+     * @return This object for method chaining.
+     */
+    public XMLReader setSkipCommentsAndWhitespace(boolean skipCommentsAndWhitespace)
+    {
+        this.parser.setSkipCommentsAndWhitespace(skipCommentsAndWhitespace);
+        return this;
+    }
+
+    /**
+     * Get the type of the event that this XMLReader is positioned on.
+     * @return The type of the event that this XMLReader is positioned on.
+     */
+    public XMLEventType getCurrent()
+    {
+        PreCondition.assertTrue(this.hasCurrent(), "this.hasCurrent()");
+
+        return this.current;
+    }
+
+    /**
+     * Move this XMLReader to the next event in the document. The attributes of a start element are
+     * read as separate attribute events that follow the start element event.
+     * @return Whether or not this XMLReader is positioned on an event.
+     * @throws ParseException if the document is not well-formed.
+     */
+    public boolean next()
+    {
+        if ((this.current == XMLEventType.StartElement || this.current == XMLEventType.Attribute) &&
+            this.attributeIndex + 1 < this.parser.getAttributeCount())
+        {
+            ++this.attributeIndex;
+            this.current = XMLEventType.Attribute;
+        }
+        else
+        {
+            this.attributeIndex = -1;
+            this.current = this.parser.readNext();
+        }
+        this.hasStarted = true;
+
+        return this.current != null;
+    }
+
+    /**
+     * Get the number of elements that contain the current event. The root element's start and end
+     * events have a depth of 0, and attribute events have the same depth as their element.
+     * @return The number of elements that contain the current event.
+     */
+    public int getDepth()
+    {
+        PreCondition.assertTrue(this.hasCurrent(), "this.hasCurrent()");
+
+        return this.parser.getDepth();
+    }
+
+    /**
+     * Get the name of the current start element, end element, or attribute event.
+     * @return The name of the current start element, end element, or attribute event.
+     */
+    public String getName()
+    {
+        PreCondition.assertTrue(this.isElementOrAttribute(), "this.isElementOrAttribute()");
+
+        return this.current == XMLEventType.Attribute
+            ? this.parser.getAttributeName(this.attributeIndex)
+            : this.parser.getName();
+    }
+
+    /**
+     * Get whether or not the name of the current start element, end element, or attribute event is
+     * equal to the provided name. This doesn't create a String for the current event's name.
+     * @param name The name to compare.
+     * @return Whether or not the name of the current event is equal to the provided name.
+     */
+    public boolean nameEquals(String name)
+    {
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+        PreCondition.assertTrue(this.isElementOrAttribute(), "this.isElementOrAttribute()");
+
+        return this.current == XMLEventType.Attribute
+            ? this.parser.attributeNameEquals(this.attributeIndex, name)
+            : this.parser.nameEquals(name);
+    }
+
+    /**
+     * Get the unquoted value of the current attribute event.
+     * @return The unquoted value of the current attribute event.
+     */
+    public String getValue()
+    {
+        PreCondition.assertTrue(this.current == XMLEventType.Attribute, "this.getCurrent() == XMLEventType.Attribute");
+
+        return this.parser.getAttributeValue(this.attributeIndex);
+    }
+
+    /**
+     * Get whether or not the element of the current start element or attribute event was an empty
+     * element tag.
+     * @return Whether or not the element of the current event was an empty element tag.
+     */
+    public boolean isEmptyElement()
+    {
+        PreCondition.assertTrue(this.isStartElementOrAttribute(), "this.isStartElementOrAttribute()");
+
+        return this.parser.isEmptyElement();
+    }
+
+    /**
+     * Get the number of attributes of the element of the current start element or attribute event.
+     * @return The number of attributes of the element of the current event.
+     */
+    public int getAttributeCount()
+    {
+        PreCondition.assertTrue(this.isStartElementOrAttribute(), "this.isStartElementOrAttribute()");
+
+        return this.parser.getAttributeCount();
+    }
+
+    /**
+     * Get the value of the attribute with the provided name of the element of the current start
+     * element or attribute event.
+     * @param attributeName The name of the attribute.
+     * @return The unquoted value of the attribute, or a NotFoundException if the element doesn't
+     * have an attribute with the provided name.
+     */
+    public Result<String> getAttributeValue(String attributeName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(attributeName, "attributeName");
+        PreCondition.assertTrue(this.isStartElementOrAttribute(), "this.isStartElementOrAttribute()");
+
+        // When an attribute is repeated, the last value wins, the same as XMLElement.setAttribute().
+        int index = this.parser.getAttributeCount() - 1;
+        while (index >= 0 && !this.parser.attributeNameEquals(index, attributeName))
+        {
+            --index;
+        }
+
+        return index >= 0
+            ? Result.success(this.parser.getAttributeValue(index))
+            : Result.error(new NotFoundException("Couldn't find an attribute named " + Strings.escapeAndQuote(attributeName) + " in the element."));
+    }
+
+    /**
+     * Get the text of the current text, CDATA, or comment event.
+     * @return The text of the current text, CDATA, or comment event.
+     */
+    public String getText()
+    {
+        PreCondition.assertTrue(this.isText(), "this.isText()");
+
+        return this.parser.getText();
+    }
+
+    /**
+     * Get whether or not the current text event only contains whitespace.
+     * @return Whether or not the current text event only contains whitespace.
+     */
+    public boolean isWhitespace()
+    {
+        PreCondition.assertTrue(this.current == XMLEventType.Text, "this.getCurrent() == XMLEventType.Text");
+
+        return this.parser.isWhitespace();
+    }
+
+    /**
+     * Get the declaration of the current declaration event.
+     * @return The declaration of the current declaration event.
+     */
+    public XMLDeclaration getDeclaration()
+    {
+        PreCondition.assertTrue(this.current == XMLEventType.Declaration, "this.getCurrent() == XMLEventType.Declaration");
+
+        return this.parser.getDeclaration();
+    }
+
+    /**
+     * Skip past the rest of the element of the current start element or attribute event. After
+     * this returns, this XMLReader will be positioned on the element's end element event.
+     * @throws ParseException if the document is not well-formed.
+     */
+    public void skipElement()
+    {
+        PreCondition.assertTrue(this.isStartElementOrAttribute(), "this.isStartElementOrAttribute()");
+
+        final int depth = this.parser.getDepth();
+        XMLEventType eventType;
+        do
+        {
+            eventType = this.parser.readNext();
+        }
+        while (eventType != XMLEventType.EndElement || this.parser.getDepth() != depth);
+
+        this.attributeIndex = -1;
+        this.current = XMLEventType.EndElement;
+    }
+
+    /**
+     * Read the rest of the element of the current start element or attribute event into an
+     * XMLElement. The element is built the same way that XML.parse() builds elements, so
+     * whitespace text and comments are not included. After this returns, this XMLReader will be
+     * positioned on the element's end element event.
+     * @return The XMLElement that was read.
+     * @throws ParseException if the document is not well-formed.
+     */
+    public XMLElement readElement()
+    {
+        PreCondition.assertTrue(this.isStartElementOrAttribute(), "this.isStartElementOrAttribute()");
+
+        final XMLElement result = this.parser.readElement();
+
+        this.attributeIndex = -1;
+        this.current = XMLEventType.EndElement;
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    private boolean isElementOrAttribute()
+    {
+        return this.current == XMLEventType.StartElement ||
+            this.current == XMLEventType.EndElement ||
+            this.current == XMLEventType.Attribute;
+    }
+
+    private boolean isStartElementOrAttribute()
+    {
+        return this.current == XMLEventType.StartElement ||
+            this.current == XMLEventType.Attribute;
+    }
+
+    private boolean isText()
+    {
+        return this.current == XMLEventType.Text ||
+            this.current == XMLEventType.CData ||
+            this.current == XMLEventType.Comment;
+    }
+}
@@ -0,0 +1,230 @@
+package qub;
+
+/**
+ * An Iterator that parses the child elements of a document's root element one at a time. Each
+ * child element is created when the iterator moves to it and isn't referenced by the iterator
+ * once the iterator moves past it, so documents that are made up of millions of records can be
+ * read in the memory that one record needs. Records are returned as soon as their end tags have
+ * been parsed, so the root element's end tag doesn't need to have been read yet.
+ */
+public class XMLRecordIterator implements Iterator<XMLElement>
+{
+    private final XMLParser parser;
+    /**
+     * The stream that bytes are read from when the parser runs out of characters, or null if the
+     * parser already has the whole document.
+     */
+    private final ByteReadStream readStream;
+
+    private boolean hasStarted;
+    private XMLElement current;
+    private XMLDeclaration declaration;
+    private XMLElement root;
+
+    /**
+     * The elements of the record that is being parsed that haven't been ended yet. The first
+     * element is the record itself.
+     */
+    private XMLElement[] openElements;
+    private int openElementCount;
+
+    private XMLRecordIterator(XMLParser parser, ByteReadStream readStream)
+    {
+        this.parser = parser;
+        this.readStream = readStream;
+        this.openElements = new XMLElement[8];
+
+        this.parser.setSkipCommentsAndWhitespace(true);
+    }
+
+    /**
+     * Create a new XMLRecordIterator that will iterate over the child elements of the root
+     * element in the provided text.
+     * @param text The text to parse.
+     * @return The new XMLRecordIterator.
+     */
+    public static XMLRecordIterator create(String text)
+    {
+        PreCondition.assertNotNull(text, "text");
+
+        return new XMLRecordIterator(XMLCharacterParser.create(text), null);
+    }
+
+    /**
+     * Create a new XMLRecordIterator that will iterate over the child elements of the root
+     * element in the provided UTF-8 encoded bytes.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The new XMLRecordIterator.
+     */
+    public static XMLRecordIterator create(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return XMLRecordIterator.create(java.nio.ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Create a new XMLRecordIterator that will iterate over the child elements of the root
+     * element in the UTF-8 encoded bytes between the provided buffer's position and limit. This
+     * works well with memory-mapped files, since the records are parsed directly from the mapped
+     * bytes.
+     * @param bytes The UTF-8 encoded bytes to parse.
+     * @return The new XMLRecordIterator.
+     */
+    public static XMLRecordIterator create(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return new XMLRecordIterator(XMLByteParser.create(bytes), null);
+    }
+
+    /**
+     * Create a new XMLRecordIterator that will iterate over the child elements of the root
+     * element in the encoded bytes that are read from the provided stream. Bytes are only read
+     * when the iterator needs more of them to finish the next record, so the stream can be a
+     * long-lived connection that sends records as they happen. The document's encoding is found
+     * from its byte order mark or its declaration, and is UTF-8 if it has neither. The stream is
+     * not disposed by the iterator.
+     * @param readStream The stream to read the encoded bytes from.
+     * @return The new XMLRecordIterator.
+     */
+    public static XMLRecordIterator create(ByteReadStream readStream)
+    {
+        PreCondition.assertNotNull(readStream, "readStream");
+
+        return new XMLRecordIterator(new XMLCharacterBufferParser(), readStream);
+    }
+
+    /**
+     * Get the declaration of the document, if the document has one and it has been parsed.
+     * @return The declaration of the document, or null if it hasn't been parsed.
+     */
+    public XMLDeclaration getDeclaration()
+    {
+        return this.declaration;
+    }
+
+    /**
+     * Get the document's root element with its name and attributes, once its start tag has been
+     * parsed. The records are not added to the returned element.
+     * @return The document's root element without its children, or null if its start tag hasn't
+     * been parsed.
+     */
+    public XMLElement getRoot()
+    {
+        return this.root;
+    }
+
+    @Override
+    public boolean hasStarted()
+    {
+        return this.hasStarted;
+    }
+
+    @Override
+    public boolean hasCurrent()
+    {
+        return this.current != null;
+    }
+
+    @Override
+    public XMLElement getCurrent()
+    {
+        PreCondition.assertTrue(this.hasCurrent(), "this.hasCurrent()");
+
+        return this.current;
+    }
+
+    /**
+     * Parse the next child element of the root element.
+     * @return Whether or not there was another child element.
+     * @throws ParseException if the document is not well-formed.
+     */
+    @Override
+    public boolean next()
+    {
+        this.hasStarted = true;
+        this.current = null;
+
+        boolean isEndOfDocument = false;
+        while (this.current == null && !isEndOfDocument)
+        {
+            final XMLEventType eventType = this.parser.readNextAvailable();
+            if (eventType != null)
+            {
+                this.handleEvent(eventType);
+            }
+            else
+            {
+                isEndOfDocument = !this.readMoreBytes();
+            }
+        }
+
+        return this.current != null;
+    }
+
+    private void handleEvent(XMLEventType eventType)
+    {
+        switch (eventType)
+        {
+            case Declaration:
+                this.declaration = this.parser.getDeclaration();
+                break;
+
+            case StartElement:
+                final XMLElement element = this.parser.createElement(!this.parser.isEmptyElement());
+                if (this.parser.getDepth() == 0)
+                {
+                    this.root = element;
+                }
+                else
+                {
+                    if (this.openElementCount > 0)
+                    {
+                        this.openElements[this.openElementCount - 1].addChild(element);
+                    }
+                    if (this.openElementCount == this.openElements.length)
+                    {
+                        this.openElements = java.util.Arrays.copyOf(this.openElements, this.openElementCount * 2);
+                    }
+                    this.openElements[this.openElementCount++] = element;
+                }
+                break;
+
+            case EndElement:
+                if (this.openElementCount > 0)
+                {
+                    --this.openElementCount;
+                    if (this.openElementCount == 0)
+                    {
+                        this.current = this.openElements[0];
+                    }
+                    this.openElements[this.openElementCount] = null;
+                }
+                break;
+
+            case Text:
+                if (this.openElementCount > 0 && !this.parser.isWhitespace())
+                {
+                    this.openElements[this.openElementCount - 1].addChild(XMLText.create(this.parser.getText(), false));
+                }
+                break;
+
+            case CData:
+                if (this.openElementCount > 0)
+                {
+                    this.openElements[this.openElementCount - 1].addChild(XMLCData.create(this.parser.getText()));
+                }
+                break;
+        }
+    }
+
+    /**
+     * Add the next bytes from the read stream to the parser.
+     * @return Whether or not the parser has more characters to parse.
+     */
+    private boolean readMoreBytes()
+    {
+        return this.readStream != null && ((XMLCharacterBufferParser)this.parser).readFrom(this.readStream);
+    }
+}
@@ -0,0 +1,80 @@
+package qub;
+
+/**
+ * An XMLParser that reads ISO-8859-1 or US-ASCII encoded bytes from a java.nio.ByteBuffer. Each
+ * byte is one character, so markup, names, and text are all read directly from the bytes without
+ * decoding them first.
+ */
+final class XMLSingleByteParser extends XMLParser
+{
+    private final java.nio.ByteBuffer bytes;
+    private final java.nio.charset.Charset charset;
+    /**
+     * Whether or not bytes outside of the ASCII range are malformed.
+     */
+    private final boolean isAscii;
+    private java.nio.ByteBuffer decodeView;
+    private byte[] decodeBuffer;
+
+    private XMLSingleByteParser(java.nio.ByteBuffer bytes, java.nio.charset.Charset charset)
+    {
+        super(bytes.position(), bytes.limit());
+
+        this.bytes = bytes;
+        this.charset = charset;
+        this.isAscii = charset.equals(java.nio.charset.StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Create a new XMLSingleByteParser that will parse the bytes between the provided buffer's
+     * position and limit. The buffer's position will not be changed by parsing.
+     * @param bytes The ISO-8859-1 or US-ASCII encoded bytes to parse.
+     * @param charset The encoding of the bytes.
+     * @return The new XMLSingleByteParser.
+     */
+    static XMLSingleByteParser create(java.nio.ByteBuffer bytes, java.nio.charset.Charset charset)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(charset, "charset");
+        PreCondition.assertTrue(charset.equals(java.nio.charset.StandardCharsets.ISO_8859_1) || charset.equals(java.nio.charset.StandardCharsets.US_ASCII), "charset is ISO-8859-1 or US-ASCII");
+
+        return new XMLSingleByteParser(bytes, charset);
+    }
+
+    @Override
+    protected int get(int index)
+    {
+        final int result = this.bytes.get(index) & 0xFF;
+        return this.isAscii && result >= 0x80 ? 0xFFFD : result;
+    }
+
+    @Override
+    protected String getString(int startIndex, int endIndex)
+    {
+        final int length = endIndex - startIndex;
+
+        final String result;
+        if (this.bytes.hasArray())
+        {
+            result = new String(this.bytes.array(), this.bytes.arrayOffset() + startIndex, length, this.charset);
+        }
+        else
+        {
+            if (this.decodeBuffer == null || this.decodeBuffer.length < length)
+            {
+                this.decodeBuffer = new byte[Math.max(length, 64)];
+                this.decodeView = this.bytes.duplicate();
+            }
+            this.decodeView.position(startIndex);
+            this.decodeView.get(this.decodeBuffer, 0, length);
+            result = new String(this.decodeBuffer, 0, length, this.charset);
+        }
+        return result;
+    }
+
+    @Override
+    protected CharSequence getSlice(int startIndex, int endIndex)
+    {
+        return XMLSlice.create(this.bytes, startIndex, endIndex, this.charset);
+    }
+}
@@ -0,0 +1,249 @@
+package qub;
+
+/**
+ * A CharSequence view of part of the source that a document was parsed from. Text, CDATA, and
+ * attribute values that are parsed lazily are stored as slices, so their characters aren't copied
+ * out of the source until they are needed. The first call to toString() creates the slice's String
+ * and keeps it, so the source is only decoded once. The source must not change while the slice is
+ * being used.
+ */
+abstract class XMLSlice implements CharSequence
+{
+    private String string;
+
+    /**
+     * Create a new XMLSlice of the characters between the provided indexes.
+     * @param characters The characters to create a slice of.
+     * @param startIndex The index of the first character in the slice.
+     * @param endIndex The index after the last character in the slice.
+     * @return The new XMLSlice.
+     */
+    static XMLSlice create(CharSequence characters, int startIndex, int endIndex)
+    {
+        PreCondition.assertNotNull(characters, "characters");
+        PreCondition.assertTrue(0 <= startIndex && startIndex <= endIndex && endIndex <= characters.length(), "0 <= startIndex <= endIndex <= characters.length()");
+
+        return new CharacterSlice(characters, startIndex, endIndex);
+    }
+
+    /**
+     * Create a new XMLSlice of the encoded bytes between the provided indexes. ISO-8859-1 and
+     * US-ASCII slices read their characters straight from the bytes. UTF-8 slices are decoded the
+     * first time that their characters or length are needed.
+     * @param bytes The bytes to create a slice of.
+     * @param startIndex The index of the first byte in the slice.
+     * @param endIndex The index after the last byte in the slice.
+     * @param charset The encoding of the bytes, which must be UTF-8, ISO-8859-1, or US-ASCII.
+     * @return The new XMLSlice.
+     */
+    static XMLSlice create(java.nio.ByteBuffer bytes, int startIndex, int endIndex, java.nio.charset.Charset charset)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertTrue(0 <= startIndex && startIndex <= endIndex && endIndex <= bytes.limit(), "0 <= startIndex <= endIndex <= bytes.limit()");
+        PreCondition.assertNotNull(charset, "charset");
+
+        return charset.equals(java.nio.charset.StandardCharsets.UTF_8)
+            ? new UTF8Slice(bytes, startIndex, endIndex)
+            : new SingleByteSlice(bytes, startIndex, endIndex, charset);
+    }
+
+    /**
+     * Create a new XMLSlice of the UTF-16 code units between the provided indexes. A code unit
+     * that is missing its second byte is read as a replacement character.
+     * @param bytes The bytes to create a slice of, with the byte order of their encoding.
+     * @param byteStartIndex The index of the byte that code unit 0 starts at.
+     * @param startIndex The index of the first code unit in the slice.
+     * @param endIndex The index after the last code unit in the slice.
+     * @return The new XMLSlice.
+     */
+    static XMLSlice create(java.nio.ByteBuffer bytes, int byteStartIndex, int startIndex, int endIndex)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertTrue(0 <= startIndex && startIndex <= endIndex, "0 <= startIndex <= endIndex");
+
+        return new UTF16Slice(bytes, byteStartIndex + startIndex * 2, endIndex - startIndex);
+    }
+
+    /**
+     * Create the String of the characters in this slice.
+     */
+    protected abstract String createString();
+
+    @Override
+    public int length()
+    {
+        return this.toString().length();
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        return this.toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int startIndex, int endIndex)
+    {
+        return this.toString().subSequence(startIndex, endIndex);
+    }
+
+    @Override
+    public String toString()
+    {
+        String result = this.string;
+        if (result == null)
+        {
+            result = this.createString();
+            this.string = result;
+        }
+        return result;
+    }
+
+    private static final class CharacterSlice extends XMLSlice
+    {
+        private final CharSequence characters;
+        private final int startIndex;
+        private final int endIndex;
+
+        CharacterSlice(CharSequence characters, int startIndex, int endIndex)
+        {
+            this.characters = characters;
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+        }
+
+        @Override
+        public int length()
+        {
+            return this.endIndex - this.startIndex;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            return this.characters.charAt(this.startIndex + index);
+        }
+
+        @Override
+        protected String createString()
+        {
+            return this.characters.subSequence(this.startIndex, this.endIndex).toString();
+        }
+    }
+
+    private static final class SingleByteSlice extends XMLSlice
+    {
+        private final java.nio.ByteBuffer bytes;
+        private final int startIndex;
+        private final int endIndex;
+        private final java.nio.charset.Charset charset;
+
+        SingleByteSlice(java.nio.ByteBuffer bytes, int startIndex, int endIndex, java.nio.charset.Charset charset)
+        {
+            this.bytes = bytes;
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+            this.charset = charset;
+        }
+
+        @Override
+        public int length()
+        {
+            return this.endIndex - this.startIndex;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            final int result = this.bytes.get(this.startIndex + index) & 0xFF;
+            return result >= 0x80 && this.charset.equals(java.nio.charset.StandardCharsets.US_ASCII) ? '\uFFFD' : (char)result;
+        }
+
+        @Override
+        protected String createString()
+        {
+            return XMLSlice.decode(this.bytes, this.startIndex, this.endIndex, this.charset);
+        }
+    }
+
+    private static final class UTF8Slice extends XMLSlice
+    {
+        private final java.nio.ByteBuffer bytes;
+        private final int startIndex;
+        private final int endIndex;
+
+        UTF8Slice(java.nio.ByteBuffer bytes, int startIndex, int endIndex)
+        {
+            this.bytes = bytes;
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+        }
+
+        @Override
+        protected String createString()
+        {
+            return XMLSlice.decode(this.bytes, this.startIndex, this.endIndex, java.nio.charset.StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class UTF16Slice extends XMLSlice
+    {
+        private final java.nio.ByteBuffer bytes;
+        private final int byteStartIndex;
+        private final int length;
+
+        UTF16Slice(java.nio.ByteBuffer bytes, int byteStartIndex, int length)
+        {
+            this.bytes = bytes;
+            this.byteStartIndex = byteStartIndex;
+            this.length = length;
+        }
+
+        @Override
+        public int length()
+        {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            final int byteIndex = this.byteStartIndex + index * 2;
+            return byteIndex + 1 < this.bytes.limit() ? this.bytes.getChar(byteIndex) : '\uFFFD';
+        }
+
+        @Override
+        protected String createString()
+        {
+            final char[] characters = new char[this.length];
+            for (int i = 0; i < characters.length; ++i)
+            {
+                characters[i] = this.charAt(i);
+            }
+            return new String(characters);
+        }
+    }
+
+    /**
+     * Decode the bytes between the provided indexes. Only absolute reads are used, so slices of
+     * the same buffer can be decoded on different threads.
+     */
+    private static String decode(java.nio.ByteBuffer bytes, int startIndex, int endIndex, java.nio.charset.Charset charset)
+    {
+        final String result;
+        if (bytes.hasArray())
+        {
+            result = new String(bytes.array(), bytes.arrayOffset() + startIndex, endIndex - startIndex, charset);
+        }
+        else
+        {
+            final byte[] copy = new byte[endIndex - startIndex];
+            for (int i = 0; i < copy.length; ++i)
+            {
+                copy[i] = bytes.get(startIndex + i);
+            }
+            result = new String(copy, charset);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,223 @@
+package qub;
+
+/**
+ * The positions of the markup characters in UTF-8 encoded XML bytes. The index is built by a
+ * single pass over the bytes that checks eight bytes at a time, and it can then be used by an
+ * XMLByteParser to jump between markup characters instead of checking every byte again. Because
+ * the bytes of multiple byte UTF-8 sequences are all 0x80 or greater, a markup character byte is
+ * never part of a larger character.
+ */
+public final class XMLStructuralIndex
+{
+    private static final long ones = 0x0101010101010101L;
+    private static final long lowSevenBits = 0x7F7F7F7F7F7F7F7FL;
+
+    private final java.nio.ByteBuffer bytes;
+    private final int[] positions;
+    private final int count;
+
+    private XMLStructuralIndex(java.nio.ByteBuffer bytes, int[] positions, int count)
+    {
+        this.bytes = bytes;
+        this.positions = positions;
+        this.count = count;
+    }
+
+    /**
+     * Create a new XMLStructuralIndex for the provided UTF-8 encoded bytes.
+     * @param bytes The UTF-8 encoded bytes to index.
+     * @return The new XMLStructuralIndex.
+     */
+    public static XMLStructuralIndex create(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return XMLStructuralIndex.create(java.nio.ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Create a new XMLStructuralIndex for the UTF-8 encoded bytes between the provided buffer's
+     * position and limit. The buffer's position will not be changed, and the bytes must not change
+     * while the index is being used.
+     * @param bytes The UTF-8 encoded bytes to index.
+     * @return The new XMLStructuralIndex.
+     */
+    public static XMLStructuralIndex create(java.nio.ByteBuffer bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        final java.nio.ByteBuffer words = bytes.duplicate().order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        final int startIndex = bytes.position();
+        final int endIndex = bytes.limit();
+
+        int[] positions = new int[Math.max(16, (endIndex - startIndex) / 8)];
+        int count = 0;
+
+        int index = startIndex;
+        for (; index <= endIndex - 8; index += 8)
+        {
+            final long word = words.getLong(index);
+            long matches = XMLStructuralIndex.matches(word, '<') |
+                XMLStructuralIndex.matches(word, '>') |
+                XMLStructuralIndex.matches(word, '"') |
+                XMLStructuralIndex.matches(word, '\'') |
+                XMLStructuralIndex.matches(word, '&');
+            while (matches != 0)
+            {
+                if (count == positions.length)
+                {
+                    positions = java.util.Arrays.copyOf(positions, count * 2);
+                }
+                positions[count++] = index + (Long.numberOfTrailingZeros(matches) >>> 3);
+                matches &= matches - 1;
+            }
+        }
+        for (; index < endIndex; ++index)
+        {
+            if (XMLStructuralIndex.isMarkupCharacter(bytes.get(index)))
+            {
+                if (count == positions.length)
+                {
+                    positions = java.util.Arrays.copyOf(positions, count * 2);
+                }
+                positions[count++] = index;
+            }
+        }
+
+        return new XMLStructuralIndex(bytes.duplicate(), positions, count);
+    }
+
+    /**
+     * Get a value that has the high bit set in each byte of the provided word that is equal to the
+     * provided character, and every other bit cleared.
+     */
+    private static long matches(long word, char character)
+    {
+        final long difference = word ^ (XMLStructuralIndex.ones * character);
+        return ~(((difference & XMLStructuralIndex.lowSevenBits) + XMLStructuralIndex.lowSevenBits) | difference | XMLStructuralIndex.lowSevenBits);
+    }
+
+    private static boolean isMarkupCharacter(byte value)
+    {
+        return value == '<' || value == '>' || value == '"' || value == '\'' || value == '&';
+    }
+
+    /**
+     * Get the bytes that this index was created for. The returned buffer's position and limit are
+     * the start and end of the indexed bytes.
+     * @return The bytes that this index was created for.
+     */
+    public java.nio.ByteBuffer getBytes()
+    {
+        return this.bytes.duplicate();
+    }
+
+    /**
+     * Get the number of markup characters in the indexed bytes.
+     * @return The number of markup characters in the indexed bytes.
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Get the position in the indexed bytes of the markup character at the provided index.
+     * @param index The index of the markup character.
+     * @return The position in the indexed bytes of the markup character.
+     */
+    public int getPosition(int index)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(index, 0, "index");
+        PreCondition.assertLessThan(index, this.count, "index");
+
+        return this.positions[index];
+    }
+
+    /**
+     * Get the markup character ('&lt;', '&gt;', '"', '\'', or '&amp;') at the provided index.
+     * @param index The index of the markup character.
+     * @return The markup character at the provided index.
+     */
+    public char getKind(int index)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(index, 0, "index");
+        PreCondition.assertLessThan(index, this.count, "index");
+
+        return (char)this.bytes.get(this.positions[index]);
+    }
+
+    /**
+     * Get the index of the first markup character that is at or after the provided position in
+     * the indexed bytes.
+     * @param position The position in the indexed bytes to start looking at.
+     * @return The index of the first markup character at or after the provided position, or the
+     * number of markup characters if there isn't one.
+     */
+    public int find(int position)
+    {
+        return this.find(position, 0);
+    }
+
+    /**
+     * Get the index of the first markup character that is at or after the provided position. The
+     * provided index is where the previous search ended, so a search that moves forward a short
+     * distance only looks at a few markup characters before it falls back to a binary search.
+     */
+    int find(int position, int previousIndex)
+    {
+        int low = 0;
+        int high = this.count;
+        if (previousIndex <= this.count && (previousIndex == 0 || this.positions[previousIndex - 1] < position))
+        {
+            low = previousIndex;
+            final int linearEndIndex = Math.min(this.count, low + 8);
+            while (low < linearEndIndex && this.positions[low] < position)
+            {
+                ++low;
+            }
+            if (low < linearEndIndex)
+            {
+                high = low;
+            }
+        }
+
+        while (low < high)
+        {
+            final int middle = (low + high) >>> 1;
+            if (this.positions[middle] < position)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the position of the first markup character that is equal to the provided character and
+     * is between the provided positions. The search starts at the provided index, which must not
+     * be after the first markup character at or after the start position.
+     */
+    int indexOf(int character, int index, int endPosition)
+    {
+        int result = endPosition;
+        for (; index < this.count; ++index)
+        {
+            final int position = this.positions[index];
+            if (position >= endPosition)
+            {
+                break;
+            }
+            else if ((this.bytes.get(position) & 0xFF) == character)
+            {
+                result = position;
+                break;
+            }
+        }
+        return result;
+    }
+}
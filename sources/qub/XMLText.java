@@ -2,12 +2,16 @@ package qub;
 
 public class XMLText implements XMLElementChild
 {
-    private final String text;
+    /**
+     * The text, which is either a String or an XMLSlice that hasn't been turned into a String yet.
+     */
+    private CharSequence text;
     private final boolean isWhitespace;
 
-    private XMLText(String text, boolean isWhitespace)
+    private XMLText(CharSequence text, boolean isWhitespace)
     {
-        PreCondition.assertNotNullAndNotEmpty(text, "text");
+        PreCondition.assertNotNull(text, "text");
+        PreCondition.assertGreaterThan(text.length(), 0, "text.length()");
 
         this.text = text;
         this.isWhitespace = isWhitespace;
@@ -27,9 +31,26 @@ public class XMLText implements XMLElementChild
         return new XMLText(text, isWhitespace);
     }
 
+    /**
+     * Create a new XMLText whose text may be a view of the source that it was parsed from. The
+     * text isn't copied out of the source until getText() is called.
+     * @param text The non-empty text.
+     * @param isWhitespace Whether or not the text only contains whitespace.
+     * @return The new XMLText.
+     */
+    static XMLText create(CharSequence text, boolean isWhitespace)
+    {
+        PreCondition.assertNotNull(text, "text");
+        PreCondition.assertGreaterThan(text.length(), 0, "text.length()");
+
+        return new XMLText(text, isWhitespace);
+    }
+
     public String getText()
     {
-        return this.text;
+        final String result = this.text.toString();
+        this.text = result;
+        return result;
     }
 
     public boolean isWhitespace()
@@ -55,7 +76,7 @@ public class XMLText implements XMLElementChild
         PreCondition.assertNotDisposed(stream, "stream");
         PreCondition.assertNotNull(format, "format");
 
-        return stream.write(this.text);
+        return stream.write(this.getText());
     }
 
     @Override
@@ -67,7 +88,7 @@ public class XMLText implements XMLElementChild
     public boolean equals(XMLText rhs)
     {
         return rhs != null &&
-            this.text.equals(rhs.text);
+            this.getText().equals(rhs.getText());
     }
 
     public static boolean isWhitespace(String text)
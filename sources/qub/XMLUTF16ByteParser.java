@@ -0,0 +1,79 @@
+package qub;
+
+/**
+ * An XMLParser that reads UTF-16LE or UTF-16BE encoded bytes from a java.nio.ByteBuffer. Each pair
+ * of bytes is read as one UTF-16 code unit, so the parser's indexes count code units instead of
+ * bytes and the bytes are never decoded to a separate character array.
+ */
+final class XMLUTF16ByteParser extends XMLParser
+{
+    /**
+     * The code unit that is returned for a byte at the end of the input that doesn't have a second
+     * byte to make up a whole code unit.
+     */
+    private static final int replacementCharacter = 0xFFFD;
+
+    /**
+     * A view of the bytes that reads code units in the byte order of the encoding.
+     */
+    private final java.nio.ByteBuffer bytes;
+    /**
+     * The index of the byte that code unit 0 starts at.
+     */
+    private final int byteStartIndex;
+
+    private XMLUTF16ByteParser(java.nio.ByteBuffer bytes, java.nio.charset.Charset charset)
+    {
+        super(0, (bytes.remaining() + 1) / 2);
+
+        this.bytes = bytes.duplicate().order(charset.equals(java.nio.charset.StandardCharsets.UTF_16BE)
+            ? java.nio.ByteOrder.BIG_ENDIAN
+            : java.nio.ByteOrder.LITTLE_ENDIAN);
+        this.byteStartIndex = bytes.position();
+    }
+
+    /**
+     * Create a new XMLUTF16ByteParser that will parse the bytes between the provided buffer's
+     * position and limit. The bytes must not start with a byte order mark. The buffer's position
+     * will not be changed by parsing.
+     * @param bytes The UTF-16LE or UTF-16BE encoded bytes to parse.
+     * @param charset The encoding of the bytes.
+     * @return The new XMLUTF16ByteParser.
+     */
+    static XMLUTF16ByteParser create(java.nio.ByteBuffer bytes, java.nio.charset.Charset charset)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(charset, "charset");
+        PreCondition.assertTrue(charset.equals(java.nio.charset.StandardCharsets.UTF_16LE) || charset.equals(java.nio.charset.StandardCharsets.UTF_16BE), "charset is UTF-16LE or UTF-16BE");
+
+        return new XMLUTF16ByteParser(bytes, charset);
+    }
+
+    @Override
+    protected int get(int index)
+    {
+        final int byteIndex = this.byteStartIndex + index * 2;
+        return byteIndex + 1 < this.bytes.limit()
+            ? this.bytes.getChar(byteIndex)
+            : XMLUTF16ByteParser.replacementCharacter;
+    }
+
+    @Override
+    protected String getString(int startIndex, int endIndex)
+    {
+        // The code units are copied as they are instead of being decoded with the charset, so
+        // unpaired surrogates are kept the same way that XMLCharacterParser keeps them.
+        final char[] characters = new char[endIndex - startIndex];
+        for (int i = 0; i < characters.length; ++i)
+        {
+            characters[i] = (char)this.get(startIndex + i);
+        }
+        return new String(characters);
+    }
+
+    @Override
+    protected CharSequence getSlice(int startIndex, int endIndex)
+    {
+        return XMLSlice.create(this.bytes, this.byteStartIndex, startIndex, endIndex);
+    }
+}
@@ -0,0 +1,300 @@
+package qub;
+
+public interface XMLAttributeIndexTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLAttributeIndex.class, () ->
+        {
+            final Function0<XMLDocument> createDocument = () ->
+            {
+                return XML.parse(
+                    "<orders>" +
+                        "<order id=\"a\" total=\"10\"><item id=\"a1\" total=\"2.5\"/></order>" +
+                        "<order id=\"c\" total=\"-3\"/>" +
+                        "<order id=\"b\" total=\"100\"><note total=\"none\"/></order>" +
+                        "<order id=\"b\" total=\"1e1\"/>" +
+                    "</orders>").await();
+            };
+
+            final Function1<Iterable<XMLElement>,Iterable<String>> getIds = (Iterable<XMLElement> elements) ->
+            {
+                return elements.map((XMLElement element) -> element.getName() + ":" + element.getAttributeValue("id").catchError().await());
+            };
+
+            runner.testGroup("getElements(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("id");
+                    test.assertThrows(() -> index.getElements(null),
+                        new PreConditionFailure("attributeValue cannot be null."));
+                });
+
+                runner.test("with no root", (Test test) ->
+                {
+                    final XMLAttributeIndex index = XMLDocument.create().getAttributeIndex("id");
+                    test.assertEqual(Iterable.create(), index.getElements("a"));
+                });
+
+                runner.test("with unknown value", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("id");
+                    test.assertEqual(Iterable.create(), getIds.run(index.getElements("d")));
+                });
+
+                runner.test("with nested element", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("id");
+                    test.assertEqual(Iterable.create("item:a1"), getIds.run(index.getElements("a1")));
+                });
+
+                runner.test("with repeated value", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("total");
+                    test.assertEqual(Iterable.create("order:b"), getIds.run(index.getElements("100")));
+
+                    final XMLAttributeIndex idIndex = createDocument.run().getAttributeIndex("id");
+                    final Iterable<XMLElement> elements = idIndex.getElements("b");
+                    test.assertEqual(2, elements.getCount());
+                    test.assertEqual(Iterable.create("100", "1e1"), elements.map((XMLElement element) -> element.getAttributeValue("total").await()));
+                });
+
+                runner.test("with returned elements", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("id");
+                    final Iterable<XMLElement> elements = index.getElements("b");
+                    test.assertFalse(elements instanceof List);
+                    test.assertEqual(2, index.getElements("b").getCount());
+                });
+            });
+
+            runner.testGroup("getFirstElement(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("id");
+                    test.assertThrows(() -> index.getFirstElement(null),
+                        new PreConditionFailure("attributeValue cannot be null."));
+                });
+
+                runner.test("with unknown value", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("id");
+                    test.assertThrows(() -> index.getFirstElement("d").await(),
+                        new NotFoundException("No element found with a \"id\" attribute with the value \"d\"."));
+                });
+
+                runner.test("with repeated value", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("id");
+                    test.assertEqual("100", index.getFirstElement("b").await().getAttributeValue("total").await());
+                });
+            });
+
+            runner.testGroup("getElementsInRange(String,String)", () ->
+            {
+                runner.test("with null minimumValue", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("id");
+                    test.assertThrows(() -> index.getElementsInRange(null, "b"),
+                        new PreConditionFailure("minimumValue cannot be null."));
+                });
+
+                runner.test("with minimumValue greater than maximumValue", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("id");
+                    test.assertThrows(() -> index.getElementsInRange("c", "b"),
+                        new PreConditionFailure("minimumValue.compareTo(maximumValue) <= 0 cannot be false."));
+                });
+
+                runner.test("with values", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("id");
+                    test.assertEqual(Iterable.create("item:a1", "order:b", "order:b"), getIds.run(index.getElementsInRange("a0", "b")));
+                    test.assertEqual(Iterable.create("order:a", "item:a1", "order:b", "order:b", "order:c"), getIds.run(index.getElementsInRange("", "z")));
+                    test.assertEqual(Iterable.create(), getIds.run(index.getElementsInRange("d", "z")));
+                });
+            });
+
+            runner.testGroup("getElementsInRange(double,double)", () ->
+            {
+                runner.test("with minimumValue greater than maximumValue", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("total");
+                    test.assertThrows(() -> index.getElementsInRange(2, 1),
+                        new PreConditionFailure("minimumValue <= maximumValue cannot be false."));
+                });
+
+                runner.test("with values", (Test test) ->
+                {
+                    final XMLAttributeIndex index = createDocument.run().getAttributeIndex("total");
+                    final Function1<Iterable<XMLElement>,Iterable<String>> getTotals = (Iterable<XMLElement> elements) ->
+                    {
+                        return elements.map((XMLElement element) -> element.getAttributeValue("total").await());
+                    };
+                    test.assertEqual(Iterable.create("2.5", "10", "1e1"), getTotals.run(index.getElementsInRange(0, 10)));
+                    test.assertEqual(Iterable.create("-3", "2.5", "10", "1e1", "100"), getTotals.run(index.getElementsInRange(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)));
+                    test.assertEqual(Iterable.create(), getTotals.run(index.getElementsInRange(11, 99)));
+                });
+
+                runner.test("with values that aren't plain decimal numbers", (Test test) ->
+                {
+                    final XMLElement root = XMLElement.create("values");
+                    for (final String value : Iterable.create("5f", "2d", "0x1p3", "Infinity", "-Infinity", "NaN", "1e", "e1", ".", "+", "1.2.3", "1 2", "", " 4 ", "-.5", "6.", "+7E+1"))
+                    {
+                        root.addChild(XMLElement.create("value").setAttribute("v", value));
+                    }
+                    final XMLAttributeIndex index = XMLDocument.create().setRoot(root).getAttributeIndex("v");
+                    test.assertEqual(Iterable.create("-.5", " 4 ", "6.", "+7E+1"),
+                        index.getElementsInRange(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY).map((XMLElement element) -> element.getAttributeValue("v").await()));
+                });
+            });
+
+            runner.testGroup("with changes", () ->
+            {
+                runner.test("with setAttribute(String,String) on an indexed element", (Test test) ->
+                {
+                    final XMLDocument document = createDocument.run();
+                    final XMLAttributeIndex index = document.getAttributeIndex("id");
+                    final XMLElement element = index.getFirstElement("c").await();
+                    element.setAttribute("id", "d");
+                    test.assertEqual(Iterable.create(), index.getElements("c"));
+                    test.assertSame(element, index.getFirstElement("d").await());
+                });
+
+                runner.test("with setAttribute(String,String) on an element without the attribute", (Test test) ->
+                {
+                    final XMLDocument document = createDocument.run();
+                    final XMLAttributeIndex index = document.getAttributeIndex("total");
+                    test.assertEqual(Iterable.create(), index.getElements("5"));
+                    final XMLElement item = document.getRoot().getFirstElementChild("order").await().getFirstElementChild("item").await();
+                    item.setAttribute("total", "5");
+                    test.assertSame(item, index.getFirstElement("5").await());
+                    test.assertEqual(Iterable.create(), index.getElements("2.5"));
+                });
+
+                runner.test("with setAttribute(String,String) for another attribute", (Test test) ->
+                {
+                    final XMLDocument document = createDocument.run();
+                    final XMLAttributeIndex idIndex = document.getAttributeIndex("id");
+                    final XMLAttributeIndex totalIndex = document.getAttributeIndex("total");
+                    final XMLElement element = idIndex.getFirstElement("c").await();
+                    test.assertSame(element, totalIndex.getFirstElement("-3").await());
+                    element.setAttribute("other", "x");
+                    element.setAttribute("total", "7");
+                    test.assertSame(element, totalIndex.getFirstElement("7").await());
+                    element.setAttribute("id", "e");
+                    test.assertSame(element, idIndex.getFirstElement("e").await());
+                });
+
+                runner.test("with removeAttribute(String)", (Test test) ->
+                {
+                    final XMLDocument document = createDocument.run();
+                    final XMLAttributeIndex index = document.getAttributeIndex("id");
+                    index.getFirstElement("a").await().removeAttribute("id").await();
+                    test.assertEqual(Iterable.create(), index.getElements("a"));
+                    test.assertEqual(Iterable.create("item:a1", "order:b", "order:b", "order:c"), getIds.run(index.getElementsInRange("", "z")));
+                });
+
+                runner.test("with clearAttributes()", (Test test) ->
+                {
+                    final XMLDocument document = createDocument.run();
+                    final XMLAttributeIndex index = document.getAttributeIndex("total");
+                    test.assertEqual(5, index.getElementsInRange(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY).getCount());
+                    index.getFirstElement("100").await().clearAttributes();
+                    test.assertEqual(4, index.getElementsInRange(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY).getCount());
+                });
+
+                runner.test("with addChild(XMLElementChild)", (Test test) ->
+                {
+                    final XMLDocument document = createDocument.run();
+                    final XMLAttributeIndex index = document.getAttributeIndex("id");
+                    test.assertEqual(Iterable.create(), index.getElements("d"));
+                    final XMLElement element = XMLElement.create("order").setAttribute("id", "d");
+                    index.getFirstElement("c").await().addChild(element);
+                    test.assertSame(element, index.getFirstElement("d").await());
+                });
+
+                runner.test("with removeChild(XMLElementChild)", (Test test) ->
+                {
+                    final XMLDocument document = createDocument.run();
+                    final XMLAttributeIndex index = document.getAttributeIndex("id");
+                    final XMLElement element = index.getFirstElement("a").await();
+                    document.getRoot().removeChild(element).await();
+                    test.assertEqual(Iterable.create(), index.getElements("a"));
+                    test.assertEqual(Iterable.create(), index.getElements("a1"));
+
+                    element.setAttribute("id", "x");
+                    test.assertEqual(Iterable.create(), index.getElements("x"));
+                });
+
+                runner.test("with removeElementChildren(String)", (Test test) ->
+                {
+                    final XMLDocument document = createDocument.run();
+                    final XMLAttributeIndex index = document.getAttributeIndex("id");
+                    test.assertEqual(5, index.getElementsInRange("", "z").getCount());
+                    document.getRoot().removeElementChildren("order").await();
+                    test.assertEqual(Iterable.create(), index.getElementsInRange("", "z"));
+                });
+
+                runner.test("with indexes read by many threads", (Test test) ->
+                {
+                    final XMLElement root = XMLElement.create("orders");
+                    for (int i = 0; i < 1000; ++i)
+                    {
+                        root.addChild(XMLElement.create("order")
+                            .setAttribute("id", "o" + i)
+                            .setAttribute("total", Integer.toString(i)));
+                    }
+                    final XMLDocument document = XMLDocument.create().setRoot(root);
+                    final XMLAttributeIndex idIndex = document.getAttributeIndex("id");
+                    final XMLAttributeIndex totalIndex = document.getAttributeIndex("total");
+
+                    final List<Thread> threads = List.create();
+                    for (int i = 0; i < 8; ++i)
+                    {
+                        final XMLAttributeIndex index = (i % 2 == 0 ? idIndex : totalIndex);
+                        threads.add(new Thread(() -> index.getElementsInRange("", "z")));
+                    }
+                    for (final Thread thread : threads)
+                    {
+                        thread.start();
+                    }
+                    for (final Thread thread : threads)
+                    {
+                        try
+                        {
+                            thread.join();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            test.fail(e.getMessage());
+                        }
+                    }
+
+                    final Indexable<XMLElementChild> orders = root.getChildren();
+                    for (int i = 0; i < orders.getCount(); ++i)
+                    {
+                        final XMLElement order = (XMLElement)orders.get(i);
+                        order.setAttribute("id", "p" + i);
+                        order.setAttribute("total", Integer.toString(-i - 1));
+                        test.assertSame(order, idIndex.getFirstElement("p" + i).await());
+                        test.assertSame(order, totalIndex.getFirstElement(Integer.toString(-i - 1)).await());
+                    }
+                    test.assertEqual(Iterable.create(), idIndex.getElementsInRange("o", "p"));
+                    test.assertEqual(Iterable.create(), totalIndex.getElementsInRange(0, 1000));
+                });
+
+                runner.test("with clearChildren()", (Test test) ->
+                {
+                    final XMLDocument document = createDocument.run();
+                    final XMLAttributeIndex index = document.getAttributeIndex("id");
+                    test.assertEqual(2, index.getElements("b").getCount());
+                    document.getRoot().clearChildren();
+                    test.assertEqual(Iterable.create(), index.getElements("b"));
+                });
+            });
+        });
+    }
+}
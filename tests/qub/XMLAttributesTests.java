@@ -0,0 +1,152 @@
+package qub;
+
+public interface XMLAttributesTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLAttributes.class, () ->
+        {
+            runner.test("constructor(XMLParser)", (Test test) ->
+            {
+                test.assertThrows(() -> new XMLAttributes(null),
+                    new PreConditionFailure("parser cannot be null."));
+            });
+
+            runner.testGroup("getCount()", () ->
+            {
+                final Action2<String,Integer> getCountTest = (String text, Integer expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        final XMLAttributes attributes = XMLAttributesTests.startRoot(text);
+                        test.assertEqual(expected, attributes.getCount());
+                        test.assertEqual(expected > 0, attributes.any());
+                    });
+                };
+
+                getCountTest.run("<a/>", 0);
+                getCountTest.run("<a b='c'/>", 1);
+                getCountTest.run("<a b='c' d=\"e\">", 2);
+            });
+
+            runner.testGroup("getName(int)", () ->
+            {
+                runner.test("with negative index", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a b='c'/>");
+                    test.assertThrows(() -> attributes.getName(-1),
+                        new PreConditionFailure("index (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with index equal to count", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a b='c'/>");
+                    test.assertThrows(() -> attributes.getName(1),
+                        new PreConditionFailure("index (1) must be less than 1."));
+                });
+
+                runner.test("with valid indexes", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a b='c' d='e'/>");
+                    test.assertEqual("b", attributes.getName(0));
+                    test.assertEqual("d", attributes.getName(1));
+                });
+            });
+
+            runner.testGroup("nameEquals(int,String)", () ->
+            {
+                runner.test("with null name", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a b='c'/>");
+                    test.assertThrows(() -> attributes.nameEquals(0, null),
+                        new PreConditionFailure("name cannot be null."));
+                });
+
+                runner.test("with valid index", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a bc='d'/>");
+                    test.assertTrue(attributes.nameEquals(0, "bc"));
+                    test.assertFalse(attributes.nameEquals(0, "b"));
+                    test.assertFalse(attributes.nameEquals(0, "bcd"));
+                });
+            });
+
+            runner.testGroup("getValue(int)", () ->
+            {
+                runner.test("with index equal to count", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a/>");
+                    test.assertThrows(() -> attributes.getValue(0),
+                        new PreConditionFailure("index (0) must be less than 0."));
+                });
+
+                runner.test("with valid indexes", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a b='c' d=\"\"/>");
+                    test.assertEqual("c", attributes.getValue(0));
+                    test.assertEqual("", attributes.getValue(1));
+                });
+            });
+
+            runner.testGroup("contains(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a/>");
+                    test.assertThrows(() -> attributes.contains(null),
+                        new PreConditionFailure("attributeName cannot be null."));
+                });
+
+                runner.test("with existing and non-existing names", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a b='c'/>");
+                    test.assertTrue(attributes.contains("b"));
+                    test.assertFalse(attributes.contains("c"));
+                });
+            });
+
+            runner.testGroup("getValue(String)", () ->
+            {
+                runner.test("with empty", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a/>");
+                    test.assertThrows(() -> attributes.getValue(""),
+                        new PreConditionFailure("attributeName cannot be empty."));
+                });
+
+                runner.test("with non-existing name", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a b='c'/>");
+                    test.assertThrows(() -> attributes.getValue("d").await(),
+                        new NotFoundException("Couldn't find an attribute named \"d\" in the element."));
+                });
+
+                runner.test("with repeated name", (Test test) ->
+                {
+                    final XMLAttributes attributes = XMLAttributesTests.startRoot("<a b='c' b='d'/>");
+                    test.assertEqual("d", attributes.getValue("b").await());
+                });
+
+                runner.test("with UTF-8 bytes", (Test test) ->
+                {
+                    final XMLByteParser parser = XMLByteParser.create("<a é='ö'/>".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    test.assertEqual(XMLEventType.StartElement, parser.readNext());
+                    final XMLAttributes attributes = new XMLAttributes(parser);
+                    test.assertEqual("ö", attributes.getValue("é").await());
+                    test.assertTrue(attributes.nameEquals(0, "é"));
+                    test.assertFalse(attributes.nameEquals(0, "è"));
+                });
+            });
+        });
+    }
+
+    /**
+     * Create an XMLAttributes view over the attributes of the root element of the provided text.
+     */
+    static XMLAttributes startRoot(String text)
+    {
+        final XMLCharacterParser parser = XMLCharacterParser.create(text);
+        PreCondition.assertTrue(parser.readNext() == XMLEventType.StartElement, "parser.readNext() == XMLEventType.StartElement");
+        return new XMLAttributes(parser);
+    }
+}
@@ -0,0 +1,99 @@
+package qub;
+
+public interface XMLByteParserTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLByteParser.class, () ->
+        {
+            runner.testGroup("create(byte[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLByteParser.create((byte[])null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+            });
+
+            runner.testGroup("create(ByteBuffer)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLByteParser.create((java.nio.ByteBuffer)null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+            });
+
+            runner.testGroup("create(XMLStructuralIndex)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLByteParser.create((XMLStructuralIndex)null),
+                        new PreConditionFailure("structuralIndex cannot be null."));
+                });
+            });
+
+            runner.testGroup("parseDocument()", () ->
+            {
+                final Action2<byte[],Throwable> parseDocumentErrorTest = (byte[] bytes, Throwable expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(new String(bytes, java.nio.charset.StandardCharsets.UTF_8)), (Test test) ->
+                    {
+                        test.assertThrows(() -> XMLByteParser.create(bytes).parseDocument(), expected);
+                        test.assertThrows(() -> XMLByteParser.create(XMLStructuralIndex.create(bytes)).parseDocument(), expected);
+                    });
+                };
+
+                parseDocumentErrorTest.run(new byte[] { '<', (byte)0xC3 }, new ParseException("Unexpected tag name start character: " + Characters.escapeAndQuote((char)0xFFFF)));
+                parseDocumentErrorTest.run(new byte[] { '<', (byte)0xC3, 'a' }, new ParseException("Unexpected tag name start character: " + Characters.escapeAndQuote((char)0xFFFF)));
+                parseDocumentErrorTest.run(new byte[] { '<', (byte)0xE2, (byte)0x80, (byte)0x8B, '/', '>' }, new ParseException("Unexpected tag name start character: " + Characters.escapeAndQuote((char)0x200B)));
+                parseDocumentErrorTest.run(new byte[] { '<', 'a', (byte)0xE2, (byte)0x80, (byte)0x8B, '/', '>' }, new ParseException("Expected start tag right angle bracket ('>')."));
+                parseDocumentErrorTest.run(new byte[] { '<', (byte)0xC1, (byte)0xA1, '/', '>' }, new ParseException("Unexpected tag name start character: " + Characters.escapeAndQuote((char)0xFFFF)));
+                parseDocumentErrorTest.run(new byte[] { '<', 'a', (byte)0xC1, (byte)0xA1, '/', '>' }, new ParseException("Expected start tag right angle bracket ('>')."));
+                parseDocumentErrorTest.run(new byte[] { '<', (byte)0xE0, (byte)0x81, (byte)0xA1, '/', '>' }, new ParseException("Unexpected tag name start character: " + Characters.escapeAndQuote((char)0xFFFF)));
+                parseDocumentErrorTest.run(new byte[] { '<', (byte)0xF0, (byte)0x80, (byte)0x81, (byte)0xA1, '/', '>' }, new ParseException("Unexpected tag name start character: " + Characters.escapeAndQuote((char)0xFFFF)));
+                parseDocumentErrorTest.run(new byte[] { '<', 'a', (byte)0xED, (byte)0xA0, (byte)0x80, '/', '>' }, new ParseException("Expected start tag right angle bracket ('>')."));
+                parseDocumentErrorTest.run(new byte[] { '<', 'a', (byte)0xF4, (byte)0x90, (byte)0x80, (byte)0x80, '/', '>' }, new ParseException("Expected start tag right angle bracket ('>')."));
+
+                final Action2<String,XMLDocument> parseDocumentTest = (String text, XMLDocument expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        final byte[] bytes = text.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                        test.assertEqual(expected, XMLByteParser.create(bytes).parseDocument());
+
+                        final java.nio.ByteBuffer directBytes = java.nio.ByteBuffer.allocateDirect(bytes.length);
+                        directBytes.put(bytes);
+                        directBytes.flip();
+                        test.assertEqual(expected, XMLByteParser.create(directBytes).parseDocument());
+                        test.assertEqual(expected, XMLByteParser.create(XMLStructuralIndex.create(directBytes)).parseDocument());
+                    });
+                };
+
+                parseDocumentTest.run("", XMLDocument.create());
+                parseDocumentTest.run("\uFEFF", XMLDocument.create());
+                parseDocumentTest.run("\uFEFF<a/>", XMLDocument.create().setRoot(XMLElement.create("a")));
+                parseDocumentTest.run(
+                    "<\u00E9\u4E2D \u00E4='\u00F6'>\u00FC</\u00E9\u4E2D>",
+                    XMLDocument.create()
+                        .setRoot(XMLElement.create("\u00E9\u4E2D")
+                            .setAttribute("\u00E4", "\u00F6")
+                            .addChild(XMLText.create("\u00FC"))));
+                parseDocumentTest.run(
+                    "<a>\uD83D\uDE00<![CDATA[\u20AC]]></a>",
+                    XMLDocument.create()
+                        .setRoot(XMLElement.create("a")
+                            .addChild(XMLText.create("\uD83D\uDE00"))
+                            .addChild(XMLCData.create("\u20AC"))));
+                parseDocumentTest.run(
+                    "<a b='x\"y>z' c=\"'>&\">text with > and &amp; in it<!-- a > b -- c --><![CDATA[ ] > ]] >]]></a>",
+                    XMLDocument.create()
+                        .setRoot(XMLElement.create("a")
+                            .setAttribute("b", "x\"y>z")
+                            .setAttribute("c", "'>&")
+                            .addChild(XMLText.create("text with > and &amp; in it"))
+                            .addChild(XMLCData.create(" ] > ]] >"))));
+            });
+        });
+    }
+}
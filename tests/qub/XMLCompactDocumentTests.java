@@ -0,0 +1,131 @@
+package qub;
+
+public interface XMLCompactDocumentTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLCompactDocument.class, () ->
+        {
+            runner.testGroup("parse(XMLParser)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLCompactDocument.parse(null),
+                        new PreConditionFailure("parser cannot be null."));
+                });
+
+                final Action1<String> parseTest = (String text) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        final XMLDocument expected = XML.parse(text).await();
+                        test.assertEqual(expected, XMLCompactDocument.parse(XMLCharacterParser.create(text)).toXMLDocument());
+                        test.assertEqual(expected, XMLCompactDocument.parse(XMLByteParser.create(text.getBytes(java.nio.charset.StandardCharsets.UTF_8))).toXMLDocument());
+                    });
+                };
+
+                parseTest.run("");
+                parseTest.run("<a/>");
+                parseTest.run("<?xml version=\"1.0\" encoding=\"utf-8\"?><a/>");
+                parseTest.run("<a b=\"c\" d='e'></a>");
+                parseTest.run("<a>text</a>");
+                parseTest.run("<a>\n  <!-- comment -->\n  <b/>\n  <c>d<![CDATA[e]]>f</c>\n</a>");
+                parseTest.run("<é x=\"中\"><é><b é=\"1\"/></é><b/></é>");
+                parseTest.run("<a><b><c><d><e/></d></c></b><b/><f>g</f></a>");
+
+                runner.test("with error", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLCompactDocument.parse(XMLCharacterParser.create("<a><b></a>")),
+                        new ParseException("Expected an end tag with the name same as the current element."));
+                });
+
+                runner.test("with many distinct names", (Test test) ->
+                {
+                    final StringBuilder text = new StringBuilder("<root>");
+                    for (int i = 0; i < 1000; ++i)
+                    {
+                        text.append("<e").append(i).append(" a").append(i % 7).append("=\"").append(i).append("\"/>");
+                    }
+                    text.append("</root>");
+
+                    final XMLCompactDocument document = XMLCompactDocument.parse(XMLCharacterParser.create(text.toString()));
+                    test.assertEqual(1001, document.getNodeCount());
+                    test.assertEqual(XML.parse(text.toString()).await(), document.toXMLDocument());
+                });
+            });
+
+            runner.test("node getters", (Test test) ->
+            {
+                final XMLCompactDocument document = XML.parseCompact("<a x=\"1\" y=\"2\">b<c/><![CDATA[d]]><c z=\"3\">e</c></a>").await();
+                test.assertEqual(6, document.getNodeCount());
+                test.assertNull(document.getDeclaration());
+
+                test.assertTrue(document.isElement(0));
+                test.assertTrue(document.isSplit(0));
+                test.assertEqual("a", document.getName(0));
+                test.assertEqual(-1, document.getParent(0));
+                test.assertEqual(-1, document.getNextSibling(0));
+                test.assertEqual(1, document.getFirstChild(0));
+                test.assertEqual(2, document.getAttributeCount(0));
+                test.assertEqual("x", document.getAttributeName(0, 0));
+                test.assertEqual("1", document.getAttributeValue(0, 0));
+                test.assertEqual("y", document.getAttributeName(0, 1));
+                test.assertEqual("2", document.getAttributeValue(0, 1));
+                test.assertEqual(1, document.indexOfAttribute(0, "y"));
+                test.assertEqual(-1, document.indexOfAttribute(0, "z"));
+
+                test.assertTrue(document.isText(1));
+                test.assertEqual("b", document.getText(1));
+                test.assertEqual(0, document.getParent(1));
+                test.assertEqual(2, document.getNextSibling(1));
+
+                test.assertTrue(document.isElement(2));
+                test.assertFalse(document.isSplit(2));
+                test.assertEqual(-1, document.getFirstChild(2));
+                test.assertEqual(3, document.getNextSibling(2));
+
+                test.assertTrue(document.isCData(3));
+                test.assertEqual("d", document.getText(3));
+                test.assertEqual(4, document.getNextSibling(3));
+
+                test.assertEqual("c", document.getName(4));
+                test.assertEqual(5, document.getFirstChild(4));
+                test.assertEqual(-1, document.getNextSibling(4));
+                test.assertEqual("e", document.getText(5));
+                test.assertEqual(4, document.getParent(5));
+            });
+
+            runner.test("with invalid nodes", (Test test) ->
+            {
+                final XMLCompactDocument document = XML.parseCompact("<a>b</a>").await();
+                test.assertThrows(() -> document.isElement(-1),
+                    new PreConditionFailure("node (-1) must be greater than or equal to 0."));
+                test.assertThrows(() -> document.getParent(2),
+                    new PreConditionFailure("node (2) must be less than 2."));
+                test.assertThrows(() -> document.getName(1),
+                    new PreConditionFailure("this.isElement(element) cannot be false."));
+                test.assertThrows(() -> document.getText(0),
+                    new PreConditionFailure("this.isElement(node) cannot be true."));
+                test.assertThrows(() -> document.getAttributeValue(0, 0),
+                    new PreConditionFailure("attributeIndex (0) must be less than 0."));
+            });
+
+            runner.testGroup("getRoot()", () ->
+            {
+                runner.test("with no root", (Test test) ->
+                {
+                    test.assertNull(XML.parseCompact("").await().getRoot());
+                });
+
+                runner.test("with root", (Test test) ->
+                {
+                    final XMLCompactDocument document = XML.parseCompact("<a/>").await();
+                    final XMLCompactElement root = document.getRoot();
+                    test.assertEqual("a", root.getName());
+                    test.assertEqual(0, root.getNode());
+                    test.assertTrue(root.getDocument() == document);
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package qub;
+
+public interface XMLCompactElementTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLCompactElement.class, () ->
+        {
+            final Function1<String,XMLCompactElement> parseRoot = (String text) -> XML.parseCompact(text).await().getRoot();
+
+            runner.testGroup("getAttributes()", () ->
+            {
+                runner.test("with no attributes", (Test test) ->
+                {
+                    test.assertEqual(Iterable.create(), parseRoot.run("<a/>").getAttributes());
+                });
+
+                runner.test("with attributes", (Test test) ->
+                {
+                    test.assertEqual(
+                        Iterable.create(XMLAttribute.create("b", "c"), XMLAttribute.create("d", "e")),
+                        parseRoot.run("<a b=\"c\" d='e'/>").getAttributes());
+                });
+            });
+
+            runner.testGroup("getAttributeValue(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> parseRoot.run("<a/>").getAttributeValue(null),
+                        new PreConditionFailure("attributeName cannot be null."));
+                });
+
+                runner.test("with missing attribute", (Test test) ->
+                {
+                    final XMLCompactElement element = parseRoot.run("<a b=\"c\"/>");
+                    test.assertFalse(element.containsAttribute("d"));
+                    test.assertThrows(() -> element.getAttributeValue("d").await(),
+                        new NotFoundException("Couldn't find an attribute named \"d\" in the element."));
+                });
+
+                runner.test("with existing attribute", (Test test) ->
+                {
+                    final XMLCompactElement element = parseRoot.run("<a b=\"c\"/>");
+                    test.assertTrue(element.containsAttribute("b"));
+                    test.assertEqual("c", element.getAttributeValue("b").await());
+                });
+            });
+
+            runner.test("getParent()", (Test test) ->
+            {
+                final XMLCompactElement root = parseRoot.run("<a><b/></a>");
+                test.assertNull(root.getParent());
+                final XMLCompactElement child = root.getElementChildren().first();
+                test.assertEqual(root, child.getParent());
+            });
+
+            runner.testGroup("getElementChildren()", () ->
+            {
+                runner.test("with no children", (Test test) ->
+                {
+                    test.assertEqual(Iterable.create(), parseRoot.run("<a>text</a>").getElementChildren());
+                });
+
+                runner.test("with children", (Test test) ->
+                {
+                    final XMLCompactElement root = parseRoot.run("<a><b/>text<c><d/></c><b x=\"1\"/></a>");
+                    test.assertEqual(Iterable.create("b", "c", "b"), root.getElementChildren().map(XMLCompactElement::getName));
+                    test.assertEqual(Iterable.create(1, 5), root.getElementChildren("b").map(XMLCompactElement::getNode));
+                    test.assertEqual(Iterable.create(), root.getElementChildren("d"));
+                });
+            });
+
+            runner.testGroup("getFirstElementChild(String)", () ->
+            {
+                runner.test("with missing child", (Test test) ->
+                {
+                    test.assertThrows(() -> parseRoot.run("<a><b/></a>").getFirstElementChild("c").await(),
+                        new NotFoundException("No XML element children found with the name \"c\"."));
+                });
+
+                runner.test("with existing child", (Test test) ->
+                {
+                    final XMLCompactElement child = parseRoot.run("<a>text<b x=\"1\"/><b x=\"2\"/></a>").getFirstElementChild("b").await();
+                    test.assertEqual("1", child.getAttributeValue("x").await());
+                });
+            });
+
+            runner.testGroup("getText()", () ->
+            {
+                final Action1<String> getTextTest = (String text) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        test.assertEqual(XML.parse(text).await().getRoot().getText(), parseRoot.run(text).getText());
+                    });
+                };
+
+                getTextTest.run("<a/>");
+                getTextTest.run("<a>b</a>");
+                getTextTest.run("<a>b<c>d<e>f</e></c><![CDATA[g]]>h</a>");
+                getTextTest.run("<a><b>c</b><d>e</d></a>");
+            });
+
+            runner.test("toXMLElement()", (Test test) ->
+            {
+                final String text = "<a b=\"c\"><d>e</d><f/></a>";
+                test.assertEqual(XML.parse(text).await().getRoot(), parseRoot.run(text).toXMLElement());
+                test.assertEqual(
+                    XMLElement.create("d", true).addChild(XMLText.create("e")),
+                    parseRoot.run(text).getFirstElementChild("d").await().toXMLElement());
+            });
+
+            runner.test("equals(Object)", (Test test) ->
+            {
+                final XMLCompactDocument document = XML.parseCompact("<a><b/></a>").await();
+                test.assertEqual(document.getRoot(), document.getRoot());
+                test.assertNotEqual(document.getRoot(), XML.parseCompact("<a><b/></a>").await().getRoot());
+                test.assertNotEqual(document.getRoot(), document.getRoot().getElementChildren().first());
+            });
+        });
+    }
+}
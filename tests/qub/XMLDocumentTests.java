@@ -56,6 +56,43 @@ public interface XMLDocumentTests
                     XMLElement.create("b"));
             });
 
+            runner.testGroup("getAttributeIndex(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLDocument document = XMLDocument.create();
+                    test.assertThrows(() -> document.getAttributeIndex(null),
+                        new PreConditionFailure("attributeName cannot be null."));
+                });
+
+                runner.test("with empty", (Test test) ->
+                {
+                    final XMLDocument document = XMLDocument.create();
+                    test.assertThrows(() -> document.getAttributeIndex(""),
+                        new PreConditionFailure("attributeName cannot be empty."));
+                });
+
+                runner.test("with same name twice", (Test test) ->
+                {
+                    final XMLDocument document = XMLDocument.create();
+                    final XMLAttributeIndex index = document.getAttributeIndex("id");
+                    test.assertEqual("id", index.getAttributeName());
+                    test.assertSame(index, document.getAttributeIndex("id"));
+                    test.assertNotSame(index, document.getAttributeIndex("key"));
+                });
+
+                runner.test("after setRoot(XMLElement)", (Test test) ->
+                {
+                    final XMLDocument document = XMLDocument.create()
+                        .setRoot(XMLElement.create("a").setAttribute("id", "1"));
+                    final XMLAttributeIndex index = document.getAttributeIndex("id");
+                    test.assertEqual("a", index.getFirstElement("1").await().getName());
+
+                    document.setRoot(XMLElement.create("b").setAttribute("id", "1"));
+                    test.assertEqual("b", index.getFirstElement("1").await().getName());
+                });
+            });
+
             runner.testGroup("toString() with no format", () ->
             {
                 final Action2<XMLDocument,String> toStringTest = (XMLDocument document, String expected) ->
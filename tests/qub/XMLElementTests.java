@@ -259,6 +259,184 @@ public interface XMLElementTests
                 });
             });
 
+            runner.testGroup("getAttributeCount()", () ->
+            {
+                runner.test("with no attributes", (Test test) ->
+                {
+                    test.assertEqual(0, XMLElement.create("a").getAttributeCount());
+                });
+
+                runner.test("with overwritten attribute", (Test test) ->
+                {
+                    final XMLElement element = XMLElement.create("a")
+                        .setAttribute("b", "c")
+                        .setAttribute("d", "e")
+                        .setAttribute("b", "f");
+                    test.assertEqual(2, element.getAttributeCount());
+                    test.assertEqual("f", element.getAttributeValue("b").await());
+                });
+            });
+
+            runner.testGroup("getAttributeNameAt(int)", () ->
+            {
+                runner.test("with negative index", (Test test) ->
+                {
+                    final XMLElement element = XMLElement.create("a");
+                    test.assertThrows(() -> element.getAttributeNameAt(-1),
+                        new PreConditionFailure("attributeIndex (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with index equal to count", (Test test) ->
+                {
+                    final XMLElement element = XMLElement.create("a");
+                    test.assertThrows(() -> element.getAttributeNameAt(0),
+                        new PreConditionFailure("attributeIndex (0) must be less than 0."));
+                });
+
+                runner.test("with attributes", (Test test) ->
+                {
+                    final XMLElement element = XMLElement.create("a")
+                        .setAttribute("c", "1")
+                        .setAttribute("b", "2");
+                    test.assertEqual("c", element.getAttributeNameAt(0));
+                    test.assertEqual("b", element.getAttributeNameAt(1));
+                });
+            });
+
+            runner.testGroup("getAttributeValueAt(int)", () ->
+            {
+                runner.test("with index equal to count", (Test test) ->
+                {
+                    final XMLElement element = XMLElement.create("a")
+                        .setAttribute("b", "c");
+                    test.assertThrows(() -> element.getAttributeValueAt(1),
+                        new PreConditionFailure("attributeIndex (1) must be less than 1."));
+                });
+
+                runner.test("with attributes", (Test test) ->
+                {
+                    final XMLElement element = XMLElement.create("a")
+                        .setAttribute("c", "1")
+                        .setAttribute("b", "2");
+                    test.assertEqual("1", element.getAttributeValueAt(0));
+                    test.assertEqual("2", element.getAttributeValueAt(1));
+                });
+
+                runner.test("with lazily parsed element", (Test test) ->
+                {
+                    final XMLElement element = XML.parseLazily("<a b=\"c\" d=\"e\"/>").await().getRoot();
+                    test.assertEqual(2, element.getAttributeCount());
+                    test.assertEqual("b", element.getAttributeNameAt(0));
+                    test.assertEqual("c", element.getAttributeValueAt(0));
+                    test.assertEqual("e", element.getAttributeValueAt(1));
+                });
+            });
+
+            runner.testGroup("forEachAttribute(Action2<String,String>)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLElement element = XMLElement.create("a");
+                    test.assertThrows(() -> element.forEachAttribute(null),
+                        new PreConditionFailure("action cannot be null."));
+                });
+
+                runner.test("with no attributes", (Test test) ->
+                {
+                    final List<String> visited = List.create();
+                    XMLElement.create("a").forEachAttribute((String name, String value) -> visited.add(name + "=" + value));
+                    test.assertEqual(Iterable.create(), visited);
+                });
+
+                runner.test("with attributes", (Test test) ->
+                {
+                    final XMLElement element = XMLElement.create("a")
+                        .setAttribute("c", "1")
+                        .setAttribute("b", "2");
+                    final List<String> visited = List.create();
+                    element.forEachAttribute((String name, String value) -> visited.add(name + "=" + value));
+                    test.assertEqual(Iterable.create("c=1", "b=2"), visited);
+                });
+            });
+
+            runner.testGroup("with many attributes", () ->
+            {
+                final Function1<Integer,XMLElement> createElement = (Integer attributeCount) ->
+                {
+                    final XMLElement result = XMLElement.create("a");
+                    for (int i = 0; i < attributeCount; ++i)
+                    {
+                        result.setAttribute("attribute" + i, "value" + i);
+                    }
+                    return result;
+                };
+
+                runner.test("with set and get", (Test test) ->
+                {
+                    final XMLElement element = createElement.run(100);
+                    test.assertEqual(100, element.getAttributeCount());
+                    for (int i = 0; i < 100; ++i)
+                    {
+                        test.assertEqual("attribute" + i, element.getAttributeNameAt(i));
+                        test.assertEqual("value" + i, element.getAttributeValue("attribute" + i).await());
+                    }
+                    test.assertFalse(element.containsAttribute("attribute100"));
+                });
+
+                runner.test("with overwritten attributes", (Test test) ->
+                {
+                    final XMLElement element = createElement.run(20);
+                    element.setAttribute("attribute3", "x");
+                    element.setAttribute("attribute15", "y");
+                    test.assertEqual(20, element.getAttributeCount());
+                    test.assertEqual("x", element.getAttributeValueAt(3));
+                    test.assertEqual("y", element.getAttributeValue("attribute15").await());
+                });
+
+                runner.test("with removed attributes", (Test test) ->
+                {
+                    final XMLElement element = createElement.run(12);
+                    for (int i = 0; i < 12; i += 2)
+                    {
+                        test.assertEqual(XMLAttribute.create("attribute" + i, "value" + i), element.removeAttribute("attribute" + i).await());
+                    }
+                    test.assertEqual(6, element.getAttributeCount());
+                    for (int i = 0; i < 12; ++i)
+                    {
+                        test.assertEqual(i % 2 == 1, element.containsAttribute("attribute" + i));
+                    }
+                    test.assertEqual("attribute1", element.getAttributeNameAt(0));
+                    test.assertEqual("attribute11", element.getAttributeNameAt(5));
+
+                    element.setAttribute("attribute0", "z");
+                    test.assertEqual("attribute0", element.getAttributeNameAt(6));
+                    test.assertEqual("z", element.getAttributeValue("attribute0").await());
+                });
+
+                runner.test("with clearAttributes()", (Test test) ->
+                {
+                    final XMLElement element = createElement.run(20);
+                    element.clearAttributes();
+                    test.assertEqual(0, element.getAttributeCount());
+                    test.assertFalse(element.containsAttribute("attribute0"));
+                    element.setAttribute("attribute0", "a");
+                    test.assertEqual("a", element.getAttributeValue("attribute0").await());
+                });
+
+                runner.test("with equals() in a different order", (Test test) ->
+                {
+                    final XMLElement lhs = createElement.run(20);
+                    final XMLElement rhs = XMLElement.create("a");
+                    for (int i = 19; i >= 0; --i)
+                    {
+                        rhs.setAttribute("attribute" + i, "value" + i);
+                    }
+                    test.assertEqual(lhs, rhs);
+                    rhs.setAttribute("attribute7", "other");
+                    test.assertNotEqual(lhs, rhs);
+                });
+            });
+
             runner.testGroup("getElementChildren()", () ->
             {
                 final Action2<XMLElement,Iterable<XMLElement>> getElementChildrenTest = (XMLElement element, Iterable<XMLElement> expected) ->
@@ -937,6 +1115,120 @@ public interface XMLElementTests
                 });
             });
 
+            runner.testGroup("with many children", () ->
+            {
+                final Function0<XMLElement> createElement = () ->
+                {
+                    final XMLElement result = XMLElement.create("a");
+                    for (int i = 0; i < 30; ++i)
+                    {
+                        result.addChild(XMLElement.create("child" + (i % 3)).setAttribute("i", Integer.toString(i)));
+                        result.addChild(XMLText.create(" "));
+                    }
+                    return result;
+                };
+
+                final Function2<String,Integer,Iterable<XMLElement>> createChildren = (String name, Integer firstIndex) ->
+                {
+                    final List<XMLElement> result = List.create();
+                    for (int i = firstIndex; i < 30; i += 3)
+                    {
+                        result.add(XMLElement.create(name).setAttribute("i", Integer.toString(i)));
+                    }
+                    return result;
+                };
+
+                runner.test("with getElementChildren(String)", (Test test) ->
+                {
+                    final XMLElement element = createElement.run();
+                    test.assertEqual(createChildren.run("child1", 1), element.getElementChildren("child1"));
+                    test.assertEqual(Iterable.create(), element.getElementChildren("child3"));
+                    test.assertEqual(30, element.getElementChildren().getCount());
+                });
+
+                runner.test("with getElementChildren(String) kept across changes", (Test test) ->
+                {
+                    final XMLElement element = createElement.run();
+                    final Iterable<XMLElement> child1s = element.getElementChildren("child1");
+                    final Iterable<XMLElement> child3s = element.getElementChildren("child3");
+                    test.assertEqual(10, child1s.getCount());
+                    test.assertEqual(0, child3s.getCount());
+
+                    final XMLElement child3 = XMLElement.create("child3");
+                    element.addChild(child3);
+                    test.assertEqual(10, child1s.getCount());
+                    test.assertEqual(Iterable.create(child3), child3s);
+
+                    element.clearChildren();
+                    test.assertEqual(Iterable.create(), child1s);
+                    test.assertEqual(Iterable.create(), child3s);
+
+                    for (int i = 0; i < 20; ++i)
+                    {
+                        element.addChild(XMLElement.create("child1").setAttribute("i", Integer.toString(i)));
+                    }
+                    test.assertEqual(20, child1s.getCount());
+                    test.assertEqual(0, child3s.getCount());
+                    test.assertFalse(child1s instanceof List);
+                });
+
+                runner.test("with getFirstElementChild(String)", (Test test) ->
+                {
+                    final XMLElement element = createElement.run();
+                    test.assertEqual(XMLElement.create("child2").setAttribute("i", "2"), element.getFirstElementChild("child2").await());
+                    test.assertThrows(() -> element.getFirstElementChild("child3").await(),
+                        new NotFoundException("No XML element children found with the name \"child3\"."));
+                });
+
+                runner.test("with addChild(XMLElementChild) after lookup", (Test test) ->
+                {
+                    final XMLElement element = createElement.run();
+                    test.assertThrows(() -> element.getFirstElementChild("child3").await(),
+                        new NotFoundException("No XML element children found with the name \"child3\"."));
+                    element.addChild(XMLElement.create("child3"));
+                    element.addChild(XMLElement.create("child0").setAttribute("i", "30"));
+                    test.assertEqual(XMLElement.create("child3"), element.getFirstElementChild("child3").await());
+                    test.assertEqual(11, element.getElementChildren("child0").getCount());
+                });
+
+                runner.test("with removeChild(XMLElementChild) after lookup", (Test test) ->
+                {
+                    final XMLElement element = createElement.run();
+                    test.assertEqual(XMLElement.create("child0").setAttribute("i", "0"), element.getFirstElementChild("child0").await());
+                    element.removeChild(XMLElement.create("child0").setAttribute("i", "0")).await();
+                    test.assertEqual(XMLElement.create("child0").setAttribute("i", "3"), element.getFirstElementChild("child0").await());
+                    test.assertEqual(createChildren.run("child0", 3), element.getElementChildren("child0"));
+                });
+
+                runner.test("with removeElementChildren(String) after lookup", (Test test) ->
+                {
+                    final XMLElement element = createElement.run();
+                    test.assertEqual(10, element.getElementChildren("child1").getCount());
+                    test.assertEqual(createChildren.run("child1", 1), element.removeElementChildren("child1").await());
+                    test.assertEqual(Iterable.create(), element.getElementChildren("child1"));
+                    test.assertThrows(() -> element.getFirstElementChild("child1").await(),
+                        new NotFoundException("No XML element children found with the name \"child1\"."));
+                    test.assertEqual(createChildren.run("child2", 2), element.getElementChildren("child2"));
+                });
+
+                runner.test("with clearChildren() after lookup", (Test test) ->
+                {
+                    final XMLElement element = createElement.run();
+                    test.assertEqual(10, element.getElementChildren("child1").getCount());
+                    element.clearChildren();
+                    test.assertEqual(Iterable.create(), element.getElementChildren("child1"));
+                    element.addChild(XMLElement.create("child1"));
+                    test.assertEqual(Iterable.create(XMLElement.create("child1")), element.getElementChildren("child1"));
+                });
+
+                runner.test("with lazily parsed element", (Test test) ->
+                {
+                    final XMLElement element = XML.parseLazily(createElement.run().toString()).await().getRoot();
+                    test.assertEqual(createChildren.run("child2", 2), element.getElementChildren("child2"));
+                    test.assertEqual(XMLElement.create("child1").setAttribute("i", "1"), element.getFirstElementChild("child1").await());
+                });
+            });
+
             runner.testGroup("getText()", () ->
             {
                 final Action2<XMLElement,String> getTextTest = (XMLElement element, String expected) ->
@@ -987,6 +1279,12 @@ public interface XMLElementTests
                         .addChild(XMLComment.create("c"))
                         .addChild(XMLText.create("d")),
                     "bd");
+
+                runner.test("with deeply nested elements", (Test test) ->
+                {
+                    final XMLElement element = XMLElementTests.createNestedElements(100000);
+                    test.assertEqual("b", element.getText());
+                });
             });
 
             runner.testGroup("getText(CharacterList)", () ->
@@ -1130,6 +1428,22 @@ public interface XMLElementTests
                         .addChild(XMLElement.create("my"))
                         .addChild(XMLText.create("friend")),
                     "<hey>there<my/>friend</hey>");
+
+                runner.test("with deeply nested elements", (Test test) ->
+                {
+                    final int depth = 100000;
+                    final CharacterList expected = CharacterList.create();
+                    for (int i = 0; i < depth; ++i)
+                    {
+                        expected.addAll("<a>");
+                    }
+                    expected.addAll("b");
+                    for (int i = 0; i < depth; ++i)
+                    {
+                        expected.addAll("</a>");
+                    }
+                    test.assertEqual(expected.toString(true), XMLElementTests.createNestedElements(depth).toString());
+                });
             });
 
             runner.testGroup("toString() with consise format", () ->
@@ -1224,6 +1538,17 @@ public interface XMLElementTests
                         .addChild(XMLElement.create("my"))
                         .addChild(XMLText.create("friend")),
                     "<hey>there<my/>friend</hey>");
+
+                runner.test("with nested elements after text", (Test test) ->
+                {
+                    final XMLElement element = XMLElement.create("a")
+                        .addChild(XMLElement.create("b")
+                            .addChild(XMLElement.create("c")
+                                .addChild(XMLElement.create("d"))))
+                        .addChild(XMLText.create("e"))
+                        .addChild(XMLElement.create("f", true));
+                    test.assertEqual("<a>\n  <b>\n    <c>\n      <d/>\n    </c>\n  </b>e<f></f>\n</a>", element.toString(XMLFormat.pretty));
+                });
             });
 
             runner.testGroup("equals(Object)", () ->
@@ -1455,7 +1780,32 @@ public interface XMLElementTests
                         .addChild(XMLElement.create("b"))
                         .addChild(XMLElement.create("c")),
                     true);
+
+                runner.test("with deeply nested elements", (Test test) ->
+                {
+                    final XMLElement element = XMLElementTests.createNestedElements(100000);
+                    test.assertTrue(element.equals(XMLElementTests.createNestedElements(100000)));
+                    test.assertFalse(element.equals(XMLElementTests.createNestedElements(99999)));
+                });
             });
         });
     }
+
+    /**
+     * Create an element named "a" that contains the provided number of nested "a" elements,
+     * including itself, with the text "b" in the innermost element.
+     */
+    static XMLElement createNestedElements(int depth)
+    {
+        final XMLElement result = XMLElement.create("a", true);
+        XMLElement element = result;
+        for (int i = 1; i < depth; ++i)
+        {
+            final XMLElement child = XMLElement.create("a", true);
+            element.addChild(child);
+            element = child;
+        }
+        element.addChild(XMLText.create("b"));
+        return result;
+    }
 }
@@ -0,0 +1,113 @@
+package qub;
+
+public interface XMLEncodingTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLEncoding.class, () ->
+        {
+            runner.testGroup("getCharset(ByteBuffer,boolean)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLEncoding.getCharset((java.nio.ByteBuffer)null, true),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                final Action3<byte[],Boolean,java.nio.charset.Charset> getCharsetTest = (byte[] bytes, Boolean isEndOfInput, java.nio.charset.Charset expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(new String(bytes, java.nio.charset.StandardCharsets.ISO_8859_1)) + " and " + isEndOfInput, (Test test) ->
+                    {
+                        final java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(bytes);
+                        test.assertEqual(expected, XMLEncoding.getCharset(buffer, isEndOfInput));
+                        test.assertEqual(0, buffer.position());
+                    });
+                };
+
+                getCharsetTest.run(new byte[0], false, null);
+                getCharsetTest.run(new byte[0], true, java.nio.charset.StandardCharsets.UTF_8);
+                getCharsetTest.run("<a".getBytes(java.nio.charset.StandardCharsets.US_ASCII), false, null);
+                getCharsetTest.run("<a".getBytes(java.nio.charset.StandardCharsets.US_ASCII), true, java.nio.charset.StandardCharsets.UTF_8);
+                getCharsetTest.run("<a/>".getBytes(java.nio.charset.StandardCharsets.US_ASCII), false, java.nio.charset.StandardCharsets.UTF_8);
+                getCharsetTest.run(new byte[] { (byte)0xEF, (byte)0xBB, (byte)0xBF }, false, java.nio.charset.StandardCharsets.UTF_8);
+                getCharsetTest.run(new byte[] { (byte)0xFE, (byte)0xFF }, false, java.nio.charset.StandardCharsets.UTF_16BE);
+                getCharsetTest.run(new byte[] { (byte)0xFF, (byte)0xFE }, false, java.nio.charset.StandardCharsets.UTF_16LE);
+                getCharsetTest.run("<?".getBytes(java.nio.charset.StandardCharsets.UTF_16BE), false, java.nio.charset.StandardCharsets.UTF_16BE);
+                getCharsetTest.run("<?".getBytes(java.nio.charset.StandardCharsets.UTF_16LE), false, java.nio.charset.StandardCharsets.UTF_16LE);
+                getCharsetTest.run("<?xml version=\"1.0\"".getBytes(java.nio.charset.StandardCharsets.US_ASCII), false, null);
+                getCharsetTest.run("<?xml version=\"1.0\"".getBytes(java.nio.charset.StandardCharsets.US_ASCII), true, java.nio.charset.StandardCharsets.UTF_8);
+                getCharsetTest.run("<?xml version=\"1.0\"?>".getBytes(java.nio.charset.StandardCharsets.US_ASCII), false, java.nio.charset.StandardCharsets.UTF_8);
+                getCharsetTest.run("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>".getBytes(java.nio.charset.StandardCharsets.US_ASCII), false, java.nio.charset.StandardCharsets.ISO_8859_1);
+                getCharsetTest.run("<?xml version='1.0' encoding = 'latin1' ?>".getBytes(java.nio.charset.StandardCharsets.US_ASCII), false, java.nio.charset.StandardCharsets.ISO_8859_1);
+                getCharsetTest.run("<?xml version=\"1.0\" encoding=\"us-ascii\"?>".getBytes(java.nio.charset.StandardCharsets.US_ASCII), false, java.nio.charset.StandardCharsets.US_ASCII);
+                getCharsetTest.run("<?xml version=\"1.0\" encoding=\"UTF-16\"?>".getBytes(java.nio.charset.StandardCharsets.US_ASCII), false, java.nio.charset.StandardCharsets.UTF_8);
+                getCharsetTest.run("<?xml version=\"1.0\" encoding=\"not-an-encoding\"?>".getBytes(java.nio.charset.StandardCharsets.US_ASCII), false, java.nio.charset.StandardCharsets.UTF_8);
+                getCharsetTest.run("<?xml version=\"1.0\" myencoding=\"ISO-8859-1\"?>".getBytes(java.nio.charset.StandardCharsets.US_ASCII), false, java.nio.charset.StandardCharsets.UTF_8);
+            });
+
+            runner.testGroup("getByteOrderMarkLength(ByteBuffer)", () ->
+            {
+                final Action2<byte[],Integer> getByteOrderMarkLengthTest = (byte[] bytes, Integer expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(new String(bytes, java.nio.charset.StandardCharsets.ISO_8859_1)), (Test test) ->
+                    {
+                        test.assertEqual(expected, XMLEncoding.getByteOrderMarkLength(java.nio.ByteBuffer.wrap(bytes)));
+                    });
+                };
+
+                getByteOrderMarkLengthTest.run(new byte[0], 0);
+                getByteOrderMarkLengthTest.run("<a/>".getBytes(java.nio.charset.StandardCharsets.US_ASCII), 0);
+                getByteOrderMarkLengthTest.run(new byte[] { (byte)0xEF, (byte)0xBB }, 0);
+                getByteOrderMarkLengthTest.run(new byte[] { (byte)0xEF, (byte)0xBB, (byte)0xBF }, 3);
+                getByteOrderMarkLengthTest.run(new byte[] { (byte)0xFE, (byte)0xFF }, 2);
+                getByteOrderMarkLengthTest.run(new byte[] { (byte)0xFF, (byte)0xFE }, 2);
+            });
+
+            runner.testGroup("createParser(ByteBuffer)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLEncoding.createParser(null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                final Action3<String,java.nio.charset.Charset,Class<?>> createParserTest = (String text, java.nio.charset.Charset charset, Class<?> expectedParserType) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text) + " encoded as " + charset.name(), (Test test) ->
+                    {
+                        final XMLParser parser = XMLEncoding.createParser(java.nio.ByteBuffer.wrap(text.getBytes(charset)));
+                        test.assertEqual(expectedParserType, parser.getClass());
+                        test.assertEqual(
+                            XML.parse(text.startsWith("\uFEFF") ? text.substring(1) : text).await(),
+                            parser.parseDocument());
+                    });
+                };
+
+                createParserTest.run("<a b=\"é\">中</a>", java.nio.charset.StandardCharsets.UTF_8, XMLByteParser.class);
+                createParserTest.run("\uFEFF<a b=\"é\">中</a>", java.nio.charset.StandardCharsets.UTF_8, XMLByteParser.class);
+                createParserTest.run("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><é b=\"ÿ\">x</é>", java.nio.charset.StandardCharsets.ISO_8859_1, XMLSingleByteParser.class);
+                createParserTest.run("<?xml version=\"1.0\" encoding=\"US-ASCII\"?><a b=\"c\">d</a>", java.nio.charset.StandardCharsets.US_ASCII, XMLSingleByteParser.class);
+                createParserTest.run("\uFEFF<a b=\"é\">中😀</a>", java.nio.charset.StandardCharsets.UTF_16LE, XMLUTF16ByteParser.class);
+                createParserTest.run("\uFEFF<a b=\"é\">中😀</a>", java.nio.charset.StandardCharsets.UTF_16BE, XMLUTF16ByteParser.class);
+                createParserTest.run("<?xml version=\"1.0\"?><😀/>", java.nio.charset.StandardCharsets.UTF_16LE, XMLUTF16ByteParser.class);
+                createParserTest.run("<?xml version=\"1.0\" encoding=\"windows-1252\"?><a>€</a>", java.nio.charset.Charset.forName("windows-1252"), XMLCharacterParser.class);
+
+                runner.test("with US-ASCII bytes outside of the ASCII range", (Test test) ->
+                {
+                    final byte[] bytes = "<?xml version=\"1.0\" encoding=\"US-ASCII\"?><a>é</a>".getBytes(java.nio.charset.StandardCharsets.ISO_8859_1);
+                    test.assertEqual(
+                        XMLElement.create("a")
+                            .addChild(XMLText.create("\uFFFD")),
+                        XMLEncoding.createParser(java.nio.ByteBuffer.wrap(bytes)).parseDocument().getRoot());
+                });
+
+                runner.test("with UTF-16LE bytes that end with half of a code unit", (Test test) ->
+                {
+                    final byte[] bytes = java.util.Arrays.copyOf("\uFEFF<a/>".getBytes(java.nio.charset.StandardCharsets.UTF_16LE), 11);
+                    test.assertThrows(() -> XMLEncoding.createParser(java.nio.ByteBuffer.wrap(bytes)).parseDocument(),
+                        new ParseException("Expected only whitespace and elements at the root of the document."));
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,310 @@
+package qub;
+
+public interface XMLIncrementalParserTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLIncrementalParser.class, () ->
+        {
+            runner.testGroup("create(XMLHandler)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLIncrementalParser.create(null),
+                        new PreConditionFailure("handler cannot be null."));
+                });
+
+                runner.test("with non-null", (Test test) ->
+                {
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler() {});
+                    test.assertFalse(parser.isFinished());
+                });
+            });
+
+            runner.testGroup("feed(char[],int,int)", () ->
+            {
+                runner.test("with null characters", (Test test) ->
+                {
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler() {});
+                    test.assertThrows(() -> parser.feed(null, 0, 0),
+                        new PreConditionFailure("characters cannot be null."));
+                });
+
+                runner.test("with negative startIndex", (Test test) ->
+                {
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler() {});
+                    test.assertThrows(() -> parser.feed(new char[] { 'a' }, -1, 1),
+                        new PreConditionFailure("startIndex (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with length past the end of the characters", (Test test) ->
+                {
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler() {});
+                    test.assertThrows(() -> parser.feed(new char[] { 'a' }, 0, 2),
+                        new PreConditionFailure("startIndex + length (2) must be less than or equal to 1."));
+                });
+
+                runner.test("after finish()", (Test test) ->
+                {
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler() {});
+                    parser.finish();
+                    test.assertTrue(parser.isFinished());
+                    test.assertThrows(() -> parser.feed(new char[] { '<' }, 0, 1),
+                        new PreConditionFailure("this.isFinished() cannot be true."));
+                });
+
+                runner.test("with part of the characters", (Test test) ->
+                {
+                    final CharacterList events = CharacterList.create();
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(XMLTests.recordEvents(events));
+                    parser.feed("xx<a>b</a>yy".toCharArray(), 2, 8);
+                    parser.finish();
+                    test.assertEqual("startElement(a) text(b) endElement(a)", events.toString(true));
+                });
+            });
+
+            runner.testGroup("feed(CharSequence)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler() {});
+                    test.assertThrows(() -> parser.feed((CharSequence)null),
+                        new PreConditionFailure("characters cannot be null."));
+                });
+
+                runner.test("with events completed by each chunk", (Test test) ->
+                {
+                    final CharacterList events = CharacterList.create();
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(XMLTests.recordEvents(events));
+
+                    parser.feed("<fe");
+                    test.assertEqual("", events.toString(true));
+
+                    parser.feed("ed id='1");
+                    test.assertEqual("", events.toString(true));
+
+                    parser.feed("'><entry/><![CDATA[a]");
+                    test.assertEqual("startElement(feed,id=1) startElement(entry) endElement(entry)", events.toString(true));
+
+                    parser.feed("]>te");
+                    test.assertEqual("startElement(feed,id=1) startElement(entry) endElement(entry) cdata(a)", events.toString(true));
+
+                    parser.feed("xt</feed>");
+                    test.assertEqual("startElement(feed,id=1) startElement(entry) endElement(entry) cdata(a) text(text) endElement(feed)", events.toString(true));
+
+                    parser.finish();
+                    test.assertTrue(parser.isFinished());
+                });
+
+                runner.test("with error", (Test test) ->
+                {
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler() {});
+                    parser.feed("<a>");
+                    test.assertThrows(() -> parser.feed("</b>"),
+                        new ParseException("Expected an end tag with the name same as the current element."));
+                    test.assertTrue(parser.isFinished());
+                });
+
+                runner.test("with many chunks", (Test test) ->
+                {
+                    final int[] entryCount = new int[1];
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler()
+                    {
+                        @Override
+                        public void endElement(String name)
+                        {
+                            if (name.equals("entry"))
+                            {
+                                ++entryCount[0];
+                            }
+                        }
+                    });
+                    parser.feed("<feed>");
+                    for (int i = 0; i < 10000; ++i)
+                    {
+                        parser.feed("<entry id='" + i + "'><title>Entry " + i + "</title></entry>");
+                    }
+                    parser.feed("</feed>");
+                    parser.finish();
+                    test.assertEqual(10000, entryCount[0]);
+                });
+            });
+
+            runner.testGroup("feed(byte[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler() {});
+                    test.assertThrows(() -> parser.feed((byte[])null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with character split between chunks", (Test test) ->
+                {
+                    final CharacterList events = CharacterList.create();
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(XMLTests.recordEvents(events));
+                    final byte[] bytes = "<a>中</a>".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                    parser.feed(java.util.Arrays.copyOfRange(bytes, 0, 4));
+                    parser.feed(java.util.Arrays.copyOfRange(bytes, 4, 5));
+                    test.assertThrows(() -> parser.feed("x"),
+                        new PreConditionFailure("!this.parser.hasUndecodedBytes() cannot be false."));
+                    parser.feed(java.util.Arrays.copyOfRange(bytes, 5, bytes.length));
+                    parser.finish();
+                    test.assertEqual("startElement(a) text(中) endElement(a)", events.toString(true));
+                });
+
+                runner.test("with UTF-16LE bytes with a byte order mark fed one byte at a time", (Test test) ->
+                {
+                    final CharacterList events = CharacterList.create();
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(XMLTests.recordEvents(events));
+                    final byte[] bytes = "\uFEFF<a>中</a>".getBytes(java.nio.charset.StandardCharsets.UTF_16LE);
+                    for (int i = 0; i < bytes.length; ++i)
+                    {
+                        parser.feed(java.util.Arrays.copyOfRange(bytes, i, i + 1));
+                    }
+                    parser.finish();
+                    test.assertEqual("startElement(a) text(中) endElement(a)", events.toString(true));
+                });
+
+                runner.test("with declaration encoding split between chunks", (Test test) ->
+                {
+                    final CharacterList events = CharacterList.create();
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(XMLTests.recordEvents(events));
+                    final byte[] bytes = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a>é</a>".getBytes(java.nio.charset.StandardCharsets.ISO_8859_1);
+                    parser.feed(java.util.Arrays.copyOfRange(bytes, 0, 30));
+                    test.assertEqual("", events.toString(true));
+                    parser.feed(java.util.Arrays.copyOfRange(bytes, 30, bytes.length));
+                    parser.finish();
+                    test.assertEqual("declaration(<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>) startElement(a) text(é) endElement(a)", events.toString(true));
+                });
+            });
+
+            runner.testGroup("feed(ByteBuffer)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler() {});
+                    test.assertThrows(() -> parser.feed((java.nio.ByteBuffer)null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with position and limit", (Test test) ->
+                {
+                    final CharacterList events = CharacterList.create();
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(XMLTests.recordEvents(events));
+                    final java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap("xx<a/>yy".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    bytes.position(2);
+                    bytes.limit(6);
+                    parser.feed(bytes);
+                    parser.finish();
+                    test.assertEqual(2, bytes.position());
+                    test.assertEqual("startElement(a) endElement(a)", events.toString(true));
+                });
+            });
+
+            runner.testGroup("finish()", () ->
+            {
+                runner.test("when already finished", (Test test) ->
+                {
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(new XMLHandler() {});
+                    parser.finish();
+                    test.assertThrows(() -> parser.finish(),
+                        new PreConditionFailure("this.isFinished() cannot be true."));
+                });
+
+                runner.test("with incomplete character at the end", (Test test) ->
+                {
+                    final CharacterList events = CharacterList.create();
+                    final XMLIncrementalParser parser = XMLIncrementalParser.create(XMLTests.recordEvents(events));
+                    parser.feed(new byte[] { '<', 'a', '>', (byte)0xE4 });
+                    test.assertThrows(() -> parser.finish(),
+                        new ParseException("Missing end tag."));
+                    test.assertEqual("startElement(a) text(�)", events.toString(true));
+                });
+
+                final Action2<String,String> finishTest = (String text, String expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text) + " fed in every pair of chunks", (Test test) ->
+                    {
+                        final byte[] bytes = text.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                        for (int splitIndex = 0; splitIndex <= bytes.length; ++splitIndex)
+                        {
+                            final CharacterList events = CharacterList.create();
+                            final XMLIncrementalParser parser = XMLIncrementalParser.create(XMLTests.recordEvents(events));
+                            XMLIncrementalParserTests.feedAndFinish(parser, events, java.util.Arrays.copyOfRange(bytes, 0, splitIndex), java.util.Arrays.copyOfRange(bytes, splitIndex, bytes.length));
+                            test.assertEqual(expected, events.toString(true));
+                        }
+
+                        for (int splitIndex = 0; splitIndex <= text.length(); ++splitIndex)
+                        {
+                            final CharacterList events = CharacterList.create();
+                            final XMLIncrementalParser parser = XMLIncrementalParser.create(XMLTests.recordEvents(events));
+                            XMLIncrementalParserTests.feedAndFinish(parser, events, text.substring(0, splitIndex), text.substring(splitIndex));
+                            test.assertEqual(expected, events.toString(true));
+                        }
+                    });
+                };
+
+                finishTest.run("", "");
+                finishTest.run("<a/>", "startElement(a) endElement(a)");
+                finishTest.run(
+                    "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<a b='c' d=\"e\">f<!--g--><![CDATA[<h>]]><i/></a>\n",
+                    "declaration(<?xml version=\"1.0\" encoding=\"utf-8\"?>) startElement(a,b=c,d=e) text(f) comment(g) cdata(<h>) startElement(i) endElement(i) endElement(a)");
+                finishTest.run(
+                    "<é中 ä='ö'>😀</é中>",
+                    "startElement(é中,ä=ö) text(😀) endElement(é中)");
+                finishTest.run(
+                    "<😀 a😀='😀'/>",
+                    "startElement(😀,a😀=😀) endElement(😀)");
+                finishTest.run("<a>", "startElement(a) error(Missing end tag.)");
+                finishTest.run("<a></b>", "startElement(a) error(Expected an end tag with the name same as the current element.)");
+                finishTest.run("<a/> <b/>", "startElement(a) endElement(a) startElement(b) error(An XML document can only have one root element.)");
+                finishTest.run(" <?xml version='1.0'?>", "error(Expected the XML declaration to be the first character in the document.)");
+                finishTest.run("<a>b", "startElement(a) text(b) error(Missing end tag.)");
+
+                runner.test("when skipping comments and whitespace", (Test test) ->
+                {
+                    final String text = "<!--a--><b>\n  <!--c-->\n  <d>e</d>\n</b>";
+                    for (int splitIndex = 0; splitIndex <= text.length(); ++splitIndex)
+                    {
+                        final CharacterList events = CharacterList.create();
+                        final XMLIncrementalParser parser = XMLIncrementalParser.create(XMLTests.recordEvents(events, true));
+                        XMLIncrementalParserTests.feedAndFinish(parser, events, text.substring(0, splitIndex), text.substring(splitIndex));
+                        test.assertEqual("startElement(b) startElement(d) text(e) endElement(d) endElement(b)", events.toString(true));
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Feed the provided chunks to the provided parser and then finish it. If the chunks aren't
+     * well-formed, then the error is added to the provided events.
+     */
+    static void feedAndFinish(XMLIncrementalParser parser, CharacterList events, Object... chunks)
+    {
+        try
+        {
+            for (final Object chunk : chunks)
+            {
+                if (chunk instanceof byte[])
+                {
+                    parser.feed((byte[])chunk);
+                }
+                else
+                {
+                    parser.feed((String)chunk);
+                }
+            }
+            parser.finish();
+        }
+        catch (ParseException e)
+        {
+            if (events.any())
+            {
+                events.add(' ');
+            }
+            events.addAll("error(" + e.getMessage() + ")");
+        }
+    }
+}
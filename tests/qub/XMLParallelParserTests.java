@@ -0,0 +1,79 @@
+package qub;
+
+public interface XMLParallelParserTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLParallelParser.class, () ->
+        {
+            final java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+
+            runner.testGroup("parseDocument(java.nio.ByteBuffer,java.util.concurrent.ForkJoinPool,int)", () ->
+            {
+                runner.test("with null bytes", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLParallelParser.parseDocument(null, pool, 1),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with null pool", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLParallelParser.parseDocument(java.nio.ByteBuffer.wrap(new byte[0]), null, 1),
+                        new PreConditionFailure("pool cannot be null."));
+                });
+
+                runner.test("with 0 minimumChunkLength", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLParallelParser.parseDocument(java.nio.ByteBuffer.wrap(new byte[0]), pool, 0),
+                        new PreConditionFailure("minimumChunkLength (0) must be greater than or equal to 1."));
+                });
+
+                final Action1<String> parseDocumentTest = (String text) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        final byte[] bytes = text.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+
+                        XMLDocument expected = null;
+                        Throwable expectedError = null;
+                        try
+                        {
+                            expected = XMLByteParser.create(bytes).parseDocument();
+                        }
+                        catch (ParseException e)
+                        {
+                            expectedError = e;
+                        }
+
+                        if (expectedError == null)
+                        {
+                            test.assertEqual(expected, XMLParallelParser.parseDocument(java.nio.ByteBuffer.wrap(bytes), pool, 1));
+                        }
+                        else
+                        {
+                            test.assertThrows(() -> XMLParallelParser.parseDocument(java.nio.ByteBuffer.wrap(bytes), pool, 1), expectedError);
+                        }
+                    });
+                };
+
+                parseDocumentTest.run("");
+                parseDocumentTest.run("<a/>");
+                parseDocumentTest.run("<a></a>");
+                parseDocumentTest.run("<a><b/></a>");
+                parseDocumentTest.run("<a><b/><c/><d/></a>");
+                parseDocumentTest.run("<?xml version=\"1.0\"?> <!-- x --> <a>1<b/>2<c>3</c>4<d e='>'/>5</a> <!-- y -->");
+                parseDocumentTest.run("<a><b c=\"</a>\"/><!-- <b> --><d/><![CDATA[</a>]]><e><f/></e><g/></a>");
+                parseDocumentTest.run("<a>\n  <b>1</b>\n  <b>2</b>\n  <b>3</b>\n</a>");
+                parseDocumentTest.run("<a><b/><c/></a><d/>");
+                parseDocumentTest.run("<a><b/><c/></a>text");
+                parseDocumentTest.run("<a><b/><c/></b>");
+                parseDocumentTest.run("<a><b/><c/>");
+                parseDocumentTest.run("<a><b/><c></a>");
+                parseDocumentTest.run("<a><b/></c><d/></a>");
+                parseDocumentTest.run("<a><b/><c/><?xml version=\"1.0\"?></a>");
+                parseDocumentTest.run("<a><b/><!-- c -></a><d/></a>");
+                parseDocumentTest.run("<a><b x='1></b><c/></a>");
+            });
+        });
+    }
+}
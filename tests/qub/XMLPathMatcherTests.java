@@ -0,0 +1,145 @@
+package qub;
+
+public interface XMLPathMatcherTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLPathMatcher.class, () ->
+        {
+            runner.testGroup("create(Iterable<String>)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLPathMatcher.create(null),
+                        new PreConditionFailure("paths cannot be null."));
+                });
+
+                runner.test("with invalid path", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLPathMatcher.create(Iterable.create("/a", "b")).await(),
+                        new ParseException("Expected element path \"b\" to start with '/'."));
+                });
+
+                runner.test("with valid paths", (Test test) ->
+                {
+                    final XMLPathMatcher matcher = XMLPathMatcher.create(Iterable.create("/a/b", "//c")).await();
+                    test.assertEqual(Iterable.create("/a/b", "//c"), matcher.getPaths());
+                });
+            });
+
+            final Function1<String,File> createFile = (String text) ->
+            {
+                final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                fileSystem.createRoot("/").await();
+                final File file = fileSystem.getFile("/document.xml").await();
+                file.setContents(text.getBytes(java.nio.charset.StandardCharsets.UTF_8)).await();
+                return file;
+            };
+
+            // Match the provided text in every way that a matcher can be given a document.
+            final Function2<XMLPathMatcher,String,Iterable<List<String>>> matchAll = (XMLPathMatcher matcher, String text) ->
+            {
+                final List<List<String>> results = List.create();
+                final Action1<Function1<Action2<String,XMLElement>,Result<Void>>> matchWith = (Function1<Action2<String,XMLElement>,Result<Void>> run) ->
+                {
+                    final List<String> result = List.create();
+                    run.run((String path, XMLElement element) -> result.add(path + " " + element.toString())).await();
+                    results.add(result);
+                };
+                matchWith.run((Action2<String,XMLElement> onMatch) -> matcher.match(text, onMatch));
+                matchWith.run((Action2<String,XMLElement> onMatch) -> matcher.match(text.getBytes(java.nio.charset.StandardCharsets.UTF_8), onMatch));
+                matchWith.run((Action2<String,XMLElement> onMatch) -> matcher.match(createFile.run(text).getContentsReadStream().await(), onMatch));
+                matchWith.run((Action2<String,XMLElement> onMatch) -> matcher.match(createFile.run(text), onMatch));
+                return results;
+            };
+
+            runner.testGroup("match()", () ->
+            {
+                runner.test("with null text", (Test test) ->
+                {
+                    final XMLPathMatcher matcher = XMLPathMatcher.create(Iterable.create("/a")).await();
+                    test.assertThrows(() -> matcher.match((String)null, (String path, XMLElement element) -> {}),
+                        new PreConditionFailure("text cannot be null."));
+                });
+
+                runner.test("with null readStream", (Test test) ->
+                {
+                    final XMLPathMatcher matcher = XMLPathMatcher.create(Iterable.create("/a")).await();
+                    test.assertThrows(() -> matcher.match((ByteReadStream)null, (String path, XMLElement element) -> {}),
+                        new PreConditionFailure("readStream cannot be null."));
+                });
+
+                runner.test("with null onMatch", (Test test) ->
+                {
+                    final XMLPathMatcher matcher = XMLPathMatcher.create(Iterable.create("/a")).await();
+                    test.assertThrows(() -> matcher.match("<a/>", null),
+                        new PreConditionFailure("onMatch cannot be null."));
+                });
+
+                runner.test("with malformed document", (Test test) ->
+                {
+                    final XMLPathMatcher matcher = XMLPathMatcher.create(Iterable.create("/a/b")).await();
+                    test.assertThrows(() -> matcher.match("<a><c><b/></a>", (String path, XMLElement element) -> {}).await(),
+                        new ParseException("Expected an end tag with the name same as the current element."));
+                    test.assertThrows(() -> matcher.match(createFile.run("<a><b/><c></a>").getContentsReadStream().await(), (String path, XMLElement element) -> {}).await(),
+                        new ParseException("Expected an end tag with the name same as the current element."));
+                });
+
+                final Action3<Iterable<String>,String,Iterable<String>> matchTest = (Iterable<String> paths, String text, Iterable<String> expected) ->
+                {
+                    runner.test("with " + English.andList(paths.map(Strings::escapeAndQuote)) + " and " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        final XMLPathMatcher matcher = XMLPathMatcher.create(paths).await();
+                        for (final List<String> matches : matchAll.run(matcher, text))
+                        {
+                            test.assertEqual(expected, matches);
+                        }
+                    });
+                };
+
+                final String log =
+                    "<?xml version=\"1.0\"?>\n" +
+                    "<log>\n" +
+                    "  <transaction id=\"1\"><status>open</status><amount>5</amount></transaction>\n" +
+                    "  <!-- comment -->\n" +
+                    "  <transaction id=\"2\"><batch><amount>6</amount><transaction id=\"3\"/></batch></transaction>\n" +
+                    "  <summary><![CDATA[done]]></summary>\n" +
+                    "</log>\n";
+                matchTest.run(Iterable.create("/a"), "", Iterable.create());
+                matchTest.run(Iterable.create("/a"), "<b/>", Iterable.create());
+                matchTest.run(Iterable.create("/a"), "<a/>", Iterable.create("/a <a/>"));
+                matchTest.run(Iterable.create("/log/transaction"), log, Iterable.create(
+                    "/log/transaction <transaction id=\"1\"><status>open</status><amount>5</amount></transaction>",
+                    "/log/transaction <transaction id=\"2\"><batch><amount>6</amount><transaction id=\"3\"/></batch></transaction>"));
+                matchTest.run(Iterable.create("//amount", "/log/summary"), log, Iterable.create(
+                    "//amount <amount>5</amount>",
+                    "//amount <amount>6</amount>",
+                    "/log/summary <summary><![CDATA[done]]></summary>"));
+                matchTest.run(Iterable.create("//transaction//transaction"), log, Iterable.create(
+                    "//transaction//transaction <transaction id=\"3\"/>"));
+                matchTest.run(Iterable.create("//batch/*", "//amount"), log, Iterable.create(
+                    "//amount <amount>5</amount>",
+                    "//batch/* <amount>6</amount>",
+                    "//batch/* <transaction id=\"3\"/>"));
+
+                runner.test("with document larger than the read buffer", (Test test) ->
+                {
+                    final StringBuilder text = new StringBuilder();
+                    text.append("<log>");
+                    for (int i = 0; i < 2000; ++i)
+                    {
+                        text.append("<transaction id=\"" + i + "\"><status>" + (i % 7 == 0 ? "open" : "closed") + "</status></transaction>");
+                    }
+                    text.append("</log>");
+
+                    final XMLPathMatcher matcher = XMLPathMatcher.create(Iterable.create("/log/transaction")).await();
+                    for (final List<String> matches : matchAll.run(matcher, text.toString()))
+                    {
+                        test.assertEqual(2000, matches.getCount());
+                        test.assertEqual("/log/transaction <transaction id=\"1999\"><status>closed</status></transaction>", matches.get(1999));
+                    }
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,430 @@
+package qub;
+
+public interface XMLPathTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLPath.class, () ->
+        {
+            final String documentText =
+                "<a>" +
+                    "<b k=\"v\" id=\"b1\">" +
+                        "<c id=\"c1\">x</c>" +
+                        "<d><c id=\"c2\"><c id=\"c3\"/></c></d>" +
+                        "<c id=\"c4\"><![CDATA[y]]></c>" +
+                    "</b>" +
+                    "<b k=\"w\" id=\"b2\">" +
+                        "<c id=\"c5\">z</c>" +
+                    "</b>" +
+                    "<b id=\"b3\"/>" +
+                "</a>";
+
+            final Function1<Iterable<XMLElement>,Iterable<String>> getIds = (Iterable<XMLElement> elements) ->
+            {
+                return elements.map((XMLElement element) -> element.getAttributeValue("id").catchError(() -> element.getName()).await());
+            };
+
+            runner.testGroup("compile(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLPath.compile(null),
+                        new PreConditionFailure("expression cannot be null."));
+                });
+
+                final Action2<String,String> compileErrorTest = (String expression, String expectedMessage) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(expression), (Test test) ->
+                    {
+                        test.assertThrows(() -> XMLPath.compile(expression).await(),
+                            new ParseException(expectedMessage));
+                    });
+                };
+
+                compileErrorTest.run("", "Expected element name, '*', or \"text()\" at index 0 of path \"\".");
+                compileErrorTest.run("/", "Expected element name, '*', or \"text()\" at index 1 of path \"/\".");
+                compileErrorTest.run("a/", "Expected element name, '*', or \"text()\" at index 2 of path \"a/\".");
+                compileErrorTest.run("a///b", "Expected element name, '*', or \"text()\" at index 3 of path \"a///b\".");
+                compileErrorTest.run("a b", "Expected '/', '[', or the end of the path at index 1 of path \"a b\".");
+                compileErrorTest.run("a[", "Expected '@', a position of at least 1, or \"last()\" at index 2 of path \"a[\".");
+                compileErrorTest.run("a[0]", "Expected '@', a position of at least 1, or \"last()\" at index 2 of path \"a[0]\".");
+                compileErrorTest.run("a[1", "Expected ']' at index 3 of path \"a[1\".");
+                compileErrorTest.run("a[@]", "Expected attribute name at index 3 of path \"a[@]\".");
+                compileErrorTest.run("a[@b=c]", "Expected quoted attribute value at index 5 of path \"a[@b=c]\".");
+                compileErrorTest.run("a[@b='c]", "Expected closing quote of the attribute value that starts at index 5 of path \"a[@b='c]\".");
+                compileErrorTest.run("text()/a", "Expected \"text()\" to be the last step at index 6 of path \"text()/a\".");
+
+                final Action1<String> compileTest = (String expression) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(expression), (Test test) ->
+                    {
+                        final XMLPath path = XMLPath.compile(expression).await();
+                        test.assertEqual(expression, path.getExpression());
+                        test.assertEqual(expression, path.toString());
+                        test.assertEqual(expression.endsWith("text()"), path.selectsText());
+                    });
+                };
+
+                compileTest.run("a");
+                compileTest.run("*");
+                compileTest.run("/a/b");
+                compileTest.run("//c");
+                compileTest.run("a//b/c");
+                compileTest.run("a[@b]");
+                compileTest.run("a[@b='c']");
+                compileTest.run("a[@b=\"c'd\"]");
+                compileTest.run("a[2][@b][last()]");
+                compileTest.run("a/text()");
+                compileTest.run("//text()");
+
+                runner.test("with same expression twice", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("/a/b[@k='v']").await();
+                    test.assertSame(path, XMLPath.compile("/a/b[@k='v']").await());
+                });
+            });
+
+            runner.testGroup("getElements(XMLDocument)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("a").await();
+                    test.assertThrows(() -> path.getElements((XMLDocument)null),
+                        new PreConditionFailure("document cannot be null."));
+                });
+
+                runner.test("with text() path", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("a/text()").await();
+                    test.assertThrows(() -> path.getElements(XMLDocument.create()),
+                        new PreConditionFailure("this.selectsText() cannot be true."));
+                });
+
+                runner.test("with no root", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("//a").await();
+                    test.assertEqual(Iterable.create(), path.getElements(XMLDocument.create()));
+                });
+
+                final Action2<String,Iterable<String>> getElementsTest = (String expression, Iterable<String> expectedIds) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(expression), (Test test) ->
+                    {
+                        final XMLDocument document = XML.parse(documentText).await();
+                        final XMLPath path = XMLPath.compile(expression).await();
+                        test.assertEqual(expectedIds, getIds.run(path.getElements(document)));
+
+                        // The same results are expected when the element children are indexed by
+                        // name and when the document has attribute indexes.
+                        document.getAttributeIndex("k");
+                        document.getAttributeIndex("id");
+                        final XMLElement root = document.getRoot();
+                        for (int i = 0; i < 10; ++i)
+                        {
+                            root.addChild(XMLElement.create("e"));
+                        }
+                        test.assertEqual(expectedIds, getIds.run(path.getElements(document)));
+                    });
+                };
+
+                getElementsTest.run("a", Iterable.create("a"));
+                getElementsTest.run("b", Iterable.create());
+                getElementsTest.run("/a", Iterable.create("a"));
+                getElementsTest.run("/b", Iterable.create());
+                getElementsTest.run("/*", Iterable.create("a"));
+                getElementsTest.run("/a/b", Iterable.create("b1", "b2", "b3"));
+                getElementsTest.run("/a/b/c", Iterable.create("c1", "c4", "c5"));
+                getElementsTest.run("/a/*/c", Iterable.create("c1", "c4", "c5"));
+                getElementsTest.run("/a/b[@k]", Iterable.create("b1", "b2"));
+                getElementsTest.run("/a/b[@k='w']", Iterable.create("b2"));
+                getElementsTest.run("/a/b[@k='v']/c", Iterable.create("c1", "c4"));
+                getElementsTest.run("/a/b[2]", Iterable.create("b2"));
+                getElementsTest.run("/a/b[last()]", Iterable.create("b3"));
+                getElementsTest.run("/a/b[4]", Iterable.create());
+                getElementsTest.run("/a/b[@k][2]", Iterable.create("b2"));
+                getElementsTest.run("/a/b[2][@k='v']", Iterable.create());
+                getElementsTest.run("/a/b/c[1]", Iterable.create("c1", "c5"));
+                getElementsTest.run("//c", Iterable.create("c1", "c2", "c3", "c4", "c5"));
+                getElementsTest.run("//c[@id='c3']", Iterable.create("c3"));
+                getElementsTest.run("//b[@k='v']//c", Iterable.create("c1", "c2", "c3", "c4"));
+                getElementsTest.run("//c[1]", Iterable.create("c1", "c2", "c3", "c5"));
+                getElementsTest.run("//c//c", Iterable.create("c3"));
+                getElementsTest.run("//c/c", Iterable.create("c3"));
+                getElementsTest.run("//*/c", Iterable.create("c1", "c2", "c3", "c4", "c5"));
+                getElementsTest.run("/a//b[@id='b2']/c", Iterable.create("c5"));
+                getElementsTest.run("//b[@id='b1']/d/c/c", Iterable.create("c3"));
+            });
+
+            runner.testGroup("getElements(XMLElement)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("a").await();
+                    test.assertThrows(() -> path.getElements((XMLElement)null),
+                        new PreConditionFailure("element cannot be null."));
+                });
+
+                final Action2<String,Iterable<String>> getElementsTest = (String expression, Iterable<String> expectedIds) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(expression), (Test test) ->
+                    {
+                        final XMLElement element = XML.parse(documentText).await().getRoot().getFirstElementChild("b").await();
+                        final XMLPath path = XMLPath.compile(expression).await();
+                        test.assertEqual(expectedIds, getIds.run(path.getElements(element)));
+                    });
+                };
+
+                getElementsTest.run("c", Iterable.create("c1", "c4"));
+                getElementsTest.run("d/c", Iterable.create("c2"));
+                getElementsTest.run("//c", Iterable.create("c1", "c2", "c3", "c4"));
+                getElementsTest.run("/b", Iterable.create("b1"));
+                getElementsTest.run("/a", Iterable.create());
+                getElementsTest.run("*//c", Iterable.create("c2", "c3"));
+            });
+
+            runner.testGroup("getFirstElement(XMLDocument)", () ->
+            {
+                runner.test("with match", (Test test) ->
+                {
+                    final XMLDocument document = XML.parse(documentText).await();
+                    final XMLPath path = XMLPath.compile("//c[@id]").await();
+                    test.assertEqual("c1", path.getFirstElement(document).await().getAttributeValue("id").await());
+                });
+
+                runner.test("with no match", (Test test) ->
+                {
+                    final XMLDocument document = XML.parse(documentText).await();
+                    final XMLPath path = XMLPath.compile("//e").await();
+                    test.assertThrows(() -> path.getFirstElement(document).await(),
+                        new NotFoundException("No element found that matches the path \"//e\"."));
+                });
+            });
+
+            runner.testGroup("getFirstElement(XMLElement)", () ->
+            {
+                runner.test("with match", (Test test) ->
+                {
+                    final XMLElement element = XML.parse(documentText).await().getRoot();
+                    final XMLPath path = XMLPath.compile("b[last()]").await();
+                    test.assertEqual("b3", path.getFirstElement(element).await().getAttributeValue("id").await());
+                });
+            });
+
+            runner.testGroup("getTexts(XMLDocument)", () ->
+            {
+                runner.test("with element path", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("a").await();
+                    test.assertThrows(() -> path.getTexts(XMLDocument.create()),
+                        new PreConditionFailure("this.selectsText() cannot be false."));
+                });
+
+                final Action2<String,Iterable<String>> getTextsTest = (String expression, Iterable<String> expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(expression), (Test test) ->
+                    {
+                        final XMLDocument document = XML.parse(documentText).await();
+                        final XMLPath path = XMLPath.compile(expression).await();
+                        test.assertEqual(expected, path.getTexts(document));
+                    });
+                };
+
+                getTextsTest.run("/a/text()", Iterable.create());
+                getTextsTest.run("/a/b/c/text()", Iterable.create("x", "y", "z"));
+                getTextsTest.run("//b[@k='w']//text()", Iterable.create("z"));
+                getTextsTest.run("//text()", Iterable.create("x", "y", "z"));
+            });
+
+            runner.testGroup("getTexts(XMLElement)", () ->
+            {
+                runner.test("with text() path", (Test test) ->
+                {
+                    final XMLElement element = XML.parse(documentText).await().getRoot();
+                    final XMLPath path = XMLPath.compile("b/c/text()").await();
+                    test.assertEqual(Iterable.create("x", "y", "z"), path.getTexts(element));
+                });
+            });
+
+            final Function0<XMLDocument> createLargeDocument = () ->
+            {
+                final XMLElement root = XMLElement.create("log");
+                for (int i = 0; i < 3000; ++i)
+                {
+                    final XMLElement transaction = XMLElement.create("transaction")
+                        .setAttribute("id", "t" + i)
+                        .setAttribute("status", i % 3 == 0 ? "open" : "closed");
+                    XMLElement parent = transaction;
+                    for (int depth = 0; depth < i % 4; ++depth)
+                    {
+                        final XMLElement c = XMLElement.create("c").setAttribute("id", "t" + i + "c" + depth);
+                        parent.addChild(c);
+                        parent.addChild(XMLText.create("x" + depth));
+                        parent = c;
+                    }
+                    root.addChild(transaction);
+                }
+                return XMLDocument.create().setRoot(root);
+            };
+
+            runner.testGroup("getElementsParallel(XMLDocument,ForkJoinPool)", () ->
+            {
+                runner.test("with null document", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("//c").await();
+                    test.assertThrows(() -> path.getElementsParallel((XMLDocument)null, java.util.concurrent.ForkJoinPool.commonPool()),
+                        new PreConditionFailure("document cannot be null."));
+                });
+
+                runner.test("with null pool", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("//c").await();
+                    test.assertThrows(() -> path.getElementsParallel(XMLDocument.create(), null),
+                        new PreConditionFailure("pool cannot be null."));
+                });
+
+                runner.test("with text() path", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("//text()").await();
+                    test.assertThrows(() -> path.getElementsParallel(XMLDocument.create(), java.util.concurrent.ForkJoinPool.commonPool()),
+                        new PreConditionFailure("this.selectsText() cannot be true."));
+                });
+
+                runner.test("with no root", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("//c").await();
+                    test.assertEqual(Iterable.create(), path.getElementsParallel(XMLDocument.create(), java.util.concurrent.ForkJoinPool.commonPool()));
+                });
+
+                final Action1<String> parallelTest = (String expression) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(expression), (Test test) ->
+                    {
+                        final XMLPath path = XMLPath.compile(expression).await();
+                        final java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+                        try
+                        {
+                            final XMLDocument smallDocument = XML.parse(documentText).await();
+                            test.assertEqual(getIds.run(path.getElements(smallDocument)), getIds.run(path.getElementsParallel(smallDocument, pool)));
+
+                            final XMLDocument largeDocument = createLargeDocument.run();
+                            test.assertEqual(getIds.run(path.getElements(largeDocument)), getIds.run(path.getElementsParallel(largeDocument, pool)));
+                        }
+                        finally
+                        {
+                            pool.shutdown();
+                        }
+                    });
+                };
+
+                parallelTest.run("//transaction[@status='open']");
+                parallelTest.run("/log/transaction[last()]");
+                parallelTest.run("//c");
+                parallelTest.run("//c/c");
+                parallelTest.run("//c//c");
+                parallelTest.run("//*[2]");
+                parallelTest.run("//transaction[@status='closed']//c[1]");
+                parallelTest.run("//b[@k]/c");
+            });
+
+            runner.testGroup("getElementsParallel(XMLElement,ForkJoinPool)", () ->
+            {
+                runner.test("with null pool", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("c").await();
+                    test.assertThrows(() -> path.getElementsParallel(XMLElement.create("a"), null),
+                        new PreConditionFailure("pool cannot be null."));
+                });
+
+                runner.test("with relative path", (Test test) ->
+                {
+                    final XMLElement element = createLargeDocument.run().getRoot();
+                    final XMLPath path = XMLPath.compile("transaction//c[@id]").await();
+                    final java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+                    try
+                    {
+                        test.assertEqual(getIds.run(path.getElements(element)), getIds.run(path.getElementsParallel(element, pool)));
+                    }
+                    finally
+                    {
+                        pool.shutdown();
+                    }
+                });
+            });
+
+            runner.testGroup("getTextsParallel(XMLDocument,ForkJoinPool)", () ->
+            {
+                runner.test("with element path", (Test test) ->
+                {
+                    final XMLPath path = XMLPath.compile("//c").await();
+                    test.assertThrows(() -> path.getTextsParallel(XMLDocument.create(), java.util.concurrent.ForkJoinPool.commonPool()),
+                        new PreConditionFailure("this.selectsText() cannot be false."));
+                });
+
+                runner.test("with text() path", (Test test) ->
+                {
+                    final XMLDocument document = createLargeDocument.run();
+                    final XMLPath path = XMLPath.compile("//c/text()").await();
+                    final java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+                    try
+                    {
+                        test.assertEqual(path.getTexts(document), path.getTextsParallel(document, pool));
+                    }
+                    finally
+                    {
+                        pool.shutdown();
+                    }
+                });
+            });
+
+            runner.test("with changed document and attribute index", (Test test) ->
+            {
+                final XMLDocument document = XML.parse(documentText).await();
+                final XMLPath path = XMLPath.compile("//c[@id='c6']").await();
+                document.getAttributeIndex("id");
+                test.assertEqual(Iterable.create(), path.getElements(document));
+
+                final XMLElement c6 = XMLElement.create("c").setAttribute("id", "c6");
+                document.getRoot().getFirstElementChild("b").await().addChild(c6);
+                test.assertEqual(Iterable.create("c6"), getIds.run(path.getElements(document)));
+            });
+
+            runner.test("with many threads", (Test test) ->
+            {
+                final XMLDocument document = XML.parse(documentText).await();
+                final XMLPath path = XMLPath.compile("//b[@k]/c").await();
+                final java.util.concurrent.ConcurrentLinkedQueue<Iterable<String>> results = new java.util.concurrent.ConcurrentLinkedQueue<>();
+                final List<Thread> threads = List.create();
+                for (int i = 0; i < 4; ++i)
+                {
+                    threads.add(new Thread(() ->
+                    {
+                        for (int j = 0; j < 100; ++j)
+                        {
+                            results.add(getIds.run(path.getElements(document)));
+                        }
+                    }));
+                }
+                for (final Thread thread : threads)
+                {
+                    thread.start();
+                }
+                for (final Thread thread : threads)
+                {
+                    try
+                    {
+                        thread.join();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        test.fail(e.getMessage());
+                    }
+                }
+                test.assertEqual(400, results.size());
+                for (final Iterable<String> result : results)
+                {
+                    test.assertEqual(Iterable.create("c1", "c4", "c5"), result);
+                }
+            });
+        });
+    }
+}
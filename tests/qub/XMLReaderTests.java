@@ -0,0 +1,298 @@
+package qub;
+
+public interface XMLReaderTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLReader.class, () ->
+        {
+            runner.testGroup("create(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLReader.create((String)null),
+                        new PreConditionFailure("text cannot be null."));
+                });
+
+                runner.test("with empty", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("");
+                    test.assertFalse(reader.hasStarted());
+                    test.assertFalse(reader.hasCurrent());
+                });
+            });
+
+            runner.testGroup("create(char[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLReader.create((char[])null),
+                        new PreConditionFailure("characters cannot be null."));
+                });
+            });
+
+            runner.testGroup("create(byte[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLReader.create((byte[])null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+            });
+
+            runner.testGroup("create(ByteBuffer)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLReader.create((java.nio.ByteBuffer)null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+            });
+
+            runner.testGroup("create(XMLParser)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLReader.create((XMLParser)null),
+                        new PreConditionFailure("parser cannot be null."));
+                });
+            });
+
+            runner.testGroup("next()", () ->
+            {
+                final Action2<String,String> nextTest = (String text, String expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        test.assertEqual(expected, XMLReaderTests.readEvents(XMLReader.create(text)));
+                        test.assertEqual(expected, XMLReaderTests.readEvents(XMLReader.create(text.toCharArray())));
+                        test.assertEqual(expected, XMLReaderTests.readEvents(XMLReader.create(text.getBytes(java.nio.charset.StandardCharsets.UTF_8))));
+                    });
+                };
+
+                nextTest.run("", "");
+                nextTest.run("<a/>", "StartElement(0,a) EndElement(0,a)");
+                nextTest.run("<a></a>", "StartElement(0,a) EndElement(0,a)");
+                nextTest.run("  <a/>  ", "StartElement(0,a) EndElement(0,a)");
+                nextTest.run(
+                    "<?xml version=\"1.0\"?><a/>",
+                    "Declaration(<?xml version=\"1.0\"?>) StartElement(0,a) EndElement(0,a)");
+                nextTest.run(
+                    "<a b=\"c\" d='e'/>",
+                    "StartElement(0,a) Attribute(0,b=c) Attribute(0,d=e) EndElement(0,a)");
+                nextTest.run(
+                    "<a><b>c</b> <!--d--><![CDATA[e]]></a>",
+                    "StartElement(0,a) StartElement(1,b) Text(2,c) EndElement(1,b) Text(1, ) Comment(1,d) CData(1,e) EndElement(0,a)");
+                nextTest.run(
+                    "<!--a--><b x='y'><c/></b><!--d-->",
+                    "Comment(0,a) StartElement(0,b) Attribute(0,x=y) StartElement(1,c) EndElement(1,c) EndElement(0,b) Comment(0,d)");
+                nextTest.run(
+                    "<é ä='ö'>ü</é>",
+                    "StartElement(0,é) Attribute(0,ä=ö) Text(1,ü) EndElement(0,é)");
+
+                final Action2<String,Throwable> nextErrorTest = (String text, Throwable expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        test.assertThrows(() -> XMLReaderTests.readEvents(XMLReader.create(text)), expected);
+                        test.assertThrows(() -> XMLReaderTests.readEvents(XMLReader.create(text.getBytes(java.nio.charset.StandardCharsets.UTF_8))), expected);
+                    });
+                };
+
+                nextErrorTest.run("<", new ParseException("Missing tag name."));
+                nextErrorTest.run("<a>", new ParseException("Missing end tag."));
+                nextErrorTest.run("<a></b>", new ParseException("Expected an end tag with the name same as the current element."));
+                nextErrorTest.run("<a/><b/>", new ParseException("An XML document can only have one root element."));
+                nextErrorTest.run("hello", new ParseException("Expected only whitespace and elements at the root of the document."));
+            });
+
+            runner.testGroup("getAttributeValue(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a/>");
+                    test.assertTrue(reader.next());
+                    test.assertThrows(() -> reader.getAttributeValue(null),
+                        new PreConditionFailure("attributeName cannot be null."));
+                });
+
+                runner.test("when not positioned on a start element", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a/>");
+                    test.assertThrows(() -> reader.getAttributeValue("b"),
+                        new PreConditionFailure("this.isStartElementOrAttribute() cannot be false."));
+                });
+
+                runner.test("with attribute that doesn't exist", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a b='c'/>");
+                    test.assertTrue(reader.next());
+                    test.assertThrows(() -> reader.getAttributeValue("d").await(),
+                        new NotFoundException("Couldn't find an attribute named \"d\" in the element."));
+                });
+
+                runner.test("with attribute that exists", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a b='c' d=\"e\"/>");
+                    test.assertTrue(reader.next());
+                    test.assertEqual("e", reader.getAttributeValue("d").await());
+                    test.assertEqual(XMLEventType.StartElement, reader.getCurrent());
+                });
+
+                runner.test("with repeated attribute", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a b='c' b='d'/>");
+                    test.assertTrue(reader.next());
+                    test.assertEqual("d", reader.getAttributeValue("b").await());
+                });
+            });
+
+            runner.testGroup("setSkipCommentsAndWhitespace(boolean)", () ->
+            {
+                runner.test("with true", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<!--a--><b>\n  <!--c-->\n  <d>e<!--f--></d>\n</b>");
+                    test.assertSame(reader, reader.setSkipCommentsAndWhitespace(true));
+                    test.assertEqual("StartElement(0,b) StartElement(1,d) Text(2,e) EndElement(1,d) EndElement(0,b)", XMLReaderTests.readEvents(reader));
+                });
+
+                runner.test("when changed after reading has started", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a><!--b--> <c/><!--d--></a>");
+                    test.assertTrue(reader.next());
+                    reader.setSkipCommentsAndWhitespace(true);
+                    test.assertTrue(reader.next());
+                    test.assertEqual(XMLEventType.StartElement, reader.getCurrent());
+                    test.assertTrue(reader.next());
+                    test.assertEqual(XMLEventType.EndElement, reader.getCurrent());
+                    reader.setSkipCommentsAndWhitespace(false);
+                    test.assertTrue(reader.next());
+                    test.assertEqual(XMLEventType.Comment, reader.getCurrent());
+                    test.assertEqual("d", reader.getText());
+                });
+
+                runner.test("with malformed comment", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a><!-- b")
+                        .setSkipCommentsAndWhitespace(true);
+                    test.assertTrue(reader.next());
+                    test.assertThrows(() -> reader.next(),
+                        new ParseException("Missing comment first right dash ('-')."));
+                });
+            });
+
+            runner.testGroup("skipElement()", () ->
+            {
+                runner.test("when not positioned on a start element", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a/>");
+                    test.assertThrows(() -> reader.skipElement(),
+                        new PreConditionFailure("this.isStartElementOrAttribute() cannot be false."));
+                });
+
+                runner.test("with nested elements", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a><b><b>c</b></b><d/></a>");
+                    test.assertTrue(reader.next());
+                    test.assertTrue(reader.next());
+                    test.assertTrue(reader.nameEquals("b"));
+                    reader.skipElement();
+                    test.assertEqual(XMLEventType.EndElement, reader.getCurrent());
+                    test.assertEqual(1, reader.getDepth());
+                    test.assertTrue(reader.next());
+                    test.assertEqual("d", reader.getName());
+                });
+
+                runner.test("with missing end tag", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a><b>");
+                    test.assertTrue(reader.next());
+                    test.assertTrue(reader.next());
+                    test.assertThrows(() -> reader.skipElement(),
+                        new ParseException("Missing end tag."));
+                });
+            });
+
+            runner.testGroup("readElement()", () ->
+            {
+                runner.test("when not positioned on a start element", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<a/>");
+                    test.assertThrows(() -> reader.readElement(),
+                        new PreConditionFailure("this.isStartElementOrAttribute() cannot be false."));
+                });
+
+                runner.test("with root element", (Test test) ->
+                {
+                    final String text = "<a b='c'> <d>e<!--f--></d><g/><![CDATA[h]]></a>";
+                    final XMLReader reader = XMLReader.create(text);
+                    test.assertTrue(reader.next());
+                    test.assertEqual(XML.parse(text).await().getRoot(), reader.readElement());
+                    test.assertEqual(XMLEventType.EndElement, reader.getCurrent());
+                    test.assertFalse(reader.next());
+                });
+
+                runner.test("with child elements", (Test test) ->
+                {
+                    final XMLReader reader = XMLReader.create("<feed><entry id='1'><title>A</title></entry><entry id='2'/></feed>");
+                    test.assertTrue(reader.next());
+                    test.assertTrue(reader.next());
+                    test.assertEqual(
+                        XMLElement.create("entry")
+                            .setAttribute("id", "1")
+                            .addChild(XMLElement.create("title")
+                                .addChild(XMLText.create("A"))),
+                        reader.readElement());
+                    test.assertTrue(reader.next());
+                    test.assertEqual(XMLEventType.StartElement, reader.getCurrent());
+                    test.assertTrue(reader.next());
+                    test.assertEqual(XMLEventType.Attribute, reader.getCurrent());
+                    test.assertEqual(
+                        XMLElement.create("entry", false)
+                            .setAttribute("id", "2"),
+                        reader.readElement());
+                    test.assertTrue(reader.next());
+                    test.assertEqual(XMLEventType.EndElement, reader.getCurrent());
+                    test.assertEqual("feed", reader.getName());
+                    test.assertFalse(reader.next());
+                });
+            });
+        });
+    }
+
+    static String readEvents(XMLReader reader)
+    {
+        final CharacterList result = CharacterList.create();
+        while (reader.next())
+        {
+            if (result.any())
+            {
+                result.add(' ');
+            }
+
+            final XMLEventType eventType = reader.getCurrent();
+            result.addAll(eventType.toString()).add('(');
+            switch (eventType)
+            {
+                case Declaration:
+                    result.addAll(reader.getDeclaration().toString());
+                    break;
+
+                case StartElement:
+                case EndElement:
+                    result.addAll(Integer.toString(reader.getDepth())).add(',').addAll(reader.getName());
+                    break;
+
+                case Attribute:
+                    result.addAll(Integer.toString(reader.getDepth())).add(',').addAll(reader.getName()).add('=').addAll(reader.getValue());
+                    break;
+
+                default:
+                    result.addAll(Integer.toString(reader.getDepth())).add(',').addAll(reader.getText());
+                    break;
+            }
+            result.add(')');
+        }
+        return result.toString(true);
+    }
+}
@@ -0,0 +1,183 @@
+package qub;
+
+public interface XMLRecordIteratorTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLRecordIterator.class, () ->
+        {
+            runner.testGroup("create(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLRecordIterator.create((String)null),
+                        new PreConditionFailure("text cannot be null."));
+                });
+
+                runner.test("with valid text", (Test test) ->
+                {
+                    final XMLRecordIterator iterator = XMLRecordIterator.create("<a/>");
+                    test.assertFalse(iterator.hasStarted());
+                    test.assertFalse(iterator.hasCurrent());
+                    test.assertNull(iterator.getDeclaration());
+                    test.assertNull(iterator.getRoot());
+                });
+            });
+
+            runner.testGroup("create(byte[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLRecordIterator.create((byte[])null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+            });
+
+            runner.testGroup("create(ByteBuffer)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLRecordIterator.create((java.nio.ByteBuffer)null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+            });
+
+            runner.testGroup("create(ByteReadStream)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLRecordIterator.create((ByteReadStream)null),
+                        new PreConditionFailure("readStream cannot be null."));
+                });
+            });
+
+            runner.testGroup("getCurrent()", () ->
+            {
+                runner.test("when not started", (Test test) ->
+                {
+                    final XMLRecordIterator iterator = XMLRecordIterator.create("<a/>");
+                    test.assertThrows(() -> iterator.getCurrent(),
+                        new PreConditionFailure("this.hasCurrent() cannot be false."));
+                });
+            });
+
+            runner.testGroup("next()", () ->
+            {
+                final Function1<String,Iterable<XMLRecordIterator>> createIterators = (String text) ->
+                {
+                    final byte[] bytes = text.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final File file = fileSystem.getFile("/records.xml").await();
+                    file.setContents(bytes).await();
+
+                    return Iterable.create(
+                        XMLRecordIterator.create(text),
+                        XMLRecordIterator.create(bytes),
+                        XMLRecordIterator.create(file.getContentsReadStream().await()));
+                };
+
+                final Action2<String,Iterable<XMLElement>> nextTest = (String text, Iterable<XMLElement> expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        for (final XMLRecordIterator iterator : createIterators.run(text))
+                        {
+                            final List<XMLElement> records = List.create();
+                            while (iterator.next())
+                            {
+                                test.assertTrue(iterator.hasStarted());
+                                test.assertTrue(iterator.hasCurrent());
+                                records.add(iterator.getCurrent());
+                            }
+                            test.assertEqual(expected, records);
+                            test.assertTrue(iterator.hasStarted());
+                            test.assertFalse(iterator.hasCurrent());
+                            test.assertFalse(iterator.next());
+                        }
+                    });
+                };
+
+                nextTest.run("", Iterable.create());
+                nextTest.run("<a/>", Iterable.create());
+                nextTest.run("<a></a>", Iterable.create());
+                nextTest.run("<a>text</a>", Iterable.create());
+                nextTest.run("<a><b/></a>", Iterable.create(XMLElement.create("b")));
+                nextTest.run(
+                    "<?xml version=\"1.0\"?>\n<records count=\"3\">\n  <record id=\"1\"><name>x</name></record>\n  <!-- comment -->\n  <record id=\"2\"/>\n  between\n  <record id=\"3\"><![CDATA[y]]><c><d/></c></record>\n</records>\n",
+                    Iterable.create(
+                        XMLElement.create("record", true)
+                            .setAttribute("id", "1")
+                            .addChild(XMLElement.create("name", true)
+                                .addChild(XMLText.create("x"))),
+                        XMLElement.create("record")
+                            .setAttribute("id", "2"),
+                        XMLElement.create("record", true)
+                            .setAttribute("id", "3")
+                            .addChild(XMLCData.create("y"))
+                            .addChild(XMLElement.create("c", true)
+                                .addChild(XMLElement.create("d")))));
+
+                runner.test("with declaration and root", (Test test) ->
+                {
+                    final XMLRecordIterator iterator = XMLRecordIterator.create("<?xml version=\"1.0\"?><a b=\"c\"><d/></a>");
+                    test.assertTrue(iterator.next());
+                    test.assertEqual(XMLDeclaration.create().setVersion("1.0"), iterator.getDeclaration());
+                    test.assertEqual(XMLElement.create("a", true).setAttribute("b", "c"), iterator.getRoot());
+                    test.assertEqual(XMLElement.create("d"), iterator.getCurrent());
+                    test.assertFalse(iterator.next());
+                });
+
+                runner.test("with missing root end tag", (Test test) ->
+                {
+                    for (final XMLRecordIterator iterator : createIterators.run("<a><b/><c>text</c>"))
+                    {
+                        test.assertTrue(iterator.next());
+                        test.assertEqual(XMLElement.create("b"), iterator.getCurrent());
+                        test.assertTrue(iterator.next());
+                        test.assertEqual(XMLElement.create("c", true).addChild(XMLText.create("text")), iterator.getCurrent());
+                        test.assertThrows(() -> iterator.next(),
+                            new ParseException("Missing end tag."));
+                    }
+                });
+
+                runner.test("with malformed record", (Test test) ->
+                {
+                    for (final XMLRecordIterator iterator : createIterators.run("<a><b/><c></d></a>"))
+                    {
+                        test.assertTrue(iterator.next());
+                        test.assertEqual(XMLElement.create("b"), iterator.getCurrent());
+                        test.assertThrows(() -> iterator.next(),
+                            new ParseException("Expected an end tag with the name same as the current element."));
+                    }
+                });
+
+                runner.test("with many records", (Test test) ->
+                {
+                    final StringBuilder text = new StringBuilder("<records>");
+                    for (int i = 0; i < 10000; ++i)
+                    {
+                        text.append("<record id=\"").append(i).append("\">é").append(i).append("</record>");
+                    }
+                    text.append("</records>");
+
+                    for (final XMLRecordIterator iterator : createIterators.run(text.toString()))
+                    {
+                        int recordCount = 0;
+                        while (iterator.next())
+                        {
+                            test.assertEqual(
+                                XMLElement.create("record", true)
+                                    .setAttribute("id", Integer.toString(recordCount))
+                                    .addChild(XMLText.create("é" + recordCount)),
+                                iterator.getCurrent());
+                            ++recordCount;
+                        }
+                        test.assertEqual(10000, recordCount);
+                    }
+                });
+            });
+        });
+    }
+}
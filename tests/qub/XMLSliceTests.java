@@ -0,0 +1,107 @@
+package qub;
+
+public interface XMLSliceTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLSlice.class, () ->
+        {
+            runner.testGroup("create(CharSequence,int,int)", () ->
+            {
+                runner.test("with null characters", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLSlice.create((CharSequence)null, 0, 0),
+                        new PreConditionFailure("characters cannot be null."));
+                });
+
+                runner.test("with endIndex past the end of the characters", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLSlice.create("abc", 1, 4),
+                        new PreConditionFailure("0 <= startIndex <= endIndex <= characters.length() cannot be false."));
+                });
+
+                runner.test("with String", (Test test) ->
+                {
+                    final XMLSlice slice = XMLSlice.create("<a>hello</a>", 3, 8);
+                    test.assertEqual(5, slice.length());
+                    test.assertEqual('h', slice.charAt(0));
+                    test.assertEqual('o', slice.charAt(4));
+                    test.assertEqual("ell", slice.subSequence(1, 4).toString());
+                    test.assertEqual("hello", slice.toString());
+                    test.assertTrue(slice.toString() == slice.toString());
+                });
+
+                runner.test("with empty range", (Test test) ->
+                {
+                    final XMLSlice slice = XMLSlice.create("abc", 2, 2);
+                    test.assertEqual(0, slice.length());
+                    test.assertEqual("", slice.toString());
+                });
+            });
+
+            runner.testGroup("create(ByteBuffer,int,int,Charset)", () ->
+            {
+                runner.test("with null bytes", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLSlice.create((java.nio.ByteBuffer)null, 0, 0, java.nio.charset.StandardCharsets.UTF_8),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with UTF-8 bytes", (Test test) ->
+                {
+                    final java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap("<a>é中</a>".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    final XMLSlice slice = XMLSlice.create(bytes, 3, 8, java.nio.charset.StandardCharsets.UTF_8);
+                    test.assertEqual(2, slice.length());
+                    test.assertEqual('中', slice.charAt(1));
+                    test.assertEqual("é中", slice.toString());
+                });
+
+                runner.test("with UTF-8 bytes in a direct buffer", (Test test) ->
+                {
+                    final byte[] encodedBytes = "<a>é中</a>".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                    final java.nio.ByteBuffer bytes = java.nio.ByteBuffer.allocateDirect(encodedBytes.length);
+                    bytes.put(encodedBytes);
+                    bytes.flip();
+                    test.assertEqual("é中", XMLSlice.create(bytes, 3, 8, java.nio.charset.StandardCharsets.UTF_8).toString());
+                    test.assertEqual(0, bytes.position());
+                });
+
+                runner.test("with ISO-8859-1 bytes", (Test test) ->
+                {
+                    final java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap("<a>éÿ</a>".getBytes(java.nio.charset.StandardCharsets.ISO_8859_1));
+                    final XMLSlice slice = XMLSlice.create(bytes, 3, 5, java.nio.charset.StandardCharsets.ISO_8859_1);
+                    test.assertEqual(2, slice.length());
+                    test.assertEqual('ÿ', slice.charAt(1));
+                    test.assertEqual("éÿ", slice.toString());
+                });
+
+                runner.test("with US-ASCII bytes outside of the ASCII range", (Test test) ->
+                {
+                    final java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap("aé".getBytes(java.nio.charset.StandardCharsets.ISO_8859_1));
+                    final XMLSlice slice = XMLSlice.create(bytes, 0, 2, java.nio.charset.StandardCharsets.US_ASCII);
+                    test.assertEqual('\uFFFD', slice.charAt(1));
+                    test.assertEqual("a\uFFFD", slice.toString());
+                });
+            });
+
+            runner.testGroup("create(ByteBuffer,int,int,int)", () ->
+            {
+                runner.test("with UTF-16BE bytes", (Test test) ->
+                {
+                    final java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap("\uFEFF<a>中😀</a>".getBytes(java.nio.charset.StandardCharsets.UTF_16BE));
+                    final XMLSlice slice = XMLSlice.create(bytes, 2, 3, 6);
+                    test.assertEqual(3, slice.length());
+                    test.assertEqual('中', slice.charAt(0));
+                    test.assertEqual("中😀", slice.toString());
+                });
+
+                runner.test("with UTF-16LE bytes that end with half of a code unit", (Test test) ->
+                {
+                    final java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap(java.util.Arrays.copyOf("ab".getBytes(java.nio.charset.StandardCharsets.UTF_16LE), 3))
+                        .order(java.nio.ByteOrder.LITTLE_ENDIAN);
+                    test.assertEqual("a\uFFFD", XMLSlice.create(bytes, 0, 0, 2).toString());
+                });
+            });
+        });
+    }
+}
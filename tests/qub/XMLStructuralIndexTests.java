@@ -0,0 +1,113 @@
+package qub;
+
+public interface XMLStructuralIndexTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(XMLStructuralIndex.class, () ->
+        {
+            runner.testGroup("create(byte[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLStructuralIndex.create((byte[])null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                final Action2<String,String> createTest = (String text, String expectedKinds) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        final XMLStructuralIndex index = XMLStructuralIndex.create(text.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                        test.assertEqual(expectedKinds.length(), index.getCount());
+
+                        final CharacterList kinds = CharacterList.create();
+                        for (int i = 0; i < index.getCount(); ++i)
+                        {
+                            kinds.add(index.getKind(i));
+                            test.assertEqual(index.getKind(i), (char)text.getBytes(java.nio.charset.StandardCharsets.UTF_8)[index.getPosition(i)]);
+                        }
+                        test.assertEqual(expectedKinds, kinds.toString(true));
+                    });
+                };
+
+                createTest.run("", "");
+                createTest.run("abc", "");
+                createTest.run("<", "<");
+                createTest.run("<a/>", "<>");
+                createTest.run("<a b=\"c\" d='e'>&amp;</a>", "<\"\"''>&<>");
+                createTest.run("<abcdefg>", "<>");
+                createTest.run("<abcdef>", "<>");
+                createTest.run("abcdefghijklmnop<q>", "<>");
+                createTest.run("<<<<<<<<>>>>>>>>''''''''", "<<<<<<<<>>>>>>>>''''''''");
+                createTest.run("éééé<中>😀</中>", "<><>");
+                createTest.run("=;:?[]{}|!/-.,", "");
+            });
+
+            runner.testGroup("create(ByteBuffer)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLStructuralIndex.create((java.nio.ByteBuffer)null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with position and limit", (Test test) ->
+                {
+                    final java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap("<<<abc<d/>efghijk>>>".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    bytes.position(3);
+                    bytes.limit(17);
+                    final XMLStructuralIndex index = XMLStructuralIndex.create(bytes);
+                    test.assertEqual(2, index.getCount());
+                    test.assertEqual(6, index.getPosition(0));
+                    test.assertEqual(9, index.getPosition(1));
+                    test.assertEqual(3, bytes.position());
+                    test.assertEqual(3, index.getBytes().position());
+                    test.assertEqual(17, index.getBytes().limit());
+                });
+            });
+
+            runner.testGroup("getPosition(int)", () ->
+            {
+                runner.test("with negative", (Test test) ->
+                {
+                    final XMLStructuralIndex index = XMLStructuralIndex.create("<a/>".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    test.assertThrows(() -> index.getPosition(-1),
+                        new PreConditionFailure("index (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with count", (Test test) ->
+                {
+                    final XMLStructuralIndex index = XMLStructuralIndex.create("<a/>".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    test.assertThrows(() -> index.getPosition(2),
+                        new PreConditionFailure("index (2) must be less than 2."));
+                });
+            });
+
+            runner.testGroup("find(int)", () ->
+            {
+                final XMLStructuralIndex index = XMLStructuralIndex.create("<a>bcdefghijklmnopqrstuvwxyz</a>".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+
+                final Action2<Integer,Integer> findTest = (Integer position, Integer expected) ->
+                {
+                    runner.test("with " + position, (Test test) ->
+                    {
+                        test.assertEqual(expected, index.find(position));
+                    });
+                };
+
+                findTest.run(-1, 0);
+                findTest.run(0, 0);
+                findTest.run(1, 1);
+                findTest.run(2, 1);
+                findTest.run(3, 2);
+                findTest.run(27, 2);
+                findTest.run(28, 2);
+                findTest.run(29, 3);
+                findTest.run(31, 3);
+                findTest.run(32, 4);
+                findTest.run(100, 4);
+            });
+        });
+    }
+}
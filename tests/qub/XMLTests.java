@@ -62,6 +62,845 @@ public interface XMLTests
                             .setRoot(XMLElement.create("a")),
                         XML.parse(file).await());
                 });
+
+                final Action3<String,byte[],XMLDocument> parseEncodedFileTest = (String testName, byte[] contents, XMLDocument expected) ->
+                {
+                    runner.test(testName, (Test test) ->
+                    {
+                        final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                        fileSystem.createRoot("/").await();
+                        final File file = fileSystem.getFile("/folder/file.xml").await();
+                        file.setContents(contents).await();
+                        test.assertEqual(expected, XML.parse(file).await());
+                    });
+                };
+
+                parseEncodedFileTest.run("with UTF-8 byte order mark",
+                    "\uFEFF<a>é</a>".getBytes(java.nio.charset.StandardCharsets.UTF_8),
+                    XMLDocument.create()
+                        .setRoot(XMLElement.create("a")
+                            .addChild(XMLText.create("é"))));
+                parseEncodedFileTest.run("with UTF-16LE byte order mark",
+                    "\uFEFF<a b=\"中\">\uD83D\uDE00</a>".getBytes(java.nio.charset.StandardCharsets.UTF_16LE),
+                    XMLDocument.create()
+                        .setRoot(XMLElement.create("a")
+                            .setAttribute("b", "中")
+                            .addChild(XMLText.create("\uD83D\uDE00"))));
+                parseEncodedFileTest.run("with UTF-16BE byte order mark",
+                    "\uFEFF<a b=\"中\">\uD83D\uDE00</a>".getBytes(java.nio.charset.StandardCharsets.UTF_16BE),
+                    XMLDocument.create()
+                        .setRoot(XMLElement.create("a")
+                            .setAttribute("b", "中")
+                            .addChild(XMLText.create("\uD83D\uDE00"))));
+                parseEncodedFileTest.run("with UTF-16LE declaration without byte order mark",
+                    "<?xml version=\"1.0\" encoding=\"UTF-16\"?><a>中</a>".getBytes(java.nio.charset.StandardCharsets.UTF_16LE),
+                    XMLDocument.create()
+                        .setDeclaration(XMLDeclaration.create()
+                            .setVersion("1.0")
+                            .setEncoding("UTF-16"))
+                        .setRoot(XMLElement.create("a")
+                            .addChild(XMLText.create("中"))));
+                parseEncodedFileTest.run("with ISO-8859-1 declaration",
+                    "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><é>ÿ</é>".getBytes(java.nio.charset.StandardCharsets.ISO_8859_1),
+                    XMLDocument.create()
+                        .setDeclaration(XMLDeclaration.create()
+                            .setVersion("1.0")
+                            .setEncoding("ISO-8859-1"))
+                        .setRoot(XMLElement.create("é")
+                            .addChild(XMLText.create("ÿ"))));
+                parseEncodedFileTest.run("with lowercase US-ASCII declaration",
+                    "<?xml version='1.0' encoding='us-ascii'?><a>b</a>".getBytes(java.nio.charset.StandardCharsets.US_ASCII),
+                    XMLDocument.create()
+                        .setDeclaration(XMLDeclaration.create()
+                            .setVersion("1.0")
+                            .setEncoding("us-ascii"))
+                        .setRoot(XMLElement.create("a")
+                            .addChild(XMLText.create("b"))));
+                parseEncodedFileTest.run("with windows-1252 declaration",
+                    "<?xml version=\"1.0\" encoding=\"windows-1252\"?><a>€</a>".getBytes(java.nio.charset.Charset.forName("windows-1252")),
+                    XMLDocument.create()
+                        .setDeclaration(XMLDeclaration.create()
+                            .setVersion("1.0")
+                            .setEncoding("windows-1252"))
+                        .setRoot(XMLElement.create("a")
+                            .addChild(XMLText.create("€"))));
+                parseEncodedFileTest.run("with unsupported encoding declaration",
+                    "<?xml version=\"1.0\" encoding=\"not-an-encoding\"?><a>é</a>".getBytes(java.nio.charset.StandardCharsets.UTF_8),
+                    XMLDocument.create()
+                        .setDeclaration(XMLDeclaration.create()
+                            .setVersion("1.0")
+                            .setEncoding("not-an-encoding"))
+                        .setRoot(XMLElement.create("a")
+                            .addChild(XMLText.create("é"))));
+            });
+
+            runner.testGroup("parse(File,long)", () ->
+            {
+                runner.test("with null file", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parse((File)null, 0),
+                        new PreConditionFailure("file cannot be null."));
+                });
+
+                runner.test("with negative memoryMapMinimumByteCount", (Test test) ->
+                {
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final File file = fileSystem.getFile("/folder/file.xml").await();
+                    test.assertThrows(() -> XML.parse(file, -1),
+                        new PreConditionFailure("memoryMapMinimumByteCount (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with existing XML file that isn't on the local disk", (Test test) ->
+                {
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final File file = fileSystem.getFile("/folder/file.xml").await();
+                    file.setContentsAsString("<a>b</a>").await();
+                    test.assertEqual(
+                        XMLDocument.create()
+                            .setRoot(XMLElement.create("a")
+                                .addChild(XMLText.create("b"))),
+                        XML.parse(file, 0).await());
+                });
+
+                runner.test("with streamed XML file that is larger than the read buffer", (Test test) ->
+                {
+                    final StringBuilder text = new StringBuilder();
+                    final XMLElement expectedRoot = XMLElement.create("log");
+                    text.append("<?xml version=\"1.0\"?>\n<log>");
+                    for (int i = 0; i < 2000; ++i)
+                    {
+                        text.append("\n  <entry id=\"" + i + "\"><!-- " + i + " -->value " + i + "</entry>");
+                        expectedRoot.addChild(XMLElement.create("entry")
+                            .setAttribute("id", Integer.toString(i))
+                            .addChild(XMLText.create("value " + i)));
+                    }
+                    text.append("\n</log>");
+
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final File file = fileSystem.getFile("/folder/file.xml").await();
+                    file.setContentsAsString(text.toString()).await();
+                    test.assertEqual(
+                        XMLDocument.create()
+                            .setDeclaration(XMLDeclaration.create().setVersion("1.0"))
+                            .setRoot(expectedRoot),
+                        XML.parse(file, Long.MAX_VALUE).await());
+                });
+            });
+
+            runner.testGroup("parse(File,XMLHandler)", () ->
+            {
+                runner.test("with null file", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parse((File)null, new XMLHandler() {}),
+                        new PreConditionFailure("file cannot be null."));
+                });
+
+                runner.test("with null handler", (Test test) ->
+                {
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final File file = fileSystem.getFile("/folder/file.xml").await();
+                    test.assertThrows(() -> XML.parse(file, (XMLHandler)null),
+                        new PreConditionFailure("handler cannot be null."));
+                });
+
+                runner.test("with non-existing file", (Test test) ->
+                {
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final File file = fileSystem.getFile("/folder/file.xml").await();
+                    test.assertThrows(() -> XML.parse(file, new XMLHandler() {}).await(),
+                        new FileNotFoundException("/folder/file.xml"));
+                });
+
+                runner.test("with existing XML file that isn't on the local disk", (Test test) ->
+                {
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final File file = fileSystem.getFile("/folder/file.xml").await();
+                    file.setContentsAsString("<a b='c'>d</a>").await();
+                    final CharacterList events = CharacterList.create();
+                    XML.parse(file, XMLTests.recordEvents(events)).await();
+                    test.assertEqual("startElement(a,b=c) text(d) endElement(a)", events.toString(true));
+                });
+            });
+
+            runner.testGroup("mapContents(java.nio.file.Path,long)", () ->
+            {
+                runner.test("with null path", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.mapContents(null, 0),
+                        new PreConditionFailure("path cannot be null."));
+                });
+
+                runner.test("with non-existing file", (Test test) ->
+                {
+                    test.assertNull(XML.mapContents(java.nio.file.Paths.get("/does/not/exist/file.xml"), 0));
+                });
+
+                runner.test("with existing file", (Test test) ->
+                {
+                    try
+                    {
+                        final java.nio.file.Path path = java.nio.file.Files.createTempFile("XMLTests", ".xml");
+                        // A mapped file can't be deleted on some platforms until its mapping is
+                        // garbage collected.
+                        path.toFile().deleteOnExit();
+                        java.nio.file.Files.write(path, "<a>b</a>".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+
+                        test.assertNull(XML.mapContents(path, 9));
+
+                        final java.nio.ByteBuffer mappedBytes = XML.mapContents(path, 8);
+                        test.assertNotNull(mappedBytes);
+                        test.assertEqual(8, mappedBytes.remaining());
+                        test.assertEqual(
+                            XMLDocument.create()
+                                .setRoot(XMLElement.create("a")
+                                    .addChild(XMLText.create("b"))),
+                            XML.parse(mappedBytes).await());
+                    }
+                    catch (java.io.IOException e)
+                    {
+                        test.fail(e.getMessage());
+                    }
+                });
+            });
+
+            runner.testGroup("parseAll(Iterable<File>)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseAll(null),
+                        new PreConditionFailure("files cannot be null."));
+                });
+
+                runner.test("with no files", (Test test) ->
+                {
+                    test.assertEqual(List.create(), XML.parseAll(Iterable.create()).await());
+                });
+
+                runner.test("with files", (Test test) ->
+                {
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final File file1 = fileSystem.getFile("/1.xml").await();
+                    file1.setContentsAsString("<a/>").await();
+                    final File file2 = fileSystem.getFile("/2.xml").await();
+                    file2.setContentsAsString("<b>").await();
+                    final File file3 = fileSystem.getFile("/3.xml").await();
+                    final File file4 = fileSystem.getFile("/4.xml").await();
+                    file4.setContentsAsString("<?xml version=\"1.0\"?><c d=\"e\">f</c>").await();
+
+                    final List<Result<XMLDocument>> results = XML.parseAll(Iterable.create(file1, file2, file3, file4)).await();
+                    test.assertEqual(4, results.getCount());
+                    test.assertEqual(
+                        XMLDocument.create()
+                            .setRoot(XMLElement.create("a")),
+                        results.get(0).await());
+                    test.assertThrows(() -> results.get(1).await(),
+                        new ParseException("Missing end tag."));
+                    test.assertThrows(() -> results.get(2).await(),
+                        new FileNotFoundException("/3.xml"));
+                    test.assertEqual(
+                        XMLDocument.create()
+                            .setDeclaration(XMLDeclaration.create().setVersion("1.0"))
+                            .setRoot(XMLElement.create("c")
+                                .setAttribute("d", "e")
+                                .addChild(XMLText.create("f"))),
+                        results.get(3).await());
+                });
+            });
+
+            runner.testGroup("parseAll(Iterable<File>,int)", () ->
+            {
+                runner.test("with 0 maximumConcurrency", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseAll(Iterable.create(), 0),
+                        new PreConditionFailure("maximumConcurrency (0) must be greater than or equal to 1."));
+                });
+
+                runner.test("with more files than maximumConcurrency", (Test test) ->
+                {
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final List<File> files = List.create();
+                    for (int i = 0; i < 20; ++i)
+                    {
+                        final File file = fileSystem.getFile("/" + i + ".xml").await();
+                        file.setContentsAsString("<a" + i + "/>").await();
+                        files.add(file);
+                    }
+
+                    final List<Result<XMLDocument>> results = XML.parseAll(files, 3).await();
+                    test.assertEqual(20, results.getCount());
+                    for (int i = 0; i < 20; ++i)
+                    {
+                        test.assertEqual("a" + i, results.get(i).await().getRoot().getName());
+                    }
+                });
+            });
+
+            runner.testGroup("parseAll(Iterable<File>,int,Action2<File,Result<XMLDocument>>)", () ->
+            {
+                runner.test("with null onParsed", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseAll(Iterable.create(), 1, null),
+                        new PreConditionFailure("onParsed cannot be null."));
+                });
+
+                runner.test("with files", (Test test) ->
+                {
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final List<File> files = List.create();
+                    for (int i = 0; i < 10; ++i)
+                    {
+                        final File file = fileSystem.getFile("/" + i + ".xml").await();
+                        file.setContentsAsString("<a" + i + "/>").await();
+                        files.add(file);
+                    }
+
+                    final List<String> rootNames = List.create();
+                    XML.parseAll(files, 4, (File file, Result<XMLDocument> result) ->
+                    {
+                        rootNames.add(result.await().getRoot().getName());
+                    }).await();
+                    test.assertEqual(10, rootNames.getCount());
+                    for (int i = 0; i < 10; ++i)
+                    {
+                        final String expectedName = "a" + i;
+                        test.assertTrue(rootNames.contains(expectedName));
+                    }
+                });
+
+                runner.test("with throwing onParsed", (Test test) ->
+                {
+                    final InMemoryFileSystem fileSystem = InMemoryFileSystem.create();
+                    fileSystem.createRoot("/").await();
+                    final File file = fileSystem.getFile("/a.xml").await();
+                    file.setContentsAsString("<a/>").await();
+
+                    test.assertThrows(() -> XML.parseAll(Iterable.create(file), 1, (File parsedFile, Result<XMLDocument> result) ->
+                        {
+                            throw new NotFoundException("b");
+                        }).await(),
+                        new NotFoundException("b"));
+                });
+            });
+
+            runner.testGroup("parse(byte[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parse((byte[])null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with UTF-8 byte order mark", (Test test) ->
+                {
+                    final byte[] bytes = "\uFEFF<?xml version=\"1.0\"?><a><b>c</b></a>".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                    final XMLDocument expected = XMLDocument.create()
+                        .setDeclaration(XMLDeclaration.create().setVersion("1.0"))
+                        .setRoot(XMLElement.create("a", true).addChild(XMLElement.create("b", true).addChild(XMLText.create("c"))));
+                    test.assertEqual(expected, XML.parse(bytes).await());
+                    test.assertEqual(expected, XML.parse(java.nio.ByteBuffer.wrap(bytes)).await());
+                    test.assertEqual(expected, XML.parseLazily(bytes).await());
+                    test.assertEqual(expected, XML.parseCompact(bytes).await().toXMLDocument());
+                    test.assertEqual(expected, XML.parseParallel(bytes).await());
+                    test.assertEqual(Iterable.create(XMLElement.create("b", true).addChild(XMLText.create("c"))), XML.parseElements(bytes, Iterable.create("/a/b")).await());
+
+                    final XMLRecordIterator records = XMLRecordIterator.create(bytes);
+                    test.assertTrue(records.next());
+                    test.assertEqual("b", records.getCurrent().getName());
+
+                    final List<String> matches = List.create();
+                    XMLPathMatcher.create(Iterable.create("//b")).await().match(bytes, (String path, XMLElement element) -> matches.add(element.getName())).await();
+                    test.assertEqual(Iterable.create("b"), matches);
+                });
+            });
+
+            runner.testGroup("parse(ByteBuffer)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parse((java.nio.ByteBuffer)null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with position and limit", (Test test) ->
+                {
+                    final java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap("xyz<a/>xyz".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    bytes.position(3);
+                    bytes.limit(7);
+                    test.assertEqual(
+                        XMLDocument.create()
+                            .setRoot(XMLElement.create("a")),
+                        XML.parse(bytes).await());
+                    test.assertEqual(3, bytes.position());
+                });
+            });
+
+            runner.testGroup("parse(char[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parse((char[])null),
+                        new PreConditionFailure("characters cannot be null."));
+                });
+            });
+
+            runner.testGroup("parse(CharSequence)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parse((CharSequence)null),
+                        new PreConditionFailure("characters cannot be null."));
+                });
+
+                runner.test("with StringBuilder", (Test test) ->
+                {
+                    test.assertEqual(
+                        XMLDocument.create()
+                            .setRoot(XMLElement.create("a")
+                                .setAttribute("b", "c")
+                                .addChild(XMLText.create("d"))),
+                        XML.parse(new StringBuilder("<a b=\"c\">d</a>")).await());
+                });
+            });
+
+            runner.testGroup("parseElements(String,Iterable<String>)", () ->
+            {
+                runner.test("with null text", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseElements((String)null, Iterable.create("/a")),
+                        new PreConditionFailure("text cannot be null."));
+                });
+
+                runner.test("with null paths", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseElements("<a/>", null),
+                        new PreConditionFailure("paths cannot be null."));
+                });
+
+                final Action3<String,Iterable<String>,Throwable> parseElementsErrorTest = (String text, Iterable<String> paths, Throwable expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text) + " and " + English.andList(paths.map(Strings::escapeAndQuote)), (Test test) ->
+                    {
+                        test.assertThrows(() -> XML.parseElements(text, paths).await(), expected);
+                        test.assertThrows(() -> XML.parseElements(text.getBytes(java.nio.charset.StandardCharsets.UTF_8), paths).await(), expected);
+                    });
+                };
+
+                parseElementsErrorTest.run("<a/>", Iterable.create("a"), new ParseException("Expected element path \"a\" to start with '/'."));
+                parseElementsErrorTest.run("<a/>", Iterable.create(""), new ParseException("Expected element path \"\" to start with '/'."));
+                parseElementsErrorTest.run("<a/>", Iterable.create("/"), new ParseException("Expected element name or '*' at index 1 of element path \"/\"."));
+                parseElementsErrorTest.run("<a/>", Iterable.create("/a/"), new ParseException("Expected element name or '*' at index 3 of element path \"/a/\"."));
+                parseElementsErrorTest.run("<a/>", Iterable.create("///a"), new ParseException("Expected element name or '*' at index 2 of element path \"///a\"."));
+                parseElementsErrorTest.run("<a/>", Iterable.create("/a b"), new ParseException("Expected element name or '*' at index 1 of element path \"/a b\"."));
+                parseElementsErrorTest.run("<a><b></a>", Iterable.create("/a/c"), new ParseException("Expected an end tag with the name same as the current element."));
+                parseElementsErrorTest.run("<a><b><c></b></a>", Iterable.create("/a/b"), new ParseException("Expected an end tag with the name same as the current element."));
+                parseElementsErrorTest.run("<a/><b/>", Iterable.create("/a"), new ParseException("An XML document can only have one root element."));
+
+                final Action3<String,Iterable<String>,Iterable<XMLElement>> parseElementsTest = (String text, Iterable<String> paths, Iterable<XMLElement> expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text) + " and " + English.andList(paths.map(Strings::escapeAndQuote)), (Test test) ->
+                    {
+                        test.assertEqual(expected, XML.parseElements(text, paths).await());
+                        test.assertEqual(expected, XML.parseElements(text.getBytes(java.nio.charset.StandardCharsets.UTF_8), paths).await());
+                    });
+                };
+
+                final String feed =
+                    "<feed>" +
+                        "<title>t</title>" +
+                        "<entry><id>1</id><price>5</price><!-- c --></entry>" +
+                        "<entry x='y'><id>2</id><details><price>6</price></details></entry>" +
+                    "</feed>";
+                parseElementsTest.run("", Iterable.create("/a"), Iterable.create());
+                parseElementsTest.run("<a/>", Iterable.create(), Iterable.create());
+                parseElementsTest.run("<a/>", Iterable.create("/b"), Iterable.create());
+                parseElementsTest.run("<a/>", Iterable.create("/a"), Iterable.create(XMLElement.create("a")));
+                parseElementsTest.run("<a/>", Iterable.create("/*"), Iterable.create(XMLElement.create("a")));
+                parseElementsTest.run("<a/>", Iterable.create("//a"), Iterable.create(XMLElement.create("a")));
+                parseElementsTest.run(feed, Iterable.create("/feed/entry/id"),
+                    Iterable.create(
+                        XMLElement.create("id", true).addChild(XMLText.create("1")),
+                        XMLElement.create("id", true).addChild(XMLText.create("2"))));
+                parseElementsTest.run(feed, Iterable.create("//price"),
+                    Iterable.create(
+                        XMLElement.create("price", true).addChild(XMLText.create("5")),
+                        XMLElement.create("price", true).addChild(XMLText.create("6"))));
+                parseElementsTest.run(feed, Iterable.create("/feed/entry/price"),
+                    Iterable.create(
+                        XMLElement.create("price", true).addChild(XMLText.create("5"))));
+                parseElementsTest.run(feed, Iterable.create("/feed//price", "/feed/title"),
+                    Iterable.create(
+                        XMLElement.create("title", true).addChild(XMLText.create("t")),
+                        XMLElement.create("price", true).addChild(XMLText.create("5")),
+                        XMLElement.create("price", true).addChild(XMLText.create("6"))));
+                parseElementsTest.run(feed, Iterable.create("/feed/*/id"),
+                    Iterable.create(
+                        XMLElement.create("id", true).addChild(XMLText.create("1")),
+                        XMLElement.create("id", true).addChild(XMLText.create("2"))));
+                parseElementsTest.run(feed, Iterable.create("//entry", "//id"),
+                    Iterable.create(
+                        XMLElement.create("entry", true)
+                            .addChild(XMLElement.create("id", true).addChild(XMLText.create("1")))
+                            .addChild(XMLElement.create("price", true).addChild(XMLText.create("5"))),
+                        XMLElement.create("entry", true)
+                            .setAttribute("x", "y")
+                            .addChild(XMLElement.create("id", true).addChild(XMLText.create("2")))
+                            .addChild(XMLElement.create("details", true)
+                                .addChild(XMLElement.create("price", true).addChild(XMLText.create("6"))))));
+                parseElementsTest.run("<a><a><a/></a></a>", Iterable.create("/a/a"),
+                    Iterable.create(XMLElement.create("a", true).addChild(XMLElement.create("a"))));
+                parseElementsTest.run("<a><b><a><c/></a></b></a>", Iterable.create("//a//c"),
+                    Iterable.create(XMLElement.create("c")));
+            });
+
+            runner.testGroup("parseLazily(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseLazily((String)null),
+                        new PreConditionFailure("text cannot be null."));
+                });
+
+                final Action1<String> parseLazilyTest = (String text) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        final XMLDocument expected = XML.parse(text).await();
+                        test.assertEqual(expected, XML.parseLazily(text).await());
+                        test.assertEqual(expected, XML.parseLazily(text.toCharArray()).await());
+                        test.assertEqual(expected, XML.parseLazily(text.getBytes(java.nio.charset.StandardCharsets.UTF_8)).await());
+                        test.assertEqual(expected.toString(), XML.parseLazily(text).await().toString());
+                    });
+                };
+
+                parseLazilyTest.run("");
+                parseLazilyTest.run("<?xml version=\"1.0\"?>");
+                parseLazilyTest.run("<a/>");
+                parseLazilyTest.run("<a></a>");
+                parseLazilyTest.run("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<a b='c' d=\"e\"/>\n");
+                parseLazilyTest.run("<!--x--><a> <b>c</b><![CDATA[d]]><!--e--> f <g h='i'><j/><k>l<m/>n</k></g></a><!--o-->");
+                parseLazilyTest.run("<\u00E9 \u00E4='\u00F6'><\uD83D\uDE00>\u00FC</\uD83D\uDE00></\u00E9>");
+
+                final Action2<String,Throwable> parseLazilyErrorTest = (String text, Throwable expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        test.assertThrows(() -> XML.parseLazily(text).await(), expected);
+                        test.assertThrows(() -> XML.parseLazily(text.getBytes(java.nio.charset.StandardCharsets.UTF_8)).await(), expected);
+                    });
+                };
+
+                parseLazilyErrorTest.run("<a>", new ParseException("Missing end tag."));
+                parseLazilyErrorTest.run("<a><b c=d/></a>", new ParseException("Expected start tag attribute value quoted string start quote character (' or \")."));
+                parseLazilyErrorTest.run("<a><b></c></a>", new ParseException("Expected an end tag with the name same as the current element."));
+                parseLazilyErrorTest.run("<a/><b/>", new ParseException("An XML document can only have one root element."));
+
+                runner.test("with elements that are changed before they are read", (Test test) ->
+                {
+                    final XMLDocument document = XML.parseLazily("<a b='c'><d>e</d><f/></a>").await();
+                    final XMLElement root = document.getRoot();
+                    test.assertEqual("a", root.getName());
+                    test.assertTrue(root.isSplit());
+
+                    root.addChild(XMLElement.create("g"));
+                    root.setAttribute("h", "i");
+                    test.assertEqual(
+                        XMLElement.create("a")
+                            .setAttribute("b", "c")
+                            .setAttribute("h", "i")
+                            .addChild(XMLElement.create("d")
+                                .addChild(XMLText.create("e")))
+                            .addChild(XMLElement.create("f"))
+                            .addChild(XMLElement.create("g")),
+                        root);
+                });
+
+                runner.test("with a single element that is read", (Test test) ->
+                {
+                    final XMLDocument document = XML.parseLazily("<feed><entry id='1'><title>A</title></entry><entry id='2'><title>B</title></entry></feed>").await();
+                    final XMLElement secondEntry = (XMLElement)document.getRoot().getChildren().get(1);
+                    test.assertEqual("2", secondEntry.getAttributeValue("id").await());
+                    test.assertEqual("B", secondEntry.getText());
+                });
+
+                runner.test("with deeply nested elements", (Test test) ->
+                {
+                    final int depth = 10000;
+                    final CharacterList text = CharacterList.create();
+                    for (int i = 0; i < depth; ++i)
+                    {
+                        text.addAll("<a>");
+                    }
+                    text.addAll("b");
+                    for (int i = 0; i < depth; ++i)
+                    {
+                        text.addAll("</a>");
+                    }
+
+                    final XMLElement root = XML.parseLazily(text.toString(true)).await().getRoot();
+                    test.assertEqual("b", root.getText());
+                    test.assertEqual(XMLElementTests.createNestedElements(depth - 1), root.getElementChildren().first());
+                });
+            });
+
+            runner.testGroup("parseCompact(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseCompact((String)null),
+                        new PreConditionFailure("text cannot be null."));
+                });
+
+                runner.test("with error", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseCompact("<a>").await(),
+                        new ParseException("Missing end tag."));
+                });
+
+                runner.test("with document", (Test test) ->
+                {
+                    final String text = "<?xml version=\"1.0\"?><a b=\"c\">d<e><![CDATA[f]]></e></a>";
+                    test.assertEqual(XML.parse(text).await(), XML.parseCompact(text).await().toXMLDocument());
+                });
+            });
+
+            runner.testGroup("parseCompact(byte[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseCompact((byte[])null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with document", (Test test) ->
+                {
+                    final String text = "<a b=\"é\">中<c/></a>";
+                    test.assertEqual(XML.parse(text).await(), XML.parseCompact(text.getBytes(java.nio.charset.StandardCharsets.UTF_8)).await().toXMLDocument());
+                });
+            });
+
+            runner.testGroup("parseCompact(ByteBuffer)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseCompact((java.nio.ByteBuffer)null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with position and limit", (Test test) ->
+                {
+                    final java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap("xx<a>b</a>yy".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    bytes.position(2);
+                    bytes.limit(10);
+                    test.assertEqual(
+                        XMLDocument.create()
+                            .setRoot(XMLElement.create("a", true)
+                                .addChild(XMLText.create("b"))),
+                        XML.parseCompact(bytes).await().toXMLDocument());
+                    test.assertEqual(2, bytes.position());
+                });
+            });
+
+            runner.testGroup("parseParallel(byte[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseParallel((byte[])null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with many root children", (Test test) ->
+                {
+                    final StringBuilder text = new StringBuilder("<?xml version=\"1.0\"?><items count='5000'>");
+                    for (int i = 0; i < 5000; ++i)
+                    {
+                        text.append("<item id='").append(i).append("'><!-- > --><name>Item ").append(i).append("</name></item>\n");
+                    }
+                    text.append("</items>");
+                    final byte[] bytes = text.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+
+                    test.assertEqual(XML.parse(bytes).await(), XML.parseParallel(bytes).await());
+                });
+            });
+
+            runner.testGroup("parseParallel(ByteBuffer,ForkJoinPool)", () ->
+            {
+                runner.test("with null bytes", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseParallel(null, java.util.concurrent.ForkJoinPool.commonPool()),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with null pool", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseParallel(java.nio.ByteBuffer.wrap(new byte[0]), null),
+                        new PreConditionFailure("pool cannot be null."));
+                });
+            });
+
+            runner.testGroup("parse(String,XMLHandler)", () ->
+            {
+                runner.test("with null text", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parse((String)null, new XMLHandler() {}),
+                        new PreConditionFailure("text cannot be null."));
+                });
+
+                runner.test("with null handler", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parse("<a/>", (XMLHandler)null),
+                        new PreConditionFailure("handler cannot be null."));
+                });
+
+                final Action2<String,String> parseTest = (String text, String expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        final CharacterList events = CharacterList.create();
+                        XML.parse(text, XMLTests.recordEvents(events)).await();
+                        test.assertEqual(expected, events.toString(true));
+
+                        final CharacterList charactersEvents = CharacterList.create();
+                        XML.parse(text.toCharArray(), XMLTests.recordEvents(charactersEvents)).await();
+                        test.assertEqual(expected, charactersEvents.toString(true));
+
+                        final CharacterList bytesEvents = CharacterList.create();
+                        XML.parse(text.getBytes(java.nio.charset.StandardCharsets.UTF_8), XMLTests.recordEvents(bytesEvents)).await();
+                        test.assertEqual(expected, bytesEvents.toString(true));
+                    });
+                };
+
+                parseTest.run("", "");
+                parseTest.run("<a/>", "startElement(a) endElement(a)");
+                parseTest.run(
+                    "<?xml version=\"1.0\"?>\n<a b=\"c\" d='e'></a>",
+                    "declaration(<?xml version=\"1.0\"?>) startElement(a,b=c,d=e) endElement(a)");
+                parseTest.run(
+                    "<!--x--><a> <b>c</b><![CDATA[d]]><!--e--></a>",
+                    "comment(x) startElement(a) text( ) startElement(b) text(c) endElement(b) cdata(d) comment(e) endElement(a)");
+                parseTest.run(
+                    "<\u00E9 \u00E4='\u00F6'>\u00FC</\u00E9>",
+                    "startElement(\u00E9,\u00E4=\u00F6) text(\u00FC) endElement(\u00E9)");
+
+                final Action2<String,String> skipCommentsAndWhitespaceTest = (String text, String expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text) + " when skipping comments and whitespace", (Test test) ->
+                    {
+                        final CharacterList events = CharacterList.create();
+                        XML.parse(text, XMLTests.recordEvents(events, true)).await();
+                        test.assertEqual(expected, events.toString(true));
+
+                        final CharacterList bytesEvents = CharacterList.create();
+                        XML.parse(text.getBytes(java.nio.charset.StandardCharsets.UTF_8), XMLTests.recordEvents(bytesEvents, true)).await();
+                        test.assertEqual(expected, bytesEvents.toString(true));
+                    });
+                };
+
+                skipCommentsAndWhitespaceTest.run("<!--x--><a/><!--y-->", "startElement(a) endElement(a)");
+                skipCommentsAndWhitespaceTest.run(
+                    "<!--x--><a>\n  <b>c</b>\n  <![CDATA[ ]]><!--e-->\n</a>",
+                    "startElement(a) startElement(b) text(c) endElement(b) cdata( ) endElement(a)");
+                skipCommentsAndWhitespaceTest.run(
+                    "<a> b <!-- c --> d </a>",
+                    "startElement(a) text( b ) text( d ) endElement(a)");
+
+                runner.test("with malformed comment when skipping comments and whitespace", (Test test) ->
+                {
+                    final CharacterList events = CharacterList.create();
+                    test.assertThrows(() -> XML.parse("<a><!-- b -></a>", XMLTests.recordEvents(events, true)).await(),
+                        new ParseException("Missing comment first right dash ('-')."));
+                    test.assertEqual("startElement(a)", events.toString(true));
+                });
+
+                runner.test("with error after events", (Test test) ->
+                {
+                    final CharacterList events = CharacterList.create();
+                    test.assertThrows(() -> XML.parse("<a><b/>", XMLTests.recordEvents(events)).await(),
+                        new ParseException("Missing end tag."));
+                    test.assertEqual("startElement(a) startElement(b) endElement(b)", events.toString(true));
+                });
+
+                runner.test("with attributes that are read by name", (Test test) ->
+                {
+                    final List<String> values = List.create();
+                    XML.parse("<a id='1'><b id='2' x='y'/><b/></a>", new XMLHandler()
+                    {
+                        @Override
+                        public void startElement(String name, XMLAttributes attributes)
+                        {
+                            values.add(attributes.getValue("id").catchError(NotFoundException.class, () -> "none").await());
+                        }
+                    }).await();
+                    test.assertEqual(List.create("1", "2", "none"), values);
+                });
+            });
+
+            runner.testGroup("parse(Iterable<Character>)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parse((Iterable<Character>)null),
+                        new PreConditionFailure("characters cannot be null."));
+                });
+            });
+
+            runner.testGroup("parseAttribute(Iterator<Character>,String,String)", () ->
+            {
+                final Action4<String,String,String,XMLAttribute> parseAttributeTest = (String text, String expectedAttributeName, String attributeDescription, XMLAttribute expected) ->
+                {
+                    runner.test("with " + English.andList(Iterable.create(text, expectedAttributeName, attributeDescription).map(Strings::escapeAndQuote)), (Test test) ->
+                    {
+                        final Iterator<Character> characters = Strings.iterable(text).iterate();
+                        test.assertEqual(expected, XML.parseAttribute(characters, expectedAttributeName, attributeDescription).await());
+                        test.assertFalse(characters.hasCurrent());
+                    });
+                };
+
+                parseAttributeTest.run("a='b'", "", "start tag", XMLAttribute.create("a", "b", '\''));
+                parseAttributeTest.run("a = \"\"", "", "", XMLAttribute.create("a", "", '\"'));
+                parseAttributeTest.run("version='1.0'", "version", "declaration version", XMLAttribute.create("version", "1.0", '\''));
+
+                final Action4<String,String,String,Throwable> parseAttributeErrorTest = (String text, String expectedAttributeName, String attributeDescription, Throwable expected) ->
+                {
+                    runner.test("with " + English.andList(Iterable.create(text, expectedAttributeName, attributeDescription).map(Strings::escapeAndQuote)), (Test test) ->
+                    {
+                        test.assertThrows(() -> XML.parseAttribute(Strings.iterable(text).iterate(), expectedAttributeName, attributeDescription).await(), expected);
+                    });
+                };
+
+                parseAttributeErrorTest.run("", "", "start tag", new ParseException("Missing start tag attribute name start character."));
+                parseAttributeErrorTest.run("=", "", "", new ParseException("Expected attribute name start character."));
+                parseAttributeErrorTest.run("a", "", "start tag", new ParseException("Missing start tag attribute equals sign ('=')."));
+                parseAttributeErrorTest.run("a=b", "", "start tag", new ParseException("Expected start tag attribute value quoted string start quote character (' or \")."));
+                parseAttributeErrorTest.run("a='b", "", "start tag", new ParseException("Missing start tag attribute value quoted string end quote character (')."));
+                parseAttributeErrorTest.run("a='b'", "version", "declaration version", new ParseException("Expected declaration version attribute."));
+            });
+
+            runner.testGroup("parseQuotedString(Iterator<Character>,String)", () ->
+            {
+                runner.test("with single quotes", (Test test) ->
+                {
+                    test.assertEqual("'a\"b'", XML.parseQuotedString(Strings.iterable("'a\"b' c").iterate(), "value").await());
+                });
+
+                runner.test("with double quotes", (Test test) ->
+                {
+                    test.assertEqual("\"\"", XML.parseQuotedString(Strings.iterable("\"\"").iterate(), "").await());
+                });
+
+                runner.test("with missing end quote", (Test test) ->
+                {
+                    test.assertThrows(() -> XML.parseQuotedString(Strings.iterable("\"a").iterate(), "value").await(),
+                        new ParseException("Missing value quoted string end quote character (\")."));
+                });
             });
 
             runner.testGroup("parse(String)", () ->
@@ -71,6 +910,12 @@ public interface XMLTests
                     runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
                     {
                         test.assertThrows(() -> XML.parse(text).await(), expected);
+                        if (text != null)
+                        {
+                            test.assertThrows(() -> XML.parse(text.toCharArray()).await(), expected);
+                            test.assertThrows(() -> XML.parse(text.getBytes(java.nio.charset.StandardCharsets.UTF_8)).await(), expected);
+                            test.assertThrows(() -> XML.parse(Strings.iterable(text)).await(), expected);
+                        }
                     });
                 };
 
@@ -198,6 +1043,9 @@ public interface XMLTests
                     runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
                     {
                         test.assertEqual(expected, XML.parse(text).await());
+                        test.assertEqual(expected, XML.parse(text.toCharArray()).await());
+                        test.assertEqual(expected, XML.parse(text.getBytes(java.nio.charset.StandardCharsets.UTF_8)).await());
+                        test.assertEqual(expected, XML.parse(Strings.iterable(text)).await());
                     });
                 };
 
@@ -279,6 +1127,42 @@ public interface XMLTests
                     "<b> </b>",
                     XMLDocument.create()
                         .setRoot(XMLElement.create("b", true)));
+                parseTest.run(
+                    "<\uD800\uDC00 a\uDB7F\uDFFF='b'><c\uD83D\uDE00/></\uD800\uDC00>",
+                    XMLDocument.create()
+                        .setRoot(XMLElement.create("\uD800\uDC00")
+                            .setAttribute("a\uDB7F\uDFFF", "b")
+                            .addChild(XMLElement.create("c\uD83D\uDE00"))));
+
+                runner.test("with deeply nested elements", (Test test) ->
+                {
+                    final int depth = 100000;
+                    final CharacterList text = CharacterList.create();
+                    for (int i = 0; i < depth; ++i)
+                    {
+                        text.addAll("<a>");
+                    }
+                    text.addAll("b");
+                    for (int i = 0; i < depth; ++i)
+                    {
+                        text.addAll("</a>");
+                    }
+
+                    final XMLElement expectedRoot = XMLElement.create("a", true);
+                    XMLElement expectedElement = expectedRoot;
+                    for (int i = 1; i < depth; ++i)
+                    {
+                        final XMLElement child = XMLElement.create("a", true);
+                        expectedElement.addChild(child);
+                        expectedElement = child;
+                    }
+                    expectedElement.addChild(XMLText.create("b"));
+                    final XMLDocument expected = XMLDocument.create().setRoot(expectedRoot);
+
+                    test.assertEqual(expected, XML.parse(text.toString(true)).await());
+                    test.assertEqual(expected, XML.parse(text.toString(true).getBytes(java.nio.charset.StandardCharsets.UTF_8)).await());
+                    test.assertEqual(expected, XML.parse(Strings.iterable(text.toString(true))).await());
+                });
             });
 
             runner.testGroup("isWhitespaceCharacter(char)", () ->
@@ -444,6 +1328,119 @@ public interface XMLTests
                 isNameCharacterTest.run((char)0xFFFE, false);
                 isNameCharacterTest.run((char)0xFFFF, false);
             });
+
+            runner.testGroup("isNameStartCodePoint(int)", () ->
+            {
+                final Action2<Integer,Boolean> isNameStartCodePointTest = (Integer codePoint, Boolean expected) ->
+                {
+                    runner.test("with 0x" + Integers.toHexString(codePoint, true), (Test test) ->
+                    {
+                        test.assertEqual(expected, XML.isNameStartCodePoint(codePoint));
+                    });
+                };
+
+                isNameStartCodePointTest.run(-1, false);
+                isNameStartCodePointTest.run((int)'a', true);
+                isNameStartCodePointTest.run((int)'0', false);
+                isNameStartCodePointTest.run(0xD800, false);
+                isNameStartCodePointTest.run(0xFFFD, true);
+                isNameStartCodePointTest.run(0xFFFF, false);
+                isNameStartCodePointTest.run(0x10000, true);
+                isNameStartCodePointTest.run(0x1F600, true);
+                isNameStartCodePointTest.run(0xEFFFF, true);
+                isNameStartCodePointTest.run(0xF0000, false);
+                isNameStartCodePointTest.run(0x10FFFF, false);
+            });
+
+            runner.testGroup("isNameCodePoint(int)", () ->
+            {
+                final Action2<Integer,Boolean> isNameCodePointTest = (Integer codePoint, Boolean expected) ->
+                {
+                    runner.test("with 0x" + Integers.toHexString(codePoint, true), (Test test) ->
+                    {
+                        test.assertEqual(expected, XML.isNameCodePoint(codePoint));
+                    });
+                };
+
+                isNameCodePointTest.run(-1, false);
+                isNameCodePointTest.run((int)'a', true);
+                isNameCodePointTest.run((int)'0', true);
+                isNameCodePointTest.run(0x00B7, true);
+                isNameCodePointTest.run(0xD800, false);
+                isNameCodePointTest.run(0xFFFF, false);
+                isNameCodePointTest.run(0x10000, true);
+                isNameCodePointTest.run(0xEFFFF, true);
+                isNameCodePointTest.run(0xF0000, false);
+                isNameCodePointTest.run(0x10FFFF, false);
+            });
         });
     }
+
+    static XMLHandler recordEvents(CharacterList events)
+    {
+        return XMLTests.recordEvents(events, false);
+    }
+
+    static XMLHandler recordEvents(CharacterList events, boolean skipCommentsAndWhitespace)
+    {
+        return new XMLHandler()
+        {
+            private void record(String eventName, String details)
+            {
+                if (events.any())
+                {
+                    events.add(' ');
+                }
+                events.addAll(eventName).add('(').addAll(details).add(')');
+            }
+
+            @Override
+            public void declaration(XMLDeclaration declaration)
+            {
+                this.record("declaration", declaration.toString());
+            }
+
+            @Override
+            public void startElement(String name, XMLAttributes attributes)
+            {
+                final CharacterList details = CharacterList.create();
+                details.addAll(name);
+                for (int i = 0; i < attributes.getCount(); ++i)
+                {
+                    details.add(',').addAll(attributes.getName(i)).add('=').addAll(attributes.getValue(i));
+                }
+                this.record("startElement", details.toString(true));
+            }
+
+            @Override
+            public void text(String text)
+            {
+                this.record("text", text);
+            }
+
+            @Override
+            public void cdata(String text)
+            {
+                this.record("cdata", text);
+            }
+
+            @Override
+            public void comment(String text)
+            {
+                this.record("comment", text);
+            }
+
+            @Override
+            public void endElement(String name)
+            {
+                this.record("endElement", name);
+            }
+
+            @Override
+            public boolean skipCommentsAndWhitespace()
+            {
+                return skipCommentsAndWhitespace;
+            }
+        };
+    }
 }
@@ -39,6 +39,28 @@ public interface XMLTextTests
                 createTest.run(" a ");
             });
 
+            runner.testGroup("create(CharSequence,boolean)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLText.create((CharSequence)null, false),
+                        new PreConditionFailure("text cannot be null."));
+                });
+
+                runner.test("with empty", (Test test) ->
+                {
+                    test.assertThrows(() -> XMLText.create(new StringBuilder(), false),
+                        new PreConditionFailure("text.length() (0) must be greater than 0."));
+                });
+
+                runner.test("with non-empty", (Test test) ->
+                {
+                    final XMLText xmlText = XMLText.create(new StringBuilder("a"), false);
+                    test.assertEqual("a", xmlText.getText());
+                    test.assertFalse(xmlText.isWhitespace());
+                });
+            });
+
 
 
             runner.testGroup("toString()", () ->